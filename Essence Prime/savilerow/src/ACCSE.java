@@ -82,7 +82,8 @@ public class ACCSE
         
         //System.out.println("Initial hashtable size:"+exp.size());
         
-        while( ! exp.isEmpty() ) {
+        //  Stopping early is safe: the CSEs done so far are complete.
+        while( ! exp.isEmpty() && !TimeBudget.exceeded(TimeBudget.CSE)) {
             
             // Take any pair out of the hashmap and process it.
             // It is safe to take the pair out, because CSE will never re-introduce a pair
@@ -67,7 +67,8 @@ public class ACCSEActiveSum2
         populate_exp(m.constraints);
         ArrayList<ASTNode> new_constraints=new ArrayList<ASTNode>();
         
-        while( ! exp.isEmpty() ) {
+        //  Stopping early is safe: the CSEs done so far are complete.
+        while( ! exp.isEmpty() && !TimeBudget.exceeded(TimeBudget.CSE)) {
             PairASTNode key=heuristic();
             
             if(exp.isEmpty()) {
@@ -59,12 +59,23 @@ public class AMODetect {
     
     public static void addAMOSection(BufferedWriter b, Model m) throws IOException {
         assert CmdFlags.amo_detect_strong;
-        // Scan constraints for AMOPB
         b.append("**MUTEXDETECT**\n");
-        
+        b.append("[");
+        for(Pair<Pair<ASTNode,ASTNode>,Pair<Boolean,Boolean>> pstore : collectMutexCandidates(m)) {
+            b.append(pstore.getFirst().getFirst().toString());
+            b.append(pstore.getSecond().getFirst()?",1,":",0,");
+            b.append(pstore.getFirst().getSecond().toString());
+            b.append(pstore.getSecond().getSecond()?",1,":",0,");
+        }
+        b.append("]\n");
+    }
+    
+    //  Scan constraints for AMOPB and add the pairs of literals to be tested to mutexDetect.
+    //  Returns the new pairs in the order they were added. 
+    public static ArrayList<Pair<Pair<ASTNode,ASTNode>,Pair<Boolean,Boolean>>> collectMutexCandidates(Model m) {
         HashSet<Pair<Pair<ASTNode,ASTNode>,Pair<Boolean,Boolean>>> hs=new HashSet<>();
+        ArrayList<Pair<Pair<ASTNode,ASTNode>,Pair<Boolean,Boolean>>> newpairs=new ArrayList<>();
         
-        b.append("[");
         ArrayList<ASTNode> ct=m.constraints.getChildren();
         
         while(ct.size()>0) {
@@ -96,22 +107,7 @@ public class AMODetect {
                                 if(! hs.contains(pstore)) {
                                     hs.add(pstore);
                                     mutexDetect.add(pstore);   //  Add to the global list of potential mutexes to test
-                                    
-                                    if(c1 instanceof Negate) {
-                                        b.append(c1.getChild(0).toString());
-                                    }
-                                    else {
-                                        b.append(c1.toString());
-                                    }
-                                    b.append(signc1?",1,":",0,");
-                                    
-                                    if(c2 instanceof Negate) {
-                                        b.append(c2.getChild(0).toString());
-                                    }
-                                    else {
-                                        b.append(c2.toString());
-                                    }
-                                    b.append(signc2?",1,":",0,");
+                                    newpairs.add(pstore);
                                 }
                             }
                         }
@@ -122,7 +118,7 @@ public class AMODetect {
                 ct.addAll(curnode.getChildren());
             }
         }
-        b.append("]\n");
+        return newpairs;
     }
     
     public static int add_variable_amo(String v) {
@@ -161,7 +157,7 @@ public class AMODetect {
         ASTNode c2=p.getFirst().getSecond();
         
         boolean c1sign=p.getSecond().getFirst();
-        boolean c2sign=p.getSecond().getFirst();
+        boolean c2sign=p.getSecond().getSecond();
         
         //  Add the two variables
         int c1idx=add_variable_amo(c1.toString());
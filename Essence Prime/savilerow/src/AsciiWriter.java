@@ -0,0 +1,116 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.io.*;
+
+//  BufferedWriter that encodes straight into a byte array and writes it to an
+//  OutputStream, without going through a char buffer and CharsetEncoder. Used
+//  for Minion output, which is almost entirely ASCII. Other characters are
+//  written as UTF-8. 
+
+public class AsciiWriter extends BufferedWriter {
+    private final OutputStream out;
+    private final byte[] buf;
+    private int pos;
+    
+    public AsciiWriter(OutputStream _out) {
+        super(new CharArrayWriter(0), 1);    //  Never written to.
+        out=_out;
+        buf=new byte[1<<16];
+    }
+    
+    public void write(int c) throws IOException {
+        if(c<128) {
+            if(pos==buf.length) {
+                flushBuffer();
+            }
+            buf[pos++]=(byte)c;
+        }
+        else {
+            writeNonAscii(String.valueOf((char)c));
+        }
+    }
+    
+    public void write(String s, int off, int len) throws IOException {
+        int end=off+len;
+        for(int i=off; i<end; i++) {
+            char c=s.charAt(i);
+            if(c>=128) {
+                //  Rare: encode the remainder of the string properly.
+                writeNonAscii(s.substring(i, end));
+                return;
+            }
+            if(pos==buf.length) {
+                flushBuffer();
+            }
+            buf[pos++]=(byte)c;
+        }
+    }
+    
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        write(new String(cbuf, off, len), 0, len);
+    }
+    
+    public Writer append(CharSequence csq) throws IOException {
+        String s=String.valueOf(csq);
+        write(s, 0, s.length());
+        return this;
+    }
+    
+    public Writer append(CharSequence csq, int start, int end) throws IOException {
+        String s=String.valueOf(csq);
+        write(s, start, end-start);
+        return this;
+    }
+    
+    public Writer append(char c) throws IOException {
+        write(c);
+        return this;
+    }
+    
+    public void newLine() throws IOException {
+        write(System.lineSeparator());
+    }
+    
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+    
+    public void close() throws IOException {
+        flushBuffer();
+        out.close();
+    }
+    
+    private void writeNonAscii(String s) throws IOException {
+        flushBuffer();
+        out.write(s.getBytes("UTF-8"));
+    }
+    
+    private void flushBuffer() throws IOException {
+        if(pos>0) {
+            out.write(buf, 0, pos);
+            pos=0;
+        }
+    }
+}
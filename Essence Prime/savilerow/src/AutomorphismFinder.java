@@ -0,0 +1,525 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+//  Finds generators of the automorphism group of a vertex-coloured graph, in
+//  the style of nauty: ordered partitions refined to equitable partitions,
+//  individualisation of vertices in the first non-singleton cell, and a first
+//  path through the search tree. For each level of the first path (deepest
+//  first), each vertex of the target cell that is not already in the orbit of
+//  the first-path vertex is tried, searching below it for a leaf that maps
+//  onto the first leaf. Orbits of the generators found so far prune the
+//  candidates. Every generator returned is verified to be an automorphism;
+//  if the time limit is reached the set may be incomplete.
+//
+//  The graph is given in compressed form: the neighbours of v are
+//  adj[adjStart[v]] .. adj[adjStart[v+1]-1]. Repeated edges are allowed and
+//  are counted.
+
+public class AutomorphismFinder {
+    private final int n;
+    private final int[] colour;
+    private final int[] adjStart;
+    private final int[] adj;
+    
+    //  Working partition.
+    private int[] elems;     //  Vertices in cell order.
+    private int[] pos;       //  Position of each vertex in elems.
+    private int[] cellOf;    //  Start position of the cell containing each vertex.
+    private int[] cellEnd;   //  For each cell start position, its end (exclusive).
+    private int numCells;
+    
+    //  Scratch space for refinement.
+    private int[] count;
+    private int[] touched;
+    private int numTouched;
+    private int[] touchedCells;
+    private boolean[] cellTouched;
+    private boolean[] inQueue;
+    private int[] queue;
+    private long[] sortBuf;
+    private int[] moved;
+    private int[] mark;
+    
+    //  First path: the vertex individualised at each level, the target cell
+    //  start, and the shape of the partition after refinement.
+    private int[] firstVertex;
+    private int[] firstTarget;
+    private long[] firstShape;
+    private int depth;
+    private int[] firstLeaf;
+    
+    //  Saved partitions along the first path, while memory allows.
+    private ArrayList<int[]> savedElems;
+    private ArrayList<int[]> savedEnds;
+    private long savedInts;
+    private final long maxSavedInts;
+    
+    private int[] orbit;     //  Union-find over vertices.
+    
+    private long deadline;
+    private boolean timedOut;
+    private boolean cut;     //  Set when a subtree search was not exhaustive.
+    private long nodes;
+    
+    public AutomorphismFinder(int _n, int[] _colour, int[] _adjStart, int[] _adj) {
+        n=_n;
+        colour=_colour;
+        adjStart=_adjStart;
+        adj=_adj;
+        //  Allow saved partitions to use about an eighth of the heap.
+        maxSavedInts=Runtime.getRuntime().maxMemory()/32;
+    }
+    
+    public boolean timedOut() {
+        return timedOut;
+    }
+    
+    public long getNodes() {
+        return nodes;
+    }
+    
+    //  Returns a list of permutations of the vertices (g[v] is the image of v)
+    //  generating the automorphism group, or a subgroup of it if the time
+    //  limit was reached.
+    public ArrayList<int[]> findGenerators(long timeLimitMillis) {
+        deadline=System.currentTimeMillis()+timeLimitMillis;
+        timedOut=false;
+        nodes=0;
+        ArrayList<int[]> gens=new ArrayList<int[]>();
+        if(n==0) {
+            return gens;
+        }
+        
+        count=new int[n];
+        touched=new int[n];
+        touchedCells=new int[n];
+        cellTouched=new boolean[n];
+        inQueue=new boolean[n];
+        queue=new int[n];
+        sortBuf=new long[n];
+        moved=new int[n];
+        mark=new int[n];
+        orbit=new int[n];
+        for(int i=0; i<n; i++) {
+            orbit[i]=i;
+        }
+        
+        initialPartition();
+        
+        //  Follow the first path down to a leaf.
+        firstVertex=new int[16];
+        firstTarget=new int[16];
+        firstShape=new long[16];
+        savedElems=new ArrayList<int[]>();
+        savedEnds=new ArrayList<int[]>();
+        savedInts=0;
+        depth=0;
+        while(numCells<n) {
+            if(depth==firstVertex.length) {
+                firstVertex=Arrays.copyOf(firstVertex, depth*2);
+                firstTarget=Arrays.copyOf(firstTarget, depth*2);
+                firstShape=Arrays.copyOf(firstShape, depth*2);
+            }
+            if(savedInts+2L*n<=maxSavedInts) {
+                savedElems.add(elems.clone());
+                savedEnds.add(cellEnd.clone());
+                savedInts+=2L*n;
+            }
+            int t=targetCell();
+            firstTarget[depth]=t;
+            firstVertex[depth]=elems[t];
+            individualise(elems[t]);
+            firstShape[depth]=shape();
+            depth++;
+            if(checkTime()) {
+                return gens;
+            }
+        }
+        firstLeaf=elems.clone();
+        
+        //  Search for automorphisms mapping each first-path vertex to others in
+        //  its target cell, deepest level first.
+        for(int k=depth-1; k>=0; k--) {
+            restoreLevel(k);
+            int t=firstTarget[k];
+            int[] cell=Arrays.copyOfRange(elems, t, cellEnd[t]);
+            int[] level_elems=elems.clone();
+            int[] level_ends=cellEnd.clone();
+            HashSet<Integer> failed=new HashSet<Integer>();
+            
+            for(int w : cell) {
+                if(w==firstVertex[k] || find(w)==find(firstVertex[k]) || failed.contains(find(w))) {
+                    continue;
+                }
+                setPartition(level_elems, level_ends);
+                cut=false;
+                int[] g=searchBelow(w, k);
+                if(g!=null) {
+                    gens.add(g);
+                    for(int v=0; v<n; v++) {
+                        union(v, g[v]);
+                    }
+                }
+                else if(!timedOut && !cut) {
+                    failed.add(find(w));
+                }
+                if(timedOut) {
+                    return gens;
+                }
+            }
+        }
+        return gens;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Search below a non-first-path node.
+    
+    //  The working partition is the one at level k of the first path (before
+    //  individualising the first-path vertex). Individualise w and search the
+    //  subtree for a leaf that gives an automorphism.
+    private int[] searchBelow(int w, int k) {
+        nodes++;
+        if(checkTime()) {
+            return null;
+        }
+        individualise(w);
+        if(shape()!=firstShape[k]) {
+            return null;
+        }
+        if(numCells==n) {
+            return checkLeaf();
+        }
+        if(k+1>=depth) {
+            return null;
+        }
+        int t=targetCell();
+        if(t!=firstTarget[k+1]) {
+            return null;
+        }
+        int[] cell=Arrays.copyOfRange(elems, t, cellEnd[t]);
+        if(savedInts+2L*n>maxSavedInts) {
+            //  Out of memory for the partitions on the stack; try only the first
+            //  candidate without backtracking.
+            cut=true;
+            return searchBelow(cell[0], k+1);
+        }
+        int[] here_elems=elems.clone();
+        int[] here_ends=cellEnd.clone();
+        savedInts+=2L*n;
+        int[] res=null;
+        for(int i=0; i<cell.length && res==null && !timedOut; i++) {
+            if(i>0) {
+                setPartition(here_elems, here_ends);
+            }
+            res=searchBelow(cell[i], k+1);
+        }
+        savedInts-=2L*n;
+        return res;
+    }
+    
+    //  The working partition is discrete. Map the first leaf onto it and check
+    //  whether that is an automorphism.
+    private int[] checkLeaf() {
+        int[] g=new int[n];
+        for(int i=0; i<n; i++) {
+            g[firstLeaf[i]]=elems[i];
+        }
+        for(int v=0; v<n; v++) {
+            int gv=g[v];
+            if(colour[v]!=colour[gv] || adjStart[v+1]-adjStart[v]!=adjStart[gv+1]-adjStart[gv]) {
+                return null;
+            }
+            for(int j=adjStart[v]; j<adjStart[v+1]; j++) {
+                mark[g[adj[j]]]++;
+            }
+            boolean ok=true;
+            for(int j=adjStart[gv]; j<adjStart[gv+1]; j++) {
+                if(--mark[adj[j]]<0) {
+                    ok=false;
+                }
+            }
+            for(int j=adjStart[gv]; j<adjStart[gv+1]; j++) {
+                mark[adj[j]]=0;
+            }
+            for(int j=adjStart[v]; j<adjStart[v+1]; j++) {
+                mark[g[adj[j]]]=0;
+            }
+            if(!ok) {
+                return null;
+            }
+        }
+        return g;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Partitions
+    
+    private void initialPartition() {
+        elems=new int[n];
+        pos=new int[n];
+        cellOf=new int[n];
+        cellEnd=new int[n];
+        long[] buf=new long[n];
+        for(int v=0; v<n; v++) {
+            buf[v]=(((long)colour[v])<<32) | v;
+        }
+        Arrays.sort(buf);
+        numCells=0;
+        int start=0;
+        for(int i=0; i<n; i++) {
+            int v=(int)buf[i];
+            elems[i]=v;
+            pos[v]=i;
+            if(i>0 && (buf[i]>>>32)!=(buf[i-1]>>>32)) {
+                cellEnd[start]=i;
+                start=i;
+            }
+            cellOf[v]=start;
+        }
+        cellEnd[start]=n;
+        
+        int qlen=0;
+        for(int i=0; i<n; i=cellEnd[i]) {
+            numCells++;
+            queue[qlen++]=i;
+            inQueue[i]=true;
+        }
+        refine(qlen);
+    }
+    
+    //  First non-singleton cell.
+    private int targetCell() {
+        int i=0;
+        while(i<n && cellEnd[i]-i==1) {
+            i=cellEnd[i];
+        }
+        return i;
+    }
+    
+    //  Split v off the front of its cell and refine.
+    private void individualise(int v) {
+        int s=cellOf[v];
+        int e=cellEnd[s];
+        swap(pos[v], s);
+        cellEnd[s]=s+1;
+        if(s+1<e) {
+            cellEnd[s+1]=e;
+            for(int i=s+1; i<e; i++) {
+                cellOf[elems[i]]=s+1;
+            }
+            numCells++;
+        }
+        queue[0]=s;
+        inQueue[s]=true;
+        refine(1);
+    }
+    
+    //  Refine to an equitable partition, using the cells in the queue as
+    //  splitters. The result depends only on the partition and queue, not on
+    //  vertex numbering, so isomorphic search nodes give isomorphic partitions.
+    private void refine(int qlen) {
+        int qhead=0;
+        while(qhead<qlen) {
+            int s=queue[qhead++];
+            inQueue[s]=false;
+            int e=cellEnd[s];
+            
+            //  Count neighbours in the splitter cell.
+            numTouched=0;
+            int numTC=0;
+            for(int i=s; i<e; i++) {
+                int w=elems[i];
+                for(int j=adjStart[w]; j<adjStart[w+1]; j++) {
+                    int u=adj[j];
+                    if(count[u]++==0) {
+                        touched[numTouched++]=u;
+                        int c=cellOf[u];
+                        if(!cellTouched[c]) {
+                            cellTouched[c]=true;
+                            touchedCells[numTC++]=c;
+                        }
+                    }
+                }
+            }
+            
+            //  Split the touched cells in order of position.
+            Arrays.sort(touchedCells, 0, numTC);
+            
+            //  Group the touched vertices by cell: move each to the back of its cell.
+            for(int ti=0; ti<numTouched; ti++) {
+                int u=touched[ti];
+                int c=cellOf[u];
+                swap(pos[u], cellEnd[c]-1-moved[c]);
+                moved[c]++;
+            }
+            
+            for(int ci=0; ci<numTC; ci++) {
+                int c=touchedCells[ci];
+                int ce=cellEnd[c];
+                int nt=moved[c];
+                moved[c]=0;
+                cellTouched[c]=false;
+                
+                //  Sort the touched segment by count.
+                int ts=ce-nt;
+                for(int i=ts; i<ce; i++) {
+                    int u=elems[i];
+                    sortBuf[i]=(((long)count[u])<<32) | u;
+                }
+                Arrays.sort(sortBuf, ts, ce);
+                for(int i=ts; i<ce; i++) {
+                    int u=(int)sortBuf[i];
+                    elems[i]=u;
+                    pos[u]=i;
+                }
+                
+                //  Boundaries of the new cells.
+                int nsplit=0;
+                int largestStart=c;
+                int largestSize=-1;
+                int cur=c;
+                int i=(ts>c) ? ts : c+1;
+                if(ts>c) {
+                    //  Untouched vertices form the first cell [c, ts).
+                    cellEnd[c]=ts;
+                    largestSize=ts-c;
+                    cur=ts;
+                    nsplit++;
+                    i=ts+1;
+                }
+                for(; i<=ce; i++) {
+                    if(i==ce || count[elems[i]]!=count[elems[i-1]]) {
+                        cellEnd[cur]=i;
+                        if(cur!=c) {
+                            for(int j=cur; j<i; j++) {
+                                cellOf[elems[j]]=cur;
+                            }
+                        }
+                        if(i-cur>largestSize) {
+                            largestSize=i-cur;
+                            largestStart=cur;
+                        }
+                        nsplit++;
+                        cur=i;
+                    }
+                }
+                
+                if(nsplit>1) {
+                    numCells+=nsplit-1;
+                    //  Add the new cells to the queue. If the original cell was
+                    //  not queued, the largest part can be left out.
+                    boolean wasQueued=inQueue[c];
+                    for(int p=c; p<ce; p=cellEnd[p]) {
+                        if(!inQueue[p] && (wasQueued || p!=largestStart)) {
+                            inQueue[p]=true;
+                            if(qlen==queue.length) {
+                                //  Compact the queue.
+                                System.arraycopy(queue, qhead, queue, 0, qlen-qhead);
+                                qlen-=qhead;
+                                qhead=0;
+                            }
+                            queue[qlen++]=p;
+                        }
+                    }
+                }
+            }
+            
+            for(int ti=0; ti<numTouched; ti++) {
+                count[touched[ti]]=0;
+            }
+        }
+    }
+    
+    private void swap(int i, int j) {
+        int a=elems[i];
+        int b=elems[j];
+        elems[i]=b;
+        pos[b]=i;
+        elems[j]=a;
+        pos[a]=j;
+    }
+    
+    //  A hash of the cell boundaries.
+    private long shape() {
+        long h=numCells;
+        for(int i=0; i<n; i=cellEnd[i]) {
+            h=h*31+cellEnd[i];
+        }
+        return h;
+    }
+    
+    private void setPartition(int[] e, int[] ends) {
+        System.arraycopy(e, 0, elems, 0, n);
+        System.arraycopy(ends, 0, cellEnd, 0, n);
+        numCells=0;
+        for(int i=0; i<n; i=cellEnd[i]) {
+            numCells++;
+            for(int j=i; j<cellEnd[i]; j++) {
+                pos[elems[j]]=j;
+                cellOf[elems[j]]=i;
+            }
+        }
+    }
+    
+    //  Set the working partition to the one at level k of the first path.
+    private void restoreLevel(int k) {
+        int l=Math.min(k, savedElems.size()-1);
+        setPartition(savedElems.get(l), savedEnds.get(l));
+        for(; l<k; l++) {
+            individualise(firstVertex[l]);
+        }
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Orbits
+    
+    private int find(int v) {
+        while(orbit[v]!=v) {
+            orbit[v]=orbit[orbit[v]];
+            v=orbit[v];
+        }
+        return v;
+    }
+    
+    private void union(int a, int b) {
+        a=find(a);
+        b=find(b);
+        if(a!=b) {
+            if(a<b) {
+                orbit[b]=a;
+            }
+            else {
+                orbit[a]=b;
+            }
+        }
+    }
+    
+    private boolean checkTime() {
+        if(!timedOut && (nodes & 63)==0 && System.currentTimeMillis()>deadline) {
+            timedOut=true;
+        }
+        return timedOut;
+    }
+}
@@ -0,0 +1,347 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+
+//  Benchmark harness for Savile Row hot paths, run with
+//
+//    java -cp savilerow.jar savilerow.Benchmarks [options] model.eprime [p1.param ...] [model2.eprime ...]
+//
+//  Each .eprime file is followed by its parameter files (if any). Every
+//  benchmark is run on every instance in a fresh JVM (a fork), so that static
+//  state in CmdFlags and caches do not carry over. Within a fork there are
+//  warm-up iterations followed by measured iterations; the setup of each
+//  iteration (e.g. translating up to the phase being measured) is not timed.
+//
+//  Benchmarks:
+//    parse      EPrimeReader parsing of the model and parameter file
+//    unroll     TransformQuantifiedExpression
+//    tabulate   TabulationUtils.makeTableLong on small top-level constraints
+//    cse        CSE.flattenCSEs
+//    sat        SAT encoding and clause output (postFlattening with -sat)
+//    minion     Model.toMinion
+//
+//  Options:
+//    -bench <list>        Comma-separated benchmarks to run (default all).
+//    -warmup <n>          Warm-up iterations per fork (default 3).
+//    -iterations <n>      Measured iterations per fork (default 5).
+//    -out <file>          Also write the results as CSV.
+//    -sr "<flags>"        Extra Savile Row flags for the translation, e.g. "-O3".
+
+public final class Benchmarks {
+    private static final String[] allBenchmarks={"parse", "unroll", "tabulate", "cse", "sat", "minion"};
+    
+    //  Constraints with at most this many variables are tabulated by the tabulate benchmark.
+    private static final int tabulateMaxVars=6;
+    private static final int tabulateMaxCons=50;
+    
+    public static void main(String[] args) throws Exception {
+        if(args.length>0 && args[0].equals("-fork")) {
+            fork(args);
+            return;
+        }
+        
+        ArrayList<String> benches=new ArrayList<String>(Arrays.asList(allBenchmarks));
+        int warmup=3;
+        int iterations=5;
+        String csv=null;
+        String srflags="";
+        ArrayList<String[]> instances=new ArrayList<String[]>();   //  {model, param or null}
+        
+        String model=null;
+        boolean modelHasParam=false;
+        for(int i=0; i<args.length; i++) {
+            String a=args[i];
+            if(a.equals("-bench") && i+1<args.length) {
+                benches=new ArrayList<String>(Arrays.asList(args[++i].split(",")));
+                for(String b : benches) {
+                    if(!Arrays.asList(allBenchmarks).contains(b)) {
+                        usage("Unknown benchmark: "+b);
+                    }
+                }
+            }
+            else if(a.equals("-warmup") && i+1<args.length) {
+                warmup=Integer.parseInt(args[++i]);
+            }
+            else if(a.equals("-iterations") && i+1<args.length) {
+                iterations=Integer.parseInt(args[++i]);
+            }
+            else if(a.equals("-out") && i+1<args.length) {
+                csv=args[++i];
+            }
+            else if(a.equals("-sr") && i+1<args.length) {
+                srflags=args[++i];
+            }
+            else if(a.endsWith(".eprime")) {
+                if(model!=null && !modelHasParam) {
+                    instances.add(new String[]{model, null});
+                }
+                model=a;
+                modelHasParam=false;
+            }
+            else if(a.endsWith(".param")) {
+                if(model==null) {
+                    usage("Parameter file before any model: "+a);
+                }
+                instances.add(new String[]{model, a});
+                modelHasParam=true;
+            }
+            else {
+                usage("Unrecognised argument: "+a);
+            }
+        }
+        if(model!=null && !modelHasParam) {
+            instances.add(new String[]{model, null});
+        }
+        if(instances.size()==0) {
+            usage("No models given.");
+        }
+        
+        BufferedWriter out=null;
+        if(csv!=null) {
+            out=new BufferedWriter(new FileWriter(csv));
+            out.write("benchmark,model,param,iterations,mean_ms,stddev_ms,min_ms\n");
+        }
+        
+        System.out.println(String.format("%-10s %-40s %10s %10s %10s", "benchmark", "instance", "mean ms", "stddev", "min"));
+        for(String[] inst : instances) {
+            for(String b : benches) {
+                ArrayList<Double> times=runFork(b, inst[0], inst[1], warmup, iterations, srflags);
+                String name=(inst[1]==null) ? inst[0] : inst[1];
+                if(times==null) {
+                    System.out.println(String.format("%-10s %-40s %10s", b, name, "failed"));
+                    continue;
+                }
+                double mean=0.0;
+                double min=Double.MAX_VALUE;
+                for(double t : times) {
+                    mean+=t;
+                    min=Math.min(min, t);
+                }
+                mean=mean/times.size();
+                double var=0.0;
+                for(double t : times) {
+                    var+=(t-mean)*(t-mean);
+                }
+                double sd=(times.size()>1) ? Math.sqrt(var/(times.size()-1)) : 0.0;
+                System.out.println(String.format("%-10s %-40s %10.2f %10.2f %10.2f", b, name, mean, sd, min));
+                if(out!=null) {
+                    out.write(b+","+inst[0]+","+(inst[1]==null ? "" : inst[1])+","+times.size()+","+mean+","+sd+","+min+"\n");
+                    out.flush();
+                }
+            }
+        }
+        if(out!=null) {
+            out.close();
+        }
+        System.exit(0);
+    }
+    
+    private static void usage(String msg) {
+        System.err.println(msg);
+        System.err.println("Usage: java -cp savilerow.jar savilerow.Benchmarks [-bench "+String.join(",", allBenchmarks)+"] [-warmup n] [-iterations n] [-out results.csv] [-sr \"flags\"] model.eprime [params...] ...");
+        System.exit(1);
+    }
+    
+    //  Run one benchmark on one instance in a new JVM. Returns the times in ms of the
+    //  measured iterations, or null if the fork failed.
+    private static ArrayList<Double> runFork(String bench, String model, String param, int warmup, int iterations, String srflags) throws IOException, InterruptedException {
+        ArrayList<String> cmd=new ArrayList<String>();
+        cmd.add(System.getProperty("java.home")+File.separator+"bin"+File.separator+"java");
+        cmd.add("-Xmx"+(Runtime.getRuntime().maxMemory()>>20)+"m");
+        cmd.add("-cp");
+        cmd.add(System.getProperty("java.class.path"));
+        cmd.add("savilerow.Benchmarks");
+        cmd.add("-fork");
+        cmd.add(bench);
+        cmd.add(String.valueOf(warmup));
+        cmd.add(String.valueOf(iterations));
+        cmd.add(model);
+        cmd.add(param==null ? "" : param);
+        for(String f : srflags.trim().split("\\s+")) {
+            if(!f.equals("")) {
+                cmd.add(f);
+            }
+        }
+        
+        ArrayList<String> stdout=new ArrayList<String>();
+        ArrayList<String> stderr=new ArrayList<String>();
+        SolverJob job=new SolverJob(cmd, stderr);
+        job.setStdoutReader(new ReadProcessOutput(stdout));
+        int exit=job.run();
+        
+        for(String l : stdout) {
+            if(l.startsWith("RESULT ")) {
+                ArrayList<Double> times=new ArrayList<Double>();
+                for(String t : l.substring(7).trim().split(" ")) {
+                    times.add(Double.valueOf(t));
+                }
+                return times;
+            }
+        }
+        System.err.println("Benchmark "+bench+" failed on "+model+" "+(param==null ? "" : param)+" with exit code "+exit);
+        for(String l : stderr) {
+            System.err.println(l);
+        }
+        return null;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Inside a fork.
+    
+    //  -fork bench warmup iterations model param [SR flags]
+    private static void fork(String[] args) throws Exception {
+        final String bench=args[1];
+        int warmup=Integer.parseInt(args[2]);
+        int iterations=Integer.parseInt(args[3]);
+        final String model=args[4];
+        final String param=args[5].equals("") ? null : args[5];
+        
+        //  Translate with output to a temporary directory.
+        File dir=File.createTempFile("srbench", "");
+        dir.delete();
+        dir.mkdir();
+        ArrayList<String> sr=new ArrayList<String>();
+        sr.add(model);
+        if(param!=null) {
+            sr.add(param);
+        }
+        sr.add(bench.equals("sat") ? "-sat" : "-minion");
+        sr.add("-out-minion");
+        sr.add(new File(dir, "out.minion").getPath());
+        sr.add("-out-sat");
+        sr.add(new File(dir, "out.dimacs").getPath());
+        sr.add("-out-info");
+        sr.add(new File(dir, "out.info").getPath());
+        sr.add("-out-aux");
+        sr.add(new File(dir, "out.aux").getPath());
+        for(int i=6; i<args.length; i++) {
+            sr.add(args[i]);
+        }
+        CmdFlags.parseArguments(sr.toArray(new String[sr.size()]));
+        
+        StringBuilder res=new StringBuilder("RESULT");
+        for(int it=0; it<warmup+iterations; it++) {
+            double ms=iteration(bench, model, param);
+            if(it>=warmup) {
+                res.append(" ").append(ms);
+            }
+        }
+        
+        for(File f : dir.listFiles()) {
+            f.delete();
+        }
+        dir.delete();
+        
+        System.out.println(res);
+        System.out.flush();
+        System.exit(0);
+    }
+    
+    //  One iteration: untimed setup, then the timed part. Returns milliseconds.
+    private static double iteration(String bench, String model, String param) throws IOException {
+        CmdFlags.startTime=System.currentTimeMillis();
+        TimeBudget.reset();
+        
+        if(bench.equals("parse")) {
+            long t0=System.nanoTime();
+            read(model, param);
+            return (System.nanoTime()-t0)/1e6;
+        }
+        
+        ModelContainer mc=read(model, param);
+        mc.processPreamble();
+        
+        if(bench.equals("unroll")) {
+            //  As in instancePreFlattening1, the quantifiers that become variables are captured first.
+            mc.m.transform(new TransformExistsVar(mc.m));
+            long t0=System.nanoTime();
+            mc.m.transform(new TransformQuantifiedExpression(mc.m));
+            return (System.nanoTime()-t0)/1e6;
+        }
+        
+        mc.instancePreFlattening1();
+        if(CmdFlags.getUsePropagate()) {
+            mc.squashDomains();
+        }
+        
+        if(bench.equals("tabulate")) {
+            TabulationUtils tu=new TabulationUtils(mc.m);
+            ArrayList<ASTNode> cons=new ArrayList<ASTNode>();
+            ASTNode top=mc.m.constraints.getChild(0);
+            ArrayList<ASTNode> conjuncts=(top instanceof And) ? top.getChildren() : new ArrayList<ASTNode>(Collections.singletonList(top));
+            for(ASTNode c : conjuncts) {
+                int nvars=TabulationUtils.getVariablesOrdered(c).size();
+                if(nvars>=2 && nvars<=tabulateMaxVars && cons.size()<tabulateMaxCons) {
+                    cons.add(c);
+                }
+            }
+            long t0=System.nanoTime();
+            for(ASTNode c : cons) {
+                tu.makeTableLong(c, 100000);
+            }
+            return (System.nanoTime()-t0)/1e6;
+        }
+        
+        mc.instancePreFlattening2(false);
+        
+        if(bench.equals("cse")) {
+            mc.m.transform(new TransformNormalise(mc.m));
+            long t0=System.nanoTime();
+            CSE c=new CSE();
+            c.flattenCSEs(mc.m);
+            return (System.nanoTime()-t0)/1e6;
+        }
+        
+        mc.instanceFlattening(false);
+        
+        if(bench.equals("sat")) {
+            long t0=System.nanoTime();
+            mc.postFlattening(false);
+            return (System.nanoTime()-t0)/1e6;
+        }
+        
+        //  minion: the rewrite done by postFlattening before output, then the output itself.
+        mc.m.transform(new TransformSumEq(false));
+        mc.m.simplify();
+        BufferedWriter out=new BufferedWriter(new FileWriter(CmdFlags.minionfile));
+        long t0=System.nanoTime();
+        mc.m.toMinion(out, false);
+        out.flush();
+        double ms=(System.nanoTime()-t0)/1e6;
+        out.close();
+        return ms;
+    }
+    
+    private static ModelContainer read(String model, String param) {
+        EPrimeReader reader=new EPrimeReader(model, true);
+        Model m=reader.readModel();
+        ArrayList<ASTNode> parameters=new ArrayList<ASTNode>();
+        if(param!=null) {
+            EPrimeReader paramfile=new EPrimeReader(param, true);
+            parameters=paramfile.readParameterFile(m);
+        }
+        return new ModelContainer(m, parameters);
+    }
+}
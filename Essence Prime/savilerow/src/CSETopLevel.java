@@ -96,9 +96,8 @@ public class CSETopLevel
                     if(a!=toplevel_node) {
                         //int childno=a.getParent().getChildren().indexOf(a);
                         int childno=a.getChildNo();
-                        ASTNode replacement=new BooleanConstant(toplevel_value);
+                        ASTNode replacement=BooleanConstant.make(toplevel_value);
                         a.getParent().setChild(childno, replacement);
-                        replacement.setParent(a.getParent()); // Should not need this line. 
                     }
                 }
                 
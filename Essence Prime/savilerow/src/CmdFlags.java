@@ -45,6 +45,7 @@ public final class CmdFlags {
     private static SMTSOL smtsolver=SMTSOL.DEFAULT;
     private static String smtsolverpath=null;
     public static String smtseed="1";
+    public static boolean smt_restart_solver=false;   //  Start a new solver process for each call in SMT optimisation. 
     // SMT logic
     private static LOGIC logic = LOGIC.NULL;
     // SMT encoding
@@ -99,6 +100,21 @@ public final class CmdFlags {
     public static boolean sat_element_gac=false;
     
     public static boolean short_tab_sat_extra=false;   // Extra clauses in short table encoding to make the aux SAT variables functional.
+    public static int sat_encode_threads=1;    //  Number of threads used to encode top-level constraints to SAT. 
+    public static boolean sat_preprocess=false;   //  Simplify the CNF in memory before writing it. 
+    
+    //  Large neighbourhood search with a SAT or MaxSAT solver, using the SNS neighbourhoods in the model.
+    public static boolean sat_lns=false;
+    public static double sat_lns_time=10.0;      //  Time limit in seconds for each neighbourhood.
+    public static int sat_lns_iterations=1000;   //  Maximum number of neighbourhoods to search. 
+    
+    //  Incremental horizon search: the given parameter is increased until a
+    //  solution is found, extending the SAT encoding rather than re-translating.
+    public static String horizon_param=null;
+    public static long horizon_max=-1;           //  Largest value to try, -1 for no limit. 
+    
+    //  Parameter-derived domain restrictions, applied when matrices are atomised. 
+    public static ArrayList<DomainRestriction> param_domains=new ArrayList<DomainRestriction>();
     //  End SAT encoding options. 
     
     public static ArrayList<Integer> make_tables_scope;
@@ -127,6 +143,8 @@ public final class CmdFlags {
     
     // Optimisations that may change number of solutions.
     private static boolean use_var_symmetry_breaking=false;
+    public static boolean symdetect_external=false;   //  Use the symmetry_detect binary rather than AutomorphismFinder.
+    public static double symdetect_timelimit=30.0;    //  Seconds.
     //  Graph colouring specific symmetry breaking. Should be generalised in time.
     private static boolean graph_col_sym_break=false;
     
@@ -134,12 +152,14 @@ public final class CmdFlags {
     
     // Do dry runs to warm up the JVM
     public static boolean dryruns=false;
+    public static boolean profile=false;    //  Write a JSON profile of transformations, phases and solver calls.
     
     // Extra presolving of model. 
     private static boolean use_delete_vars=true;   // Delete variables by unifying or assigning. Default is -O2 with this switched on. 
-    private static boolean use_propagate=true;     // Reduce domains by running Minion with SACBounds. On by default.
+    private static boolean use_propagate=true;     // Reduce domains with SACBounds. On by default.
     private static boolean use_propagate_extend=false;   // Extended propagate- filters aux vars as well as find vars. 
     private static boolean use_propagate_extend2=false;  // ... and tightens getBounds (in addition to above). 
+    public static boolean reduce_domains_minion=false;   // Filter domains with Minion rather than the built-in propagation engine.
     
     private static boolean remove_redundant_vars=false;  // remove redundant variables or not.
                                                          // Note: setting it to true will lose solutions.
@@ -194,6 +214,7 @@ public final class CmdFlags {
     public static boolean interactiveSolver = false;
     public static boolean noblockDom = false;
     public static String dom_flatten_strategy = "full";
+    public static int dom_parallel = 1;    //  Number of incomparability partitions solved at once.
 
     private static int seed = 1234;
     private static Random randomGen = null;
@@ -221,6 +242,8 @@ public final class CmdFlags {
     public static String fznfile=null;
     public static String minizincfile=null;
     public static String satfile=null;
+    public static boolean out_compress=false;   //  Write gzip-compressed SAT, Minion and FlatZinc output files.
+    public static boolean minion_compact=false;   //  Declare atoms as Minion matrices and write only referenced constant matrices.
     public static String smtfile=null;
     public static String mipfile=null;
     public static String auxfile=null;
@@ -954,6 +977,9 @@ public final class CmdFlags {
                 setUsePropagate(true);
                 setUsePropagateExtend(true);
             }
+            else if(cur.equals("-reduce-domains-minion")) {
+                reduce_domains_minion=true;
+            }
             else if(cur.equals("-remove-redundant-vars")) {
                 setRemoveRedundantVars(true);
             }
@@ -972,6 +998,46 @@ public final class CmdFlags {
                 
                 if(! (opt_strategy.equals("linear") || opt_strategy.equals("unsat") || opt_strategy.equals("bisect"))) CmdFlags.cmdLineExit("Optimisation strategy must be linear, unsat or bisect.");
             }
+            else if(cur.equals("-sat-lns")) {
+                sat_lns=true;
+            }
+            else if(cur.equals("-horizon")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-horizon expects the name of a parameter.");
+                horizon_param=arglist.remove(0);
+            }
+            else if(cur.equals("-param-domains")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-param-domains expects a restriction such as grid-reach:path,robot_pos,map");
+                param_domains.add(DomainRestriction.make(arglist.remove(0)));
+            }
+            else if(cur.equals("-horizon-max")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-horizon-max expects an integer argument.");
+                try {
+                    horizon_max=Long.parseLong(arglist.remove(0));
+                }
+                catch(NumberFormatException e) {
+                    CmdFlags.cmdLineExit("-horizon-max expects an integer argument.");
+                }
+            }
+            else if(cur.equals("-sat-lns-time")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-sat-lns-time expects a time limit in seconds.");
+                try {
+                    sat_lns_time=Double.parseDouble(arglist.remove(0));
+                }
+                catch(NumberFormatException e) {
+                    CmdFlags.cmdLineExit("-sat-lns-time expects a time limit in seconds.");
+                }
+                if(sat_lns_time<=0) CmdFlags.cmdLineExit("-sat-lns-time must be greater than 0.");
+            }
+            else if(cur.equals("-sat-lns-iterations")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-sat-lns-iterations expects an integer argument.");
+                try {
+                    sat_lns_iterations=Integer.parseInt(arglist.remove(0));
+                }
+                catch(NumberFormatException e) {
+                    CmdFlags.cmdLineExit("-sat-lns-iterations expects an integer argument.");
+                }
+                if(sat_lns_iterations<0) CmdFlags.cmdLineExit("-sat-lns-iterations must not be negative.");
+            }
             else if(cur.equals("-make-tab")) {
                 make_tab=true;
                 int scopesize=Integer.parseInt(arglist.remove(0));
@@ -992,6 +1058,11 @@ public final class CmdFlags {
                 if(arglist.size()==0) CmdFlags.cmdLineExit("-timelimit expects an argument in seconds.");
                 timelimit=Integer.parseInt(arglist.remove(0))*1000;  // Convert to millis. 
             }
+            else if(cur.equals("-phase-budget")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-phase-budget expects a list of phase=seconds.");
+                String err=TimeBudget.parse(arglist.remove(0));
+                if(err!=null) CmdFlags.cmdLineExit(err);
+            }
             else if(cur.equals("-cnflimit")) {
                 if(arglist.size()==0) CmdFlags.cmdLineExit("-cnflimit expects an integer argument.");
                 CmdFlags.setCNFLimit(Integer.parseInt(arglist.remove(0)));
@@ -1002,6 +1073,9 @@ public final class CmdFlags {
             else if(cur.equals("-dryruns")) {
                 dryruns=true;
             }
+            else if(cur.equals("-profile")) {
+                profile=true;
+            }
             else if(cur.equals("-test-solutions")) {
                 test_solutions=true;
             }
@@ -1033,6 +1107,9 @@ public final class CmdFlags {
             else if(cur.equals("-output-all-sols")) {
                 output_all_sols=true;
             }
+            else if(cur.equals("-minion-compact")) {
+                minion_compact=true;
+            }
             else if(cur.equals("-no-bound-vars")) {
                 setUseBoundVars(false);
             }
@@ -1046,6 +1123,21 @@ public final class CmdFlags {
             else if(cur.equals("-var-sym-breaking")) {
                 setUseVarSymBreaking(true);
             }
+            else if(cur.equals("-sym-detect-external")) {
+                symdetect_external=true;
+            }
+            else if(cur.equals("-sym-detect-timelimit")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-sym-detect-timelimit expects a number of seconds.");
+                try {
+                    symdetect_timelimit=Double.parseDouble(arglist.remove(0));
+                }
+                catch(NumberFormatException e) {
+                    CmdFlags.cmdLineExit("-sym-detect-timelimit expects a number of seconds.");
+                }
+                if(symdetect_timelimit<0) {
+                    CmdFlags.cmdLineExit("Argument to -sym-detect-timelimit is negative.");
+                }
+            }
             else if(cur.equals("-expand-short-tab")) {
                 expand_short_tab=true;
             }
@@ -1252,6 +1344,19 @@ public final class CmdFlags {
             else if(cur.equals("-sat-element-gac")) {
                 sat_element_gac=true;
             }
+            else if(cur.equals("-sat-encode-threads")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-sat-encode-threads expects an integer argument.");
+                try {
+                    sat_encode_threads=Integer.parseInt(arglist.remove(0));
+                }
+                catch(NumberFormatException e) {
+                    CmdFlags.cmdLineExit("-sat-encode-threads expects an integer argument.");
+                }
+                if(sat_encode_threads<1) CmdFlags.cmdLineExit("-sat-encode-threads must be at least 1.");
+            }
+            else if(cur.equals("-sat-preprocess")) {
+                sat_preprocess=true;
+            }
             else if(cur.equals("-minion-bin")) {
                 if(arglist.size()==0) CmdFlags.cmdLineExit("Missing Minion executable file name following -minion-bin");
                 CmdFlags.setMinion(arglist.remove(0));
@@ -1268,6 +1373,9 @@ public final class CmdFlags {
                 if(arglist.size()==0) CmdFlags.cmdLineExit("Missing Yices2 solver executable file name following -yices2-bin");
                 yicespath=arglist.remove(0);
             }
+            else if(cur.equals("-smt-restart-solver")) {
+                smt_restart_solver=true;
+            }
             else if(cur.equals("-smt-seed")) {
                 if(arglist.size()==0) CmdFlags.cmdLineExit("Missing seed value following -smt-seed");
                 smtseed=arglist.remove(0);
@@ -1288,9 +1396,12 @@ public final class CmdFlags {
                 if(arglist.size()==0) CmdFlags.cmdLineExit("Missing SAT family name following -sat-family");
                 String sf=arglist.remove(0);
                 if(! ( sf.equals("minisat") || sf.equals("lingeling") || sf.equals("glucose") || sf.equals("cadical") || sf.equals("kissat")
-                        || sf.equals("nbc_minisat_all") || sf.equals("bc_minisat_all"))) {
+                        || sf.equals("nbc_minisat_all") || sf.equals("bc_minisat_all") || sf.equals("builtin"))) {
                             CmdFlags.cmdLineExit("SAT family "+sf+" not supported.");
                 }
+                if(sf.equals("builtin")) {
+                    CmdFlags.interactiveSolver=true;  // The built-in solver is only used incrementally.
+                }
                 if(sf.equals("nbc_minisat_all") || sf.equals("bc_minisat_all")) {
                     CmdFlags.setFindAllSolutions(true); // if minisat_all directly set all sol flag
                 }
@@ -1364,6 +1475,19 @@ public final class CmdFlags {
                 if(arglist.size()==0) CmdFlags.cmdLineExit("SAT output file name missing after -out-sat");
                 satfile=arglist.remove(0);
             }
+            else if(cur.equals("-out-compress")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("Compression format missing after -out-compress");
+                String codec=arglist.remove(0);
+                if(codec.equals("gzip")) {
+                    out_compress=true;
+                }
+                else if(codec.equals("none")) {
+                    out_compress=false;
+                }
+                else {
+                    CmdFlags.cmdLineExit("Compression format "+codec+" not supported by -out-compress. Supported formats are gzip and none.");
+                }
+            }
             else if(cur.equals("-out-smt")) {
                 if(arglist.size()==0) CmdFlags.cmdLineExit("SMT output file name missing after -out-smt");
                 smtfile=arglist.remove(0);
@@ -1460,6 +1584,16 @@ public final class CmdFlags {
             else if(cur.equals("-noblock-dom")) {
                 CmdFlags.noblockDom = true;
             }
+            else if(cur.equals("-dom-parallel")) {
+                if(arglist.size()==0) CmdFlags.cmdLineExit("-dom-parallel expects an integer argument.");
+                try {
+                    dom_parallel=Integer.parseInt(arglist.remove(0));
+                }
+                catch(NumberFormatException e) {
+                    CmdFlags.cmdLineExit("-dom-parallel expects an integer argument.");
+                }
+                if(dom_parallel<1) CmdFlags.cmdLineExit("-dom-parallel must be at least 1.");
+            }
             else if(cur.equals("-interactive-solver")) {
                 CmdFlags.interactiveSolver = true;
             }
@@ -1522,6 +1656,27 @@ public final class CmdFlags {
                     CmdFlags.warning("However, non-default SAT encodings or other options may change the number of solutions. Try -S0 and removing non-default SAT encodings if necessary.");
                 }
             }
+            if(sat_preprocess && (getMaxsattrans() || getSMTtrans() || interactiveSolver)) {
+                CmdFlags.warning("-sat-preprocess only applies to SAT output written to a DIMACS file, and will be ignored.");
+                sat_preprocess=false;
+            }
+            if(sat_lns && (!getSattrans() || getSMTtrans() || interactiveSolver || dominanceRelation)) {
+                CmdFlags.warning("-sat-lns only applies to SAT and MaxSAT solvers run from a DIMACS file, and will be ignored.");
+                sat_lns=false;
+            }
+            if(horizon_param!=null) {
+                if(!getSattrans() || getSMTtrans() || getMaxsattrans() || interactiveSolver || !getRunSolver() || OutputCompression.enabled()) {
+                    CmdFlags.cmdLineExit("-horizon needs -run-solver with a SAT solver run from an uncompressed DIMACS file.");
+                }
+                //  Constraints are added and retracted as the horizon grows, so switch off
+                //  the optimisations that rely on seeing the whole instance. 
+                setUseDeleteVars(false);
+                setUsePropagate(false);
+                setUsePropagateExtend(false);
+                setRemoveRedundantVars(false);
+                setUseVarSymBreaking(false);
+                sat_preprocess=false;
+            }
             if(sat_amo_encoding==AMOEnc.DEFAULT) {
                 sat_amo_encoding=AMOEnc.PRODUCT;
             }
@@ -1546,6 +1701,9 @@ public final class CmdFlags {
                     satfile=eprimefile+".dimacs";
                 }
             }
+            if(out_compress && getSattrans() && !getSMTtrans() && !interactiveSolver) {
+                satfile=OutputCompression.compressedName(satfile);
+            }
             if(smtfile==null) {
                 if(paramfile!=null) {
                     smtfile=paramfile+".smt2";
@@ -1630,6 +1788,9 @@ public final class CmdFlags {
                         else if(satfamily.equals("nbc_minisat_all") || satfamily.equals("bc_minisat_all")) {
                             satsolverpath=satfamily+"_release";
                         }
+                        else if(satfamily.equals("builtin")) {
+                            satsolverpath="builtin";  // Runs inside Savile Row, no binary.
+                        }
                         else {
                             //  This should not be reachable. 
                             cmdLineExit("Unknown SAT solver family: "+satfamily);
@@ -138,7 +138,7 @@ public class FactorEncoding
         
         ASTNode replace=tableCons.get(0);
         for(int i=1; i<tableCons.size(); i++) {
-            tableCons.get(i).getParent().setChild(tableCons.get(i).getChildNo(), new BooleanConstant(true));
+            tableCons.get(i).getParent().setChild(tableCons.get(i).getChildNo(), BooleanConstant.make(true));
         }
         
         ArrayList<ASTNode> replCons=new ArrayList<ASTNode>();
@@ -47,7 +47,7 @@ public final class GenerateGraphColouring {
         EPrimeReader reader = new EPrimeReader(paramfile, true);
         
         Model m=new Model();
-        m.setup(new BooleanConstant(true), new SymbolTable(), null, null, null, null, null);
+        m.setup(BooleanConstant.make(true), new SymbolTable(), null, null, null, null, null);
         
         ArrayList<ASTNode> params=reader.readParameterFile(m);
         
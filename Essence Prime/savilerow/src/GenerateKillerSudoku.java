@@ -47,7 +47,7 @@ public final class GenerateKillerSudoku {
         EPrimeReader reader = new EPrimeReader(solfile, true);
         
         Model m=new Model();
-        m.setup(new BooleanConstant(true), new SymbolTable(), null, null, null, null, null);
+        m.setup(BooleanConstant.make(true), new SymbolTable(), null, null, null, null, null);
         
         ArrayList<ASTNode> sol=reader.readParameterFile(m);
         
@@ -0,0 +1,413 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.* ;
+import java.io.* ;
+
+//  Generates parameter files for the multi-agent pathfinding model in
+//  src/model.eprime (the same format as instances/p*.param). The map uses
+//  0 for a free cell, -1 for an obstacle and k>0 for a cell holding objects
+//  of type k. Each task asks for an object of type task_obj[i] to be taken to
+//  task_dest[i]. All generated maps have their free cells connected.
+//
+//  java -cp savilerow.jar savilerow.GenerateMAPF [options] > instance.param
+//
+//    -rows <n> -cols <n>    Grid size (default 8x8).
+//    -robots <n>            Number of robots (default 4).
+//    -tasks <n>             Number of tasks (default 6).
+//    -objects <n>           Number of object types (default 2).
+//    -object-cells <n>      Cells holding each object type (default 2).
+//    -density <d>           Obstacle density for the random layout (default 0.15).
+//    -horizon <n>           time_limit. Default is an estimate from path lengths.
+//    -layout <l>            'random' or 'warehouse' (shelf rows with aisles,
+//                           objects next to the shelves, destinations on the
+//                           top and bottom rows, robots on the left and right).
+//    -seed <n>              Random seed (default 0).
+
+public final class GenerateMAPF {
+    private int rows=8;
+    private int cols=8;
+    private int robots=4;
+    private int tasks=6;
+    private int objects=2;
+    private int objectCells=2;
+    private double density=0.15;
+    private int horizon=-1;
+    private boolean warehouse=false;
+    private Random rand;
+    
+    private int[][] map;
+    private int[][] robotPos;
+    private int[] taskObj;
+    private int[][] taskDest;
+    
+    public static void main(String[] args) {
+        GenerateMAPF g=new GenerateMAPF();
+        long seed=0;
+        for(int i=0; i<args.length; i++) {
+            if(i+1>=args.length) {
+                usage("Missing value for "+args[i]);
+            }
+            String a=args[i];
+            String v=args[++i];
+            try {
+                if(a.equals("-rows")) g.rows=Integer.parseInt(v);
+                else if(a.equals("-cols")) g.cols=Integer.parseInt(v);
+                else if(a.equals("-robots")) g.robots=Integer.parseInt(v);
+                else if(a.equals("-tasks")) g.tasks=Integer.parseInt(v);
+                else if(a.equals("-objects")) g.objects=Integer.parseInt(v);
+                else if(a.equals("-object-cells")) g.objectCells=Integer.parseInt(v);
+                else if(a.equals("-density")) g.density=Double.parseDouble(v);
+                else if(a.equals("-horizon")) g.horizon=Integer.parseInt(v);
+                else if(a.equals("-seed")) seed=Long.parseLong(v);
+                else if(a.equals("-layout")) {
+                    if(v.equals("warehouse")) g.warehouse=true;
+                    else if(!v.equals("random")) usage("Unknown layout: "+v);
+                }
+                else usage("Unrecognised argument: "+a);
+            }
+            catch(NumberFormatException e) {
+                usage("Bad value for "+a+": "+v);
+            }
+        }
+        if(g.rows<1 || g.cols<1 || g.robots<1 || g.tasks<1 || g.objects<1 || g.objectCells<1 || g.density<0.0 || g.density>=1.0) {
+            usage("Sizes must be positive and the density in [0,1).");
+        }
+        g.rand=new Random(seed);
+        
+        if(g.warehouse) {
+            g.makeWarehouse();
+        }
+        else {
+            g.makeRandom();
+        }
+        if(g.horizon==-1) {
+            g.horizon=g.estimateHorizon();
+        }
+        g.print(new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out))));
+    }
+    
+    private static void usage(String msg) {
+        System.err.println(msg);
+        System.err.println("Usage: java -cp savilerow.jar savilerow.GenerateMAPF [-rows n] [-cols n] [-robots n] [-tasks n] [-objects n] [-object-cells n] [-density d] [-horizon n] [-layout random|warehouse] [-seed n]");
+        System.exit(1);
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Layouts
+    
+    //  Obstacles are added at random cells, skipping any that would disconnect
+    //  the free cells.
+    private void makeRandom() {
+        map=new int[rows][cols];
+        int target=(int)Math.round(density*rows*cols);
+        ArrayList<Integer> cells=shuffledCells();
+        int placed=0;
+        for(int c : cells) {
+            if(placed>=target) {
+                break;
+            }
+            map[c/cols][c%cols]=-1;
+            if(connected()) {
+                placed++;
+            }
+            else {
+                map[c/cols][c%cols]=0;
+            }
+        }
+        
+        //  Object cells, robots and destinations on distinct free cells.
+        ArrayList<Integer> free=freeCells();
+        Collections.shuffle(free, rand);
+        if(free.size()<objects*objectCells+robots) {
+            fail("The grid has too few free cells for the objects and robots.");
+        }
+        int idx=0;
+        for(int o=1; o<=objects; o++) {
+            for(int k=0; k<objectCells; k++) {
+                int c=free.get(idx++);
+                map[c/cols][c%cols]=o;
+            }
+        }
+        robotPos=new int[robots][];
+        for(int r=0; r<robots; r++) {
+            int c=free.get(idx++);
+            robotPos[r]=new int[]{c/cols, c%cols};
+        }
+        
+        ArrayList<Integer> dests=freeCells();
+        makeTasks(dests);
+    }
+    
+    //  Shelf rows every third row, broken by an aisle every fourth column. Objects
+    //  are placed next to the shelves.
+    private void makeWarehouse() {
+        map=new int[rows][cols];
+        ArrayList<Integer> shelfRows=new ArrayList<Integer>();
+        for(int r=1; r<rows-1; r=r+3) {
+            shelfRows.add(r);
+            for(int c=1; c<cols-1; c++) {
+                if(c%4!=0) {
+                    map[r][c]=-1;
+                }
+            }
+        }
+        if(!connected()) {
+            fail("Warehouse layout is not connected; use a larger grid.");
+        }
+        
+        //  Pick-up cells above and below the shelves (but not on the top and
+        //  bottom rows), object types assigned round robin.
+        ArrayList<Integer> pickup=new ArrayList<Integer>();
+        for(int r : shelfRows) {
+            for(int pr : new int[]{r+1, r-1}) {
+                if(pr>0 && pr<rows-1) {
+                    for(int c=1; c<cols-1; c++) {
+                        if(map[r][c]==-1 && map[pr][c]==0 && !pickup.contains(pr*cols+c)) {
+                            pickup.add(pr*cols+c);
+                        }
+                    }
+                }
+            }
+        }
+        Collections.shuffle(pickup, rand);
+        if(pickup.size()<objects*objectCells) {
+            fail("The warehouse has too few pick-up cells for the objects.");
+        }
+        for(int i=0; i<objects*objectCells; i++) {
+            int c=pickup.get(i);
+            map[c/cols][c%cols]=(i%objects)+1;
+        }
+        
+        //  Robots start on the left and right columns.
+        ArrayList<Integer> starts=new ArrayList<Integer>();
+        for(int r=0; r<rows; r++) {
+            for(int c : new int[]{0, cols-1}) {
+                if(map[r][c]==0 && !starts.contains(r*cols+c)) {
+                    starts.add(r*cols+c);
+                }
+            }
+        }
+        Collections.shuffle(starts, rand);
+        if(starts.size()<robots) {
+            fail("The warehouse has too few start cells for the robots.");
+        }
+        robotPos=new int[robots][];
+        for(int r=0; r<robots; r++) {
+            robotPos[r]=new int[]{starts.get(r)/cols, starts.get(r)%cols};
+        }
+        
+        //  Destinations on the top and bottom rows.
+        ArrayList<Integer> dests=new ArrayList<Integer>();
+        for(int c=0; c<cols; c++) {
+            for(int r : new int[]{0, rows-1}) {
+                if(map[r][c]==0 && !dests.contains(r*cols+c)) {
+                    dests.add(r*cols+c);
+                }
+            }
+        }
+        makeTasks(dests);
+    }
+    
+    //  Each task gets a random object type and a destination, using distinct
+    //  destinations while there are enough of them. Destinations are never on
+    //  a robot's start cell.
+    private void makeTasks(ArrayList<Integer> dests) {
+        for(int r=0; r<robots; r++) {
+            dests.remove(Integer.valueOf(robotPos[r][0]*cols+robotPos[r][1]));
+        }
+        if(dests.size()==0) {
+            fail("There are no free cells for task destinations.");
+        }
+        Collections.shuffle(dests, rand);
+        taskObj=new int[tasks];
+        taskDest=new int[tasks][];
+        for(int t=0; t<tasks; t++) {
+            taskObj[t]=rand.nextInt(objects)+1;
+            int c=dests.get(t%dests.size());
+            taskDest[t]=new int[]{c/cols, c%cols};
+        }
+    }
+    
+    //  Rough horizon: the tasks are shared among the robots, and each one needs a
+    //  trip from a cell holding its object to its destination, plus a couple of
+    //  steps to reach the object and pick it up.
+    private int estimateHorizon() {
+        int longest=0;
+        for(int t=0; t<tasks; t++) {
+            int[] dist=distances(taskDest[t][0], taskDest[t][1]);
+            int best=Integer.MAX_VALUE;
+            for(int r=0; r<rows; r++) {
+                for(int c=0; c<cols; c++) {
+                    if(map[r][c]==taskObj[t] && dist[r*cols+c]>=0) {
+                        best=Math.min(best, dist[r*cols+c]);
+                    }
+                }
+            }
+            longest=Math.max(longest, best);
+        }
+        int perRobot=(tasks+robots-1)/robots;
+        return (longest+2)*perRobot;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Grid utilities
+    
+    private ArrayList<Integer> shuffledCells() {
+        ArrayList<Integer> cells=new ArrayList<Integer>();
+        for(int i=0; i<rows*cols; i++) {
+            cells.add(i);
+        }
+        Collections.shuffle(cells, rand);
+        return cells;
+    }
+    
+    private ArrayList<Integer> freeCells() {
+        ArrayList<Integer> free=new ArrayList<Integer>();
+        for(int i=0; i<rows*cols; i++) {
+            if(map[i/cols][i%cols]==0) {
+                free.add(i);
+            }
+        }
+        return free;
+    }
+    
+    //  BFS distances from (r,c) through non-obstacle cells; -1 if unreachable.
+    private int[] distances(int r0, int c0) {
+        int[] dist=new int[rows*cols];
+        Arrays.fill(dist, -1);
+        ArrayDeque<Integer> queue=new ArrayDeque<Integer>();
+        dist[r0*cols+c0]=0;
+        queue.add(r0*cols+c0);
+        int[] dr={-1, 1, 0, 0};
+        int[] dc={0, 0, -1, 1};
+        while(!queue.isEmpty()) {
+            int cell=queue.poll();
+            int r=cell/cols;
+            int c=cell%cols;
+            for(int d=0; d<4; d++) {
+                int nr=r+dr[d];
+                int nc=c+dc[d];
+                if(nr>=0 && nr<rows && nc>=0 && nc<cols && map[nr][nc]!=-1 && dist[nr*cols+nc]==-1) {
+                    dist[nr*cols+nc]=dist[cell]+1;
+                    queue.add(nr*cols+nc);
+                }
+            }
+        }
+        return dist;
+    }
+    
+    private boolean connected() {
+        int start=-1;
+        int count=0;
+        for(int i=0; i<rows*cols; i++) {
+            if(map[i/cols][i%cols]!=-1) {
+                if(start==-1) {
+                    start=i;
+                }
+                count++;
+            }
+        }
+        if(start==-1) {
+            return false;
+        }
+        int[] dist=distances(start/cols, start%cols);
+        int reached=0;
+        for(int d : dist) {
+            if(d>=0) {
+                reached++;
+            }
+        }
+        return reached==count;
+    }
+    
+    private static void fail(String msg) {
+        System.err.println("ERROR: "+msg);
+        System.exit(1);
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Output, in the layout of instances/p*.param. Coordinates are 1-based.
+    
+    private void print(PrintWriter out) {
+        out.println("language ESSENCE' 1.0");
+        out.println("letting nrows be "+rows);
+        out.println("letting ncols be "+cols);
+        out.println();
+        out.println("letting nrobots be "+robots);
+        out.println("letting robot_pos be "+coords(robotPos, "robot_pos"));
+        out.println();
+        out.println("letting ntasks be "+tasks);
+        StringBuilder b=new StringBuilder("[");
+        for(int t=0; t<tasks; t++) {
+            b.append(taskObj[t]);
+            if(t<tasks-1) {
+                b.append(", ");
+            }
+        }
+        b.append("]");
+        out.println("letting task_obj be "+b);
+        out.println("letting task_dest be "+coords(taskDest, "task_dest"));
+        out.println();
+        out.println("letting time_limit be "+horizon);
+        out.println();
+        String indent=spaces("letting map be [".length());
+        out.print("letting map be [");
+        for(int r=0; r<rows; r++) {
+            if(r>0) {
+                out.print(",\n"+indent);
+            }
+            out.print("[");
+            for(int c=0; c<cols; c++) {
+                out.print(String.format("%2d", map[r][c]));
+                if(c<cols-1) {
+                    out.print(",");
+                }
+            }
+            out.print("]");
+        }
+        out.println("]");
+        out.flush();
+    }
+    
+    private static String coords(int[][] pos, String name) {
+        String indent=spaces(("letting "+name+" be [").length());
+        StringBuilder b=new StringBuilder("[");
+        for(int i=0; i<pos.length; i++) {
+            if(i>0) {
+                b.append(",\n").append(indent);
+            }
+            b.append("[").append(pos[i][0]+1).append(", ").append(pos[i][1]+1).append("]");
+        }
+        b.append("]");
+        return b.toString();
+    }
+    
+    private static String spaces(int n) {
+        StringBuilder b=new StringBuilder();
+        for(int i=0; i<n; i++) {
+            b.append(' ');
+        }
+        return b.toString();
+    }
+}
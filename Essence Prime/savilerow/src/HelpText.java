@@ -69,8 +69,18 @@ public class HelpText {
         +" -out-solution <filename>      Solution if Savile Row runs a solver and parses\n"
         +"                               the solver's output.\n"
         +" -out-info <filename>          Statistics from Savile Row and Minion.\n"
+        +" -profile                      Write a JSON profile next to the .info file\n"
+        +"                               (with .profile.json in place of .info) with\n"
+        +"                               time, allocated memory, tree size and aux\n"
+        +"                               variables for each transformation, phase,\n"
+        +"                               tabulation attempt and solver call.\n"
         +" -out-aux <filename>           Symbol table; required for ReadSolution mode.\n"
         +" -save-symbols                 Switch on output of symbol table.\n"
+        +" -out-compress <format>        Compress the SAT, MaxSAT, Minion and FlatZinc\n"
+        +"                               output files. <format> is gzip or none (default).\n"
+        +"                               .gz is added to the file names. SAT solvers\n"
+        +"                               read the compressed file; Minion and FlatZinc\n"
+        +"                               solvers are given a temporary uncompressed copy.\n"
         +"\n"
         +"Optimisation levels:\n"
         +" -O0                           Switch off all optional optimisations.\n"
@@ -113,14 +123,25 @@ public class HelpText {
         +"                               Identical to AC-CSE on And, Or and Product.\n"
         +" -deletevars                   Switch on variable deletion for variables that\n"
         +"                               equal a constant or another decision variable.\n"
-        +" -reduce-domains               Filter domains of 'find' decision variables if\n"
-        +"                               Minion is available. Calls Minion using \n"
+        +" -reduce-domains               Filter domains of 'find' decision variables \n"
+        +"                               using the built-in propagation engine with \n"
         +"                               SACBounds_limit preprocessing, a restricted \n"
         +"                               form of SAC where the SAC test is applied to \n"
         +"                               the upper and lower bound of each variable and\n"
         +"                               the number of iterations is bounded. \n"
         +" -reduce-domains-extend        Extension of -reduce-domains that filters\n"
         +"                               domains of auxiliary and 'find' variables.\n"
+        +" -reduce-domains-minion        Run Minion for domain filtering instead of the\n"
+        +"                               built-in propagation engine. \n"
+        +" -param-domains <restriction>  Restrict the domains of a matrix of decision\n"
+        +"                               variables using the parameters, before the\n"
+        +"                               matrix is unrolled. May be given more than once.\n"
+        +"                               grid-reach:<path>,<start>,<map> restricts agent\n"
+        +"                               positions on a grid (-1 in <map> is an obstacle)\n"
+        +"                               to the cells reachable from <start> within each\n"
+        +"                               time step. <path> is indexed by agent and time,\n"
+        +"                               holding a row-major cell number or, with a third\n"
+        +"                               index of size 2, the row and column.\n"
         +" -aggregate                    Collect constraints into global constraints.\n"
         +"                               Currently performs two types of aggregation:\n"
         +"                               constructing GCC constraints from atleast and \n"
@@ -150,6 +171,12 @@ public class HelpText {
         +" -var-sym-breaking             Automatically identify and break symmetry \n"
         +"                               among decision variables using a graph \n"
         +"                               automorphism solver. \n"
+        +" -sym-detect-timelimit <s>     Time limit in seconds for the automorphism\n"
+        +"                               search of -var-sym-breaking (default 30).\n"
+        +"                               Symmetries found within the limit are broken.\n"
+        +" -sym-detect-external          Use the external symmetry_detect program for\n"
+        +"                               -var-sym-breaking instead of the built-in\n"
+        +"                               automorphism solver.\n"
         +"\n"
         +"SAT Encoding Options:\n"
         +" -sat-polarity                 Use half-reification when flattening for SAT.\n"
@@ -194,6 +221,16 @@ public class HelpText {
         +"                               table constraints. Default is support (Bacchus)\n"
         +"                               encoding. \n"
         +"\n"
+        +"  Performance of SAT encoding:\n"
+        +" -sat-encode-threads <n>       Encode top-level constraints using <n> threads.\n"
+        +"                               Output is identical to the serial encoding.\n"
+        +"                               Default is 1.\n"
+        +" -sat-preprocess               Simplify the CNF before writing the DIMACS file,\n"
+        +"                               using unit propagation, failed literal probing,\n"
+        +"                               and removal of duplicate and subsumed clauses.\n"
+        +"                               SAT variables are not renumbered. Statistics\n"
+        +"                               are added to the .info file.\n"
+        +"\n"
         +"SMT Encoding and Backend Options:\n"
         +" -smt-bv  (default)            Use QF_BV (theory of bit vectors).\n"
         +" -smt-idl                      Use QF_IDL (integer difference logic).\n"
@@ -220,6 +257,16 @@ public class HelpText {
         +"                               translation is complete and a solver is already\n"
         +"                               running. To apply a time limit to a solver, use\n"
         +"                               -solver-options.\n"
+        +" -phase-budget <list>          Time allowances in seconds for phases of \n"
+        +"                               translation, as a list such as \n"
+        +"                               \"cse=10,tabulation=5\". Phases are unroll, cse, \n"
+        +"                               tabulation, filter (domain filtering) and \n"
+        +"                               encode. The cse, tabulation and filter phases \n"
+        +"                               stop early when their allowance is used up, and \n"
+        +"                               the output is still valid. With -timelimit, each \n"
+        +"                               of these three phases has a quarter of the time \n"
+        +"                               limit by default. Phases that were cut short or \n"
+        +"                               over budget are recorded in the .info file.\n"
         +" -cnflimit <max>               Limit SAT output to at most <max> clauses.\n"
         +" -seed <integer>               Some transformations use a pseudorandom number\n"
         +"                               generator; this sets the seed value.\n"
@@ -239,13 +286,19 @@ public class HelpText {
         +"Solver control -- Minion:\n"
         +" -minion-bin <filename>        Specify where the Minion binary is. Default: use\n"
         +"                               the one included in the Savile Row distribution.\n"
-        +" -preprocess                   Strength of preprocessing. Passed to Minion both \n"
-        +"                               for solving (when using -run-solver) and for \n"
-        +"                               domain filtering (when using -reduce-domains or \n"
-        +"                               -O2 or higher). Possible values: None, GAC, \n"
+        +" -preprocess                   Strength of preprocessing. Passed to Minion  \n"
+        +"                               for solving (when using -run-solver) and used\n"
+        +"                               for domain filtering (when using -reduce-domains\n"
+        +"                               or -O2 or higher). Possible values: None, GAC, \n"
         +"                               SACBounds, SACBounds_limit, SAC, SAC_limit, SSAC, \n"
         +"                               SSAC_limit, SSACBounds, SSACBounds_limit. \n"
-        +"                               Default is SACBounds_limit.\n"
+        +"                               Default is SACBounds_limit. The built-in \n"
+        +"                               propagation engine treats SSAC as SAC.\n"
+        +" -minion-compact               Write a smaller Minion file: variables that\n"
+        +"                               replace a matrix are declared as one Minion\n"
+        +"                               matrix, constant matrices are written only in\n"
+        +"                               the forms the constraints refer to, and\n"
+        +"                               comments on variables are left out.\n"
         +"Solver control -- Gecode:\n"
         +" -gecode-bin <filename>        Specify the Gecode FlatZinc binary.\n"
         +"                               Default is \"fzn-gecode\".\n"
@@ -259,10 +312,12 @@ public class HelpText {
         +"Solver control -- SAT solver:\n"
         +" -sat-family <name>            Family of solver: \"cadical\", \"kissat\", \n"
         +"                               \"minisat\", \"glucose\", \"lingeling\", \n"
-        +"                               \"nbc_minisat_all\", \"bc_minisat_all\". Allows \n"
-        +"                               parsing output when using the -run-solver flag. \n"
-        +"                               Default is \"kissat\". The _all values imply the \n"
-        +"                               -all-solutions flag. \n"
+        +"                               \"nbc_minisat_all\", \"bc_minisat_all\", \"builtin\". \n"
+        +"                               Allows parsing output when using the -run-solver \n"
+        +"                               flag. Default is \"kissat\". The _all values imply \n"
+        +"                               the -all-solutions flag. \"builtin\" is a CDCL \n"
+        +"                               solver inside Savile Row and implies \n"
+        +"                               -interactive-solver. \n"
         +" -satsolver-bin <filename>     Name of SAT solver binary. Default is\n"
         +"                               to use bundled Kissat solver, otherwise set\n"
         +"                               to \"minisat\", \"glucose\", \"lingeling\", \n"
@@ -273,15 +328,40 @@ public class HelpText {
         +"                               feature. Supported SAT solvers are used \n"
         +"                               incrementally via JNI calls. Currently \n"
         +"                               supported: \"glucose\", \"cadical\" and \n"
-        +"                               \"nbc_minisat_all\".\n"
+        +"                               \"nbc_minisat_all\". The \"builtin\" solver needs \n"
+        +"                               no native library and is used for any other \n"
+        +"                               SAT family.\n"
         +" -opt-strategy <name>          Controls optimisation for SAT and SMT solvers.\n"
         +"                               May be linear, unsat, or bisect (default) as\n"
         +"                               described in the manual.\n"
+        +" -sat-lns                      Large neighbourhood search using the SNS \n"
+        +"                               neighbourhoods declared in the model, for \n"
+        +"                               optimisation with SAT or MaxSAT solvers. After\n"
+        +"                               the first solution, repeatedly fixes the primary\n"
+        +"                               variables outside one neighbourhood to their \n"
+        +"                               values in the best solution and runs the solver\n"
+        +"                               with a short time limit. Neighbourhoods that \n"
+        +"                               improve the solution are chosen more often.\n"
+        +" -sat-lns-time <seconds>       Time limit for each neighbourhood. Default 10.\n"
+        +" -sat-lns-iterations <n>       Maximum number of neighbourhoods to search.\n"
+        +"                               Default 1000.\n"
+        +" -horizon <name>               Incremental horizon search for time-expanded\n"
+        +"                               models. Starting from its value in the parameter\n"
+        +"                               file, the integer parameter <name> is increased\n"
+        +"                               by one until a solution is found. Constraints\n"
+        +"                               for each new horizon are appended to the same\n"
+        +"                               SAT encoding rather than translating afresh.\n"
+        +"                               Requires -run-solver with a SAT solver.\n"
+        +" -horizon-max <n>              Largest value of the horizon parameter to try.\n"
         +"                               \n"
         +"Solver control -- SMT solver:\n"
         +" -boolector-bin <filename>     Name of Boolector solver binary. \n"
         +" -z3-bin <filename>            Name of Z3 solver binary.\n"
         +" -yices2-bin <filename>        Name of Yices 2 solver binary.\n"
+        +" -smt-restart-solver           When optimising, run the SMT solver afresh for \n"
+        +"                               each call. By default one solver process is kept\n"
+        +"                               running and bounds on the objective are added \n"
+        +"                               and removed with push and pop.\n"
         +"\n"
         +"Mode of operation:\n"
         +" -mode ReadSolution            Takes a solution table file created by Minion\n"
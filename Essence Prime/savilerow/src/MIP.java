@@ -34,23 +34,34 @@ public class MIP
     Model m;
     SymbolTable gs;
     
-    //  For each variable, is it retained in the MIP output (in varsint), and
+    //  For each variable (by symbol id), is it retained in the MIP output (in varsint), and
     //  does it have a 0/1 representation (in vars01). 
-    HashSet<String> vars01=new HashSet<String>();
-    HashSet<String> varsint=new HashSet<String>();
+    BitSet vars01=new BitSet();
+    BitSet varsint=new BitSet();
     //  Will have one more type: set of intervals representation. 
     
-    //  Mapping from integer values to 0/1 vars representing the value. 
-    HashMap<String, HashMap<Long, String>> varTo01=new HashMap<>();
+    //  Variables with a 0/1 representation, in symbol table order, with their
+    //  domains and the symbol ids of the 0/1 variables for each value in the domain. 
+    ArrayList<Integer> list01=new ArrayList<Integer>();
+    SymbolMap<ArrayList<Intpair>> doms01=new SymbolMap<ArrayList<Intpair>>();
+    SymbolMap<int[]> varTo01=new SymbolMap<int[]>();
+    
+    //  Variables with holes in the domain and no 0/1 representation, with one 0/1 variable per interval.
+    ArrayList<Integer> listIntervals=new ArrayList<Integer>();
+    SymbolMap<ArrayList<Intpair>> domsIntervals=new SymbolMap<ArrayList<Intpair>>();
+    SymbolMap<int[]> intervalVars=new SymbolMap<int[]>();
+    
+    //  The 0/1 variables above are only given names up front. One is added to the
+    //  symbol table when a constraint refers to it (get01var); the rest exist
+    //  only in the MIP output. 
+    BitSet registered=new BitSet();
     
     public void process() {
         collect01();
         
-        ArrayList<ASTNode> newcts=generate01Vars();
+        generate01Vars();
         
-        newcts.addAll(generateDomainConstraints());
-        
-        m.constraints.setChild(0, new And(m.constraints.getChild(0), new And(newcts)));
+        generateDomainConstraints();
         
         replace01();
     }
@@ -65,8 +76,9 @@ public class MIP
             ASTNode curnode=todo.poll();
             
             if(curnode instanceof Identifier) {
+                int sym=((Identifier)curnode).getSymbol();
                 // For now, all variables marked for 'int' output
-                varsint.add(curnode.toString());
+                varsint.set(sym);
                 
                 if(!curnode.isRelation()) {
                     Intpair b=curnode.getBounds();
@@ -85,7 +97,7 @@ public class MIP
                         if( ((p instanceof Equals || p instanceof LessEqual || p instanceof Less) && (p.getChild(0).isConstant() || p.getChild(1).isConstant()))    //  var binop const
                             || ( p instanceof AllDifferent && p.getChild(0).numChildren()==3 && (p.getChild(0).getChild(1).isConstant() || p.getChild(0).getChild(2).isConstant()) ) // Var not-equal a constant. 
                             || p instanceof InSet) {    //  not fine-grained enough. 
-                            vars01.add(curnode.toString());
+                            vars01.set(sym);
                         }
                     }
                 }
@@ -99,100 +111,57 @@ public class MIP
     
     //////////////////////////////////////////////////////////////////////////
     //  Generate the 0/1 variables when required. 
+    //  The constraints linking them to the integer variables are written directly
+    //  to the output by toMIP. 
     
-    public ArrayList<ASTNode> generate01Vars() {
-        ArrayList<ASTNode> newcts=new ArrayList<>();
-        
+    public void generate01Vars() {
         categoryentry c = gs.category_first;
         
         while(c != null) {
-            if(vars01.contains(c.name)) {
-                HashMap<Long, String> map=new HashMap<Long, String>();
-                
-                varTo01.put(c.name, map);
-                
-                ArrayList<Intpair> intervals=gs.getDomain(c.name).getIntervalSet();
-                
-                // Also generate two constraints to link the 0/1 and integer variables.
-                
-                ArrayList<ASTNode> ctvars=new ArrayList<>();
-                ArrayList<Long> ctweights=new ArrayList<>();
+            int sym=Symbols.id(c.name);
+            if(vars01.get(sym)) {
+                ArrayList<Intpair> intervals=gs.getDomain(sym).getIntervalSet();
                 
-                ArrayList<ASTNode> ctvars2=new ArrayList<>();
-                ArrayList<Long> ctweights2=new ArrayList<>();
-                
-                for(int i=0; i<intervals.size(); i++) {
-                    for(long val=intervals.get(i).lower; val<=intervals.get(i).upper; val++) {
-                        ASTNode aux=gs.newAuxiliaryVariable(0,1);
-                        map.put(val, aux.toString());
-                        
-                        ctvars.add(aux);
-                        ctweights.add(1L);
-                        
-                        ctvars2.add(aux);
-                        ctweights2.add(val);
-                    }
+                int[] vals=new int[(int)Intpair.numValues(intervals)];
+                for(int i=0; i<vals.length; i++) {
+                    vals[i]=Symbols.id(gs.newAuxId());
                 }
                 
-                //  First constraint - 0/1 vars sum to 1. 
-                newcts.add(new Equals(new WeightedSum(ctvars, ctweights), NumberConstant.make(1L)));
-                
-                // Second constraint -- link 0/1 to integer variable
-                ctvars2.add(new Identifier(m, c.name));
-                ctweights2.add(-1L);
-                newcts.add(new Equals(new WeightedSum(ctvars2, ctweights2), NumberConstant.make(0L)));
+                list01.add(sym);
+                doms01.put(sym, intervals);
+                varTo01.put(sym, vals);
             }
             
             c=c.next;
         }
-        
-        return newcts;
     }
     
-    public ArrayList<ASTNode> generateDomainConstraints() {
+    public void generateDomainConstraints() {
         //  For each variable that is not 0/1 or bool, that has holes in the domain,
-        //  output constraints to ensure it takes a value in domain. 
-        ArrayList<ASTNode> newcts=new ArrayList<>();
-        
+        //  introduce a 0/1 variable per interval. The constraints that ensure it
+        //  takes a value in domain are written by toMIP. 
         categoryentry c = gs.category_first;
         while (c != null) {
             if (c.cat == ASTNode.Decision || c.cat == ASTNode.Auxiliary) {
-                ArrayList<Intpair> intervals=gs.getDomain(c.name).getIntervalSet();
+                int sym=Symbols.id(c.name);
+                ArrayList<Intpair> intervals=gs.getDomain(sym).getIntervalSet();
                 
                 //  if 0/1 variables already exist, then no need for additional
                 //  constraints. 
                 
-                if((!vars01.contains(c.name)) && intervals.size()>1) {
-                    //  Introduce a new 0/1 variable for each interval. 
-                    
-                    ArrayList<ASTNode> ctvars=new ArrayList<>();
-                    ArrayList<Long> ctcoeffs=new ArrayList<>();
-                    
+                if((!vars01.get(sym)) && intervals.size()>1) {
+                    int[] ivars=new int[intervals.size()];
                     for(int i=0; i<intervals.size(); i++) {
-                        ASTNode aux=gs.newAuxiliaryVariable(0,1);
-                        ctvars.add(aux);
-                        ctcoeffs.add(1L);
-                    }
-                    
-                    //  New variables sum to 1. 
-                    newcts.add(new Equals(new WeightedSum(ctvars, ctcoeffs), NumberConstant.make(1L)));
-                    
-                    for(int i=0; i<intervals.size(); i++) {
-                        // aux var implies within interval.
-                        if(i>0) {
-                            newcts.add(implyIneq(ctvars.get(i), new Times(new Identifier(m, c.name), NumberConstant.make(-1)), -intervals.get(i).lower));
-                        }
-                        
-                        if(i<intervals.size()-1) {
-                            newcts.add(implyIneq(ctvars.get(i), new Identifier(m, c.name), intervals.get(i).upper));
-                        }
+                        ivars[i]=Symbols.id(gs.newAuxId());
                     }
+                    listIntervals.add(sym);
+                    domsIntervals.put(sym, intervals);
+                    intervalVars.put(sym, ivars);
                 }
             }
             
             c = c.next;
         }
-        return newcts;
     }
     
     //  Replace unary Boolean expressions that use an integer variable with their 0/1 equivalent. 
@@ -212,7 +181,7 @@ public class MIP
         Intpair p=term.getBounds();
         
         if(p.upper<=k) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         
         long M=p.upper-k;
@@ -340,7 +309,7 @@ public class MIP
             if(a instanceof MultiplyMapper) {
                 long multiplier=a.getChild(1).getValue();
                 if(val%multiplier != 0) {
-                    return new BooleanConstant(false);   // Non-integer value of division -- return false. 
+                    return BooleanConstant.make(false);   // Non-integer value of division -- return false. 
                 }
                 val=val/multiplier;
             }
@@ -350,25 +319,280 @@ public class MIP
             a=a.getChild(0);
         }
         assert a instanceof Identifier;
-        String varname=varTo01.get(a.toString()).get(val);    // Look up the 01 variable.
-        assert varname!=null;
-        return new Identifier(m, varname);
+        int sym=((Identifier)a).getSymbol();
+        
+        // Look up the 01 variable.
+        ArrayList<Intpair> intervals=doms01.get(sym);
+        int idx=0;
+        for(int i=0; i<intervals.size(); i++) {
+            Intpair in=intervals.get(i);
+            if(val>=in.lower && val<=in.upper) {
+                int var01=varTo01.get(sym)[(int)(idx+val-in.lower)];
+                if(!registered.get(var01)) {
+                    gs.newVariable(Symbols.name(var01), new BooleanDomainFull(), ASTNode.Auxiliary);
+                    registered.set(var01);
+                }
+                return new Identifier(m, Symbols.name(var01));
+            }
+            idx+=(int)(in.upper-in.lower+1);
+        }
+        return BooleanConstant.make(false);    //  Value not in domain.
     }
     
     //////////////////////////////////////////////////////////////////////////
     //  ILP output methods. 
+    //  Rows are built one at a time in a MIPRow and streamed to the output. 
+    
+    MIPRow row=new MIPRow();
+    long rowcount=0;
+    
+    //  Must be called after process and simplify. 
+    public void toMIP(BufferedWriter b) throws IOException {
+        // LP format for CPLEX or Gurobi.
+        if(m.objective!=null) {
+            b.append((m.objective instanceof Minimising) ? "Minimize\n" : "Maximize\n");
+            b.append("obj: ");
+            row.clear();
+            addLinear(m.objective.getChild(0), 1);
+            row.writeTerms(b);
+            if(row.constant!=0) {
+                b.append(row.constant<0 ? " - " : " + ");
+                b.append(String.valueOf(Math.abs(row.constant)));
+            }
+            b.append("\n");
+        }
+        else {
+            b.append("Maximize\n");
+            b.append("obj: 1\n");
+        }
+        
+        b.append("Subject To\n");
+        ASTNode top=m.constraints.getChild(0);
+        if(top instanceof And) {
+            for(int i=0; i<top.numChildren(); i++) {
+                toMIPConstraint(b, top.getChild(i));
+            }
+        }
+        else {
+            toMIPConstraint(b, top);
+        }
+        
+        toMIP01Constraints(b);
+        toMIPDomainConstraints(b);
+        
+        b.append("Bounds\n");
+        toMIPBounds(b);
+        
+        b.append("Generals\n");  //  Might need to be General for CPLEX
+        toMIPGenerals(b);
+        
+        b.append("\nBinary\n");
+        toMIPBinary(b);
+        
+        b.append("\nEnd\n");
+    }
+    
+    //  Write one top-level constraint (already linear after replace01 and simplify).
+    private void toMIPConstraint(BufferedWriter b, ASTNode ct) throws IOException {
+        row.clear();
+        if(ct instanceof Equals) {
+            addLinear(ct.getChild(0), 1);
+            addLinear(ct.getChild(1), -1);
+            writeRow(b, " = ");
+        }
+        else if(ct instanceof LessEqual || ct instanceof Less) {
+            long strict=(ct instanceof Less) ? 1 : 0;
+            if(ct.getChild(0).isConstant()) {
+                //  k <= e is written as e >= k
+                addLinear(ct.getChild(1), 1);
+                addLinear(ct.getChild(0), -1);
+                row.constant-=strict;
+                writeRow(b, " >= ");
+            }
+            else {
+                addLinear(ct.getChild(0), 1);
+                addLinear(ct.getChild(1), -1);
+                row.constant+=strict;
+                writeRow(b, " <= ");
+            }
+        }
+        else if(ct.isConstant()) {
+            //  Nothing to write for true. 
+            row.constant=1-ct.getValue();
+            writeRow(b, " <= ");
+        }
+        else if(ct.isRelation() && (ct instanceof Identifier || ct instanceof Negate)) {
+            addLinear(ct, 1);
+            row.constant-=1;
+            writeRow(b, " = ");
+        }
+        else {
+            CmdFlags.errorExit("Constraint not supported in MIP output: "+ct);
+        }
+    }
+    
+    //  The row is  terms + constant  sense  0.
+    private void writeRow(BufferedWriter b, String sense) throws IOException {
+        if(row.isConstant()) {
+            long c=row.constant;
+            boolean sat = sense.equals(" = ") ? c==0 : (sense.equals(" <= ") ? c<=0 : c>=0);
+            if(sat) {
+                return;
+            }
+            //  No constant rows in LP format, so use a new 0/1 variable to write an infeasible one. 
+            int aux=Symbols.id(gs.newAuxId());
+            extraBinary.add(aux);
+            row.clear();
+            row.add(aux, 1);
+            row.constant=1;
+            sense=" <= ";
+        }
+        rowcount++;
+        b.append("c");
+        b.append(String.valueOf(rowcount));
+        b.append(": ");
+        row.writeTerms(b);
+        b.append(sense);
+        b.append(String.valueOf(-row.constant));
+        b.append("\n");
+    }
+    
+    //  Add mult*e to the row. 
+    private void addLinear(ASTNode e, long mult) {
+        if(e.isConstant()) {
+            row.constant+=mult*e.getValue();
+        }
+        else if(e instanceof Identifier) {
+            int sym=((Identifier)e).getSymbol();
+            if(!gs.hasVariable(sym) && gs.replacements.containsKey(e)) {
+                //  Deleted by simplify after the 0/1 rows were planned. 
+                addLinear(gs.replacements.get(e), mult);
+            }
+            else {
+                row.add(sym, mult);
+            }
+        }
+        else if(e instanceof WeightedSum) {
+            long[] w=((WeightedSum)e).getWeightsArray();
+            for(int i=0; i<e.numChildren(); i++) {
+                addLinear(e.getChild(i), mult*w[i]);
+            }
+        }
+        else if(e instanceof UnaryMinus) {
+            addLinear(e.getChild(0), -mult);
+        }
+        else if(e instanceof Negate) {
+            row.constant+=mult;
+            addLinear(e.getChild(0), -mult);
+        }
+        else if(e instanceof MultiplyMapper) {
+            addLinear(e.getChild(0), mult*e.getChild(1).getValue());
+        }
+        else if(e instanceof ShiftMapper) {
+            addLinear(e.getChild(0), mult);
+            row.constant+=mult*e.getChild(1).getValue();
+        }
+        else {
+            CmdFlags.errorExit("Expression not supported in MIP output: "+e);
+        }
+    }
+    
+    //  For each variable with a 0/1 representation, the 0/1 variables sum to 1
+    //  and are linked to the integer variable. 
+    private void toMIP01Constraints(BufferedWriter b) throws IOException {
+        for(int sym : list01) {
+            ArrayList<Intpair> intervals=doms01.get(sym);
+            int[] vals=varTo01.get(sym);
+            
+            row.clear();
+            for(int i=0; i<vals.length; i++) {
+                addColumn(vals[i], 1);
+            }
+            row.constant=-1;
+            writeRow(b, " = ");
+            
+            row.clear();
+            int idx=0;
+            for(int i=0; i<intervals.size(); i++) {
+                for(long val=intervals.get(i).lower; val<=intervals.get(i).upper; val++) {
+                    addColumn(vals[idx++], val);
+                }
+            }
+            addLinear(new Identifier(m, Symbols.name(sym)), -1);
+            writeRow(b, " = ");
+        }
+    }
+    
+    //  For each variable with holes in its domain, one of the interval 0/1 variables
+    //  is true and implies the variable is within the interval (by big-M).
+    private void toMIPDomainConstraints(BufferedWriter b) throws IOException {
+        for(int sym : listIntervals) {
+            ArrayList<Intpair> intervals=domsIntervals.get(sym);
+            int[] ivars=intervalVars.get(sym);
+            long lb=intervals.get(0).lower;
+            long ub=intervals.get(intervals.size()-1).upper;
+            ASTNode var=new Identifier(m, Symbols.name(sym));
+            
+            row.clear();
+            for(int i=0; i<ivars.length; i++) {
+                addColumn(ivars[i], 1);
+            }
+            row.constant=-1;
+            writeRow(b, " = ");
+            
+            for(int i=0; i<intervals.size(); i++) {
+                if(i>0) {
+                    //  ivar -> -var <= -lower  as  -var + M ivar <= -lower + M
+                    long k=-intervals.get(i).lower;
+                    long M=-lb-k;
+                    if(M>0) {
+                        row.clear();
+                        addLinear(var, -1);
+                        addColumn(ivars[i], M);
+                        row.constant=-(k+M);
+                        writeRow(b, " <= ");
+                    }
+                }
+                
+                if(i<intervals.size()-1) {
+                    //  ivar -> var <= upper  as  var + M ivar <= upper + M
+                    long k=intervals.get(i).upper;
+                    long M=ub-k;
+                    if(M>0) {
+                        row.clear();
+                        addLinear(var, 1);
+                        addColumn(ivars[i], M);
+                        row.constant=-(k+M);
+                        writeRow(b, " <= ");
+                    }
+                }
+            }
+        }
+    }
+    
+    //  Add a 0/1 variable from varTo01 or intervalVars, which may have been
+    //  added to the symbol table and then removed by simplify. 
+    private void addColumn(int sym, long coeff) {
+        if(registered.get(sym)) {
+            addLinear(new Identifier(m, Symbols.name(sym)), coeff);
+        }
+        else {
+            row.add(sym, coeff);
+        }
+    }
+    
+    //  Variables that appear only in the MIP output. 
+    ArrayList<Integer> extraBinary=new ArrayList<Integer>();
     
     //////////////////////////////////////////////////////////////////////////
     //  ILP output of variables.
-    //  0/1 variables already generated when required -- mapping to set of 0/1 
-    //  variables is in m.ilp
     
-    public static void toMIPBounds(BufferedWriter b, Model m) throws IOException {
+    private void toMIPBounds(BufferedWriter b) throws IOException {
         //  For each variable that is not 0/1 or bool, output bounds. 
-        categoryentry c = m.global_symbols.category_first;
+        categoryentry c = gs.category_first;
         while (c != null) {
             if (c.cat == ASTNode.Decision || c.cat == ASTNode.Auxiliary) {
-                Intpair bnds=m.global_symbols.getDomain(c.name).getBounds();
+                Intpair bnds=gs.getDomain(c.name).getBounds();
                 if(bnds.lower!=0 || bnds.upper!=1) {
                     b.append(String.valueOf(bnds.lower));
                     b.append(" <= ");
@@ -383,12 +607,11 @@ public class MIP
         }
     }
     
-    public static void toMIPGenerals(BufferedWriter b, Model m) throws IOException {
-        //  For each variable that is not 0/1 or bool, output bounds. 
-        categoryentry c = m.global_symbols.category_first;
+    private void toMIPGenerals(BufferedWriter b) throws IOException {
+        categoryentry c = gs.category_first;
         while (c != null) {
             if (c.cat == ASTNode.Decision || c.cat == ASTNode.Auxiliary) {
-                Intpair bnds=m.global_symbols.getDomain(c.name).getBounds();
+                Intpair bnds=gs.getDomain(c.name).getBounds();
                 if(bnds.lower!=0 || bnds.upper!=1) {
                     b.append(c.name);
                     b.append(" ");
@@ -399,12 +622,11 @@ public class MIP
         }
     }
     
-    public static void toMIPBinary(BufferedWriter b, Model m) throws IOException {
-        //  For each variable that is not 0/1 or bool, output bounds. 
-        categoryentry c = m.global_symbols.category_first;
+    private void toMIPBinary(BufferedWriter b) throws IOException {
+        categoryentry c = gs.category_first;
         while (c != null) {
             if (c.cat == ASTNode.Decision || c.cat == ASTNode.Auxiliary) {
-                Intpair bnds=m.global_symbols.getDomain(c.name).getBounds();
+                Intpair bnds=gs.getDomain(c.name).getBounds();
                 if(bnds.lower==0 && bnds.upper==1) {
                     b.append(c.name);
                     b.append(" ");
@@ -413,5 +635,26 @@ public class MIP
             
             c = c.next;
         }
+        
+        //  0/1 variables not in the symbol table.
+        for(int sym : list01) {
+            toMIPBinaryUnregistered(b, varTo01.get(sym));
+        }
+        for(int sym : listIntervals) {
+            toMIPBinaryUnregistered(b, intervalVars.get(sym));
+        }
+        for(int sym : extraBinary) {
+            b.append(Symbols.name(sym));
+            b.append(" ");
+        }
+    }
+    
+    private void toMIPBinaryUnregistered(BufferedWriter b, int[] syms) throws IOException {
+        for(int i=0; i<syms.length; i++) {
+            if(!registered.get(syms[i])) {
+                b.append(Symbols.name(syms[i]));
+                b.append(" ");
+            }
+        }
     }
 }
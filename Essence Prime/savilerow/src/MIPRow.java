@@ -0,0 +1,105 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+
+//  Buffer for one linear row of MIP output. Columns are symbol ids (see
+//  Symbols); terms on the same column are merged as they are added, keeping
+//  the order in which columns first appear. Reused for every row.
+
+public class MIPRow {
+    private int[] cols=new int[16];
+    private long[] coeffs=new long[16];
+    private int size=0;
+    
+    //  Position of each column in the row, or -1.
+    private int[] pos=new int[0];
+    
+    //  Constant term on the left-hand side.
+    long constant=0;
+    
+    public void clear() {
+        for(int i=0; i<size; i++) {
+            pos[cols[i]]=-1;
+        }
+        size=0;
+        constant=0;
+    }
+    
+    public void add(int col, long coeff) {
+        if(col>=pos.length) {
+            int oldlen=pos.length;
+            pos=Arrays.copyOf(pos, Math.max(col+1, oldlen*2));
+            Arrays.fill(pos, oldlen, pos.length, -1);
+        }
+        int p=pos[col];
+        if(p>=0) {
+            coeffs[p]+=coeff;
+        }
+        else {
+            if(size==cols.length) {
+                cols=Arrays.copyOf(cols, size*2);
+                coeffs=Arrays.copyOf(coeffs, size*2);
+            }
+            pos[col]=size;
+            cols[size]=col;
+            coeffs[size]=coeff;
+            size++;
+        }
+    }
+    
+    //  True if all terms cancelled out.
+    public boolean isConstant() {
+        for(int i=0; i<size; i++) {
+            if(coeffs[i]!=0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    //  Write the terms in LP format, leaving out those with coefficient 0.
+    public void writeTerms(BufferedWriter b) throws IOException {
+        boolean first=true;
+        for(int i=0; i<size; i++) {
+            long w=coeffs[i];
+            if(w==0) {
+                continue;
+            }
+            if(w<0) {
+                b.append(" - ");
+                b.append(String.valueOf(-w));
+            }
+            else {
+                if(!first) {
+                    b.append(" + ");
+                }
+                b.append(String.valueOf(w));
+            }
+            b.append(" ");
+            b.append(Symbols.name(cols[i]));
+            first=false;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+import java.util.zip.*;
+
+//  Helpers for -out-compress. Output files are written as gzip streams.
+//  A file may consist of several gzip members one after another; gzip,
+//  zlib-based solvers and GZIPInputStream all read these as one stream.
+
+public class OutputCompression {
+    private static final int bufsize=1<<16;
+
+    public static boolean enabled() {
+        return CmdFlags.out_compress;
+    }
+
+    //  Name of the compressed version of an output file.
+    public static String compressedName(String name) {
+        return name.endsWith(".gz") ? name : name+".gz";
+    }
+
+    //  Start a new gzip member on fw. Closing the returned stream closes fw.
+    public static GZIPOutputStream openMember(FileOutputStream fw) throws IOException {
+        return new GZIPOutputStream(fw, bufsize);
+    }
+
+    //  A gzip member holding s padded with spaces to width characters and a
+    //  newline. The data is stored uncompressed, so the member has the same size
+    //  for any s, and can be overwritten in place to change a header line. 
+    public static byte[] paddedMember(String s, int width) {
+        assert s.length()<=width;
+        byte[] data=new byte[width+1];
+        Arrays.fill(data, (byte)' ');
+        byte[] sb=s.getBytes();
+        System.arraycopy(sb, 0, data, 0, sb.length);
+        data[width]=(byte)'\n';
+        
+        CRC32 crc=new CRC32();
+        crc.update(data, 0, data.length);
+        
+        ByteArrayOutputStream b=new ByteArrayOutputStream(data.length+23);
+        //  Header: magic number, deflate, no flags, no time, no extra flags, unknown OS.
+        b.write(new byte[]{(byte)0x1f, (byte)0x8b, 8, 0, 0, 0, 0, 0, 0, (byte)0xff}, 0, 10);
+        //  One final stored block.
+        b.write(1);
+        writeInt(b, data.length, 2);
+        writeInt(b, ~data.length & 0xffff, 2);
+        b.write(data, 0, data.length);
+        writeInt(b, crc.getValue(), 4);
+        writeInt(b, data.length, 4);
+        return b.toByteArray();
+    }
+    
+    //  Little-endian, as in the gzip format. 
+    private static void writeInt(ByteArrayOutputStream b, long v, int bytes) {
+        for(int i=0; i<bytes; i++) {
+            b.write((int)(v>>>(8*i)) & 0xff);
+        }
+    }
+    
+    //  Decompress a gzip file, for solvers that cannot read compressed input.
+    public static void decompress(String from, String to) throws IOException {
+        InputStream in=new GZIPInputStream(new FileInputStream(from), bufsize);
+        OutputStream out=new BufferedOutputStream(new FileOutputStream(to), bufsize);
+        try {
+            byte[] buf=new byte[bufsize];
+            int n;
+            while((n=in.read(buf))>0) {
+                out.write(buf, 0, n);
+            }
+        }
+        finally {
+            in.close();
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+//  Lightweight profiler switched on by -profile. Records wall time, bytes
+//  allocated by the current thread, model tree size before and after, and the
+//  number of aux variables created, for each tree transformer application,
+//  ModelContainer phase, tabulation attempt and solver call. Results are
+//  aggregated by kind and name (in order of first use) and written as JSON
+//  next to the .info file.
+//
+//  Usage:  Profiler.Entry pe=Profiler.start(kind, name, m, measureTree);  ...  Profiler.end(pe);
+//  start returns null when profiling is off, and end(null) does nothing.
+
+public final class Profiler
+{
+    public static final class Entry {
+        final String kind;
+        final String name;
+        final Model m;
+        final boolean measureTree;
+        final long startNanos;
+        final long startBytes;
+        final long startSize;
+        final long startAux;
+        
+        Entry(String _kind, String _name, Model _m, boolean _measureTree) {
+            kind=_kind;
+            name=_name;
+            m=_m;
+            measureTree=_measureTree;
+            startSize=measureTree ? treeSize(m) : -1;
+            startAux=(m!=null) ? m.global_symbols.auxvarcounter : 0;
+            startBytes=allocatedBytes();
+            startNanos=System.nanoTime();
+        }
+    }
+    
+    //  Totals for one kind and name.
+    private static final class Totals {
+        long calls;
+        long nanos;
+        long bytes;
+        long firstSizeBefore=-1;
+        long lastSizeAfter=-1;
+        long sizeChange;
+        long auxCreated;
+    }
+    
+    private static final LinkedHashMap<String, Totals> totals=new LinkedHashMap<String, Totals>();
+    
+    private static final ThreadMXBean threads=ManagementFactory.getThreadMXBean();
+    
+    private Profiler() {}
+    
+    //  Start of a run of the translation; discards anything recorded in dry runs.
+    public static void reset() {
+        synchronized(totals) {
+            totals.clear();
+        }
+    }
+    
+    public static Entry start(String kind, String name, Model m, boolean measureTree) {
+        if(!CmdFlags.profile) {
+            return null;
+        }
+        return new Entry(kind, name, m, measureTree && m!=null);
+    }
+    
+    public static void end(Entry e) {
+        if(e!=null) {
+            end(e, e.m);
+        }
+    }
+    
+    //  For phases that replace the model object, e.g. domain filtering.
+    public static void end(Entry e, Model after) {
+        if(e==null) {
+            return;
+        }
+        long nanos=System.nanoTime()-e.startNanos;
+        long bytes=allocatedBytes()-e.startBytes;
+        long size=e.measureTree ? treeSize(after) : -1;
+        long aux=(after!=null) ? after.global_symbols.auxvarcounter-e.startAux : 0;
+        
+        synchronized(totals) {
+            String key=e.kind+"\t"+e.name;
+            Totals t=totals.get(key);
+            if(t==null) {
+                t=new Totals();
+                totals.put(key, t);
+            }
+            t.calls++;
+            t.nanos+=nanos;
+            t.bytes+=Math.max(0, bytes);
+            if(e.measureTree) {
+                if(t.firstSizeBefore<0) {
+                    t.firstSizeBefore=e.startSize;
+                }
+                t.lastSizeAfter=size;
+                t.sizeChange+=size-e.startSize;
+            }
+            t.auxCreated+=Math.max(0, aux);
+        }
+    }
+    
+    private static long treeSize(Model m) {
+        long size=m.constraints.treesize();
+        if(m.objective!=null) {
+            size+=m.objective.treesize();
+        }
+        return size;
+    }
+    
+    //  Bytes allocated by the current thread, or 0 where the JVM does not support it.
+    private static long allocatedBytes() {
+        if(threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean t=(com.sun.management.ThreadMXBean) threads;
+            if(t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled()) {
+                return t.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+    
+    //  x.param.info -> x.param.profile.json
+    public static String reportFileName() {
+        String f=CmdFlags.infofile;
+        if(f.endsWith(".info")) {
+            f=f.substring(0, f.length()-5);
+        }
+        return f+".profile.json";
+    }
+    
+    public static void writeReport() {
+        if(!CmdFlags.profile) {
+            return;
+        }
+        try {
+            BufferedWriter out=new BufferedWriter(new FileWriter(reportFileName()));
+            out.write("{\n  \"SavileRowTotalTime\": "+(((double) System.currentTimeMillis()-CmdFlags.startTime)/1000.0)+",\n");
+            out.write("  \"passes\": [\n");
+            synchronized(totals) {
+                int i=0;
+                for(Map.Entry<String, Totals> en : totals.entrySet()) {
+                    String[] kn=en.getKey().split("\t", 2);
+                    Totals t=en.getValue();
+                    out.write("    {\"kind\": \""+kn[0]+"\", \"name\": \""+escape(kn[1])+"\", \"calls\": "+t.calls
+                        +", \"wallTime\": "+(t.nanos/1e9)+", \"allocatedBytes\": "+t.bytes);
+                    if(t.firstSizeBefore>=0) {
+                        out.write(", \"treeSizeBefore\": "+t.firstSizeBefore+", \"treeSizeAfter\": "+t.lastSizeAfter+", \"treeSizeChange\": "+t.sizeChange);
+                    }
+                    out.write(", \"auxVarsCreated\": "+t.auxCreated+"}");
+                    out.write((++i<totals.size()) ? ",\n" : "\n");
+                }
+            }
+            out.write("  ]\n}\n");
+            out.close();
+            CmdFlags.println("Created profile file "+reportFileName());
+        }
+        catch(IOException e) {
+            CmdFlags.println("Could not open file for profile output.");
+        }
+    }
+    
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -81,10 +81,15 @@ public final class SRWorkThread extends Thread {
         }
         
         CmdFlags.startTime=System.currentTimeMillis();
+        TimeBudget.reset();
+        Profiler.reset();
         
         if(CmdFlags.make_tab) {
             mc.makeTableScopes();
         }
+        else if(CmdFlags.horizon_param!=null) {
+            new HorizonModelContainer(mc).process();
+        }
         else {
             mc.process();
         }
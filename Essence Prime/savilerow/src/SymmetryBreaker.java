@@ -29,10 +29,30 @@ import java.util.regex.*;
 
 import java.util.*;
 import java.io.*;
+import java.security.*;
+import java.math.BigInteger;
 
 public class SymmetryBreaker {
+    // generators found by findSymmetries, keyed by a hash of the graph
+    private static HashMap<String, ArrayList<Permutation>> cache = new HashMap<String, ArrayList<Permutation>>();
+
+    // coloured graph built from the model
+    private Model model;
+    private int numVertices;
+    private int[] vertexColour = new int[1024];
+    private String[] vertexVar = new String[1024];
+    private HashMap<String, Integer> colourIds = new HashMap<String, Integer>();
+    private HashMap<String, Integer> varVertex = new HashMap<String, Integer>();
+    private int numEdges;
+    private int[] edgeFrom = new int[1024];
+    private int[] edgeTo = new int[1024];
+    private MessageDigest digest;
 
     public boolean detectAndBreakSymmetries(Model m) {
+        if (!CmdFlags.symdetect_external) {
+            addConstraints(m, findSymmetries(m));
+            return true;
+        }
         try {
             String file = writeModelAsJSON(m);
             CmdFlags.println("Created output file " + file);
@@ -121,6 +141,173 @@ public class SymmetryBreaker {
         m.constraints.setChild(0, and);
     }
 
+    // detects symmetries in-process: builds a coloured graph with a vertex
+    // for each variable and each expression node, and finds generators of its
+    // automorphism group. Each generator is restricted to the decision
+    // variables.
+    private ArrayList<Permutation> findSymmetries(Model m) {
+        long start = System.currentTimeMillis();
+        buildGraph(m);
+        String key = new BigInteger(1, digest.digest()).toString(16);
+        ArrayList<Permutation> perms = cache.get(key);
+        if (perms != null) {
+            CmdFlags.printlnIfVerbose("Symmetry generators found in cache.");
+            return perms;
+        }
+
+        // compressed adjacency lists
+        int[] adjStart = new int[numVertices + 1];
+        for (int i = 0; i < numEdges; i++) {
+            adjStart[edgeFrom[i] + 1]++;
+            adjStart[edgeTo[i] + 1]++;
+        }
+        for (int v = 0; v < numVertices; v++) {
+            adjStart[v + 1] += adjStart[v];
+        }
+        int[] fill = Arrays.copyOf(adjStart, numVertices);
+        int[] adj = new int[2 * numEdges];
+        for (int i = 0; i < numEdges; i++) {
+            adj[fill[edgeFrom[i]]++] = edgeTo[i];
+            adj[fill[edgeTo[i]]++] = edgeFrom[i];
+        }
+        edgeFrom = null;
+        edgeTo = null;
+
+        AutomorphismFinder af = new AutomorphismFinder(numVertices, Arrays.copyOf(vertexColour, numVertices), adjStart, adj);
+        ArrayList<int[]> gens = af.findGenerators((long) (CmdFlags.symdetect_timelimit * 1000));
+
+        perms = new ArrayList<Permutation>();
+        for (int[] g : gens) {
+            Permutation p = new Permutation();
+            boolean moves = false;
+            for (int v = 0; v < numVertices; v++) {
+                if (vertexVar[v] != null && g[v] != v && !m.global_symbols.isAuxiliary(vertexVar[v])) {
+                    p.addMapping(vertexVar[v], vertexVar[g[v]]);
+                    moves = true;
+                }
+            }
+            if (moves) {
+                perms.add(p);
+            }
+        }
+
+        CmdFlags.printlnIfVerbose("Symmetry detection: graph with " + numVertices + " vertices and " + numEdges + " edges, "
+                + perms.size() + " generators found in " + (System.currentTimeMillis() - start) / 1000.0 + "s"
+                + (af.timedOut() ? " (time limit reached)." : "."));
+        if (af.timedOut()) {
+            CmdFlags.println("Symmetry detection reached its time limit; breaking the symmetries found so far.");
+        }
+        else {
+            // only complete sets of generators are cached
+            cache.put(key, perms);
+        }
+        return perms;
+    }
+
+    // the graph mirrors the JSON written by writeModelAsJSON: children of
+    // nodes with symmetric children are attached directly, other children
+    // through a vertex coloured by their position
+    private void buildGraph(Model m) {
+        model = m;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            CmdFlags.errorExit("SHA-256 doesn't exist");
+        }
+        for (String var : m.global_symbols.getVarNamesList()) {
+            varVertex(var);
+        }
+        buildNode(m.constraints);
+        if (m.objective != null) {
+            addEdge(addVertex("objective"), buildNode(m.objective));
+        }
+    }
+
+    private int buildNode(ASTNode a) {
+        if (a instanceof Identifier && a.getCategory() == ASTNode.Decision) {
+            return varVertex(a.toString());
+        }
+        if (a.getCategory() < ASTNode.Decision) {
+            // constants are distinguished by their value
+            return addVertex("c:" + a.toString());
+        }
+
+        int v = addVertex("n:" + a.getClass().getSimpleName());
+        if (a instanceof WeightedSum) {
+            // each child is attached through a vertex coloured by its weight
+            for (int i = 0; i < a.numChildren(); i++) {
+                int w = addVertex("w:" + ((WeightedSum) a).getWeight(i));
+                addEdge(v, w);
+                addEdge(w, buildNode(a.getChild(i)));
+            }
+            return v;
+        }
+        if (a instanceof AllDifferent && a.getChild(0) instanceof CompoundMatrix && a.getChild(0).numChildren() == 3) {
+            // binary not-equal
+            addEdge(v, buildNode(a.getChild(0).getChild(1)));
+            addEdge(v, buildNode(a.getChild(0).getChild(2)));
+            return v;
+        }
+
+        int first = 0;
+        if (a instanceof CompoundMatrix) {
+            // index domain
+            addEdge(v, buildNode(a.getChild(0)));
+            first = 1;
+        }
+        boolean symmetric = (a.getParent() != null || !(a instanceof CompoundMatrix)) && a.childrenAreSymmetric();
+        for (int i = first; i < a.numChildren(); i++) {
+            int c = buildNode(a.getChild(i));
+            if (symmetric) {
+                addEdge(v, c);
+            } else {
+                int p = addVertex("p:" + i);
+                addEdge(v, p);
+                addEdge(p, c);
+            }
+        }
+        return v;
+    }
+
+    private int varVertex(String name) {
+        Integer v = varVertex.get(name);
+        if (v == null) {
+            String dom = model.global_symbols.getDomain(name).toString();
+            v = addVertex((model.global_symbols.isAuxiliary(name) ? "a:" : "v:") + dom);
+            vertexVar[v] = name;
+            varVertex.put(name, v);
+            digest.update(name.getBytes());
+        }
+        return v;
+    }
+
+    private int addVertex(String label) {
+        Integer c = colourIds.get(label);
+        if (c == null) {
+            c = colourIds.size();
+            colourIds.put(label, c);
+        }
+        if (numVertices == vertexColour.length) {
+            vertexColour = Arrays.copyOf(vertexColour, numVertices * 2);
+            vertexVar = Arrays.copyOf(vertexVar, numVertices * 2);
+        }
+        vertexColour[numVertices] = c;
+        digest.update(label.getBytes());
+        return numVertices++;
+    }
+
+    private void addEdge(int a, int b) {
+        if (numEdges == edgeFrom.length) {
+            edgeFrom = Arrays.copyOf(edgeFrom, numEdges * 2);
+            edgeTo = Arrays.copyOf(edgeTo, numEdges * 2);
+        }
+        edgeFrom[numEdges] = a;
+        edgeTo[numEdges] = b;
+        numEdges++;
+        digest.update(new byte[] { (byte) (a >>> 24), (byte) (a >>> 16), (byte) (a >>> 8), (byte) a,
+                (byte) (b >>> 24), (byte) (b >>> 16), (byte) (b >>> 8), (byte) b });
+    }
+
     // copies list of string (variable manes) into list of Identifier objects
     private ArrayList<ASTNode> toIdentifierList(ArrayList<String> vars, Model m) {
         ArrayList<ASTNode> idents = new ArrayList<ASTNode>();
@@ -284,7 +284,7 @@ public class Tabulation
         //  Clear the rest of the constraints.
         for(int i=1; i<ctlist.size(); i++) {
             a=ctlist.get(i);
-            a.getParent().setChild(a.getChildNo(), new BooleanConstant(true));
+            a.getParent().setChild(a.getChildNo(), BooleanConstant.make(true));
         }
     }
     
@@ -732,7 +732,7 @@ public class Tabulation
                 //  Replace the original constraints with 'true'
                 for(int j=0; j<toreplace.size(); j++) {
                     if(toreplace.get(j).getParent()!=null) {
-                        toreplace.get(j).getParent().setChild(toreplace.get(j).getChildNo(), new BooleanConstant(true));
+                        toreplace.get(j).getParent().setChild(toreplace.get(j).getChildNo(), BooleanConstant.make(true));
                     }
                 }
                 newcts.add(newtable);
@@ -848,6 +848,18 @@ public class Tabulation
     //  Actually perform the tabulation of an expression.
     
     public ASTNode tabulate(ASTNode totab, long nodelimit, boolean shorttable, String heuristic) {
+        //  Heuristic tabulation is optional; MakeTable functions are always tabulated. 
+        if(!heuristic.equals("MakeTableFunction") && TimeBudget.exceeded(TimeBudget.TABULATION)) {
+            return null;
+        }
+        
+        Profiler.Entry pe=Profiler.start("tabulation", heuristic, m, false);
+        ASTNode newTable=tabulateAttempt(totab, nodelimit, shorttable, heuristic);
+        Profiler.end(pe);
+        return newTable;
+    }
+    
+    private ASTNode tabulateAttempt(ASTNode totab, long nodelimit, boolean shorttable, String heuristic) {
         ASTNode a=tu.normalise(totab);
         
         if(CmdFlags.tabulate_diagnostics) {
@@ -216,36 +216,46 @@ public class TabulationUtils {
             if(!flag) return null;
         }
         
-        // Now convert into a tableshort constraint.
-        
-        ArrayList<ASTNode> shortsups2=new ArrayList<ASTNode>();
-        
+        //  Compress the set of short tuples using an extension of the IJCAI'13 algorithm.
+        TupleStore store=new TupleStore(varlist.size());
+        long[] tup=new long[varlist.size()];
         for(int i=0; i<shortsups.size(); i++) {
-            
-            ArrayList<Long> shortsupold=shortsups.get(i);
-            
-            ArrayList<ASTNode> shortsupnew=new ArrayList<ASTNode>();
-            
-            for(int j=0; j<shortsupold.size(); j++) {
-                if(shortsupold.get(j)!=Long.MIN_VALUE) {
-                    shortsupnew.add(CompoundMatrix.make(NumberConstant.make(j+1), NumberConstant.make(shortsupold.get(j))));
-                }
+            ArrayList<Long> shortsup=shortsups.get(i);
+            for(int j=0; j<tup.length; j++) {
+                tup[j]=shortsup.get(j);
             }
-            
-            shortsups2.add(CompoundMatrix.make(shortsupnew));
+            store.add(tup);
         }
+        store.pack();
         
-        ASTNode tab=CompoundMatrix.make(shortsups2);
-        
-        //  Further compress the set of short tuples using an extension of the IJCAI'13 algorithm.
         ArrayList<ArrayList<Intpair>> doms = new ArrayList<ArrayList<Intpair>>(vardoms.size());
         for(int i=0; i<vardoms.size(); i++) doms.add(vardoms.get(i).getIntervalSet());
-        ASTNode compressed=TransformShortTableSquash.compressShortTab(tab, doms);
+        ASTNode tab=TransformShortTableSquash.compressShortTab(store, doms);
         
-        if(compressed!=null) {
-            CmdFlags.printlnIfVerbose("In: " + tab +"\n\n"+doms);
-            CmdFlags.printlnIfVerbose("Out: " + compressed.numChildren());
-            tab=compressed;
+        if(tab!=null) {
+            CmdFlags.printlnIfVerbose("In: " + shortsups.size() + " short supports\n\n"+doms);
+            CmdFlags.printlnIfVerbose("Out: " + tab.numChildren());
+        }
+        else {
+            // Not compressed; convert into a tableshort constraint as it is.
+            ArrayList<ASTNode> shortsups2=new ArrayList<ASTNode>();
+            
+            for(int i=0; i<shortsups.size(); i++) {
+                
+                ArrayList<Long> shortsupold=shortsups.get(i);
+                
+                ArrayList<ASTNode> shortsupnew=new ArrayList<ASTNode>();
+                
+                for(int j=0; j<shortsupold.size(); j++) {
+                    if(shortsupold.get(j)!=Long.MIN_VALUE) {
+                        shortsupnew.add(CompoundMatrix.make(NumberConstant.make(j+1), NumberConstant.make(shortsupold.get(j))));
+                    }
+                }
+                
+                shortsups2.add(CompoundMatrix.make(shortsupnew));
+            }
+            
+            tab=CompoundMatrix.make(shortsups2);
         }
         
         tab=m.cmstore.newConstantMatrixDedup(tab);
@@ -907,7 +917,7 @@ public class TabulationUtils {
     protected static ASTNode assignValue(ASTNode exp, ASTNode var, long val) {
         ReplaceASTNode r1;
         if(var.isRelation()) {
-            r1=new ReplaceASTNode(var, new BooleanConstant(val==1));
+            r1=new ReplaceASTNode(var, BooleanConstant.make(val==1));
         }
         else {
             r1=new ReplaceASTNode(var, NumberConstant.make(val));
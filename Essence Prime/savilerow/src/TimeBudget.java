@@ -0,0 +1,159 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+//  Time allowances for the phases of translation. Optional phases (CSE,
+//  tabulation, domain filtering) call exceeded() at points where stopping
+//  leaves a valid model, and stop early when their allowance is used up.
+//  Unrolling and encoding cannot be cut short; they are only timed.
+//  Phases that were cut short or went over their allowance are recorded
+//  in the .info file.
+//
+//  An allowance covers all time spent in the phase in one run, e.g. CSE in the
+//  domain filtering pass and again in the final translation. When -timelimit
+//  is given, each optional phase without an explicit allowance gets a quarter
+//  of the time limit.
+
+public final class TimeBudget
+{
+    public static final int UNROLL=0;
+    public static final int CSE=1;
+    public static final int TABULATION=2;
+    public static final int FILTER=3;
+    public static final int ENCODE=4;
+    
+    private static final String[] names={"unroll", "cse", "tabulation", "filter", "encode"};
+    private static final String[] statNames={"Unrolling", "CSE", "Tabulation", "DomainFiltering", "Encoding"};
+    private static final boolean[] optional={false, true, true, true, false};
+    
+    private static final long[] explicit=new long[]{-1, -1, -1, -1, -1};   //  From -phase-budget, in ms.
+    
+    private static final long[] allowance=new long[5];   //  0 means no limit.
+    private static final long[] used=new long[5];
+    private static final long[] started=new long[5];
+    private static final int[] depth=new int[5];
+    private static final boolean[] cut=new boolean[5];
+    private static final boolean[] overran=new boolean[5];
+    
+    private TimeBudget() {}
+    
+    //  Parse a list like "cse=10,tabulation=2.5" (seconds). Returns an error message or null.
+    public static String parse(String s) {
+        for(String part : s.split(",")) {
+            String[] kv=part.split("=");
+            if(kv.length!=2) {
+                return "Expected phase=seconds in -phase-budget, found: "+part;
+            }
+            int p=Arrays.asList(names).indexOf(kv[0].trim());
+            if(p<0) {
+                return "Unknown phase in -phase-budget: "+kv[0]+". Phases are unroll, cse, tabulation, filter and encode.";
+            }
+            try {
+                double secs=Double.parseDouble(kv[1].trim());
+                if(secs<0) {
+                    return "Time for phase "+kv[0]+" in -phase-budget must not be negative.";
+                }
+                explicit[p]=(long) (secs*1000);
+            }
+            catch(NumberFormatException e) {
+                return "Expected a number of seconds for phase "+kv[0]+" in -phase-budget.";
+            }
+        }
+        return null;
+    }
+    
+    //  Start of a run of the translation.
+    public static synchronized void reset() {
+        for(int p=0; p<names.length; p++) {
+            if(explicit[p]>=0) {
+                allowance[p]=explicit[p];
+            }
+            else if(optional[p] && CmdFlags.getTimeLimit()>0) {
+                allowance[p]=CmdFlags.getTimeLimit()/4;
+            }
+            else {
+                allowance[p]=0;
+            }
+            used[p]=0;
+            depth[p]=0;
+            cut[p]=false;
+            overran[p]=false;
+        }
+    }
+    
+    public static synchronized void start(int p) {
+        if(depth[p]++==0) {
+            started[p]=System.currentTimeMillis();
+        }
+    }
+    
+    public static synchronized void stop(int p) {
+        if(--depth[p]==0) {
+            used[p]+=System.currentTimeMillis()-started[p];
+            if(allowance[p]>0 && used[p]>allowance[p] && !optional[p]) {
+                overran[p]=true;
+            }
+        }
+    }
+    
+    private static long elapsed(int p) {
+        return used[p]+(depth[p]>0 ? System.currentTimeMillis()-started[p] : 0);
+    }
+    
+    //  Whether an optional phase should stop now. Records the phase as cut short.
+    public static synchronized boolean exceeded(int p) {
+        if(allowance[p]>0 && elapsed(p)>=allowance[p]) {
+            if(!cut[p]) {
+                CmdFlags.println("Time allowance for "+names[p]+" used up; stopping the phase early.");
+            }
+            cut[p]=true;
+            return true;
+        }
+        return false;
+    }
+    
+    //  Time left for a phase in ms (at least 1), or 0 if the phase has no limit.
+    public static synchronized long remaining(int p) {
+        if(allowance[p]==0) {
+            return 0;
+        }
+        return Math.max(1, allowance[p]-elapsed(p));
+    }
+    
+    //  For phases cut short by something other than exceeded(), e.g. a solver time limit.
+    public static synchronized void markCut(int p) {
+        cut[p]=true;
+    }
+    
+    public static synchronized void addStats(Stats s) {
+        for(int p=0; p<names.length; p++) {
+            if(cut[p]) {
+                s.putValue("PhaseCutShort_"+statNames[p], "1");
+            }
+            if(overran[p]) {
+                s.putValue("PhaseOverBudget_"+statNames[p], "1");
+            }
+        }
+    }
+}
@@ -23,192 +23,149 @@ package savilerow;
 
 import java.util.*;
 
+//  Compression of tables into short tables (an extension of the IJCAI'13
+//  squeeze algorithm). A set of tuples that differ only in one position and
+//  cover the whole domain of that position is replaced by one tuple with a
+//  wildcard there; this is repeated until nothing more can be squeezed.
+//
+//  Tuples are held in a TupleStore. For each position, the candidate tuples
+//  are sorted by the other positions so that each set of tuples that could
+//  be squeezed together is a contiguous run.
 
 public class TupleCompress {
-
-	public static class TupleReturn
-	{
-		public HashSet<ArrayList<Long>> squashed_tuples;
-		public HashSet<ArrayList<Long>> unsquashed_tuples;
-
-		public TupleReturn(HashSet<ArrayList<Long>> _squashed_tuples,
-								       HashSet<ArrayList<Long>> _unsquashed_tuples)
-		{
-			squashed_tuples = _squashed_tuples;
-			unsquashed_tuples = _unsquashed_tuples;
-		}
-	};
-/*
-	public static void main(String[] args) {
-
-		HashSet<ArrayList<Long>> tuples = new HashSet<ArrayList<Long>>();
-		tuples.add(new ArrayList<Long>(Arrays.asList(1,1,1)));
-		tuples.add(new ArrayList<Long>(Arrays.asList(1,1,2)));
-		tuples.add(new ArrayList<Long>(Arrays.asList(1,2,1)));
-		tuples.add(new ArrayList<Long>(Arrays.asList(1,2,2)));
-		tuples.add(new ArrayList<Long>(Arrays.asList(2,1,1)));
-		tuples.add(new ArrayList<Long>(Arrays.asList(2,1,2)));
-	ArrayList<ArrayList<Long>> domains = new ArrayList<ArrayList<Long>>();
-
-		domains.add(new ArrayList<Long>(Arrays.asList(1,2)));
-		domains.add(new ArrayList<Long>(Arrays.asList(1,2)));
-		domains.add(new ArrayList<Long>(Arrays.asList(1,2)));
-
-		HashSet<ArrayList<Long>> res =
-		full_squeeze_tuples(tuples, domains, false);
-
-		System.out.println(res);
-	}
-*/
-	public static long free_value = Long.MIN_VALUE;
-
-public static HashSet<ArrayList<Long>>
-full_squeeze_tuples(HashSet<ArrayList<Long>> tuples, ArrayList<ArrayList<Intpair>> domains,
-               boolean eager_prune) {
-	HashSet<ArrayList<Long>> ret_tuples = new HashSet<ArrayList<Long>>();
-	HashSet<ArrayList<Long>> tup_loop = tuples;
-	while(true) {
-		TupleReturn ret =
-			squeeze_tuples(tup_loop, domains, eager_prune);
-
-		for(ArrayList<Long> tup : ret.unsquashed_tuples) {
-			ret_tuples.add(tup);
-		}
-		tup_loop = ret.squashed_tuples;
-
-		if(tup_loop.isEmpty()) {
-			return ret_tuples;
-		}
-	}
-}
-
-public static HashSet<ArrayList<Long>>
-full_squeeze_short_tuples(HashSet<ArrayList<Long>> tuples, ArrayList<ArrayList<Intpair>> domains,
-               boolean eager_prune) {
-	ArrayList<HashSet<ArrayList<Long>>> seperated;
-	seperated = filterTuplesByFreeValues(tuples);
-	
-	//System.out.println("Seperated: " + seperated);
-	
-	HashSet<ArrayList<Long>> ret_tuples = new HashSet<ArrayList<Long>>();
-	HashSet<ArrayList<Long>> tup_loop = new HashSet<ArrayList<Long>>();
-	
-
-	for(int i = 0; i < seperated.size(); ++i) {
-		//System.out.println("Trying :" + tup_loop.size() + " at depth " + i);
-		tup_loop.addAll(seperated.get(i));
-		//System.out.println("Added :" + seperated.get(i).size());
-		
-		if(!tup_loop.isEmpty()) {
-			int frees = -1;
-			for(ArrayList<Long> t : tup_loop) {
-				int count = 0;
-				for(Long l : t) {
-					if(l == free_value) count++;
-				}
-				if(frees != -1 && count != frees) {
-					//System.out.println("Inconsistent: " + frees + ":" + count);
-				}
-				frees = count;
-			}
-			//System.out.println("Frees: " + frees);
-		}
-		
-		
-		TupleReturn ret =
-			squeeze_tuples(tup_loop, domains, eager_prune);
-
-			//System.out.println("Squashed :" + ret.squashed_tuples.size());
-		//System.out.println("Rejects :" + ret.unsquashed_tuples.size());
-
-		for(ArrayList<Long> tup : ret.unsquashed_tuples) {
-			ret_tuples.add(tup);
-		}
-		tup_loop = ret.squashed_tuples;
-	}
-	ret_tuples.addAll(tup_loop);
-	return ret_tuples;
-}
-
-
-static ArrayList<HashSet<ArrayList<Long>>>
-filterTuplesByFreeValues(HashSet<ArrayList<Long>> tuples) {
-	ArrayList<HashSet<ArrayList<Long>>> seperated;
-	seperated = new ArrayList<HashSet<ArrayList<Long>>>();
-	if(tuples.isEmpty()) {
-		return seperated;
-	}
-
-	int tuplength = tuples.iterator().next().size();
-	for(int i = 0; i <= tuplength; ++i) {
-		seperated.add(new HashSet<ArrayList<Long>>());
-	}
-
-	for(ArrayList<Long> tup : tuples) {
-		int count = 0;
-		for(int i = 0; i < tuplength; ++i) {
-			if(tup.get(i) == Long.MIN_VALUE)
-				count++;
-		}
-		seperated.get(count).add(tup);
-	}
-
-	return seperated;
-}
-
-static TupleReturn
-squeeze_tuples(HashSet<ArrayList<Long>> tuples, ArrayList<ArrayList<Intpair>> domains,
-               boolean eager_prune) {
-  HashSet<ArrayList<Long>> used_tuples = new HashSet<ArrayList<Long>>();
-  HashSet<ArrayList<Long>> ret_tuples = new HashSet<ArrayList<Long>>();
-  for(ArrayList<Long> tuple : tuples) {
-		//System.out.println("Considering: "+ tuple);
-    if(!eager_prune || !used_tuples.contains(tuple)) {
-			//System.out.println("A" + domains.size());
-      for(int i = 0; i < domains.size(); ++i) {
-        if(used_tuples.contains(tuple) && eager_prune)
-          break;
-			//System.out.println("B");
-
-        if(tuple.get(i) == free_value)
-          continue;
-			//System.out.println("C");
-
-        ArrayList<Long> tuple_copy = new ArrayList<Long>(tuple);
-        boolean found = true;
-				searchloop:
-        for(Intpair pair : domains.get(i)) {
-					for(long j = pair.lower; j <= pair.upper; ++j) {
-	          tuple_copy.set(i, j);
-						//System.out.println("Do we have: "+ tuple_copy);
-	          if(!tuples.contains(tuple_copy) || (eager_prune && used_tuples.contains(tuple_copy))) {
-	            found = false;
-							//System.out.println("no");
-	            break searchloop;
-	          }
-					}
+    public static long free_value = Long.MIN_VALUE;
+    
+    //  Squeeze a table of full-length tuples.
+    public static TupleStore full_squeeze_tuples(TupleStore tuples, ArrayList<ArrayList<Intpair>> domains) {
+        return full_squeeze_short_tuples(tuples, domains);
+    }
+    
+    //  Squeeze a table of short tuples (which may contain wildcards). Tuples
+    //  with i wildcards are squeezed together with those produced by squeezing
+    //  tuples with i-1 wildcards.
+    public static TupleStore full_squeeze_short_tuples(TupleStore tuples, ArrayList<ArrayList<Intpair>> domains) {
+        int arity=tuples.arity;
+        ColumnInfo info=new ColumnInfo(tuples, domains);
+        
+        //  Separate the tuples by number of wildcards.
+        ArrayList<TupleStore> separated=new ArrayList<TupleStore>(arity+1);
+        for(int i=0; i<=arity; i++) {
+            separated.add(new TupleStore(tuples));
         }
-				
-        if(found) {
-					for(Intpair pair : domains.get(i)) {
-          	for(long j = pair.lower; j <= pair.upper; ++j) {
-            	tuple_copy.set(i, j);
-            	used_tuples.add(new ArrayList<Long>(tuple_copy));
-          	}
-					}
-          tuple_copy.set(i, free_value);
-          ret_tuples.add(tuple_copy);
+        for(int r=0; r<tuples.size; r++) {
+            separated.get(tuples.numFree(r)).addCodes(tuples.rows, r*arity);
+        }
+        
+        TupleStore ret=new TupleStore(tuples);
+        TupleStore loop=new TupleStore(tuples);
+        for(int i=0; i<=arity; i++) {
+            if(separated.get(i).size>0) {
+                loop.addAll(separated.get(i));
+                loop.sortUnique();
+            }
+            loop=squeeze_tuples(loop, info, ret);
+        }
+        ret.addAll(loop);
+        ret.sortUnique();
+        return ret;
+    }
+    
+    //  One round of squeezing on tuples that all have the same number of
+    //  wildcards and no duplicates. Tuples that are not part of any squeezed set
+    //  are added to unsquashed; the squeezed tuples are returned.
+    static TupleStore squeeze_tuples(TupleStore tuples, ColumnInfo info, TupleStore unsquashed) {
+        int arity=tuples.arity;
+        int n=tuples.size;
+        int[] rows=tuples.rows;
+        boolean[] used=new boolean[n];
+        TupleStore squashed=new TupleStore(tuples);
+        int[] idx=new int[n];
+        int[] key=new int[arity];
+        
+        for(int col=0; col<arity; col++) {
+            //  The whole domain of col must occur in the table.
+            if(info.inDomainCount[col]<info.domainSize[col]) {
+                continue;
+            }
+            
+            //  Candidates have an in-domain value at col.
+            int k=0;
+            for(int r=0; r<n; r++) {
+                int code=rows[r*arity+col];
+                if(code!=0 && info.inDomain[col][code]) {
+                    idx[k++]=r;
+                }
+            }
+            tuples.sortRows(idx, 0, k, col);
+            
+            //  Runs of tuples equal except at col. Within a run the values at col
+            //  are distinct, so a run covers the domain iff its length is the
+            //  domain size.
+            int start=0;
+            for(int i=1; i<=k; i++) {
+                if(i==k || !sameExcept(rows, arity, idx[start], idx[i], col)) {
+                    if(i-start==info.domainSize[col]) {
+                        for(int j=start; j<i; j++) {
+                            used[idx[j]]=true;
+                        }
+                        System.arraycopy(rows, idx[start]*arity, key, 0, arity);
+                        key[col]=0;
+                        squashed.addCodes(key, 0);
+                    }
+                    start=i;
+                }
+            }
+        }
+        
+        for(int r=0; r<n; r++) {
+            if(!used[r]) {
+                unsquashed.addCodes(rows, r*arity);
+            }
+        }
+        squashed.sortUnique();
+        return squashed;
+    }
+    
+    private static boolean sameExcept(int[] rows, int arity, int a, int b, int col) {
+        int oa=a*arity;
+        int ob=b*arity;
+        for(int c=0; c<arity; c++) {
+            if(c!=col && rows[oa+c]!=rows[ob+c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    //  For each column, which dictionary codes are in the domain, how many are,
+    //  and the size of the domain.
+    static class ColumnInfo {
+        boolean[][] inDomain;
+        int[] inDomainCount;
+        long[] domainSize;
+        
+        ColumnInfo(TupleStore tuples, ArrayList<ArrayList<Intpair>> domains) {
+            int arity=tuples.arity;
+            inDomain=new boolean[arity][];
+            inDomainCount=new int[arity];
+            domainSize=new long[arity];
+            for(int c=0; c<arity; c++) {
+                ArrayList<Intpair> dom=domains.get(c);
+                for(Intpair p : dom) {
+                    domainSize[c]+=p.upper-p.lower+1;
+                }
+                long[] d=tuples.dict[c];
+                inDomain[c]=new boolean[d.length+1];
+                for(int i=0; i<d.length; i++) {
+                    for(Intpair p : dom) {
+                        if(d[i]>=p.lower && d[i]<=p.upper) {
+                            inDomain[c][i+1]=true;
+                            inDomainCount[c]++;
+                            break;
+                        }
+                    }
+                }
+            }
         }
-      }
     }
-  }
-
-  HashSet<ArrayList<Long>> unsquashed_tuples = new HashSet<ArrayList<Long>>();
-  for(ArrayList<Long> tup : tuples) {
-    if(!used_tuples.contains(tup))
-      unsquashed_tuples.add(tup);
-  }
-  return new TupleReturn(ret_tuples, unsquashed_tuples);
-}
-
 }
@@ -0,0 +1,258 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+//  A set of tuples of integers, stored without boxing. Each column has a
+//  sorted dictionary of the values that occur in it, and the tuples are rows
+//  of dictionary codes in a single int array (row-major). Code 0 is the
+//  wildcard of a short tuple (TupleCompress.free_value), and code c>0 is
+//  dict[col][c-1]. Since the dictionaries are sorted, comparing codes
+//  compares values, with the wildcard first.
+//
+//  Tuples are added with add() and the store is then packed, which builds
+//  the dictionaries and removes duplicates. Stores derived from a packed
+//  store (e.g. by TupleCompress) share its dictionaries.
+
+public class TupleStore {
+    final int arity;
+    long[][] dict;
+    int[] rows;
+    int size;
+    
+    //  Values added before packing.
+    private long[] raw;
+    private int rawSize;
+    
+    public TupleStore(int _arity) {
+        arity=_arity;
+        raw=new long[Math.max(arity, 1)*16];
+    }
+    
+    //  An empty packed store with the same dictionaries as s.
+    TupleStore(TupleStore s) {
+        arity=s.arity;
+        dict=s.dict;
+        rows=new int[Math.max(arity, 1)*16];
+    }
+    
+    public int arity() {
+        return arity;
+    }
+    
+    public int size() {
+        return (dict==null) ? rawSize/Math.max(arity, 1) : size;
+    }
+    
+    //  Add a tuple; TupleCompress.free_value is the wildcard.
+    public void add(long[] tup) {
+        assert dict==null && tup.length==arity;
+        if(rawSize+arity>raw.length) {
+            raw=Arrays.copyOf(raw, Math.max(raw.length*2, rawSize+arity));
+        }
+        System.arraycopy(tup, 0, raw, rawSize, arity);
+        rawSize+=arity;
+    }
+    
+    public void pack() {
+        int n=rawSize/Math.max(arity, 1);
+        dict=new long[arity][];
+        long[] col=new long[n];
+        for(int c=0; c<arity; c++) {
+            int k=0;
+            for(int r=0; r<n; r++) {
+                long v=raw[r*arity+c];
+                if(v!=TupleCompress.free_value) {
+                    col[k++]=v;
+                }
+            }
+            Arrays.sort(col, 0, k);
+            int d=0;
+            for(int i=0; i<k; i++) {
+                if(d==0 || col[i]!=col[d-1]) {
+                    col[d++]=col[i];
+                }
+            }
+            dict[c]=Arrays.copyOf(col, d);
+        }
+        rows=new int[Math.max(n*arity, 1)];
+        for(int r=0; r<n; r++) {
+            for(int c=0; c<arity; c++) {
+                long v=raw[r*arity+c];
+                rows[r*arity+c]=(v==TupleCompress.free_value) ? 0 : Arrays.binarySearch(dict[c], v)+1;
+            }
+        }
+        size=n;
+        raw=null;
+        rawSize=0;
+        sortUnique();
+    }
+    
+    public long get(int row, int col) {
+        int code=rows[row*arity+col];
+        return (code==0) ? TupleCompress.free_value : dict[col][code-1];
+    }
+    
+    public boolean isFree(int row, int col) {
+        return rows[row*arity+col]==0;
+    }
+    
+    public int numFree(int row) {
+        int count=0;
+        for(int c=0; c<arity; c++) {
+            if(rows[row*arity+c]==0) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Packed operations used by TupleCompress.
+    
+    //  Append a row of codes from buf starting at off.
+    void addCodes(int[] buf, int off) {
+        if((size+1)*arity>rows.length) {
+            rows=Arrays.copyOf(rows, Math.max(rows.length*2, (size+1)*arity));
+        }
+        System.arraycopy(buf, off, rows, size*arity, arity);
+        size++;
+    }
+    
+    //  Append all rows of s (which must share dictionaries with this).
+    void addAll(TupleStore s) {
+        assert s.dict==dict;
+        if((size+s.size)*arity>rows.length) {
+            rows=Arrays.copyOf(rows, Math.max(rows.length*2, (size+s.size)*arity));
+        }
+        System.arraycopy(s.rows, 0, rows, size*arity, s.size*arity);
+        size+=s.size;
+    }
+    
+    //  Sort the rows lexicographically and remove duplicates.
+    void sortUnique() {
+        int[] idx=new int[size];
+        for(int i=0; i<size; i++) {
+            idx[i]=i;
+        }
+        sortRows(idx, 0, size, -1);
+        int[] newrows=new int[Math.max(size*arity, 1)];
+        int k=0;
+        for(int i=0; i<size; i++) {
+            if(k==0 || compareRows(idx[i], newrows, k-1, -1)!=0) {
+                System.arraycopy(rows, idx[i]*arity, newrows, k*arity, arity);
+                k++;
+            }
+        }
+        rows=newrows;
+        size=k;
+    }
+    
+    //  Compare row a with row b of the array other, ignoring column skip
+    //  (if skip>=0).
+    private int compareRows(int a, int[] other, int b, int skip) {
+        int oa=a*arity;
+        int ob=b*arity;
+        for(int c=0; c<arity; c++) {
+            if(c!=skip) {
+                int x=rows[oa+c];
+                int y=other[ob+c];
+                if(x!=y) {
+                    return (x<y) ? -1 : 1;
+                }
+            }
+        }
+        return 0;
+    }
+    
+    //  Compare rows a and b ignoring column skip, then by column skip.
+    int compareKey(int a, int b, int skip) {
+        int cmp=compareRows(a, rows, b, skip);
+        if(cmp!=0 || skip<0) {
+            return cmp;
+        }
+        int x=rows[a*arity+skip];
+        int y=rows[b*arity+skip];
+        return (x<y) ? -1 : ((x==y) ? 0 : 1);
+    }
+    
+    //  Merge sort of the row indices idx[from..to) by compareKey.
+    void sortRows(int[] idx, int from, int to, int skip) {
+        int[] tmp=new int[to-from];
+        mergeSort(idx, tmp, from, to, skip);
+    }
+    
+    private void mergeSort(int[] idx, int[] tmp, int from, int to, int skip) {
+        if(to-from<=16) {
+            for(int i=from+1; i<to; i++) {
+                int v=idx[i];
+                int j=i-1;
+                while(j>=from && compareKey(idx[j], v, skip)>0) {
+                    idx[j+1]=idx[j];
+                    j--;
+                }
+                idx[j+1]=v;
+            }
+            return;
+        }
+        int mid=(from+to)>>>1;
+        mergeSort(idx, tmp, from, mid, skip);
+        mergeSort(idx, tmp, mid, to, skip);
+        if(compareKey(idx[mid-1], idx[mid], skip)<=0) {
+            return;
+        }
+        int i=from, j=mid, k=0;
+        while(i<mid && j<to) {
+            tmp[k++]=(compareKey(idx[i], idx[j], skip)<=0) ? idx[i++] : idx[j++];
+        }
+        while(i<mid) {
+            tmp[k++]=idx[i++];
+        }
+        while(j<to) {
+            tmp[k++]=idx[j++];
+        }
+        System.arraycopy(tmp, 0, idx, from, k);
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Conversion to the table of a TableShort constraint: each tuple is a
+    //  list of (variable index, value) pairs, variable indices from 1. If some
+    //  tuple is all wildcards, the table is just that (empty) tuple.
+    
+    public ASTNode toShortTable() {
+        ArrayList<ASTNode> tups=new ArrayList<ASTNode>(size);
+        for(int r=0; r<size; r++) {
+            ArrayList<ASTNode> stup=new ArrayList<ASTNode>();
+            for(int c=0; c<arity; c++) {
+                if(!isFree(r, c)) {
+                    stup.add(CompoundMatrix.make(NumberConstant.make(c+1), NumberConstant.make(get(r, c))));
+                }
+            }
+            if(stup.isEmpty()) {
+                return CompoundMatrix.make(CompoundMatrix.make(new ArrayList<ASTNode>()));
+            }
+            tups.add(CompoundMatrix.make(stup));
+        }
+        return CompoundMatrix.make(tups);
+    }
+}
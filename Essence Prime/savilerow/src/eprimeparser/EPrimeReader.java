@@ -2221,11 +2221,11 @@ public final class EPrimeReader {
                 tokens.mark();
                 readTerminalString("true");
                 tokens.eraseMark();
-                return new BooleanConstant(true);
+                return BooleanConstant.make(true);
             } catch (EPrimeSyntaxException e2) {
                 tokens.reset();
                 readTerminalString("false");
-                return new BooleanConstant(false);
+                return BooleanConstant.make(false);
             }
         }
         // if (VB_MTDS) System.out.println("constant read successfully") ;
@@ -38,7 +38,7 @@ public class AMOPB extends ASTNodeC {
     public boolean fromPB;  // Was this created from a PB constraint? (Otherwise from an integer sum ct)
     
     public AMOPB(ASTNode mat, ASTNode k, ASTNode enc, boolean _fromPB) {
-        super(mat, k, enc, new BooleanConstant(false));   
+        super(mat, k, enc, BooleanConstant.make(false));   
         fromPB=_fromPB;
     }
     
@@ -139,7 +139,7 @@ public class AMOPB extends ASTNodeC {
             
             if(ub<=getChild(1).getValue()) {
                 // Constraint is implied. 
-                return new BooleanConstant(true);
+                return BooleanConstant.make(true);
             }
             
             long k2=factorOutGCD(ch, k);
@@ -220,7 +220,7 @@ public class AMOPB extends ASTNodeC {
     //  To be called from a special pass before SATLiterals are introduced. 
     public ASTNode collectAMOGroups(Model m) {
         if(! CmdFlags.amo_detect) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         
         //  Find bool/int(0..1) variables for which we need to find AMO groups. 
@@ -249,7 +249,7 @@ public class AMOPB extends ASTNodeC {
         }
         
         if(loose_bools.size()==0) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         
         // Print the mutexes between variables in this ct.
@@ -619,7 +619,7 @@ public class AMOPB extends ASTNodeC {
         
         Model cliquem=new Model();
         
-        cliquem.setup(new BooleanConstant(true), cliquest, null, null, null, null, null);
+        cliquem.setup(BooleanConstant.make(true), cliquest, null, null, null, null, null);
         
         ArrayList<ASTNode> allvars=new ArrayList<ASTNode>();
         for(int i=0; i<bools_list.size(); i++) {
@@ -36,6 +36,11 @@ public abstract class ASTNode implements Serializable {
     
     int childno;    // If this node is child of another node, which child is it.
     
+    //  Canonical constant returned by NumberConstant.make or BooleanConstant.make.
+    //  Shared nodes never have a parent: they are copied when put into a tree,
+    //  and setting a parent (e.g. temporarily, to give context) is ignored. 
+    transient boolean shared;
+    
     /* ====================================================================
      constructor
     ==================================================================== */
@@ -70,7 +75,9 @@ public abstract class ASTNode implements Serializable {
     }
 
     public final void setParent(ASTNode p) {
-        parent = p;
+        if(!shared) {
+            parent = p;
+        }
     }
     
     public boolean hasModel() {
@@ -119,7 +126,7 @@ public abstract class ASTNode implements Serializable {
     }
     
     public int getChildNo() { return childno; }
-    public void setChildNo(int c) { childno = c; }
+    public void setChildNo(int c) { if(!shared) childno = c; }
 
     /* ====================================================================
      copy()
@@ -843,7 +850,7 @@ public abstract class ASTNode implements Serializable {
     //////////////////////////////////////////////////////////////////////////// 
     // Does this tree contain an auxiliary variable?
     public boolean containsAux() {
-        if(this instanceof Identifier && ((Identifier)this).m.global_symbols.category.get(this.toString()).cat==ASTNode.Auxiliary) {
+        if(this instanceof Identifier && ((Identifier)this).m.global_symbols.category.get(((Identifier)this).getSymbol()).cat==ASTNode.Auxiliary) {
             return true;
         }
         else {
@@ -46,11 +46,7 @@ public abstract class ASTNodeC extends ASTNode {
     
     ASTNodeC(ASTNode a) {
         children = new ASTNode[1];
-        if (a.getParent() == null) {
-            children[0] = a;
-        } else {
-            children[0] = a.copy();
-        }
+        children[0] = attachable(a);
         children[0].setParent(this);
         children[0].childno = 0;
         
@@ -60,19 +56,11 @@ public abstract class ASTNodeC extends ASTNode {
     ASTNodeC(ASTNode a, ASTNode b) {
         children = new ASTNode[2];
 
-        if (a.getParent() == null) {
-            children[0] = a;
-        } else {
-            children[0] = a.copy();
-        }
+        children[0] = attachable(a);
         children[0].setParent(this);
         children[0].childno = 0;
 
-        if (b.getParent() == null) {
-            children[1] = b;
-        } else {
-            children[1] = b.copy();
-        }
+        children[1] = attachable(b);
         children[1].setParent(this);
         children[1].childno = 1;
         
@@ -86,9 +74,7 @@ public abstract class ASTNodeC extends ASTNode {
         ch[2]=c;
         
         for(int i=0; i<3; i++) {
-            if(ch[i].getParent()!=null) {
-                ch[i]=ch[i].copy();
-            }
+            ch[i]=attachable(ch[i]);
             
             ch[i].setParent(this);
             ch[i].childno = i;
@@ -106,9 +92,7 @@ public abstract class ASTNodeC extends ASTNode {
         ch[3]=d;
         
         for(int i=0; i<4; i++) {
-            if(ch[i].getParent()!=null) {
-                ch[i]=ch[i].copy();
-            }
+            ch[i]=attachable(ch[i]);
             
             ch[i].setParent(this);
             ch[i].childno = i;
@@ -120,9 +104,7 @@ public abstract class ASTNodeC extends ASTNode {
     
     ASTNodeC(ASTNode[] ch) {
         for(int i=0; i<ch.length; i++) {
-            if(ch[i].getParent()!=null) {
-                ch[i]=ch[i].copy();
-            }
+            ch[i]=attachable(ch[i]);
             
             ch[i].setParent(this);
             ch[i].childno = i;
@@ -140,9 +122,7 @@ public abstract class ASTNodeC extends ASTNode {
         }
         
         for(int i=0; i<ch.length; i++) {
-            if(ch[i].getParent()!=null) {
-                ch[i]=ch[i].copy();
-            }
+            ch[i]=attachable(ch[i]);
             
             ch[i].setParent(this);
             ch[i].childno = i;
@@ -156,10 +136,7 @@ public abstract class ASTNodeC extends ASTNode {
     ASTNodeC(ArrayList<ASTNode> chin) {
         ASTNode[] ch=new ASTNode[chin.size()];
         for(int i=0; i<ch.length; i++) {
-            ch[i]=chin.get(i);
-            if(ch[i].getParent()!=null) {
-                ch[i]=ch[i].copy();
-            }
+            ch[i]=attachable(chin.get(i));
             
             ch[i].setParent(this);
             ch[i].childno = i;
@@ -169,6 +146,12 @@ public abstract class ASTNodeC extends ASTNode {
         hashCache=Integer.MIN_VALUE;
     }
     
+    //  The node to store as a child: c itself, or a copy if c is already in a
+    //  tree or is a shared constant.
+    static ASTNode attachable(ASTNode c) {
+        return (c.parent != null || c.shared) ? c.copy() : c;
+    }
+    
     /* ====================================================================
      getChildren
     ==================================================================== */
@@ -205,9 +188,7 @@ public abstract class ASTNodeC extends ASTNode {
     ==================================================================== */
     public final void setChildren(ASTNode[] ch) {
         for(int i=0; i<ch.length; i++) {
-            if(ch[i].getParent()!=null) {
-                ch[i]=ch[i].copy();
-            }
+            ch[i]=attachable(ch[i]);
             
             ch[i].setParent(this);
             ch[i].childno = i;
@@ -228,16 +209,10 @@ public abstract class ASTNodeC extends ASTNode {
         if (c == null) {
             children[i] = null;
         } else {
-            if (c.getParent() == null) {
-                // If c has no parent, assume we do not need to copy it.
-                children[i] = c;
-                c.setParent(this);
-                c.childno = i;
-            } else {
-                children[i] = c.copy();
-                children[i].setParent(this);
-                children[i].childno = i;
-            }
+            // If c has no parent, assume we do not need to copy it.
+            children[i] = attachable(c);
+            children[i].setParent(this);
+            children[i].childno = i;
         }
         
         // Reset hashCache values 
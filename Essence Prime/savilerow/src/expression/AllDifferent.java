@@ -59,29 +59,29 @@ public class AllDifferent extends ASTNodeC {
     public ASTNode simplify() {
         ASTNode ch = getChildConst(0);
         if (ch instanceof EmptyMatrix) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         if (ch instanceof CompoundMatrix) {
             for (int i =1; i < ch.numChildren(); i++) {
                 for (int j = i + 1; j < ch.numChildren(); j++) {
                     if (ch.getChild(i).equals(ch.getChild(j))) {
-                        return new BooleanConstant(false);                        // symbolic equality of two items.
+                        return BooleanConstant.make(false);                        // symbolic equality of two items.
                     }
 
                     if (ch.getChild(i).isConstant() && ch.getChild(j).isConstant() && ch.getChild(i).getValue() == ch.getChild(j).getValue()) {
-                        return new BooleanConstant(false);                        // numerical equality of two items, both constants. e.g. false=0.
+                        return BooleanConstant.make(false);                        // numerical equality of two items, both constants. e.g. false=0.
                     }
                 }
             }
             
             if (ch.numChildren() < 3) {
-                return new BooleanConstant(true);
+                return BooleanConstant.make(true);
             }
             // One or zero elements are always pairwise different.
             if(ch.getCategory()==ASTNode.Constant) {
                 //  We have checked for pairwise equality so we now know the constraint is satisfied.
                 //  Constant matrices retrieved from cmstore can't get past here.
-                return new BooleanConstant(true);
+                return BooleanConstant.make(true);
             }
             
             //  Contains only two Booleans. Convert into a logical comparison 
@@ -154,10 +154,10 @@ public class AllDifferent extends ASTNodeC {
                 Intpair b1=ch2.getBounds();
                 
                 if(b0.lower>b1.upper) {
-                    return new BooleanConstant(true);  // lower bound of c1 is greater than upper bound of c2.
+                    return BooleanConstant.make(true);  // lower bound of c1 is greater than upper bound of c2.
                 }
                 if(b0.upper<b1.lower) {
-                    return new BooleanConstant(true);  // upper bound of c1 is less than lower bound of c2.
+                    return BooleanConstant.make(true);  // upper bound of c1 is less than lower bound of c2.
                 }
                 
                 // Already checked constants against domains of variables.
@@ -196,7 +196,7 @@ public class AllDifferent extends ASTNodeC {
                         
                         long rhs=Divide.div(c, gcd);
                         if(rhs*gcd != c) {
-                            return new BooleanConstant(true);   // Some rounding occurred so two sides cannot be equal.
+                            return BooleanConstant.make(true);   // Some rounding occurred so two sides cannot be equal.
                         }
                         else {
                             return new AllDifferent(CompoundMatrix.make(p.getSecond(), NumberConstant.make(rhs)));
@@ -212,7 +212,7 @@ public class AllDifferent extends ASTNodeC {
                         
                         long rhs=Divide.div(c, gcd);
                         if(rhs*gcd != c) {
-                            return new BooleanConstant(true);   // Some rounding occurred so two sides cannot be equal.
+                            return BooleanConstant.make(true);   // Some rounding occurred so two sides cannot be equal.
                         }
                         else {
                             return new AllDifferent(CompoundMatrix.make(p.getSecond(), NumberConstant.make(rhs)));
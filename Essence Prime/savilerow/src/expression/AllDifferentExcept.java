@@ -52,11 +52,11 @@ public class AllDifferentExcept extends ASTNodeC
         ASTNode matrix=getChildConst(0);
         
         if(matrix instanceof EmptyMatrix) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         if(matrix instanceof CompoundMatrix) {
             if(matrix.numChildren()<=2) {
-                return new BooleanConstant(true);
+                return BooleanConstant.make(true);
             }
         }
         
@@ -70,11 +70,11 @@ public class AllDifferentExcept extends ASTNodeC
                     long aval=a.getValue();
                     long bval=b.getValue();
                     if(aval!=specialval && aval==bval) {
-                        return new BooleanConstant(false);
+                        return BooleanConstant.make(false);
                     }
                 }
             }
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         
         return null;
@@ -103,7 +103,7 @@ public class And extends ASTNodeC {
                         }
                         break;
                     }
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
             }
         }
@@ -117,7 +117,7 @@ public class And extends ASTNodeC {
         }
         
         if (ch.size() == 0) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         if (ch.size() == 1) {
             ch.get(0).setParent(null);
@@ -296,16 +296,20 @@ public class And extends ASTNodeC {
     
     public void toSAT(Sat satModel) throws IOException {
         for(int i=0; i<numChildren(); i++) {
-            ASTNode child=getChild(i);
-            satModel.addComment(String.valueOf(child).replaceAll("\n", " "));
-            if (child instanceof Negate) {
-                satModel.addClause(child.getChild(0).directEncode(satModel,0));
-            } else if (child instanceof Identifier) {
-                satModel.addClause(child.directEncode(satModel, 1));
-            } else {
-                // Any constraint
-                child.toSAT(satModel);
-            }
+            toSATConjunct(satModel, getChild(i));
+        }
+    }
+    
+    //  Encode one child of a top-level And. 
+    public static void toSATConjunct(Sat satModel, ASTNode child) throws IOException {
+        satModel.addComment(String.valueOf(child).replaceAll("\n", " "));
+        if (child instanceof Negate) {
+            satModel.addClause(child.getChild(0).directEncode(satModel,0));
+        } else if (child instanceof Identifier) {
+            satModel.addClause(child.directEncode(satModel, 1));
+        } else {
+            // Any constraint
+            child.toSAT(satModel);
         }
     }
 
@@ -61,7 +61,7 @@ public class AndVector extends ASTNodeC
 	        for(int i=1; i<cm.numChildren(); i++) {
 	            acc=acc && (cm.getChild(i).getValue()==1);
 	        }
-	        return new BooleanConstant(acc);
+	        return BooleanConstant.make(acc);
 	    }
 	    if(getChild(0) instanceof CompoundMatrix || getChild(0) instanceof EmptyMatrix) {
 	        ASTNode[] ch=getChild(0).getChildrenArray(1);
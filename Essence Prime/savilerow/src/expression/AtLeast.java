@@ -73,7 +73,7 @@ public class AtLeast extends ASTNodeC {
         if (occs instanceof EmptyMatrix) {
             assert values instanceof EmptyMatrix;
             // There are no value occurrence restrictions.
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
 
         // Filter out occurrences that are 0 or less.
@@ -94,7 +94,7 @@ public class AtLeast extends ASTNodeC {
                     }
                     else if(occs.getChild(i).getValue() > target.numChildren() - 1) {
                         // At least n+1 occs of a value is impossible. 
-                        return new BooleanConstant(false);
+                        return BooleanConstant.make(false);
                     }
                 }
             }
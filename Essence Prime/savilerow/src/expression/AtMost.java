@@ -71,7 +71,7 @@ public class AtMost extends ASTNodeC {
         if (occs instanceof EmptyMatrix) {
             assert values instanceof EmptyMatrix;
             // There are no value occurrence restrictions.
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         
         // Filter out occurrences that are n or more.
@@ -92,7 +92,7 @@ public class AtMost extends ASTNodeC {
                     }
                     else if(occs.getChild(i).getValue() <= -1) {
                         // At most -1 occs of a value is impossible.
-                        return new BooleanConstant(false);
+                        return BooleanConstant.make(false);
                     }
                 }
             }
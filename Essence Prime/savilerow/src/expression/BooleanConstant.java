@@ -36,6 +36,21 @@ public class BooleanConstant extends ASTNode
         b=boo;
     }
     
+    //  Canonical shared constants, see NumberConstant.make.
+    private static final BooleanConstant TRUE=new BooleanConstant(true, true);
+    private static final BooleanConstant FALSE=new BooleanConstant(false, true);
+    
+    private BooleanConstant(boolean boo, boolean _shared)
+    {
+        b=boo;
+        shared=_shared;
+    }
+    
+    public static BooleanConstant make(boolean boo)
+    {
+        return boo ? TRUE : FALSE;
+    }
+    
     public ASTNode copy()
     {
         return new BooleanConstant(b);
@@ -94,7 +94,7 @@ public class Cumulative extends ASTNodeC {
         }
         
         if(bound.getBounds().upper < 0) {
-            return new BooleanConstant(false);
+            return BooleanConstant.make(false);
         }
         
         return null;
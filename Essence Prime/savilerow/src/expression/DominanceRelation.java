@@ -67,7 +67,7 @@ public class DominanceRelation extends ASTNodeC
         if(CmdFlags.getAfterAggregate()) {
             //  Delay this until after quantifier unrolling, matrix replacement.
             incl=getChild(0);
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         return null;
     }
@@ -151,7 +151,7 @@ public class ElementOne extends ASTNodeC
 	public void toMinion(BufferedWriter b, boolean bool_context) throws IOException {
 	    assert bool_context;
 	    assert this.isRelation();
-	    this.toMinionWithAuxVar(b, new BooleanConstant(true));
+	    this.toMinionWithAuxVar(b, BooleanConstant.make(true));
 	}
 	
 	public void toMinionWithAuxVar(BufferedWriter b, ASTNode aux) throws IOException
@@ -62,7 +62,7 @@ public class Equals extends BinOp
     
     public ASTNode simplify() {
         if(getChild(0).equals(getChild(1))) {  // If symbolically equal, return true.
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         
         // Simplify to <-> if both sides are boolean.
@@ -80,14 +80,14 @@ public class Equals extends BinOp
         
         if(getChild(0).isConstant() && getChild(1).isConstant()) {
             // If equal when interpreted as integer.... (includes 1=true)
-            return new BooleanConstant( getChild(0).getValue() == getChild(1).getValue() );
+            return BooleanConstant.make( getChild(0).getValue() == getChild(1).getValue() );
         }
         
         Intpair b0=getChild(0).getBounds();
         Intpair b1=getChild(1).getBounds();
         
         if(b0.lower>b1.upper || b0.upper<b1.lower) {
-            return new BooleanConstant(false);  // bounds do not overlap.
+            return BooleanConstant.make(false);  // bounds do not overlap.
         }
         
         // If one child is a variable and the other a constant, first check domain of variable for the constant.
@@ -105,7 +105,7 @@ public class Equals extends BinOp
                 TransformSimplify ts=new TransformSimplify();
                 domain=ts.transform(domain);
                 if(! domain.containsValue(b.getValue())) {
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
             }
             
@@ -154,7 +154,7 @@ public class Equals extends BinOp
                 
                 if(c%gcd != 0) {
                     // If there is a remainder when dividing the RHS by the GCD, then the sum= cannot be satisfied (RHS will be fractional)
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
                 
                 return new Equals(p.getSecond(), NumberConstant.make(c/gcd));
@@ -169,7 +169,7 @@ public class Equals extends BinOp
                 
                 if(c%gcd != 0) {
                     // If there is a remainder when dividing the LHS by the GCD, then the sum= cannot be satisfied (RHS will be fractional)
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
                 
                 return new Equals(p.getSecond(), NumberConstant.make(c/gcd));
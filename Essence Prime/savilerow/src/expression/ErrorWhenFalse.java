@@ -50,7 +50,7 @@ public class ErrorWhenFalse extends ASTNodeC
 	        if(val==0) {
 	            CmdFlags.errorExit(errorWhenFalse);
 	        }
-	        return new BooleanConstant(true);
+	        return BooleanConstant.make(true);
 	    }
 	    return null;
 	}
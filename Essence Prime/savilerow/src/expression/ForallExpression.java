@@ -49,7 +49,7 @@ public class ForallExpression extends Quantifier
 	    // If the contained expression has simplified to true.
 	    if(getChild(2) instanceof BooleanConstant && getChild(2).getValue()==1) {
 	        // Always true by left identity of And, regardless of whether the domain is empty/condition ever satisfied. 
-	        return new BooleanConstant(true);
+	        return BooleanConstant.make(true);
 	    }
 	    // If the contained expression is false, the quantifier could be true or false depending on whether there are
 	    // any iterations. 
@@ -72,7 +72,7 @@ public class GlobalCard extends ASTNodeC {
         ASTNode occs=getChildConst(2);
         
         if (values instanceof EmptyMatrix && occs instanceof EmptyMatrix) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
 
         if (target.isMatrixLiteral() && values instanceof CompoundMatrix && occs instanceof CompoundMatrix) {
@@ -86,7 +86,7 @@ public class GlobalCard extends ASTNodeC {
             for(int i=0; i<cards.size(); i++) {
                 Intpair p=cards.get(i).getBounds();
                 if(p.upper<0 || p.lower>ch.size()) {
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
                 lowertotal+=p.lower;
                 uppertotal+=p.upper;
@@ -94,7 +94,7 @@ public class GlobalCard extends ASTNodeC {
             
             if(lowertotal > ch.size()) {
                 // More values required than target vars.
-                return new BooleanConstant(false);
+                return BooleanConstant.make(false);
             }
             
             boolean changed = false;
@@ -30,13 +30,29 @@ public class Identifier extends ASTNode {
     public static final long serialVersionUID = 1L;
     protected transient Model m;
     private String name;
+    private transient int sym;    //  Interned symbol id, see Symbols.
     
     public Identifier(Model _m, String id) {
         super();
-        name = id.intern();
+        sym = Symbols.id(id);
+        name = Symbols.name(sym);
         m=_m;
     }
     
+    public Identifier(Model _m, int _sym) {
+        super();
+        sym = _sym;
+        name = Symbols.name(sym);
+        m=_m;
+    }
+    
+    //  Symbol ids are not stable across processes.
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        sym = Symbols.id(name);
+        name = Symbols.name(sym);
+    }
+    
     public boolean hasModel() {
         return true;
     }
@@ -52,25 +68,29 @@ public class Identifier extends ASTNode {
     }
 
     public ASTNode copy() {
-        return new Identifier(m, name);
+        return new Identifier(m, sym);
     }
 
     public String getName() {
         return name;
     }
     
+    public int getSymbol() {
+        return sym;
+    }
+    
     //  equals and hashCode ignore the model pointer.
     @Override
     public boolean equals(Object other) {
         if (! (other instanceof Identifier)) {
             return false;
         }
-        return ((Identifier) other).name.equals(name);
+        return ((Identifier) other).sym == sym;
     }
     
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return sym;
     }
     
     // Is it a bool or matrix of bool.
@@ -106,8 +126,8 @@ public class Identifier extends ASTNode {
     }
     
     public int getCategory() {
-        if (m.global_symbols.hasVariable(name)) {
-            return m.global_symbols.getCategory(name);
+        if (m.global_symbols.hasVariable(sym)) {
+            return m.global_symbols.getCategory(sym);
         }
         
         // Go up tree to find quantifier.
@@ -119,7 +139,7 @@ public class Identifier extends ASTNode {
     }
     
     public boolean isAuxiliary() {
-        return m.global_symbols.isAuxiliary(name);
+        return m.global_symbols.isAuxiliary(sym);
     }
     
     public ASTNode getCM() {
@@ -134,7 +154,7 @@ public class Identifier extends ASTNode {
     public int getDimension() {
         ASTNode dom = this.getDomainForId(this);
         if (dom == null) {
-            dom = m.global_symbols.getDomain(name);
+            dom = m.global_symbols.getDomain(sym);
         }
 
         if (dom instanceof MatrixDomain) {
@@ -151,7 +171,7 @@ public class Identifier extends ASTNode {
         }
         ASTNode dom = this.getDomainForId(this);
         if (dom == null) {
-            dom = m.global_symbols.getDomain(name);
+            dom = m.global_symbols.getDomain(sym);
         }
 
         if (dom instanceof MatrixDomain) {
@@ -168,7 +188,7 @@ public class Identifier extends ASTNode {
         // Unfortunately shares a lot of code with method above.
         assert st.m == m;        // If this isn't true, we have two models floating around. Very strange.
         
-        boolean inST=m.global_symbols.hasVariable(name);
+        boolean inST=m.global_symbols.hasVariable(sym);
         boolean inQ=this.getDomainForId(this)!=null;
         if(!inST && !inQ) {
             CmdFlags.println("ERROR: Identifier not defined: " + this);
@@ -188,7 +208,7 @@ public class Identifier extends ASTNode {
     
     // Get the full domain for this identifier.
     public ASTNode getDomain() {
-        ASTNode d = m.global_symbols.getDomain(name);
+        ASTNode d = m.global_symbols.getDomain(sym);
         if(d==null) {
             d=this.getDomainForId(this);
         }
@@ -224,16 +244,16 @@ public class Identifier extends ASTNode {
             } else {
                 b.append("w-literal(");
             }
-            b.append(name);
+            b.append(m.global_symbols.minionName(sym, name));
             b.append(",1)");
         } else {
-            b.append(name);
+            b.append(m.global_symbols.minionName(sym, name));
         }
     }
     
     public void toFlatzinc(BufferedWriter b, boolean bool_context) throws IOException {
-        ASTNode dom=m.global_symbols.getDomain(name);
-        if (m.global_symbols.hasVariable(name) && (dom.isBooleanSet() || (dom.isIntegerSet() && dom.getBounds().equals(new Intpair(0,1))))) {
+        ASTNode dom=m.global_symbols.getDomain(sym);
+        if (m.global_symbols.hasVariable(sym) && (dom.isBooleanSet() || (dom.isIntegerSet() && dom.getBounds().equals(new Intpair(0,1))))) {
             if (bool_context) {
                 b.append(name + "_BOOL");
             }
@@ -265,8 +285,8 @@ public class Identifier extends ASTNode {
     }
     
     public void toMinizinc(StringBuilder b, boolean bool_context) {
-        ASTNode dom=m.global_symbols.getDomain(name);
-        if (m.global_symbols.hasVariable(name) && (dom.isBooleanSet() || (dom.isIntegerSet() && dom.getBounds().equals(new Intpair(0,1))))) {
+        ASTNode dom=m.global_symbols.getDomain(sym);
+        if (m.global_symbols.hasVariable(sym) && (dom.isBooleanSet() || (dom.isIntegerSet() && dom.getBounds().equals(new Intpair(0,1))))) {
             if (bool_context) {
                 b.append(name + "_BOOL");
             } else {
@@ -300,10 +320,39 @@ public class Identifier extends ASTNode {
         return true;
     }
     public long directEncode(Sat satModel, long value) {
-        return satModel.getDirectVariable(name, value);
+        int id=getSatVariableId(satModel);
+        return (id==-1) ? satModel.getDirectVariable(name, value) : satModel.getDirectVariable(id, value);
     }
     public long orderEncode(Sat satModel, long value) {
-        return satModel.getOrderVariable(name, value);
+        int id=getSatVariableId(satModel);
+        return (id==-1) ? satModel.getOrderVariable(name, value) : satModel.getOrderVariable(id, value);
+    }
+    
+    //  Cache the id of this variable in the SAT encoding, to avoid looking up
+    //  the name for every literal. Only cached once the variable has been encoded. 
+    //  The model and id are published together because the parallel encoder
+    //  threads read the cache without locking. 
+    private static final class SatId {
+        final Sat satModel;
+        final int id;
+        SatId(Sat _satModel, int _id) {
+            satModel=_satModel;
+            id=_id;
+        }
+    }
+    private transient volatile SatId satId;
+    
+    private int getSatVariableId(Sat satModel) {
+        SatId c=satId;
+        if(c==null || c.satModel!=satModel) {
+            int id=satModel.getVariableId(name);
+            if(id==-1) {
+                return -1;
+            }
+            c=new SatId(satModel, id);
+            satId=c;
+        }
+        return c.id;
     }
 
     public boolean usesSMTEncoding() {
@@ -347,13 +396,13 @@ public class Identifier extends ASTNode {
 
     public Long toSATLiteral(Sat satModel) {
         if(isRelation()) {
-            return satModel.getDirectVariable(name, 1);
+            return directEncode(satModel, 1);
         }
         else return null;
     }
     public void toSATWithAuxVar(Sat satModel, long auxVarValue) throws IOException
     {
-        long identifierValue=satModel.getDirectVariable(name, 1);
+        long identifierValue=directEncode(satModel, 1);
         
         satModel.addClause(-auxVarValue, identifierValue);
         satModel.addClause(auxVarValue, -identifierValue);
@@ -45,7 +45,7 @@ public class Iff extends LogicBinOp
 	public ASTNode simplify() {
 	    // Both children constant
 	    if(getChild(0).isConstant() && getChild(1).isConstant()) {
-	        return new BooleanConstant(getChild(0).getValue()==getChild(1).getValue());
+	        return BooleanConstant.make(getChild(0).getValue()==getChild(1).getValue());
 	    }
 	    
 	    // One child is a constant.
@@ -67,16 +67,16 @@ public class Iff extends LogicBinOp
 	    }
 	    
 	    if(getChild(0).equals(getChild(1))) {  // If symbolically equal, return true.
-	        return new BooleanConstant(true);
+	        return BooleanConstant.make(true);
 	    }
 	    
 	    // If one side is the negation of the other, return false.  
 	    // Prevents deletevars unifying  x<->not(x) and causing infinite recursion of replacing x with not(x). 
 	    if(getChild(0) instanceof Negate && getChild(0).getChild(0).equals(getChild(1))) {
-	        return new BooleanConstant(false);
+	        return BooleanConstant.make(false);
 	    }
 	    if(getChild(1) instanceof Negate && getChild(1).getChild(0).equals(getChild(0))) {
-	        return new BooleanConstant(false);
+	        return BooleanConstant.make(false);
 	    }
 	    
 	    return null;
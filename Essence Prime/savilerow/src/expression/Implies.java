@@ -53,10 +53,10 @@ public class Implies extends LogicBinOp
             return getChild(1);
         }
         if(getChild(0).isConstant() && getChild(0).getValue()==0) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         if(getChild(1).isConstant() && getChild(1).getValue()==1) {
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         if(getChild(1).isConstant() && getChild(1).getValue()==0) {
             getChild(0).setParent(null);
@@ -64,7 +64,7 @@ public class Implies extends LogicBinOp
         }
         
         // Two children are symbolically equal
-        if(getChild(0).equals(getChild(1))) return new BooleanConstant(true);
+        if(getChild(0).equals(getChild(1))) return BooleanConstant.make(true);
         
         if(getChild(0) instanceof And || getChild(1) instanceof Or) {   // Could also have getChild(1) is Implies, getParent is Or.
             //  In both of these cases the implication can merge into an existing disjunction.
@@ -99,7 +99,7 @@ public class Implies extends LogicBinOp
                 }
                 
                 if(d1<=c1) {
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
             }
         }
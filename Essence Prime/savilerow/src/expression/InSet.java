@@ -45,10 +45,10 @@ public class InSet extends BinOp
         // If left side is a constant, evaluate.
         if(getChild(0).isConstant() && getChild(1).getCategory()==ASTNode.Constant) {
             if(getChild(1).containsValue(getChild(0).getValue())) {
-                return new BooleanConstant(true);
+                return BooleanConstant.make(true);
             }
             else {
-                return new BooleanConstant(false);
+                return BooleanConstant.make(false);
             }
         }
         
@@ -56,7 +56,7 @@ public class InSet extends BinOp
             ArrayList<Intpair> intervals=getChild(1).getIntervalSet();
             if(intervals.size()==0) {
                 // No values in set. 
-                return new BooleanConstant(false);
+                return BooleanConstant.make(false);
             }
             
             if(intervals.size()==1) {
@@ -64,10 +64,10 @@ public class InSet extends BinOp
                 Intpair s=intervals.get(0);
                 Intpair p=getChild(0).getBounds();
                 if(s.upper < p.lower || s.lower > p.upper) {
-                    return new BooleanConstant(false);   // disjoint
+                    return BooleanConstant.make(false);   // disjoint
                 }
                 if(p.lower>=s.lower && p.upper<=s.upper) {
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
             }
             
@@ -87,7 +87,7 @@ public class InSet extends BinOp
                     // subtract the set from the domain and see if there
                     // are any domain values left. If not, the inset is always true. 
                     if(tmp.size()==0) {
-                        return new BooleanConstant(true);
+                        return BooleanConstant.make(true);
                     }
                 }
             }
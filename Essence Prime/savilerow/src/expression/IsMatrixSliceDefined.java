@@ -117,7 +117,7 @@ public class IsMatrixSliceDefined extends ASTNodeC
             }
             
             if(!oob) {
-                return new BooleanConstant(true);
+                return BooleanConstant.make(true);
             }
         }
         
@@ -185,7 +185,7 @@ public class IsMatrixSliceDefined extends ASTNodeC
                 // Simplify if first child is a matrix literal. 
                 ASTNode mat=getChildConst(0);
                 ASTNode eval=MatrixSlice.evaluateSlice(mat, getChildren(1));
-                return new BooleanConstant(eval!=null);
+                return BooleanConstant.make(eval!=null);
             }
             
             return null;
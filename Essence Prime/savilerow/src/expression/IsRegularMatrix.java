@@ -52,7 +52,7 @@ public class IsRegularMatrix extends ASTNodeC {
     public ASTNode simplify() {
         ASTNode a=getChildConst(0);
         if(a.isMatrixLiteral()) {
-            return new BooleanConstant(a.isRegularMatrix());
+            return BooleanConstant.make(a.isRegularMatrix());
         }
         return null;
     }
@@ -59,17 +59,17 @@ public class Less extends BinOp
 	
 	public ASTNode simplify() {
 	    
-	    if(getChild(0).equals(getChild(1))) return new BooleanConstant(false);
+	    if(getChild(0).equals(getChild(1))) return BooleanConstant.make(false);
 	    
 	    Intpair a=getChild(0).getBounds();
 	    Intpair b=getChild(1).getBounds();
 	    
-	    if(a.upper < b.lower) return new BooleanConstant(true);
-	    if(a.lower >= b.upper) return new BooleanConstant(false);
+	    if(a.upper < b.lower) return BooleanConstant.make(true);
+	    if(a.lower >= b.upper) return BooleanConstant.make(false);
 	    
 	    if(getChild(0).isConstant() && getChild(1).isConstant()) {
-	        if(getChild(0).getValue()<getChild(1).getValue()) return new BooleanConstant(true);
-	        else return new BooleanConstant(false);
+	        if(getChild(0).getValue()<getChild(1).getValue()) return BooleanConstant.make(true);
+	        else return BooleanConstant.make(false);
 	    }
 	    
 	    // Now simplify sum1<sum2 to sum1-sum2<=-1
@@ -58,17 +58,17 @@ public class LessEqual extends BinOp
 	
 	public ASTNode simplify() {
 	    
-	    if(getChild(0).equals(getChild(1))) return new BooleanConstant(true);
+	    if(getChild(0).equals(getChild(1))) return BooleanConstant.make(true);
 	    
 	    Intpair a=getChild(0).getBounds();
 	    Intpair b=getChild(1).getBounds();
 	    
-	    if(a.upper <= b.lower) return new BooleanConstant(true);
-	    if(a.lower > b.upper) return new BooleanConstant(false);
+	    if(a.upper <= b.lower) return BooleanConstant.make(true);
+	    if(a.lower > b.upper) return BooleanConstant.make(false);
 	    
 	    if(getChild(0).isConstant() && getChild(1).isConstant()) {
-	        if(getChild(0).getValue()<=getChild(1).getValue()) return new BooleanConstant(true);
-	        else return new BooleanConstant(false);
+	        if(getChild(0).getValue()<=getChild(1).getValue()) return BooleanConstant.make(true);
+	        else return BooleanConstant.make(false);
 	    }
 	    
 	    // Now simplify sum1<=sum2 to sum1-sum2<=0 
@@ -223,7 +223,7 @@ public class LessEqual extends BinOp
 	            return ((SATLiteral)getChild(1)).getLit();  // 1<=b  rewrites to b
 	        }
 	        else if(getChild(1) instanceof Identifier) {
-	            return -satModel.getOrderVariable(getChild(1).toString(), getChild(0).getValue()-1);
+	            return -getChild(1).orderEncode(satModel, getChild(0).getValue()-1);
 	        }
         }
         if(getChild(1).isConstant()) {
@@ -232,7 +232,7 @@ public class LessEqual extends BinOp
 	            return -((SATLiteral)getChild(0)).getLit();  // b<1  rewrites to -b
 	        }
 	        else if(getChild(0) instanceof Identifier) {   // Could also be a sum.
-	            return satModel.getOrderVariable(getChild(0).toString(), getChild(1).getValue());
+	            return getChild(0).orderEncode(satModel, getChild(1).getValue());
 	        }
         }
         return null;
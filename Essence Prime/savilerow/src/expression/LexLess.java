@@ -123,7 +123,7 @@ public class LexLess extends MatrixBinOp
 	        
 	        if(left.size()==0 && right.size()==0) {
 	            // Since this is strict less than, the constraint is unsatisfiable. 
-	            return new BooleanConstant(false);
+	            return BooleanConstant.make(false);
 	        }
 	        
 	        // Finally, check if the leftmost elements are disjoint and lessthan. 
@@ -133,12 +133,12 @@ public class LexLess extends MatrixBinOp
 	        
 	        if(leftbnds.upper<rightbnds.lower) {
 	            // Guaranteed satisfied by the first element. 
-	            return new BooleanConstant(true);
+	            return BooleanConstant.make(true);
 	        }
 	        
 	        if(leftbnds.lower>rightbnds.upper) {
 	            // Guaranteed violated by first element. 
-	            return new BooleanConstant(false);
+	            return BooleanConstant.make(false);
 	        }
 	        
 	        // Strength reduction to numerical <
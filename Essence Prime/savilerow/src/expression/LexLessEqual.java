@@ -145,7 +145,7 @@ public class LexLessEqual extends MatrixBinOp
 	        
 	        if(left.size()==0 && right.size()==0) {
 	            // Since this is less-equal, the constraint is satisfied. 
-	            return new BooleanConstant(true);
+	            return BooleanConstant.make(true);
 	        }
 	        
 	        // Finally, check if the leftmost elements are disjoint and lessthan. 
@@ -155,12 +155,12 @@ public class LexLessEqual extends MatrixBinOp
 	        
 	        if(leftbnds.upper<rightbnds.lower) {
 	            // Guaranteed satisfied by the first element. 
-	            return new BooleanConstant(true);
+	            return BooleanConstant.make(true);
 	        }
 	        
 	        if(leftbnds.lower>rightbnds.upper) {
 	            // Guaranteed violated by first element. 
-	            return new BooleanConstant(false);
+	            return BooleanConstant.make(false);
 	        }
 	        
 	        // Strength reduction to numerical <=
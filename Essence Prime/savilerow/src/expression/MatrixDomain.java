@@ -38,7 +38,7 @@ public class MatrixDomain extends Domain
         ArrayList<ASTNode> ch=new ArrayList<ASTNode>();
         ch.add(b); 
         ch.add(new Container(new ArrayList<ASTNode>()));
-        ch.add(new BooleanConstant(true));
+        ch.add(BooleanConstant.make(true));
         ch.addAll(i);
         // isSet covers all non-matrix domains, incl union, intersect etc.
         // Moved to typechecking. 
@@ -169,7 +169,7 @@ public class MatrixSlice extends ASTNodeC
                     
                     //  Wrap tmp with a comprehension to construct dimension i. 
                     
-                    tmp=new ComprehensionMatrix(tmp, list(new ComprehensionForall(comprehensionvars.get(i-1), indexdom)), new BooleanConstant(true), indexdom);
+                    tmp=new ComprehensionMatrix(tmp, list(new ComprehensionForall(comprehensionvars.get(i-1), indexdom)), BooleanConstant.make(true), indexdom);
                 }
             }
             return tmp;
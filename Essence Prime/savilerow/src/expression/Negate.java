@@ -47,8 +47,8 @@ public class Negate extends Unary
 	
 	public ASTNode simplify() {
 	    if(getChild(0).isConstant()) {
-	        if(getChild(0).getValue()==0) return new BooleanConstant(true);
-	        else return new BooleanConstant(false);
+	        if(getChild(0).getValue()==0) return BooleanConstant.make(true);
+	        else return BooleanConstant.make(false);
 	    }
 	    
 	    // Negate expressions that define isNegatable and negation methods. 
@@ -80,7 +80,7 @@ public class NegativeTable extends ASTNodeC
                 // Also of category constant, must be a matrix literal. 
                 
                 if(table instanceof EmptyMatrix) {
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
                 
                 // Make an identifier for it and store elsewhere.
@@ -96,12 +96,12 @@ public class NegativeTable extends ASTNodeC
                 if(table instanceof EmptyMatrix) {
                     // It's an empty vector of tuples, not a vector containing a single empty tuple.
                     // Constraint is always satisfied.
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
                 
                 if(c0 instanceof EmptyMatrix) {
                     // ... and table is non-empty, i.e. contains one disallowed tuple of length 0. 
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
                 
                 ArrayList<ASTNode> vars=c0.getChildren(1);
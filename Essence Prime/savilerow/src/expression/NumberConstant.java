@@ -26,7 +26,30 @@ public abstract class NumberConstant extends ASTNode {
     public static final long serialVersionUID = 1L;
     
     
+    //  Canonical shared constants for small values. Transformations make vast
+    //  numbers of short-lived constants (for comparisons, unrolled quantifier
+    //  values, bounds) and most of these are small. Shared constants are copied
+    //  when they are put into a tree, so they never have a parent. 
+    private static final int CACHE_MIN=-1024;
+    private static final int CACHE_MAX=1024;
+    private static final NumberConstant[] cache=new NumberConstant[CACHE_MAX-CACHE_MIN+1];
+    
+    static {
+        for(int i=CACHE_MIN; i<=CACHE_MAX; i++) {
+            NumberConstant c=makeNew(i);
+            c.shared=true;
+            cache[i-CACHE_MIN]=c;
+        }
+    }
+    
     public static NumberConstant make(long num) {
+        if(num>=CACHE_MIN && num<=CACHE_MAX) {
+            return cache[(int) num-CACHE_MIN];
+        }
+        return makeNew(num);
+    }
+    
+    private static NumberConstant makeNew(long num) {
         if(num>=Byte.MIN_VALUE && num<=Byte.MAX_VALUE) {
             return new NumberConstantByte((byte) num);
         }
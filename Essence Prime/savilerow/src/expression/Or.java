@@ -103,7 +103,7 @@ public class Or extends ASTNodeC
                 long val=ch.get(i).getValue();
                 if(val==1)
                 {   // Found a true in the disjunction
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
                 else
                 {
@@ -122,7 +122,7 @@ public class Or extends ASTNodeC
             ch.addAll(a);
         }
         
-        if(ch.size()==0) return new BooleanConstant(false); 
+        if(ch.size()==0) return BooleanConstant.make(false); 
         if(ch.size()==1) return ch.get(0);
         if(changed) {
             for(int i=0; i<ch.size(); i++) ch.get(i).setParent(null);
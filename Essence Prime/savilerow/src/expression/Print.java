@@ -49,7 +49,7 @@ public class Print extends ASTNodeC {
 	    if(getChild(0).getCategory()==ASTNode.Constant) {
 	        ASTNode val=getChildConst(0);
 	        System.out.println("PRINT: "+val);
-	        return new BooleanConstant(true);
+	        return BooleanConstant.make(true);
 	    }
 	    return null;
 	}
@@ -98,8 +98,8 @@ public class SATLiteral extends ASTNode {
     @Override
     public ASTNode simplify() {
         // Allow other simplifiers to do their work by turning this into true or false when possible 
-        if(lit==getModel().satModel.getTrue()) return new BooleanConstant(true);
-        if(lit==-getModel().satModel.getTrue()) return new BooleanConstant(false);
+        if(lit==getModel().satModel.getTrue()) return BooleanConstant.make(true);
+        if(lit==-getModel().satModel.getTrue()) return BooleanConstant.make(false);
         return null;
     }
     public ArrayList<Intpair> getIntervalSetExp() {
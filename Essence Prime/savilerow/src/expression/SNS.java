@@ -50,7 +50,7 @@ public class SNS extends ASTNodeC
 	    }
 	    
 	    // Disable the incumbent variables -- they will be unified with the primary variables.
-	    newcons.add(new Iff(getChild(2), new BooleanConstant(true)));
+	    newcons.add(new Iff(getChild(2), BooleanConstant.make(true)));
 	    
 	    return new And(newcons);
 	}
@@ -0,0 +1,113 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+import java.io.*;
+
+// The parts of an SNS specification that are needed for large neighbourhood
+// search with a SAT or MaxSAT solver (-sat-lns). Replaces the SNS object once the
+// neighbourhood constraints have been deactivated, so that the variable lists
+// are kept up to date as variables are assigned or unified.
+
+// Child 0 : List of primary variables.
+// Child 1 : Container of lists of the variables acted upon by each neighbourhood. 
+
+public class SNSLNS extends ASTNodeC
+{
+    public static final long serialVersionUID = 1L;
+    private final String[] names;   //  Neighbourhood names.
+    
+    public SNSLNS(ASTNode primaries, ASTNode hoods, String[] _names) {
+        super(primaries, hoods);
+        names=_names;
+    }
+    
+    //  Extract the primary variables and neighbourhoods from an SNS object.
+    public static SNSLNS make(SNS sns) {
+        ASTNode hoods=sns.getChild(1);
+        ArrayList<ASTNode> vars=new ArrayList<ASTNode>();
+        String[] names=new String[hoods.numChildren()];
+        for(int i=0; i<hoods.numChildren(); i++) {
+            names[i]=hoods.getChild(i).getChild(0).toString();
+            vars.add(hoods.getChild(i).getChild(4));
+        }
+        return new SNSLNS(sns.getChild(0).getChild(0), new Container(vars), names);
+    }
+    
+    public ASTNode copy() {
+        return new SNSLNS(getChild(0), getChild(1), names);
+    }
+    
+    public boolean typecheck(SymbolTable st) {
+        return getChild(0).typecheck(st) && getChild(1).typecheck(st);
+    }
+    
+    public int numNeighbourhoods() {
+        return names.length;
+    }
+    
+    public String getNeighbourhoodName(int i) {
+        return names[i];
+    }
+    
+    public ArrayList<String> getPrimaryVariables() {
+        ArrayList<String> l=new ArrayList<String>();
+        collectVariables(getChild(0), l);
+        return l;
+    }
+    
+    public ArrayList<String> getNeighbourhoodVariables(int i) {
+        ArrayList<String> l=new ArrayList<String>();
+        collectVariables(getChild(1).getChild(i), l);
+        return l;
+    }
+    
+    //  Names of decision variables in a list. The list may contain constants 
+    //  or expressions (e.g. negation) after simplification.
+    private void collectVariables(ASTNode a, ArrayList<String> l) {
+        if(a instanceof Identifier) {
+            if(((Identifier)a).getCategory()==ASTNode.Decision) {
+                l.add(a.toString());
+            }
+        }
+        else {
+            for(int i=0; i<a.numChildren(); i++) {
+                collectVariables(a.getChild(i), l);
+            }
+        }
+    }
+    
+    public String toString() {
+        StringBuilder b=new StringBuilder();
+        b.append("lns primaries ("+getChild(0)+")\n");
+        for(int i=0; i<names.length; i++) {
+            b.append("lns neighbourhood "+names[i]+": ("+getChild(1).getChild(i)+")\n");
+        }
+        return b.toString();
+    }
+    
+    //  Not used by Minion; the neighbourhoods are passed to Minion by the SNS object.
+    public void toMinion(BufferedWriter b, boolean bool_context) throws IOException {
+    }
+}
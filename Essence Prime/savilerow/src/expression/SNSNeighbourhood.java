@@ -56,14 +56,14 @@ public class SNSNeighbourhood extends ASTNodeC
 	    
 	    // Assign the activation variable to false. This should cause any constraints defining
 	    // the neighbourhood to disappear.
-	    ASTNode b=new Iff(getChild(2), new BooleanConstant(false));
+	    ASTNode b=new Iff(getChild(2), BooleanConstant.make(false));
 	    return new And(a,b);
 	}
 	
 	//  Partial deactivation of the neighbourhood before unrolling quantifiers,
 	//  to help efficiency of SR.  Just disable the neighbourhood constraints.
 	public ASTNode deactivateEarly() {
-	    return new Iff(getChild(2), new BooleanConstant(false));
+	    return new Iff(getChild(2), BooleanConstant.make(false));
 	}
 	
 	public String toString() {
@@ -50,7 +50,7 @@ public class Subset extends SetBinOp
             
             ArrayList<Intpair> diff=Intpair.setDifference(a,b);
             
-            return new BooleanConstant(diff.size()==0 && ! a.equals(b));
+            return BooleanConstant.make(diff.size()==0 && ! a.equals(b));
         }
         return null;
     }
@@ -50,7 +50,7 @@ public class SubsetEq extends SetBinOp
             
             ArrayList<Intpair> diff=Intpair.setDifference(a,b);
             
-            return new BooleanConstant(diff.size()==0);
+            return BooleanConstant.make(diff.size()==0);
         }
         return null;
     }
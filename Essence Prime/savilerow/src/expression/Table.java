@@ -80,7 +80,7 @@ public class Table extends ASTNodeC
                 // Also of category constant, must be a matrix literal. 
                 
                 if(table instanceof EmptyMatrix) {
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
                 
                 // Store table in deduplicated store.
@@ -94,12 +94,12 @@ public class Table extends ASTNodeC
                 
                 if(table instanceof EmptyMatrix) {
                     // It's an empty vector of tuples, not a vector containing a single empty tuple. 
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
                 
                 if(c0 instanceof EmptyMatrix) {
                     // ... and table is non-empty
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
                 
                 if(c0.numChildren()==2) {
@@ -222,10 +222,10 @@ public class Table extends ASTNodeC
                         }
                     }
                     if(tupleSatisfied) {
-                        return new BooleanConstant(true);
+                        return BooleanConstant.make(true);
                     }
                 }
-                return new BooleanConstant(false);*/
+                return BooleanConstant.make(false);*/
             }
         }
         return null;
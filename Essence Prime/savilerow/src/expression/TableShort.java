@@ -86,11 +86,11 @@ public class TableShort extends ASTNodeC
                 // Also of category constant, must be a matrix literal. 
                 
                 if(table instanceof EmptyMatrix) {
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
                 if(table.getChild(1) instanceof EmptyMatrix) {
                     //  Contains an empty short support -- the constraint is entailed.
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
                 
                 // Make an identifier for it and store elsewhere.
@@ -105,16 +105,16 @@ public class TableShort extends ASTNodeC
                 // Both vars and table are matrix types we can work with. 
                 if(table instanceof EmptyMatrix) {
                     // It's an empty vector of tuples, not a vector containing a single empty tuple. 
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }
                 if(table.getChild(1) instanceof EmptyMatrix) {
                     //  Contains an empty short support -- the constraint is entailed.
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
                 
                 if(c0 instanceof EmptyMatrix) {
                     // ... and table is non-empty
-                    return new BooleanConstant(true);
+                    return BooleanConstant.make(true);
                 }
                 
                 ArrayList<ASTNode> vars=c0.getChildren(1);
@@ -166,7 +166,7 @@ public class TableShort extends ASTNodeC
                         
                         if(retain) {
                             if(newtup.size()==0) {
-                                return new BooleanConstant(true);   //  Empty short support. 
+                                return BooleanConstant.make(true);   //  Empty short support. 
                             }
                             newtab.add(CompoundMatrix.make(newtup));
                         }
@@ -209,10 +209,10 @@ public class TableShort extends ASTNodeC
                         
                         if(allSat) {
                             // Found a support. 
-                            return new BooleanConstant(true);
+                            return BooleanConstant.make(true);
                         }
                     }
-                    return new BooleanConstant(false);
+                    return BooleanConstant.make(false);
                 }*/
             }
         }
@@ -90,11 +90,11 @@ public class ToVariable extends ASTNodeC
         }
         
         if(getChild(0).equals(getChild(1))) {  // If symbolically equal, return true.
-            return new BooleanConstant(true);
+            return BooleanConstant.make(true);
         }
         if(getChild(0).isConstant() && getChild(1).isConstant()) {
             // If equal when interpreted as integer.... (includes 1=true)
-            return new BooleanConstant( getChild(0).getValue() == getChild(1).getValue() );
+            return BooleanConstant.make( getChild(0).getValue() == getChild(1).getValue() );
         }
         
         //  Check assignment of RHS in Boolean case. 
@@ -108,10 +108,10 @@ public class ToVariable extends ASTNodeC
         Intpair b1=getChild(1).getBounds();
         
         if(b0.lower>b1.upper) {
-            return new BooleanConstant(false);  // lower bound of c1 is greater than upper bound of c2.
+            return BooleanConstant.make(false);  // lower bound of c1 is greater than upper bound of c2.
         }
         if(b0.upper<b1.lower) {
-            return new BooleanConstant(false);  // upper bound of c1 is less than lower bound of c2.
+            return BooleanConstant.make(false);  // upper bound of c1 is less than lower bound of c2.
         }
         
         //  Optimisation for element constraint on a constant matrix, when targeting Minion.
@@ -86,7 +86,7 @@ public class Xor extends ASTNodeC {
         }
         if(collected>0) {
             if(collectConstant) {
-                ch.add(new BooleanConstant(true));   //  Only add if 1 -- no reason to have a 0 constant. 
+                ch.add(BooleanConstant.make(true));   //  Only add if 1 -- no reason to have a 0 constant. 
             }
         }
         if(collected>1 || (collected==1 && !collectConstant)) {
@@ -113,7 +113,7 @@ public class Xor extends ASTNodeC {
         }
         
         if (ch.size() == 0) {
-            return new BooleanConstant(false);
+            return BooleanConstant.make(false);
         }
         if (ch.size() == 1) {
             ch.get(0).setParent(null);
@@ -136,7 +136,7 @@ public class Xor extends ASTNodeC {
     @Override
     public ASTNode negation() {
         ArrayList<ASTNode> ch = getChildren();
-        ch.add(new BooleanConstant(true));
+        ch.add(BooleanConstant.make(true));
         return new Xor(ch);
     }
     
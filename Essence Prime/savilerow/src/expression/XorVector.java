@@ -58,7 +58,7 @@ public class XorVector extends ASTNodeC
 	            boolean val=(cm.getChild(i).getValue()==1);
 	            acc=(acc && (!val)) || ((!acc) && val);
 	        }
-	        return new BooleanConstant(acc);
+	        return BooleanConstant.make(acc);
 	    }
 	    if(getChild(0) instanceof CompoundMatrix || getChild(0) instanceof EmptyMatrix) {
 	        ASTNode[] ch=getChild(0).getChildrenArray(1);
@@ -44,6 +44,11 @@ public class ConstantMatrixStore
     // Map matrix literals to set of names.
     private HashMap<ASTNode, HashSet<String>> cm_names;
     
+    //  True when cm and cm_names may be referenced by another store (after copy).
+    //  The maps are cloned before the first change. The stored matrix literals
+    //  themselves are never changed in place so they are always shared. 
+    private boolean sharedMaps;
+    
     public Model m;
     
     public ConstantMatrixStore(Model _m) {
@@ -56,6 +61,7 @@ public class ConstantMatrixStore
     //  Basic housekeeping functions
     //  All changes to cm and cm_names must go through these two methods.
     private void removeEntry(String name) {
+        unshare();
         assert cm.containsKey(name);
         ASTNode mat=cm.get(name);
         
@@ -70,6 +76,7 @@ public class ConstantMatrixStore
     }
     
     private void addEntry(String name, ASTNode matlit) {
+        unshare();
         assert !cm.containsKey(name);
         
         if(cm_names.containsKey(matlit)) {
@@ -83,6 +90,8 @@ public class ConstantMatrixStore
         }
         else {
             // This matrix is not equal to any existing matrix.
+            // Mark it shared so that attaching it to a tree makes a copy. 
+            matlit.shared=true;
             HashSet<String> hs=new HashSet<String>();
             hs.add(name);
             cm_names.put(matlit, hs);
@@ -90,6 +99,18 @@ public class ConstantMatrixStore
         }
     }
     
+    private void unshare() {
+        if(sharedMaps) {
+            cm=new HashMap<String, ASTNode>(cm);
+            HashMap<ASTNode, HashSet<String>> names=new HashMap<ASTNode, HashSet<String>>(cm_names.size()*2);
+            for(Map.Entry<ASTNode, HashSet<String>> e : cm_names.entrySet()) {
+                names.put(e.getKey(), new HashSet<String>(e.getValue()));
+            }
+            cm_names=names;
+            sharedMaps=false;
+        }
+    }
+    
     public ASTNode getConstantMatrix(String name) {
         assert cm.containsKey(name);
         return cm.get(name);
@@ -526,12 +547,14 @@ public class ConstantMatrixStore
         return true;
     }
     
+    //  Constant time: the copy shares the maps and matrix literals with this
+    //  store, and whichever store is changed first takes its own copy of the maps.
     public ConstantMatrixStore copy(Model _m) {
         ConstantMatrixStore cp=new ConstantMatrixStore(_m);
-        for (String name : cm.keySet()) {
-            ASTNode matcp=cm.get(name).copy();
-            cp.addEntry(name, matcp);
-        }
+        cp.cm=cm;
+        cp.cm_names=cm_names;
+        cp.sharedMaps=true;
+        sharedMaps=true;
         return cp;
     }
     
@@ -552,12 +575,38 @@ public class ConstantMatrixStore
     //   Output methods
     
     public void toMinion(BufferedWriter b) throws IOException {
+        toMinion(b, null);
+    }
+    
+    //  uses is null to write every matrix in every applicable form. Otherwise it
+    //  maps the names to write to the forms needed, as found by Model.constantMatrixUses,
+    //  and the aliases are declared first, in the variables section already open. 
+    public void toMinion(BufferedWriter b, HashMap<String, Integer> uses) throws IOException {
+        if(uses==null) {
+            toMinion(b, null, Model.CM_TUPLELIST | Model.CM_SHORTTUPLELIST | Model.CM_ALIAS);
+        }
+        else {
+            toMinion(b, uses, Model.CM_ALIAS);
+            toMinion(b, uses, Model.CM_TUPLELIST | Model.CM_SHORTTUPLELIST);
+        }
+    }
+    
+    //  Write the forms of each matrix that are in forms. A matrix is marked as
+    //  written once its tuple lists (the last forms written) are done. 
+    private void toMinion(BufferedWriter b, HashMap<String, Integer> uses, int forms) throws IOException {
         // Output constant matrices.
         for (String name : cm.keySet()) {
             // skip already contained
             if (already_written.contains(name)){
                 continue;
             }
+            int use=forms;
+            if(uses!=null) {
+                if(!uses.containsKey(name)) {
+                    continue;
+                }
+                use=uses.get(name) & forms;
+            }
             ArrayList<Long> dimensions = getConstantMatrixSize(cm.get(name));
             
             ArrayList<ASTNode> indexdomains=cm.get(name).getIndexDomainsIrregular();
@@ -572,7 +621,7 @@ public class ConstantMatrixStore
             }
             
             // If two dimensional, print as tuplelist.
-            if(dimensions.size() == 2 && regular) {
+            if(dimensions.size() == 2 && regular && (use & Model.CM_TUPLELIST)!=0) {
                 b.append("**TUPLELIST**\n");
                 b.append(name + " ");
                 ASTNode a = cm.get(name);
@@ -598,7 +647,7 @@ public class ConstantMatrixStore
             }
             
             // If three dimensional with size 2 in inner dimension, print as short tuple list.
-            if(dimensions.size()==3 && dimensions.get(2)==2 && regulardim[2]) {
+            if(dimensions.size()==3 && dimensions.get(2)==2 && regulardim[2] && (use & Model.CM_SHORTTUPLELIST)!=0) {
                 b.append("**SHORTTUPLELIST**\n");
                 b.append(name);
                 b.append(" ");
@@ -631,8 +680,10 @@ public class ConstantMatrixStore
                 if(dimensions.get(i)==0) zerodimension=true;
             }
             
-            if(!zerodimension && regular) {
-                b.append("**VARIABLES**\n");
+            if(!zerodimension && regular && (use & Model.CM_ALIAS)!=0) {
+                if(uses==null) {
+                    b.append("**VARIABLES**\n");
+                }
                 b.append("ALIAS " + name + "[");
                 for (int i =0; i < dimensions.size(); i++) {
                     b.append(String.valueOf(dimensions.get(i)));
@@ -646,7 +697,9 @@ public class ConstantMatrixStore
                 b.append("\n");
             }
             //add that we already wrote that.
-            already_written.add(name);
+            if((forms & Model.CM_TUPLELIST)!=0) {
+                already_written.add(name);
+            }
         }
     }
     
@@ -0,0 +1,96 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+//  Parameter-derived domain restriction. A restriction is evaluated on the
+//  parameters (constant matrices) before quantifiers are unrolled, and gives a
+//  set of allowed values for elements of one matrix of decision variables.
+//  Once the matrix has been atomised, the domain of each atom is intersected
+//  with its allowed values, so the removed values never reach the solver. 
+//  Models opt in with -param-domains, one restriction per flag. 
+
+public abstract class DomainRestriction {
+    protected String matrixName;
+    
+    private HashMap<ArrayList<Long>, ArrayList<Intpair>> allowed;
+    
+    protected DomainRestriction(String _matrixName) {
+        matrixName=_matrixName;
+    }
+    
+    //  Allowed values for elements of the matrix, keyed by the list of index values.
+    //  Elements with no entry are left alone. 
+    protected abstract HashMap<ArrayList<Long>, ArrayList<Intpair>> allowedValues(Model m);
+    
+    //  Called before unrolling, while parameters are still constant matrices.
+    public void prepare(Model m) {
+        SymbolTable st=m.global_symbols;
+        if(!st.hasVariable(matrixName) || st.getCategory(matrixName)!=ASTNode.Decision || !(st.getDomain(matrixName) instanceof MatrixDomain)) {
+            CmdFlags.errorExit("-param-domains: "+matrixName+" is not a matrix of decision variables.");
+        }
+        allowed=allowedValues(m);
+    }
+    
+    //  Called after the matrix has been atomised. 
+    public void apply(Model m) {
+        SymbolTable st=m.global_symbols;
+        long removed=0;
+        for(Map.Entry<String, replaces_matrix_entry> e : st.replaces_matrix.entrySet()) {
+            if(!e.getValue().name.equals(matrixName)) {
+                continue;
+            }
+            ArrayList<Intpair> vals=allowed.get(e.getValue().idx);
+            String name=e.getKey();
+            if(vals==null || !st.hasVariable(name) || st.getCategory(name)!=ASTNode.Decision) {
+                continue;
+            }
+            ASTNode olddom=st.getDomain(name);
+            ArrayList<Intpair> oldvals=olddom.getIntervalSet();
+            ArrayList<Intpair> newvals=Intpair.intersection(oldvals, vals);
+            long diff=Intpair.numValues(oldvals)-Intpair.numValues(newvals);
+            if(diff>0) {
+                st.setDomain(name, Intpair.makeDomain(newvals, olddom.isBooleanSet()));
+                removed+=diff;
+            }
+        }
+        CmdFlags.printlnIfVerbose("Domain restriction on "+matrixName+" removed "+removed+" values.");
+        allowed=null;
+    }
+    
+    //  Make a restriction from its command-line description, kind:arguments
+    public static DomainRestriction make(String spec) {
+        int colon=spec.indexOf(':');
+        String kind=(colon==-1) ? spec : spec.substring(0, colon);
+        String[] args=(colon==-1) ? new String[0] : spec.substring(colon+1).split(",");
+        
+        if(kind.equals("grid-reach")) {
+            if(args.length!=3) {
+                CmdFlags.cmdLineExit("-param-domains grid-reach expects three matrix names: grid-reach:<variables>,<start>,<map>");
+            }
+            return new GridReachability(args[0], args[1], args[2]);
+        }
+        CmdFlags.cmdLineExit("-param-domains: unknown restriction "+kind+".");
+        return null;
+    }
+}
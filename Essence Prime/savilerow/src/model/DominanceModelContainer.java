@@ -28,6 +28,8 @@ import savilerow.CmdFlags;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.*;
 
 // This class controls the refinement process of dominance problems.
 
@@ -96,7 +98,7 @@ public class DominanceModelContainer extends ModelContainer {
                         IntegerDomainConcrete iterDomain = ((IntegerDomainConcrete) domAfterPreprocess);
                         iterDomains.add(iterDomain);
                     }
-                    topand.setChild(i, new BooleanConstant(true));
+                    topand.setChild(i, BooleanConstant.make(true));
                 }
             }
         }
@@ -122,7 +124,7 @@ public class DominanceModelContainer extends ModelContainer {
                 IntegerDomainConcrete iterDomain = ((IntegerDomainConcrete) domAfterPreprocess);
                 iterDomains.add(iterDomain);
             }
-            m.constraints.setChild(0, new BooleanConstant(true));
+            m.constraints.setChild(0, BooleanConstant.make(true));
         }
         
         if(order==null) {
@@ -163,10 +165,14 @@ public class DominanceModelContainer extends ModelContainer {
         //there is incomp function
         else{
             Boolean ascOrder = incompOrderSign.getValue() == 0 ? true : false;
-            List<List<Long>> collector = new ArrayList<>();
-            ArrayList<Long> combo = new ArrayList<>();
-            combinations(collector, iterDomains, 0, combo, ascOrder);
-            for (List<Long> domValues : collector) {
+            DominancePartitions partitions = new DominancePartitions(iterDomains, ascOrder);
+            if (CmdFlags.dom_parallel > 1 && parallelSupported()){
+                processDominanceParallel(partitions);
+                return;
+            }
+            Iterator<List<Long>> it = partitions.iterator();
+            while (it.hasNext()) {
+                List<Long> domValues = it.next();
                 //CDP+I no block repeat trick
                 if (CmdFlags.noblockDom && incompPartialOrder != null){
                     boolean repeatFlag = true;
@@ -184,40 +190,160 @@ public class DominanceModelContainer extends ModelContainer {
         }
     }
 
-    
     /**
-     * Getting combinations of the incomp partial orders while respecting order
-     * @param collector
-     * @param partialOrders
-     * @param n
-     * @param combo
-     * @param asc
+     * Whether partitions can be solved in parallel: each needs its own copy of 
+     * a plain DIMACS file, solved by a separate SAT solver process. Only solvers
+     * that give their result on stdout are run in parallel; the others write it 
+     * to the one solution temp file, which parallel runs would overwrite. 
+     */
+    private boolean parallelSupported(){
+        if (!CmdFlags.getSattrans() || CmdFlags.getSMTtrans() || CmdFlags.getMaxsattrans() || CmdFlags.interactiveSolver
+            || CmdFlags.noblockDom || m.objective != null || OutputCompression.enabled()
+            || !(solver instanceof CadicalSATSolver || solver instanceof LingelingSATSolver)){
+            CmdFlags.warning("-dom-parallel only applies to the kissat, cadical and lingeling SAT solvers (not interactive) without -noblock-dom, an objective or output compression. Solving partitions one at a time.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Solve the partitions one level at a time. Partitions in a level cannot dominate 
+     * each other, so they are solved in parallel, each on its own copy of the SAT 
+     * file. The dominance nogoods of all solutions found in a level are then 
+     * encoded once and shared by all partitions of the later levels.
+     * Assumes a solution can only dominate solutions in partitions that are 
+     * component-wise after its own, as with a Pareto order on the incomparability values.
      */
-    private void combinations(List<List<Long>> collector, List<IntegerDomainConcrete> iterDomains, int n, List<Long> combo, Boolean asc) {
-        if (n == iterDomains.size()) {
-            collector.add(new ArrayList<>(combo));
-            return;
+    private void processDominanceParallel(DominancePartitions partitions) throws IOException{
+        SolverPool pool = new SolverPool(CmdFlags.dom_parallel);
+        Stats totalstats = null;
+        try{
+            for (int level = 0; level < partitions.numLevels(); level++) {
+                reOpenFiles();
+                encodeNewDominanceConstrainsts(level+1);
+                markModelAndClean();
+                
+                Iterator<List<Long>> it = partitions.level(level);
+                while (it.hasNext()) {
+                    //  Write the files for a batch of partitions, then solve them.
+                    ArrayList<PartitionRun> batch = new ArrayList<>();
+                    while (it.hasNext() && batch.size() < CmdFlags.dom_parallel) {
+                        List<Long> domValues = it.next();
+                        ASTNode incompConstraint = constructIncompConstraint(domValues);
+                        encodeIncompConst(incompConstraint);
+                        String fileName = CmdFlags.satfile + ".part" + batch.size();
+                        Files.copy(Paths.get(CmdFlags.satfile), Paths.get(fileName), StandardCopyOption.REPLACE_EXISTING);
+                        System.out.println("Dimacs file size: " + Files.size(Paths.get(fileName)) + " in " + domValues);
+                        batch.add(new PartitionRun(domValues, fileName, m.satModel.getNumVars(), m.satModel.getNumClauses()));
+                        restoreModel();
+                    }
+                    
+                    ArrayList<CompletableFuture<Stats>> futures = new ArrayList<>();
+                    for (final PartitionRun run : batch) {
+                        futures.add(pool.submit(new Callable<Stats>() {
+                            public Stats call() throws Exception {
+                                return solvePartition(run);
+                            }
+                        }));
+                    }
+                    for (CompletableFuture<Stats> f : futures) {
+                        Stats stats = f.join();
+                        if (stats != null){
+                            totalstats = (totalstats == null) ? stats : totalstats.add(stats);
+                        }
+                    }
+                    for (PartitionRun run : batch) {
+                        Files.deleteIfExists(Paths.get(run.fileName));
+                    }
+                }
+            }
+        } catch (CompletionException e){
+            CmdFlags.errorExit("Could not run the solver: " + e.getCause());
+        } finally {
+            pool.shutdown();
         }
-        for (Long l : getValuesDomainConcrete(iterDomains.get(n), asc)) {
-            combo.add(l);
-            combinations(collector, iterDomains, n + 1, combo, asc);
-            combo.remove(combo.size() - 1);
+        if (totalstats != null){
+            totalstats.putValue("SavileRowTotalTime", String.valueOf(((double) System.currentTimeMillis() - CmdFlags.startTime) / 1000));
+            ((SATSolver)solver).writeToFileSolutionStats(totalstats);
         }
     }
-    
+
+    /**
+     * One partition solved in parallel with others: its copy of the SAT file
+     * and the size of the formula in it.
+     */
+    private static class PartitionRun {
+        final List<Long> domValues;
+        final String fileName;
+        final long numVars;
+        long numClauses;
+        PartitionRun(List<Long> _domValues, String _fileName, long _numVars, long _numClauses){
+            domValues = _domValues;
+            fileName = _fileName;
+            numVars = _numVars;
+            numClauses = _numClauses;
+        }
+    }
+
+    /**
+     * Find the solutions of one partition, adding a blocking clause to its own file after
+     * each one when more than one solution is wanted. Runs in a worker thread; reading
+     * and recording solutions is done under the lock on this object.
+     */
+    private Stats solvePartition(PartitionRun run) throws IOException, InterruptedException{
+        SATSolver satSolver = (SATSolver)solver;
+        boolean multiple = CmdFlags.getFindAllSolutions() || CmdFlags.getFindNumSolutions() > 1;
+        Stats totalstats = null;
+        while (true){
+            synchronized(this){
+                if (multiple && !CmdFlags.getFindAllSolutions() && satSolver.solutionCounter >= CmdFlags.getFindNumSolutions()){
+                    break;
+                }
+            }
+            Pair<ArrayList<String>, Stats> p = satSolver.runSatSolver(CmdFlags.getSatSolver(), run.fileName, m, totalstats);
+            ArrayList<String> currentSolution = p.getFirst();
+            if (p.getSecond() != null){
+                totalstats = (totalstats == null) ? p.getSecond() : totalstats.add(p.getSecond());
+            }
+            if (currentSolution == null){
+                break;
+            }
+            ArrayList<Long> clause;
+            synchronized(this){
+                Solution sol = satSolver.solverSolToAST(currentSolution, m.global_symbols);
+                m.incumbentSolution = sol;
+                satSolver.createSolutionFile(sol, multiple);
+                if (!multiple){
+                    break;
+                }
+                ArrayList<ASTNode> blockingVars = new ArrayList<ASTNode>();
+                ArrayList<Long> blockingVals = new ArrayList<Long>();
+                satSolver.collectBlockingAssignment(currentSolution, m, blockingVars, blockingVals);
+                clause = satSolver.blockingClause(blockingVars, blockingVals);
+            }
+            appendClause(run, clause);
+        }
+        return totalstats;
+    }
+
     /**
-     * Return the list contained in Domain
-     * @param asc ascending order for true - descending order for false 
-     * @return the list
+     * Append a clause to the SAT file of a partition and update its p cnf line, which
+     * is padded with spaces when the file is written.
      */
-    private ArrayList<Long> getValuesDomainConcrete(IntegerDomainConcrete d, boolean asc) {
-        ArrayList<Long> list = new ArrayList<>();
-        long it = asc ? d.getBounds().lower : d.getBounds().upper;
-        while (d.containsValue(it)){
-            list.add(it);
-            it = asc ? it+1 : it-1;
-        }
-        return list;
+    private static void appendClause(PartitionRun run, ArrayList<Long> clause) throws IOException{
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < clause.size(); i++) {
+            b.append(clause.get(i));
+            b.append(" ");
+        }
+        b.append("0\n");
+        run.numClauses++;
+        RandomAccessFile f = new RandomAccessFile(run.fileName, "rw");
+        f.seek(f.length());
+        f.write(b.toString().getBytes());
+        f.seek(0);
+        f.write(("p cnf " + run.numVars + " " + run.numClauses + "          ").getBytes());
+        f.close();
     }
 
     private boolean processEachDominance(List<Long> domValues, long dom_depth) throws IOException{
@@ -239,7 +365,7 @@ public class DominanceModelContainer extends ModelContainer {
 
     private ASTNode constructIncompConstraint(List<Long> domValues) throws IOException{
         //incomp order constraint
-        ASTNode c0 = new BooleanConstant(true);
+        ASTNode c0 = BooleanConstant.make(true);
         //if domValue is null it means incomp function doesnt exists.
         if (domValues != null){
             CmdFlags.println("Looking for solution on incomp value(s): " + domValues);
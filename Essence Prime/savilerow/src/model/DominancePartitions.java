@@ -0,0 +1,157 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+//  The partitions of a dominance problem given by the values of the
+//  incomparability function. Each partition is a list of values, one for each
+//  element of the function. Partitions are generated lazily, either all in
+//  lexicographic order or one level at a time. A level holds the partitions
+//  whose values have the same total rank (position in the value order), so
+//  no two partitions in a level are ordered component-wise, and a partition
+//  follows all partitions component-wise before it in earlier levels. 
+//  Every value of each domain is used, including values after a gap in the
+//  domain. 
+
+public class DominancePartitions
+{
+    private final long[][] values;   //  Values of each element, in search order.
+    
+    public DominancePartitions(ArrayList<IntegerDomainConcrete> doms, boolean asc) {
+        values=new long[doms.size()][];
+        for(int i=0; i<doms.size(); i++) {
+            ArrayList<Intpair> intervals=doms.get(i).getIntervalSet();
+            ArrayList<Long> vals=new ArrayList<Long>();
+            for(int j=0; j<intervals.size(); j++) {
+                for(long v=intervals.get(j).lower; v<=intervals.get(j).upper; v++) {
+                    vals.add(v);
+                }
+            }
+            if(!asc) {
+                Collections.reverse(vals);
+            }
+            values[i]=new long[vals.size()];
+            for(int j=0; j<vals.size(); j++) {
+                values[i][j]=vals.get(j);
+            }
+        }
+    }
+    
+    public int numLevels() {
+        int levels=1;
+        for(int i=0; i<values.length; i++) {
+            if(values[i].length==0) {
+                return 0;
+            }
+            levels+=values[i].length-1;
+        }
+        return levels;
+    }
+    
+    //  All partitions in lexicographic order. 
+    public Iterator<List<Long>> iterator() {
+        return new PartitionIterator(-1);
+    }
+    
+    //  The partitions in one level, in lexicographic order. 
+    public Iterator<List<Long>> level(int level) {
+        return new PartitionIterator(level);
+    }
+    
+    private class PartitionIterator implements Iterator<List<Long>> {
+        private final int level;   //  -1 for all partitions.
+        private int[] ranks;       //  Next partition, null when finished.
+        
+        PartitionIterator(int _level) {
+            level=_level;
+            ranks=new int[values.length];
+            if(level==-1) {
+                for(int i=0; i<values.length; i++) {
+                    if(values[i].length==0) {
+                        ranks=null;
+                    }
+                }
+            }
+            else if(level<0 || level>=numLevels() || !fill(0, level)) {
+                ranks=null;
+            }
+        }
+        
+        public boolean hasNext() {
+            return ranks!=null;
+        }
+        
+        public List<Long> next() {
+            if(ranks==null) {
+                throw new NoSuchElementException();
+            }
+            ArrayList<Long> p=new ArrayList<Long>(ranks.length);
+            for(int i=0; i<ranks.length; i++) {
+                p.add(values[i][ranks[i]]);
+            }
+            advance();
+            return p;
+        }
+        
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+        
+        private void advance() {
+            if(level==-1) {
+                //  Odometer, last element changing fastest.
+                for(int i=ranks.length-1; i>=0; i--) {
+                    if(ranks[i]+1<values[i].length) {
+                        ranks[i]++;
+                        return;
+                    }
+                    ranks[i]=0;
+                }
+                ranks=null;
+                return;
+            }
+            //  Increment the rightmost element that can be increased while the
+            //  elements after it give up one rank between them.
+            int suffix=0;
+            for(int i=ranks.length-1; i>=0; i--) {
+                if(suffix>0 && ranks[i]+1<values[i].length) {
+                    ranks[i]++;
+                    fill(i+1, suffix-1);
+                    return;
+                }
+                suffix+=ranks[i];
+            }
+            ranks=null;
+        }
+        
+        //  Set the elements from start onwards to the lexicographically least
+        //  ranks with the given total, pushing ranks to the end.
+        private boolean fill(int start, int total) {
+            for(int i=ranks.length-1; i>=start; i--) {
+                ranks[i]=Math.min(total, values[i].length-1);
+                total-=ranks[i];
+            }
+            return total==0;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+//  Restricts the positions of agents moving on a grid to the cells they can
+//  reach in time. The map is a constant matrix indexed by row and column where
+//  -1 marks an obstacle, and the start matrix gives the row and column of each
+//  agent. The variable matrix is indexed by agent and time step, holding either
+//  the cell number (row-major from 1) or, with a third index of size 2, the row
+//  and column. At the k-th time step an agent can only be in a free cell within
+//  k moves of its start, assuming each step moves to an adjacent cell or waits.
+
+public class GridReachability extends DomainRestriction {
+    private String startName;
+    private String mapName;
+    
+    public GridReachability(String _matrixName, String _startName, String _mapName) {
+        super(_matrixName);
+        startName=_startName;
+        mapName=_mapName;
+    }
+    
+    protected HashMap<ArrayList<Long>, ArrayList<Intpair>> allowedValues(Model m) {
+        ASTNode map=constantMatrix(m, mapName);
+        ASTNode start=constantMatrix(m, startName);
+        
+        ASTNode matdom=m.global_symbols.getDomain(matrixName);
+        int dims=matdom.numChildren()-3;
+        ArrayList<Intpair> agentIdx=matdom.getChild(3).getIntervalSet();
+        ArrayList<Intpair> timeIdx=(dims>=2) ? matdom.getChild(4).getIntervalSet() : null;
+        boolean coords=(dims==3 && Intpair.numValues(matdom.getChild(5).getIntervalSet())==2);
+        if(dims!=2 && !coords) {
+            CmdFlags.errorExit("-param-domains grid-reach: "+matrixName+" must be indexed by agent and time, with an optional third index of size 2.");
+        }
+        
+        //  Read the map into a row-major array.
+        int rows=map.numChildren()-1;
+        int cols=(rows>0) ? map.getChild(1).numChildren()-1 : 0;
+        long rowLo=map.getChild(0).getIntervalSet().get(0).lower;
+        long colLo=(rows>0) ? map.getChild(1).getChild(0).getIntervalSet().get(0).lower : 0;
+        boolean[] free=new boolean[rows*cols];
+        for(int r=0; r<rows; r++) {
+            for(int c=0; c<cols; c++) {
+                free[r*cols+c]=map.getChild(r+1).getChild(c+1).getValue()!=-1;
+            }
+        }
+        
+        int agents=(int) Intpair.numValues(agentIdx);
+        if(start.numChildren()-1!=agents) {
+            CmdFlags.errorExit("-param-domains grid-reach: "+startName+" does not have one entry per agent of "+matrixName+".");
+        }
+        int steps=(int) Intpair.numValues(timeIdx);
+        
+        HashMap<ArrayList<Long>, ArrayList<Intpair>> allowed=new HashMap<ArrayList<Long>, ArrayList<Intpair>>();
+        for(int a=0; a<agents; a++) {
+            int sr=(int) (start.getChild(a+1).getChild(1).getValue()-rowLo);
+            int sc=(int) (start.getChild(a+1).getChild(2).getValue()-colLo);
+            if(sr<0 || sr>=rows || sc<0 || sc>=cols) {
+                continue;   //  Start is not on the map; leave this agent alone.
+            }
+            int[] dist=distances(free, rows, cols, sr*cols+sc);
+            long agent=Intpair.lookup(agentIdx, a);
+            
+            for(int k=0; k<steps; k++) {
+                ArrayList<Intpair> cells=new ArrayList<Intpair>();
+                ArrayList<Intpair> rowvals=new ArrayList<Intpair>();
+                ArrayList<Intpair> colvals=new ArrayList<Intpair>();
+                for(int cell=0; cell<rows*cols; cell++) {
+                    if(dist[cell]!=-1 && dist[cell]<=k) {
+                        cells.add(new Intpair(cell+1, cell+1));
+                        rowvals.add(new Intpair(cell/cols+rowLo, cell/cols+rowLo));
+                        colvals.add(new Intpair(cell%cols+colLo, cell%cols+colLo));
+                    }
+                }
+                ArrayList<Long> idx=new ArrayList<Long>();
+                idx.add(agent);
+                idx.add(Intpair.lookup(timeIdx, k));
+                if(coords) {
+                    ArrayList<Intpair> coordIdx=matdom.getChild(5).getIntervalSet();
+                    Intpair.normalise(rowvals);
+                    Intpair.normalise(colvals);
+                    ArrayList<Long> idx2=new ArrayList<Long>(idx);
+                    idx.add(Intpair.lookup(coordIdx, 0));
+                    idx2.add(Intpair.lookup(coordIdx, 1));
+                    allowed.put(idx, rowvals);
+                    allowed.put(idx2, colvals);
+                }
+                else {
+                    Intpair.normalise(cells);
+                    allowed.put(idx, cells);
+                }
+            }
+        }
+        return allowed;
+    }
+    
+    //  Breadth-first search over free cells from start. -1 for unreachable cells. 
+    private static int[] distances(boolean[] free, int rows, int cols, int start) {
+        int[] dist=new int[rows*cols];
+        Arrays.fill(dist, -1);
+        if(!free[start]) {
+            return dist;
+        }
+        ArrayDeque<Integer> queue=new ArrayDeque<Integer>();
+        dist[start]=0;
+        queue.add(start);
+        int[] dr={-1, 1, 0, 0};
+        int[] dc={0, 0, -1, 1};
+        while(!queue.isEmpty()) {
+            int cell=queue.poll();
+            int r=cell/cols;
+            int c=cell%cols;
+            for(int d=0; d<4; d++) {
+                int nr=r+dr[d];
+                int nc=c+dc[d];
+                if(nr>=0 && nr<rows && nc>=0 && nc<cols && free[nr*cols+nc] && dist[nr*cols+nc]==-1) {
+                    dist[nr*cols+nc]=dist[cell]+1;
+                    queue.add(nr*cols+nc);
+                }
+            }
+        }
+        return dist;
+    }
+    
+    private static ASTNode constantMatrix(Model m, String name) {
+        if(!m.cmstore.hasConstantMatrix(name)) {
+            CmdFlags.errorExit("-param-domains grid-reach: "+name+" is not a constant matrix.");
+        }
+        return m.cmstore.getConstantMatrix(name);
+    }
+}
@@ -0,0 +1,352 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+
+//  Incremental horizon search for time-expanded models (planning, MAPF).
+//  The parameter named by -horizon is increased one step at a time until a
+//  solution is found. The first horizon is translated in full. For each later
+//  horizon only the front end is re-run (parameter substitution, unrolling,
+//  atomising matrices); top-level constraints that were already encoded are
+//  skipped, and the new ones are flattened and appended to the same SAT file,
+//  sharing the variable encoding. Constraints that will not be present at the
+//  next horizon (e.g. goals at the final time step) are guarded by an activation
+//  variable, which is assumed with a unit clause for the current horizon and
+//  negated once the horizon is passed.
+//  When the new front end cannot be merged (a variable domain changes with the
+//  horizon, new auxiliary variables, different constant matrices, or a constraint
+//  encoded without a guard is no longer present) the horizon is translated from
+//  scratch instead. 
+
+public class HorizonModelContainer extends ModelContainer {
+    private ModelContainer original;   //  Model and parameters before any processing.
+    private SATSolver solver;
+    
+    //  Constraints (as strings) encoded without a guard.
+    private HashSet<String> permanent;
+    
+    public HorizonModelContainer(ModelContainer _original) {
+        super(null, null);
+        original=_original;
+    }
+    
+    public void process() {
+        if(CmdFlags.dominanceRelation) {
+            CmdFlags.errorExit("-horizon cannot be used with a dominance relation.");
+        }
+        long h=initialHorizon();
+        ModelContainer cur=frontEnd(h);
+        boolean fresh=true;
+        
+        try {
+            while(true) {
+                ModelContainer next=null;
+                HashSet<String> nextKeys=null;
+                if(CmdFlags.horizon_max==-1 || h<CmdFlags.horizon_max) {
+                    next=frontEnd(h+1);
+                    nextKeys=keys(next.m);
+                }
+                
+                long actlit;
+                if(fresh) {
+                    actlit=translate(cur, nextKeys);
+                }
+                else {
+                    actlit=extend(cur, nextKeys, h);
+                    if(actlit==-1) {
+                        CmdFlags.println("Horizon "+h+" cannot be added to the previous encoding, translating it in full.");
+                        actlit=translate(cur, nextKeys);
+                    }
+                }
+                
+                if(solve(h, actlit)) {
+                    CmdFlags.println("Found solution with "+CmdFlags.horizon_param+" = "+h);
+                    return;
+                }
+                if(next==null) {
+                    CmdFlags.println("No solution found up to "+CmdFlags.horizon_param+" = "+h);
+                    return;
+                }
+                h++;
+                cur=next;
+                fresh=false;
+            }
+        }
+        catch(IOException e) {
+            CmdFlags.errorExit("Failed when writing SAT encoding: "+e);
+        }
+        catch(InterruptedException e) {
+            CmdFlags.errorExit("Could not run the solver: "+e);
+        }
+        finally {
+            //  Delete the dimacs file because it may be very large.
+            File f = new File(CmdFlags.satfile);
+            if (f.exists()) f.delete();
+        }
+    }
+    
+    //  Value of the horizon parameter in the parameter file.
+    private long initialHorizon() {
+        for(int i=0; i<original.parameters.size(); i++) {
+            ASTNode p=original.parameters.get(i);
+            if(p.getChild(0).toString().equals(CmdFlags.horizon_param)) {
+                if(!(p.getChild(1) instanceof NumberConstant)) {
+                    CmdFlags.errorExit("Parameter "+CmdFlags.horizon_param+" given to -horizon must be an integer.");
+                }
+                return p.getChild(1).getValue();
+            }
+        }
+        CmdFlags.errorExit("Parameter "+CmdFlags.horizon_param+" given to -horizon not found in the parameter file.");
+        return 0;
+    }
+    
+    //  Substitute the parameters with the given horizon, unroll and atomise matrices. 
+    private ModelContainer frontEnd(long h) {
+        ModelContainer c=original.copy();
+        for(int i=0; i<c.parameters.size(); i++) {
+            ASTNode p=c.parameters.get(i);
+            if(p.getChild(0).toString().equals(CmdFlags.horizon_param)) {
+                c.parameters.set(i, new Letting(p.getChild(0), NumberConstant.make(h)));
+            }
+        }
+        c.processPreamble();
+        c.instancePreFlattening1();
+        return c;
+    }
+    
+    private static ArrayList<ASTNode> conjuncts(Model mod) {
+        ASTNode top=mod.constraints.getChild(0);
+        if(top instanceof And) {
+            return top.getChildren();
+        }
+        ArrayList<ASTNode> l=new ArrayList<ASTNode>();
+        if(!(top instanceof BooleanConstant && top.getValue()==1)) {
+            l.add(top);
+        }
+        return l;
+    }
+    
+    private static HashSet<String> keys(Model mod) {
+        HashSet<String> k=new HashSet<String>();
+        for(ASTNode c : conjuncts(mod)) {
+            k.add(c.toString());
+        }
+        return k;
+    }
+    
+    //  Select the constraints of cur that are not encoded yet. Those absent
+    //  from the next horizon are guarded by a new activation variable, which is
+    //  returned through act (null if there are none).
+    private ArrayList<ASTNode> newConstraints(Model cm, HashSet<String> nextKeys, Model target, Identifier[] act) {
+        ArrayList<ASTNode> out=new ArrayList<ASTNode>();
+        for(ASTNode c : conjuncts(cm)) {
+            String key=c.toString();
+            if(permanent.contains(key)) {
+                continue;
+            }
+            c.setParent(null);
+            if(nextKeys==null || nextKeys.contains(key)) {
+                permanent.add(key);
+                out.add(c);
+            }
+            else {
+                if(act[0]==null) {
+                    act[0]=target.global_symbols.newAuxiliaryVariable(new BooleanDomainFull());
+                }
+                out.add(new Implies(act[0], c));
+            }
+        }
+        return out;
+    }
+    
+    //  Translate the model for one horizon in full, creating a new SAT file.
+    //  Returns the activation literal, or 0 if there is none.
+    private long translate(ModelContainer cur, HashSet<String> nextKeys) throws IOException {
+        m=cur.m;
+        permanent=new HashSet<String>();
+        Identifier[] act=new Identifier[1];
+        ArrayList<ASTNode> cts=newConstraints(m, nextKeys, m, act);
+        m.constraints=new Top(new And(cts));
+        m.simplify();
+        
+        instancePreFlattening2(false);
+        instanceFlattening(false);
+        postFlattening(false);
+        if(!m.toSAT()) {
+            CmdFlags.errorExit("Failed when writing SAT encoding.");
+        }
+        solver=createSolver();
+        return activationLiteral(act[0]);
+    }
+    
+    //  Add the new variables and constraints of cur to the current encoding.
+    //  Returns the activation literal, 0 if there is none, or -1 if cur cannot
+    //  be merged with the current encoding.
+    private long extend(ModelContainer cur, HashSet<String> nextKeys, long h) throws IOException {
+        SymbolTable st=m.global_symbols;
+        SymbolTable curst=cur.m.global_symbols;
+        
+        //  Check the variables of cur against the symbol table, and collect the new ones.
+        ArrayList<String> newvars=new ArrayList<String>();
+        categoryentry c=curst.getCategoryFirst();
+        while(c!=null) {
+            if(c.cat==ASTNode.Decision || c.cat==ASTNode.Auxiliary) {
+                if(c.cat==ASTNode.Auxiliary) {
+                    return -1;
+                }
+                if(st.hasVariable(c.name)) {
+                    if(st.getCategory(c.name)!=c.cat || !st.getDomain(c.name).equals(curst.getDomain(c.name))) {
+                        return -1;
+                    }
+                }
+                else {
+                    newvars.add(c.name);
+                }
+            }
+            c=c.next;
+        }
+        
+        //  A constraint encoded without a guard must still be present, otherwise
+        //  it would stay in force at this horizon.
+        if(!keys(cur.m).containsAll(permanent)) {
+            return -1;
+        }
+
+        ArrayList<ASTNode> curcts=conjuncts(cur.m);
+        for(ASTNode ct : curcts) {
+            if(!permanent.contains(ct.toString()) && !sameConstantMatrices(ct, cur.m.cmstore)) {
+                return -1;
+            }
+        }
+        
+        for(String name : newvars) {
+            st.newVariable(name, curst.getDomain(name).copy(), ASTNode.Decision);
+            if(curst.replaces_matrix.containsKey(name)) {
+                st.replaces_matrix.put(name, curst.replaces_matrix.get(name));
+            }
+        }
+        //  Matrix domains are used to build matrices in solutions. 
+        for(Map.Entry<String, ASTNode> e : curst.deleted_matrices.entrySet()) {
+            st.deleted_matrices.put(e.getKey(), e.getValue().copy());
+        }
+        
+        Identifier[] act=new Identifier[1];
+        ArrayList<ASTNode> cts=newConstraints(cur.m, nextKeys, m, act);
+        CmdFlags.println("Adding "+cts.size()+" constraints and "+newvars.size()+" variables for "+CmdFlags.horizon_param+" = "+h);
+        
+        //  Flatten and encode the new constraints in a model that shares the symbol
+        //  table and the SAT variable encoding. 
+        Model main=m;
+        Model dm=new Model();
+        dm.setup(new Top(new And(cts)), st, main.filt.copy(st), main.cmstore, null, null, null, null, null);
+        dm.subModelFlag=true;
+        dm.transform(new TransformFixSTRef(dm));
+        dm.satModel=new Sat(main.satModel);
+        dm.simplify();
+        
+        m=dm;
+        try {
+            instancePreFlattening2(false);
+            instanceFlattening(false);
+            postFlattening(false);
+            if(!m.toSAT()) {
+                CmdFlags.errorExit("Failed when writing SAT encoding.");
+            }
+        }
+        finally {
+            m=main;
+            st.m=main;
+            main.cmstore.m=main;
+        }
+        
+        //  Take back the variable and clause counts and rewrite the p cnf line.
+        main.satModel.variableNumber=dm.satModel.variableNumber;
+        main.satModel.numClauses+=dm.satModel.numClauses;
+        main.satModel.reopenFile();
+        main.satModel.finaliseOutput();
+        
+        return activationLiteral(act[0]==null ? null : new Identifier(main, act[0].toString()));
+    }
+    
+    private long activationLiteral(Identifier act) {
+        if(act==null) {
+            return 0;
+        }
+        long lit=act.directEncode(m.satModel, 1);
+        if(lit==m.satModel.getTrue() || lit==-m.satModel.getTrue()) {
+            return 0;   //  The guarded constraints were simplified away.
+        }
+        return lit;
+    }
+    
+    //  Constant matrices referred to by a new constraint must be the same as those
+    //  already in the model. 
+    private boolean sameConstantMatrices(ASTNode a, ConstantMatrixStore from) {
+        if(a instanceof Identifier) {
+            String name=a.toString();
+            if(from.hasConstantMatrix(name)) {
+                return m.cmstore.hasConstantMatrix(name) && m.cmstore.getConstantMatrix(name).equals(from.getConstantMatrix(name));
+            }
+            return true;
+        }
+        for(int i=0; i<a.numChildren(); i++) {
+            if(!sameConstantMatrices(a.getChild(i), from)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    //  Run the solver with the activation literal of this horizon assumed.
+    //  Afterwards the literal is negated, retracting the guarded constraints.
+    private boolean solve(long h, long actlit) throws IOException, InterruptedException {
+        CmdFlags.println("Solving with "+CmdFlags.horizon_param+" = "+h);
+        m.satModel.BTMark();
+        if(actlit!=0) {
+            m.satModel.addClauseAfterFinalise(actlit, false);
+        }
+        m.incumbentSolution=null;
+        solver.findSolutions(CmdFlags.getSatSolver(), CmdFlags.satfile, m);
+        boolean found=m.incumbentSolution!=null;
+        m.satModel.BTRestore();
+        if(actlit!=0 && !found) {
+            m.satModel.addClauseAfterFinalise(-actlit, false);
+        }
+        return found;
+    }
+    
+    //  Called from satPrepOutput. Any variable may appear in constraints added for
+    //  later horizons, so give every variable both the direct and order encoding. 
+    void markAllVariables(HashSet<String> varsInConstraints) {
+        categoryentry c=m.global_symbols.getCategoryFirst();
+        while(c!=null) {
+            if(c.cat==ASTNode.Decision || c.cat==ASTNode.Auxiliary) {
+                m.global_symbols.markAsDirectSAT(c.name);
+                m.global_symbols.markAsOrderSAT(c.name);
+                varsInConstraints.add(c.name);
+            }
+            c=c.next;
+        }
+    }
+}
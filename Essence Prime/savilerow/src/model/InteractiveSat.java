@@ -46,9 +46,12 @@ public class InteractiveSat extends Sat{
         else if(CmdFlags.getSatFamily().equals("cadical")){
             iSolver=new InteractiveCadicalSATSolver(m);
         }
+        else if(CmdFlags.getSatFamily().equals("builtin")) {
+            iSolver=new InteractiveBuiltinSATSolver(m);
+        }
         else{
-            CmdFlags.warning("Using default SAT solver: glucose");
-            iSolver = new InteractiveGlucoseSATSolver(m);
+            CmdFlags.warning("Using default interactive SAT solver: builtin");
+            iSolver = new InteractiveBuiltinSATSolver(m);
         }
         // set rnd seed if it supplied
         for(String flag : CmdFlags.getSolverExtraFlags()){
@@ -137,7 +137,7 @@ public class Model
         //  Constraints must go before objective, branching on because constraints may
         //  generate variable assignments, unification.
         if(!sat) {
-            constraints=new Top(new BooleanConstant(false));
+            constraints=new Top(BooleanConstant.make(false));
         }
         else {
             if(CmdFlags.getUseDeleteVars()) {
@@ -230,6 +230,7 @@ public class Model
         if(CmdFlags.getVerbose()) {
             System.out.println("Rule:"+t.getClass().getName());
         }
+        Profiler.Entry pe=Profiler.start("transform", t.getClass().getSimpleName(), this, true);
         boolean changedModel=false;
         
         assert constraints instanceof Top;
@@ -291,6 +292,7 @@ public class Model
             }
         }
         
+        Profiler.end(pe);
         assert constraints instanceof Top;
         return changedModel;
     }
@@ -396,6 +398,11 @@ public class Model
     
     // Output to minion
     public void toMinion(BufferedWriter b, boolean propagate, ArrayList<ASTNode> scope) throws IOException {
+        //  Compact output only for the final solver file, not for domain filtering or
+        //  table generation (SR parses variable names from Minion's output) and not
+        //  when later constraints are appended to the file by dominance search.
+        boolean compact=CmdFlags.minion_compact && !propagate && scope==null && !subModelFlag && !CmdFlags.dominanceRelation;
+        
         if (!subModelFlag) {
             b.append("MINION 3\n");
         }
@@ -403,9 +410,13 @@ public class Model
             b.append("# "+key+" = "+CmdFlags.stats.get(key)+"\n");
         }
         
+        //  Compact output has one variables and one constraints section, so constraints
+        //  on domains are held back until the constraints section. 
+        StringBuilder domcts = compact ? new StringBuilder() : null;
+        
         b.append("**VARIABLES**\n");    
-        global_symbols.toMinion(b);
-        cmstore.toMinion(b);
+        global_symbols.toMinion(b, domcts);
+        cmstore.toMinion(b, compact ? constantMatrixUses() : null);
         
         b.append("**SEARCH**\n");
         if(scope==null) {
@@ -463,6 +474,9 @@ public class Model
         }
         
         b.append("**CONSTRAINTS**\n");
+        if(compact) {
+            b.append(domcts);
+        }
         constraints.toMinion(b, true);
         
         // SNS
@@ -480,6 +494,47 @@ public class Model
         }
     }
     
+    //  Forms in which a constant matrix is referenced in the Minion output.
+    public static final int CM_TUPLELIST=1;
+    public static final int CM_SHORTTUPLELIST=2;
+    public static final int CM_ALIAS=4;
+    
+    //  Map each constant matrix referenced by the model to the forms it is used in:
+    //  as the tuples of table or negativetable, of shortstr2, or anywhere else.
+    private HashMap<String, Integer> constantMatrixUses() {
+        HashMap<String, Integer> uses=new HashMap<String, Integer>();
+        ArrayList<ASTNode> todo=new ArrayList<ASTNode>();
+        todo.add(constraints);
+        todo.add(branchingon);
+        if(objective!=null) todo.add(objective);
+        if(sns!=null) todo.add(sns);
+        
+        while(todo.size()>0) {
+            ASTNode a=todo.remove(todo.size()-1);
+            for(int i=0; i<a.numChildren(); i++) {
+                ASTNode ch=a.getChild(i);
+                if(ch instanceof Identifier) {
+                    String name=ch.toString();
+                    if(cmstore.hasConstantMatrix(name)) {
+                        int use=CM_ALIAS;
+                        if(i==1 && (a instanceof Table || a instanceof NegativeTable)) {
+                            use=CM_TUPLELIST;
+                        }
+                        else if(i==1 && a instanceof TableShort) {
+                            use=CM_SHORTTUPLELIST;
+                        }
+                        Integer prev=uses.get(name);
+                        uses.put(name, prev==null ? use : (prev | use));
+                    }
+                }
+                else {
+                    todo.add(ch);
+                }
+            }
+        }
+        return uses;
+    }
+    
     // Output the model in Essence' eventually
     public String toString() {
         StringBuilder s=new StringBuilder();
@@ -673,7 +728,13 @@ public class Model
         AMOPB.yCache.clear();
         
         try {
-            constraints.toSAT(satModel);
+            if(CmdFlags.sat_encode_threads>1 && !CmdFlags.interactiveSolver && constraints.getChild(0) instanceof And) {
+                //  Encode the top-level conjuncts concurrently. 
+                new SatParallelEncoder(satModel, constraints.getChild(0), CmdFlags.sat_encode_threads).encode();
+            }
+            else {
+                constraints.toSAT(satModel);
+            }
             
             if(CmdFlags.getMaxsattrans() && objective!=null) {
                 //  Encode the optimisation variable with soft clauses.
@@ -824,32 +885,4 @@ public class Model
             return false;
         }
     }
-    
-    //////////////////////////////////////////////////////////////////////////
-    //  MIP output
-    
-    public void toMIP(BufferedWriter b) throws IOException {
-        // LP format for CPLEX or Gurobi.
-        if(objective!=null) {
-            objective.toMIP(b);
-        }
-        else {
-            b.append("Maximize\n");
-            b.append("obj: 1\n");
-        }
-        
-        b.append("Subject To\n");
-        constraints.toMIP(b);
-        
-        b.append("Bounds\n");
-        MIP.toMIPBounds(b, this);
-        
-        b.append("Generals\n");  //  Might need to be General for CPLEX
-        MIP.toMIPGenerals(b, this);
-        
-        b.append("\nBinary\n");
-        MIP.toMIPBinary(b, this);
-        
-        b.append("\nEnd\n");
-    }
 }
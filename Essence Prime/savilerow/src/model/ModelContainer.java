@@ -25,6 +25,7 @@ import java.util.*;
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.zip.*;
 
 // This class controls the refinement process.
 
@@ -33,23 +34,42 @@ public class ModelContainer {
     public Model m;
     public ArrayList<ASTNode> parameters;
     
+    //  True when the parameter trees may be referenced by another container
+    //  (after copy). They are copied before processPreamble changes them.
+    private boolean sharedParameters;
+    
     public ModelContainer(Model _m, ArrayList<ASTNode> _parameters) {
         m = _m;
         parameters = _parameters;
     }
     
     public void process() {
+        Profiler.Entry pe=Profiler.start("phase", "processPreamble", m, true);
         processPreamble();
+        Profiler.end(pe);
         
+        pe=Profiler.start("phase", "instancePreFlattening1", m, true);
         instancePreFlattening1();
+        Profiler.end(pe);
         
         if (CmdFlags.getUsePropagate()) {
+            pe=Profiler.start("phase", "squashDomains", m, true);
             squashDomains();
+            Profiler.end(pe, m);
         }
         
+        pe=Profiler.start("phase", "instancePreFlattening2", m, true);
         instancePreFlattening2(false);
+        Profiler.end(pe);
+        
+        pe=Profiler.start("phase", "instanceFlattening", m, true);
         instanceFlattening(false);
+        Profiler.end(pe);
+        
+        //  Includes output and running the solver.
+        pe=Profiler.start("phase", "postFlattening", m, true);
         postFlattening(false);
+        Profiler.end(pe);
     }
     
     // Same as process except does not run solver at the end.
@@ -76,6 +96,8 @@ public class ModelContainer {
         
         // Process lettings, givens, wheres, and finds in order of declaration.
         ArrayDeque<ASTNode> preamble = m.global_symbols.lettings_givens;
+        
+        unshareParameters();
 
         // The next loop will pull things out of the parameter file, so first
         // deal with the parameters -- make undef safe, simplify.
@@ -199,18 +221,32 @@ public class ModelContainer {
             m.simplify();
         }
         
+        //  Evaluate parameter-derived domain restrictions while parameters are intact.
+        for(DomainRestriction r : CmdFlags.param_domains) {
+            r.prepare(m);
+        }
+        
         // Capture comprehensions/quantifiers to be replaced with decision variables.
         TransformExistsVar tev=new TransformExistsVar(m);
         m.transform(tev);
         
         TransformQuantifiedExpression t2 = new TransformQuantifiedExpression(m);
+        TimeBudget.start(TimeBudget.UNROLL);
         m.transform(t2);
+        TimeBudget.stop(TimeBudget.UNROLL);
         
         ////////////////////////////////////////////////////////////////////////
         //
         // Atomise matrices of variables.
         destroyMatrices();
         
+        if(CmdFlags.param_domains.size()>0) {
+            for(DomainRestriction r : CmdFlags.param_domains) {
+                r.apply(m);
+            }
+            m.simplify();
+        }
+        
         //  Structured Neighbourhood Search
         if(m.sns!=null) {
             // Generate the bool and constraints to disable the incumbent variables
@@ -276,8 +312,13 @@ public class ModelContainer {
             m.constraints.setChild(0, new And(m.constraints.getChild(0), newcons));
             m.simplify();
             
-            // Throw away the SNS object.
-            m.sns=null;
+            // Throw away the SNS object, keeping the neighbourhoods if they will be used for LNS with a SAT solver.
+            if(CmdFlags.sat_lns && !propagate && m.objective!=null) {
+                m.sns=SNSLNS.make((SNS)m.sns);
+            }
+            else {
+                m.sns=null;
+            }
         }
         
         // Delete redundant variables.
@@ -345,7 +386,9 @@ public class ModelContainer {
         
         m.transform(tn);  //  Normalise to remove any duplicate constraints that would trigger identical scopes heuristic.
         Tabulation t= new Tabulation(m);
+        TimeBudget.start(TimeBudget.TABULATION);
         t.process(propagate);
+        TimeBudget.stop(TimeBudget.TABULATION);
         
         TransformLexAlldiff tla=new TransformLexAlldiff(m);
         m.transform(tla);
@@ -515,6 +558,7 @@ public class ModelContainer {
 
     // can be executed after instancePreFlattening1
     public void squashDomains() {
+        TimeBudget.start(TimeBudget.FILTER);
         Model ipf1 = m.copy();        // Take a copy of the model
         Model verboseCopy=null;
         if(CmdFlags.getVerbose()) {
@@ -597,6 +641,7 @@ public class ModelContainer {
         }
         
         m.simplify();        // Simplifies everything with the symbol table going before the constraints.
+        TimeBudget.stop(TimeBudget.FILTER);
         
         if(CmdFlags.getVerbose() && !m.equals(verboseCopy)) {
             System.out.println("Domain filtering changed model:\n"+m.toString());
@@ -617,6 +662,8 @@ public class ModelContainer {
             System.out.println("Rules: Normalisation and CSE");
         }
         
+        TimeBudget.start(TimeBudget.CSE);
+        
         //  Add implied sum constraints based on AllDiffs and GCCs. Only when using AC-CSE.
         TransformAlldiffGCCSum tags = new TransformAlldiffGCCSum(m);
         if(CmdFlags.getUseACCSE() || CmdFlags.getUseACCSEAlt()) {
@@ -803,6 +850,8 @@ public class ModelContainer {
             }
         }
         
+        TimeBudget.stop(TimeBudget.CSE);
+        
         if (CmdFlags.getVerbose()) {
             System.out.println("Model may have changed by CSE. Model after rule application:\n" + m.toString());
         }
@@ -972,22 +1021,34 @@ public class ModelContainer {
             }
         }
 
+        if(propagate && !CmdFlags.reduce_domains_minion) {
+            //  Filter domains with the built-in propagation engine; no Minion file is needed.
+            return new PropagationEngine(m).reduceDomains();
+        }
+        
         assert CmdFlags.minionfile != null;
 
         String minfilename = CmdFlags.minionfile;
         
+        //  Compress the final output file, but not the file used for domain filtering.
+        //  Dominance mode appends to the Minion file so it is not compressed. 
+        boolean compress=OutputCompression.enabled() && !propagate && !CmdFlags.dominanceRelation;
+        
         if(!(this instanceof DominanceModelContainer)){
+            String outfilename = compress ? OutputCompression.compressedName(minfilename) : minfilename;
             try {
-                FileOutputStream fw=new FileOutputStream(minfilename);
-                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(fw));
+                FileOutputStream fw=new FileOutputStream(outfilename);
+                GZIPOutputStream gz = compress ? OutputCompression.openMember(fw) : null;
+                BufferedWriter out = new AsciiWriter(compress ? gz : fw);
                 m.toMinion(out, propagate);
                 out.flush();
+                if(compress) gz.finish();
                 fw.getFD().sync();
                 out.close();
             } catch (IOException e) {
                 CmdFlags.errorExit("Could not open file for Minion output.");
             }
-            CmdFlags.println("Created output file "+ (propagate?"for domain filtering ":"") + minfilename);
+            CmdFlags.println("Created output file "+ (propagate?"for domain filtering ":"") + outfilename);
         }
 
         
@@ -1009,6 +1070,13 @@ public class ModelContainer {
                         DominanceModelContainer dmc = new DominanceModelContainer(m, parameters, min);
                         dmc.process();
                     }
+                    else if(compress) {
+                        //  Minion reads the uncompressed file, which is deleted afterwards.
+                        OutputCompression.decompress(OutputCompression.compressedName(minfilename), minfilename);
+                        min.findSolutions(CmdFlags.getMinion(), minfilename, m);
+                        File f = new File(minfilename);
+                        if (f.exists()) f.delete();
+                    }
                     else{
                         min.findSolutions(CmdFlags.getMinion(), minfilename, m);
                     }
@@ -1042,10 +1110,16 @@ public class ModelContainer {
         if(m.objective!=null) {
             tcsd.transform(m.objective);
         }
+        if(this instanceof HorizonModelContainer) {
+            //  Constraints for later horizons may need either encoding of any variable.
+            ((HorizonModelContainer)this).markAllVariables(tcsd.getVarsInConstraints());
+        }
         
         CmdFlags.printlnIfVerbose("About to do m.setupSAT");
         
+        TimeBudget.start(TimeBudget.ENCODE);
         boolean satenc=m.setupSAT(tcsd.getVarsInConstraints());   //  Create the satModel object and encode the variables.
+        TimeBudget.stop(TimeBudget.ENCODE);
         
         if (!satenc) {
             createInfoFiles("SAT");
@@ -1058,7 +1132,7 @@ public class ModelContainer {
         m.constraints=tse.transform(m.constraints);  // Avoid the branching on list and other things.
         //m.transform(tse);
         
-        if(!(this instanceof DominanceModelContainer)){
+        if(!(this instanceof DominanceModelContainer) && !(this instanceof HorizonModelContainer)){
             if(CmdFlags.dominanceRelation) {
                 if(!CmdFlags.getRunSolver()){
                     CmdFlags.errorExit("Solution Dominance mode only works on run-solver mode");
@@ -1280,7 +1354,7 @@ public class ModelContainer {
         while (has_changed) {
             has_changed = false;
 
-            HashMap<String, ASTNode> doms = m.global_symbols.getDomains();
+            SymbolMap<ASTNode> doms = m.global_symbols.getDomains();
             Iterator<Map.Entry<String, ASTNode>> itr = doms.entrySet().iterator();
             while (itr.hasNext()) {
                 Map.Entry<String, ASTNode> a = itr.next();
@@ -1302,7 +1376,7 @@ public class ModelContainer {
         while (has_changed) {
             has_changed = false;
 
-            HashMap<String, ASTNode> doms = m.global_symbols.getDomains();
+            SymbolMap<ASTNode> doms = m.global_symbols.getDomains();
             Iterator<Map.Entry<String, ASTNode>> itr = doms.entrySet().iterator();
             while (itr.hasNext()) {
                 Map.Entry<String, ASTNode> a = itr.next();
@@ -1356,24 +1430,37 @@ public class ModelContainer {
         TransformCollectBool tcb = new TransformCollectBool(m);
         m.constraints=tcb.transform(m.constraints);   //  Avoid branching-on list. 
         
+        boolean compress=OutputCompression.enabled() && !CmdFlags.dominanceRelation;
+        String outfilename = compress ? OutputCompression.compressedName(CmdFlags.fznfile) : CmdFlags.fznfile;
+        
         try {
-            FileOutputStream fw=new FileOutputStream(CmdFlags.fznfile);
-            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(fw));
+            FileOutputStream fw=new FileOutputStream(outfilename);
+            GZIPOutputStream gz = compress ? OutputCompression.openMember(fw) : null;
+            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(compress ? gz : fw));
             m.toFlatzinc(out);
             out.flush();
+            if(compress) gz.finish();
             fw.getFD().sync();
             out.close();
         } catch (IOException e) {
             CmdFlags.errorExit("Could not open file for flatzinc output.");
         }
         
-        CmdFlags.println("Created output file " + CmdFlags.fznfile);
+        CmdFlags.println("Created output file " + outfilename);
         
         if (CmdFlags.getRunSolver()) {
             FznSolver fz = new FznSolver();
             
             try {
+                if(compress) {
+                    //  FlatZinc solvers read the uncompressed file, which is deleted afterwards.
+                    OutputCompression.decompress(outfilename, CmdFlags.fznfile);
+                }
                 fz.findSolutions(CmdFlags.getFznSolver(), CmdFlags.fznfile, m);
+                if(compress) {
+                    File f = new File(CmdFlags.fznfile);
+                    if (f.exists()) f.delete();
+                }
             } catch (java.io.IOException e) {
                 CmdFlags.errorExit("Could not run flatzinc solver: " + e);
             } catch (java.lang.InterruptedException e2) {
@@ -1430,8 +1517,8 @@ public class ModelContainer {
         
         try {
             FileOutputStream fw=new FileOutputStream(CmdFlags.mipfile);
-            BufferedWriter out = new BufferedWriter(new OutputStreamWriter(fw));
-            m.toMIP(out);
+            BufferedWriter out = new AsciiWriter(fw);
+            mip.toMIP(out);
             out.flush();
             fw.getFD().sync();
             out.close();
@@ -1562,7 +1649,9 @@ public class ModelContainer {
 
     // If the -sat cmdline option given
     private void satOutput() {
+        TimeBudget.start(TimeBudget.ENCODE);
         boolean satenc=m.toSAT();
+        TimeBudget.stop(TimeBudget.ENCODE);
         
         if(!satenc) {
             createInfoFiles("SAT");
@@ -1645,7 +1734,7 @@ public class ModelContainer {
         // Min and max. 
     }
     
-    private SATSolver createSolver(){
+    protected SATSolver createSolver(){
         SATSolver solver;
         if(CmdFlags.interactiveSolver){
             if(!CmdFlags.getRunSolver()) {
@@ -1810,7 +1899,7 @@ public class ModelContainer {
         if (a.getCategory() > ASTNode.Quantifier) {
             CmdFlags.errorExit("In statement: where " + a, "Contains an identifier that is not a constant or parameter.");
         }
-        if (! a.equals(new BooleanConstant(true))) {
+        if (! a.equals(BooleanConstant.make(true))) {
             CmdFlags.errorExit("In statement: where " + a, "Does not evaluate to true.");
         }
     }
@@ -1835,14 +1924,23 @@ public class ModelContainer {
         return a;
     }
     
+    //  The parameters are shared with the copy until one of the two containers
+    //  processes them. 
     public ModelContainer copy() {
-        Model mcopy=m.copy();
-        ArrayList<ASTNode> paramcopy=new ArrayList<ASTNode>();
-        TransformFixSTRef tf=new TransformFixSTRef(mcopy);
-        for(int i=0; i<parameters.size(); i++) {
-            paramcopy.add(tf.transform(parameters.get(i)));
+        ModelContainer mc=new ModelContainer(m.copy(), new ArrayList<ASTNode>(parameters));
+        mc.sharedParameters=true;
+        sharedParameters=true;
+        return mc;
+    }
+    
+    private void unshareParameters() {
+        if(sharedParameters) {
+            TransformFixSTRef tf=new TransformFixSTRef(m);
+            for(int i=0; i<parameters.size(); i++) {
+                parameters.set(i, tf.transform(parameters.get(i).copy()));
+            }
+            sharedParameters=false;
         }
-        return new ModelContainer(mcopy, paramcopy);
     }
     
     public void writeModelAsJSON(Model m) {
@@ -489,6 +489,20 @@ public class SMT extends Sat
     
     private long checkSatLocation=0L;
     
+    //  Smallest size the file has been truncated to since the last call of 
+    //  takeUnchangedPrefix. Lets a persistent solver process keep in step with the file. 
+    private long unchangedPrefix=Long.MAX_VALUE;
+    
+    public long getCheckSatLocation() {
+        return checkSatLocation;
+    }
+    
+    public long takeUnchangedPrefix() {
+        long p=unchangedPrefix;
+        unchangedPrefix=Long.MAX_VALUE;
+        return p;
+    }
+    
     public void finaliseOutput() throws IOException
     {
         outstream.flush();
@@ -594,6 +608,7 @@ public class SMT extends Sat
         RandomAccessFile file = new RandomAccessFile(CmdFlags.smtfile, "rws");
         file.setLength(filesizeBackup);
         file.close();
+        unchangedPrefix=Math.min(unchangedPrefix, filesizeBackup);
         
         numClauses=numClausesBackup;
         
@@ -609,6 +624,11 @@ public class SMT extends Sat
         file.close();
     }
     
+    public void BTRestore() throws IOException {
+        super.BTRestore();
+        unchangedPrefix=Math.min(unchangedPrefix, new File(CmdFlags.smtfile).length());
+    }
+    
     public void addClauseAfterFinalise(ArrayList<Long> clause) throws IOException
     {
         assert !CmdFlags.interactiveSolver;
@@ -23,6 +23,7 @@ package savilerow;
 
 import java.util.*;
 import java.io.*;
+import java.util.zip.*;
 
 import gnu.trove.map.hash.*;
 
@@ -40,46 +41,54 @@ public class Sat
     public TLongObjectHashMap<NumberMap> orderMappingMid;
     public TLongObjectHashMap<NumberMap> orderMappingMax;
     
-    //Maps Variable objects to their respective values in CNF form
-    private TObjectLongHashMap<NumberMap> directVarMapping;
-    
-    private TObjectLongHashMap<NumberMap> orderVarMapping;
+    //  Maps SR variables (by integer id) to their direct and order literals. 
+    protected SatVariableMap varMap;
     
     protected SymbolTable global_symbols;
     
     protected FileOutputStream fw;
     protected BufferedWriter outstream;
     
+    //  With -out-compress, the file starts with a fixed-size gzip member holding
+    //  the p cnf line, which finaliseOutput overwrites in place. Clauses follow
+    //  it in further gzip members, one for each time the file is opened. 
+    protected boolean compress=false;
+    protected GZIPOutputStream gzstream;
+    private static final int headerWidth=100;
+    
     protected long trueVar=Long.MAX_VALUE;   //  A SAT variable that is true in all solutions.
     // trueVar or -trueVar is returned when a SAT variable is requested that 
     // does not exist. 
     
     protected long top=1000000000;   //  A value used as a weight in Partial MaxSAT. 
     
+    //  Holds all clauses in memory until finaliseOutput when -sat-preprocess is used.
+    protected SatPreprocessor clauseStore=null;
+    protected SatPreprocessor preprocessed=null;
+    
     public Sat(SymbolTable _global_symbols)
     {
         dimacsMapping=new TLongObjectHashMap<NumberMap>();
         
-        directVarMapping=new TObjectLongHashMap<NumberMap>();
-        orderVarMapping=new TObjectLongHashMap<NumberMap>();
+        varMap=new SatVariableMap();
         
         orderMappingMin=new TLongObjectHashMap<NumberMap>();
         orderMappingMid=new TLongObjectHashMap<NumberMap>();
         orderMappingMax=new TLongObjectHashMap<NumberMap>();
         global_symbols=_global_symbols;
         
-        assert directVarMapping.getNoEntryValue()==0L;
-        assert orderVarMapping.getNoEntryValue()==0L;
         if (!CmdFlags.interactiveSolver){
             try {
-                String fname= (CmdFlags.getSMTtrans()) ? CmdFlags.smtfile : CmdFlags.satfile;
-                fw=new FileOutputStream(fname);
-                outstream = new BufferedWriter(new OutputStreamWriter(fw));
+                compress=OutputCompression.enabled() && !CmdFlags.getSMTtrans();
+                openClauseFile(false);
                 createHeader();
             }
             catch ( IOException e ) {
                 CmdFlags.errorExit("Failed to open or write to SAT output file.");
             }
+            if(CmdFlags.sat_preprocess && !CmdFlags.getMaxsattrans() && !CmdFlags.getSMTtrans() && !CmdFlags.dominanceRelation) {
+                clauseStore=new SatPreprocessor();
+            }
         }
     }
 
@@ -88,20 +97,26 @@ public class Sat
      * need global symbols to be set later.
      */
     public Sat(Sat satmodel2){
+        this(satmodel2, true);
+    }
+    
+    /**
+     * Share the variable encoding of satmodel2. If openOutput is false, no
+     * output file is opened; used by subclasses that keep clauses in memory.
+     */
+    protected Sat(Sat satmodel2, boolean openOutput){
         dimacsMapping = satmodel2.dimacsMapping;
-        directVarMapping=satmodel2.directVarMapping;
-        orderVarMapping=satmodel2.orderVarMapping;
+        varMap=satmodel2.varMap;
         orderMappingMin=satmodel2.orderMappingMin;
         orderMappingMid=satmodel2.orderMappingMid;
         orderMappingMax=satmodel2.orderMappingMax;
         global_symbols=satmodel2.global_symbols;
         variableNumber=satmodel2.variableNumber;
+        compress=satmodel2.compress;
 
-        if (!CmdFlags.interactiveSolver){
+        if (openOutput && !CmdFlags.interactiveSolver){
             try {
-                String fname= (CmdFlags.getSMTtrans()) ? CmdFlags.smtfile : CmdFlags.satfile;
-                fw=new FileOutputStream(fname, true);
-                outstream = new BufferedWriter(new OutputStreamWriter(fw));
+                openClauseFile(true);
             }
             catch ( IOException e ) {
                 CmdFlags.errorExit("Failed to open or write to SAT output file.");
@@ -111,6 +126,9 @@ public class Sat
 
     
     protected void createHeader() throws IOException {
+        if(compress) {
+            return;  // Header member is written by openClauseFile.
+        }
         // Write 100 spaces at start of file, to leave space for "p cnf" line.
         for(int i=0; i<10; i++) {
             outstream.write("          ");
@@ -130,8 +148,7 @@ public class Sat
         numClausesBak=numClauses;
 
         //  Store file size so it can be truncated.
-        String fname= (CmdFlags.getSMTtrans()) ? CmdFlags.smtfile : CmdFlags.satfile;
-        RandomAccessFile f = new RandomAccessFile(fname, "rws");
+        RandomAccessFile f = new RandomAccessFile(clauseFileName(), "rws");
         filesizeBak = f.length();
         f.close();
     }
@@ -142,8 +159,7 @@ public class Sat
         
         // Truncate the file.
         {
-            String fname= (CmdFlags.getSMTtrans()) ? CmdFlags.smtfile : CmdFlags.satfile;
-            RandomAccessFile f = new RandomAccessFile(fname, "rws");
+            RandomAccessFile f = new RandomAccessFile(clauseFileName(), "rws");
             f.setLength(filesizeBak);
             f.close();
         }
@@ -157,9 +173,29 @@ public class Sat
     //  Reopen for append after finaliseOutput
     public void reopenFile() throws IOException {
         assert !CmdFlags.interactiveSolver;
-        String fname= (CmdFlags.getSMTtrans()) ? CmdFlags.smtfile : CmdFlags.satfile;
-        fw=new FileOutputStream(fname, true);   ///  true for append.
-        outstream = new BufferedWriter(new OutputStreamWriter(fw));
+        openClauseFile(true);
+    }
+    
+    //  The file that clauses are written to. 
+    protected String clauseFileName() {
+        if(CmdFlags.getSMTtrans()) {
+            return CmdFlags.smtfile;
+        }
+        return CmdFlags.satfile;
+    }
+    
+    protected void openClauseFile(boolean append) throws IOException {
+        fw=new FileOutputStream(clauseFileName(), append);
+        if(compress) {
+            if(!append) {
+                fw.write(OutputCompression.paddedMember("", headerWidth));
+            }
+            gzstream=OutputCompression.openMember(fw);
+            outstream = new BufferedWriter(new OutputStreamWriter(gzstream));
+        }
+        else {
+            outstream = new BufferedWriter(new OutputStreamWriter(fw));
+        }
     }
     
     //Returns the next available SAT variable number.
@@ -172,33 +208,37 @@ public class Sat
     }
     
     // Create variable for the fact  variableName = value
-    private long createSatVariableDirect(String variableName, long value, boolean satOutputMapping) throws IOException {
-        NumberMap map=new NumberMap(value, variableName);
+    private long createSatVariableDirect(int id, String variableName, long value, boolean satOutputMapping) throws IOException {
         long satvar=getNextVariableNumber();
         if(satOutputMapping) {
             addComment("Var '" + variableName + "' direct represents '" + value + "' with '" + satvar + "'");
         }
-        directVarMapping.put(map, satvar);
+        varMap.setDirect(id, value, satvar);
         
-        dimacsMapping.put(satvar, map);
+        dimacsMapping.put(satvar, new NumberMap(value, variableName));
         
         return satvar;
     }
     
     // Create variable for the fact  variableName <= value
-    private long createSatVariableOrder(String variableName, long value, boolean satOutputMapping) throws IOException {
-        NumberMap map=new NumberMap(value, variableName);
+    private long createSatVariableOrder(int id, String variableName, long value, boolean satOutputMapping) throws IOException {
         long satvar=getNextVariableNumber();
         if(satOutputMapping) {
             addComment("Var '" + variableName + "' order represents '" + value + "' with '" + satvar + "'");
         }
-        orderVarMapping.put(map, satvar);
+        varMap.setOrder(id, value, satvar);
         return satvar;
     }
     
+    //  Integer id of an SR variable that has been encoded, or -1. 
+    //  The id is stable for the lifetime of this Sat object (and submodels sharing its map).
+    public int getVariableId(String variableName) {
+        return varMap.getId(variableName);
+    }
+    
     public long getOrderVariable(String variableName, long value) {
-        long l=orderVarMapping.get(new NumberMap(value, variableName));
-        if(l==orderVarMapping.getNoEntryValue()) {
+        int id=varMap.getId(variableName);
+        if(id==-1) {
             Intpair bnds=global_symbols.getDomain(variableName).getBounds();
             
             if(value<bnds.lower) {
@@ -208,35 +248,38 @@ public class Sat
                 return trueVar;   // true.
             }
             
-            ArrayList<Intpair> intervals=global_symbols.getDomain(variableName).getIntervalSet();
-            for(int i=0; i<intervals.size()-1; i++) {
-                Intpair interval1=intervals.get(i);
-                Intpair interval2=intervals.get(i+1);
-                // Test if the value is between the two intervals. 
-                
-                if(value>interval1.upper && value<interval2.lower) {
-                    long l2=orderVarMapping.get(new NumberMap(interval1.upper, variableName));
-                    assert l2!=orderVarMapping.getNoEntryValue();
-                    return l2;
-                }
-            }
-            
             assert false;
             return 1;
         }
-        else {
-            return l;
+        return getOrderVariable(id, value);
+    }
+    
+    public long getOrderVariable(int id, long value) {
+        if(value<varMap.getLower(id)) {
+            return -trueVar;  // false.
+        }
+        if(value>=varMap.getUpper(id)) {
+            return trueVar;   // true.
         }
+        long l=varMap.getOrder(id, value);
+        assert l!=0;
+        return (l==0) ? 1 : l;
     }
     
     public long getDirectVariable(String variableName, long value) {
-        long l=directVarMapping.get(new NumberMap(value, variableName));
-        if(l==directVarMapping.getNoEntryValue()) {
+        int id=varMap.getId(variableName);
+        if(id==-1) {
             return -trueVar;  // false.
         }
-        else {
-            return l;
+        return getDirectVariable(id, value);
+    }
+    
+    public long getDirectVariable(int id, long value) {
+        long l=varMap.getDirect(id, value);
+        if(l==0) {
+            return -trueVar;  // false.
         }
+        return l;
     }
     
     public long getTrue() {
@@ -245,10 +288,8 @@ public class Sat
     
     // Create a new SAT variable used as an auxiliary when encoding a 
     // constraint. 
-    // This is represented in the directVarMapping table using the number of the
-    // variable as its name, so literals are available for var=1 and var=0
-    
-    // Should not have any identifiers with the number of the sat variable as their name. Removing from direct mapping table. 
+    // Aux SAT variables are not entered in varMap; they are used directly as literals 
+    // (e.g. through SATLiteral). 
     public long createAuxSATVariable() {
         return getNextVariableNumber();
     }
@@ -310,6 +351,8 @@ public class Sat
         
         long val1=bnds.lower;
         
+        int id=varMap.addVariable(name, domain.getIntervalSet());
+        
         long satvar=getNextVariableNumber();
         if(satOutputMapping) {
             addComment("Var '" + name + "' direct represents '" + val1 + "' with '" + satvar + "'");
@@ -318,13 +361,11 @@ public class Sat
             addComment("Var represented with SAT variable "+satvar);
         }
 
-        NumberMap val1map=new NumberMap(val1, name);
-        
-        directVarMapping.put(val1map, satvar);
+        varMap.setDirect(id, val1, satvar);
         // Make sure the variable is always true
         addClause(satvar);
         
-        dimacsMapping.put(satvar, val1map);
+        dimacsMapping.put(satvar, new NumberMap(val1, name));
     }
     
     // noConstraints is true if this SR variable is mentioned in no constraints. 
@@ -338,6 +379,8 @@ public class Sat
         long val1=bnds.lower;
         long val2=bnds.upper;
         
+        int id=varMap.addVariable(name, domain.getIntervalSet());
+        
         // Make the SAT variable without using createSatVariableDirect
         long satvar=getNextVariableNumber();
         if(satOutputMapping) {
@@ -353,13 +396,12 @@ public class Sat
         NumberMap val1map=new NumberMap(val1, name);
         NumberMap val2map=new NumberMap(val2, name);
         
-        directVarMapping.put(val2map, satvar);
-        directVarMapping.put(val1map, -satvar);
+        varMap.setDirect(id, val2, satvar);
+        varMap.setDirect(id, val1, -satvar);
         
-        //  A two-valued variable is always <= val2
-        orderVarMapping.put(val2map, trueVar);
+        //  A two-valued variable is always <= val2, which getOrderVariable handles. 
         // The variable is <=val1 if it is not =val2. 
-        orderVarMapping.put(val1map, -satvar);
+        varMap.setOrder(id, val1, -satvar);
         
         // For translation back from SAT solution.
         dimacsMapping.put(satvar, val2map);
@@ -406,6 +448,7 @@ public class Sat
     {
         ASTNode domain=global_symbols.getDomain(name);
         ArrayList<Intpair> intervalset=domain.getIntervalSet();
+        int id=varMap.addVariable(name, intervalset);
         
         // Need to keep track of the previous order variable. Initially false. (x <= lowerbound-1 is false) 
         long prevordervar=-trueVar;
@@ -422,7 +465,7 @@ public class Sat
                 long ordervar=trueVar;
                 
                 if(!lastValue) {
-                    ordervar=createSatVariableOrder(name, i, satOutputMapping);
+                    ordervar=createSatVariableOrder(id, name, i, satOutputMapping);
                     
                     // Ladder clause   e.g. [x<=5] -> [x<=6]
                     if( prevordervar != -trueVar ) {
@@ -437,9 +480,8 @@ public class Sat
                     }
             
                     // Because no SAT variable is created, need to add some mappings. 
-                    NumberMap directmap=new NumberMap(i, name);
-                    directVarMapping.put(directmap, directvar);
-                    dimacsMapping.put(directvar, directmap);
+                    varMap.setDirect(id, i, directvar);
+                    dimacsMapping.put(directvar, new NumberMap(i, name));
                 }
                 else if(firstValue) {
                     directvar=ordervar;
@@ -448,12 +490,11 @@ public class Sat
                     }
             
                     // Because no SAT variable is created, need to add some mappings. 
-                    NumberMap directmap=new NumberMap(i, name);
-                    directVarMapping.put(directmap, directvar);
-                    dimacsMapping.put(directvar, directmap);
+                    varMap.setDirect(id, i, directvar);
+                    dimacsMapping.put(directvar, new NumberMap(i, name));
                 }
                 else {
-                    directvar=createSatVariableDirect(name, i, satOutputMapping);
+                    directvar=createSatVariableDirect(id, name, i, satOutputMapping);
                 }
                 
                 if(!firstValue && !lastValue) {
@@ -478,7 +519,7 @@ public class Sat
             Intpair bnds=intervalset.get(intervalidx);
             for(long i=bnds.lower; i<=bnds.upper; i++)
             {
-                alo.add(getDirectVariable(name, i));
+                alo.add(getDirectVariable(id, i));
             }
         }
         addClause(alo);
@@ -489,6 +530,7 @@ public class Sat
     {
         ASTNode domain=global_symbols.getDomain(name);
         ArrayList<Intpair> intervalset=domain.getIntervalSet();
+        int id=varMap.addVariable(name, intervalset);
 
         ArrayList<ASTNode> amo=new ArrayList<ASTNode>();
 
@@ -497,7 +539,7 @@ public class Sat
 
             for (long i=bnds.lower; i<=bnds.upper; i++)
             {
-                long dvar=createSatVariableDirect(name, i, satOutputMapping);
+                long dvar=createSatVariableDirect(id, name, i, satOutputMapping);
                 amo.add(new SATLiteral(dvar, global_symbols.m));
             }
         }
@@ -527,6 +569,7 @@ public class Sat
     {
         ASTNode domain=global_symbols.getDomain(name);
         ArrayList<Intpair> intervalset=domain.getIntervalSet();
+        int id=varMap.addVariable(name, intervalset);
         
         // Need to keep track of the previous order variable. Initially false. (x <= lowerbound-1 is false) 
         long prevordervar=-trueVar;
@@ -541,7 +584,7 @@ public class Sat
                 NumberMap n=new NumberMap(i, name);
                 
                 if(!lastValue) {
-                    long ordervar=createSatVariableOrder(name, i, satOutputMapping);
+                    long ordervar=createSatVariableOrder(id, name, i, satOutputMapping);
                     
                     // Ladder clause   e.g. [x<=5] -> [x<=6]
                     if( prevordervar != -trueVar ) {
@@ -581,11 +624,19 @@ public class Sat
     }
     
     protected void clauseEnd() throws IOException {
+        if(clauseStore!=null) {
+            clauseStore.endClause();
+            return;
+        }
         outstream.write("0");
         outstream.newLine();
     }
 
     protected void writeLiteral(long lit) throws IOException {
+        if(clauseStore!=null) {
+            clauseStore.addLiteral(lit);
+            return;
+        }
         outstream.write(String.valueOf(lit));
         outstream.write(" ");
     }
@@ -750,18 +801,37 @@ public class Sat
     public void finaliseOutput() throws IOException
     {
         assert !CmdFlags.interactiveSolver;
+        if(clauseStore!=null) {
+            //  First call: simplify the stored clauses and write them out.
+            //  Any clauses added after this are written directly.
+            SatPreprocessor p=clauseStore;
+            clauseStore=null;
+            p.process(variableNumber-1);
+            p.writeTo(this);
+            numClauses=p.getNumClauses();
+            preprocessed=p;
+        }
         outstream.flush();
+        if(compress) {
+            gzstream.finish();
+        }
         fw.getFD().sync();
         outstream.close();
-        RandomAccessFile f=new RandomAccessFile(CmdFlags.satfile, "rws");  //  rws to make sure everything is sync'd.
-        f.seek(0);
-        byte[] pcnf;
+        String header;
         if(CmdFlags.getMaxsattrans()) {
-            pcnf=("p wcnf "+(variableNumber-1)+" "+numClauses+" "+top).getBytes();
+            header="p wcnf "+(variableNumber-1)+" "+numClauses+" "+top;
         }
         else {
-            pcnf=("p cnf "+(variableNumber-1)+" "+numClauses).getBytes();
+            header="p cnf "+(variableNumber-1)+" "+numClauses;
+        }
+        RandomAccessFile f=new RandomAccessFile(CmdFlags.satfile, "rws");  //  rws to make sure everything is sync'd.
+        f.seek(0);
+        if(compress) {
+            f.write(OutputCompression.paddedMember(header, headerWidth));
+            f.close();
+            return;
         }
+        byte[] pcnf=header.getBytes();
         f.write(pcnf);
         f.write(("          ").getBytes());  //  Write some spaces in case there was a p cnf line already that was longer.
         f.close();
@@ -781,48 +851,54 @@ public class Sat
     public void addClauseAfterFinalise(ArrayList<Long> clause) throws IOException
     {
         assert !CmdFlags.interactiveSolver;
-        fw=new FileOutputStream(CmdFlags.satfile, true);   ///  true for append.
         numClausesBackup=numClauses;
-        filesizeBackup=fw.getChannel().position();
-        outstream = new BufferedWriter(new OutputStreamWriter(fw));
+        filesizeBackup=new File(clauseFileName()).length();
+        openClauseFile(true);
         addClause(clause);
         finaliseOutput();
     }
     
     public void addClauseAfterFinalise(long lit1, boolean removable) throws IOException {
         assert !CmdFlags.interactiveSolver;
-        fw=new FileOutputStream(CmdFlags.satfile, true);   ///  true for append.
         numClausesBackup=numClauses;
-        filesizeBackup=fw.getChannel().position();
-        outstream = new BufferedWriter(new OutputStreamWriter(fw));
+        filesizeBackup=new File(clauseFileName()).length();
+        openClauseFile(true);
         addClause(lit1);
         finaliseOutput();
     }
     
     public void addClauseAfterFinalise2(long c1, long c2, boolean removable) throws IOException {
         assert !CmdFlags.interactiveSolver;
-        fw=new FileOutputStream(CmdFlags.satfile, true);   ///  true for append.
         numClausesBackup=numClauses;
-        filesizeBackup=fw.getChannel().position();
-        outstream = new BufferedWriter(new OutputStreamWriter(fw));
+        filesizeBackup=new File(clauseFileName()).length();
+        openClauseFile(true);
         addClause(c1);
         addClause(c2);
         finaliseOutput();
     }
     
+    //  Add a set of unit clauses. Cannot be removed by removeFinalClause; use BTMark and BTRestore.
+    public void addUnitClausesAfterFinalise(ArrayList<Long> units) throws IOException {
+        assert !CmdFlags.interactiveSolver;
+        openClauseFile(true);
+        for(int i=0; i<units.size(); i++) {
+            addClause(units.get(i));
+        }
+        finaliseOutput();
+    }
+
     //  Remove last clause or two clauses added by one of the methods above. 
     
     public void removeFinalClause() throws IOException {
         {
             assert !CmdFlags.interactiveSolver;
-            RandomAccessFile f = new RandomAccessFile(CmdFlags.satfile, "rws");
+            RandomAccessFile f = new RandomAccessFile(clauseFileName(), "rws");
             f.setLength(filesizeBackup);
             f.close();
         }
         numClauses=numClausesBackup;
         
-        fw=new FileOutputStream(CmdFlags.satfile, true);   ///  true for append.
-        outstream = new BufferedWriter(new OutputStreamWriter(fw));
+        openClauseFile(true);
         
         finaliseOutput();
     }
@@ -1330,4 +1406,8 @@ public class Sat
     public long getNumClauses() {
         return numClauses;
     }
+    //  Null unless the clauses were preprocessed by -sat-preprocess.
+    public SatPreprocessor getPreprocessor() {
+        return preprocessed;
+    }
 }
@@ -0,0 +1,128 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+
+//  Collects clauses in memory instead of writing them to the output file.
+//  Shares the variable encoding of the parent Sat object. Aux SAT variables
+//  created while encoding into the buffer are numbered locally from
+//  LOCAL_BASE, and renumbered when the buffer is appended to the parent.
+//  This allows constraints to be encoded concurrently into separate buffers.
+
+public class SatClauseBuffer extends Sat
+{
+    public static final long LOCAL_BASE=1L<<40;
+
+    private static final long COMMENT=Long.MIN_VALUE;  //  Followed by an index into comments.
+
+    private long[] buf=new long[1024];
+    private int size=0;
+
+    private ArrayList<String> comments=new ArrayList<String>();
+
+    private long numLocalVars=0;
+
+    public SatClauseBuffer(Sat parent) {
+        super(parent, false);
+        trueVar=parent.trueVar;
+        top=parent.top;
+        variableNumber=LOCAL_BASE;
+    }
+
+    @Override
+    protected long getNextVariableNumber() {
+        numLocalVars++;
+        return variableNumber++;
+    }
+
+    @Override
+    protected void clauseEnd() {
+        push(0);
+    }
+
+    @Override
+    protected void writeLiteral(long lit) {
+        push(lit);
+    }
+
+    @Override
+    public void addComment(String comment) {
+        push(COMMENT);
+        push(comments.size());
+        comments.add(comment);
+    }
+
+    @Override
+    public void addSoftClause(long lit1, long weight) throws IOException {
+        throw new UnsupportedOperationException("Soft clauses cannot be buffered.");
+    }
+
+    @Override
+    public void finaliseOutput() {
+        assert false;
+    }
+
+    //  Write the buffered clauses and comments to target, allocating target
+    //  SAT variables for the local aux variables.
+    public void appendTo(Sat target) throws IOException {
+        long offset=target.variableNumber-LOCAL_BASE;
+        target.variableNumber+=numLocalVars;
+        long localEnd=LOCAL_BASE+numLocalVars;
+
+        for(int i=0; i<size; i++) {
+            long lit=buf[i];
+            if(lit==COMMENT) {
+                i++;
+                target.addComment(comments.get((int)buf[i]));
+            }
+            else if(lit==0) {
+                target.clauseEnd();
+                target.numClauses++;
+
+                if(CmdFlags.getCNFLimit()!=0) {
+                    if(target.numClauses>CmdFlags.getCNFLimit()) {
+                        CmdFlags.println("ERROR: Reached CNF clause limit.");
+                        throw new IOException();
+                    }
+                }
+            }
+            else {
+                if(lit>=LOCAL_BASE && lit<localEnd) {
+                    lit+=offset;
+                }
+                else if(lit<=-LOCAL_BASE && lit>-localEnd) {
+                    lit-=offset;
+                }
+                target.writeLiteral(lit);
+            }
+        }
+    }
+
+    private void push(long l) {
+        if(size==buf.length) {
+            buf=Arrays.copyOf(buf, buf.length*2);
+        }
+        buf[size++]=l;
+    }
+}
@@ -0,0 +1,169 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.io.*;
+
+//  Encodes the top-level constraints to SAT using several threads.
+//  The conjuncts of the top-level And are split into contiguous chunks, and
+//  each chunk is encoded by a worker thread into its own SatClauseBuffer.
+//  The main thread appends the buffers to the Sat object in the original
+//  order of the constraints, so the output is the same as the serial
+//  encoding (including the numbering of aux SAT variables).
+//  Constraints that use state shared between constraints during encoding
+//  (e.g. AMOPB and its yCache) are encoded by the main thread at their
+//  position in the sequence.
+
+public class SatParallelEncoder
+{
+    //  Number of chunks per thread, for load balancing.
+    private static final int chunksPerThread=8;
+
+    //  Number of chunks that may be encoded ahead of the one being written.
+    //  Bounds the memory used by buffers.
+    private final int window;
+
+    private final Sat satModel;
+    private final ArrayList<ASTNode> conjuncts;
+    private final int numThreads;
+    private final ExecutorService pool;
+
+    public SatParallelEncoder(Sat _satModel, ASTNode and, int _numThreads) {
+        satModel=_satModel;
+        conjuncts=new ArrayList<ASTNode>(and.numChildren());
+        for(int i=0; i<and.numChildren(); i++) {
+            conjuncts.add(and.getChild(i));
+        }
+        numThreads=_numThreads;
+        window=numThreads*2;
+        pool=Executors.newFixedThreadPool(numThreads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t=new Thread(r, "sat-encode");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+
+    public void encode() throws IOException {
+        try {
+            //  Split into chunks {start, end, serial}: runs of parallel-safe conjuncts
+            //  with a maximum size, and single conjuncts that must be encoded serially.
+            int chunkSize=Math.max(1, conjuncts.size()/(numThreads*chunksPerThread));
+            ArrayList<int[]> chunks=new ArrayList<int[]>();
+            int start=0;
+            for(int i=0; i<=conjuncts.size(); i++) {
+                boolean serial=(i<conjuncts.size()) && !parallelSafe(conjuncts.get(i));
+                if(i==conjuncts.size() || serial || i-start==chunkSize) {
+                    if(i>start) {
+                        chunks.add(new int[]{start, i, 0});
+                    }
+                    if(serial) {
+                        chunks.add(new int[]{i, i+1, 1});
+                        start=i+1;
+                    }
+                    else {
+                        start=i;
+                    }
+                }
+            }
+
+            ArrayList<Future<SatClauseBuffer>> futures=new ArrayList<Future<SatClauseBuffer>>(chunks.size());
+            int submitted=0;
+
+            for(int c=0; c<chunks.size(); c++) {
+                //  Keep the workers busy up to the window.
+                while(submitted<chunks.size() && submitted<c+window) {
+                    final int[] ch=chunks.get(submitted);
+                    if(ch[2]==0) {
+                        futures.add(pool.submit(new Callable<SatClauseBuffer>() {
+                            public SatClauseBuffer call() throws IOException {
+                                SatClauseBuffer b=new SatClauseBuffer(satModel);
+                                for(int j=ch[0]; j<ch[1]; j++) {
+                                    And.toSATConjunct(b, conjuncts.get(j));
+                                }
+                                return b;
+                            }
+                        }));
+                    }
+                    else {
+                        futures.add(null);
+                    }
+                    submitted++;
+                }
+
+                int[] ch=chunks.get(c);
+                if(ch[2]==1) {
+                    And.toSATConjunct(satModel, conjuncts.get(ch[0]));
+                }
+                else {
+                    SatClauseBuffer b=getResult(futures.get(c));
+                    b.appendTo(satModel);
+                }
+                futures.set(c, null);  //  Release the buffer.
+            }
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private SatClauseBuffer getResult(Future<SatClauseBuffer> f) throws IOException {
+        while(true) {
+            try {
+                return f.get();
+            }
+            catch(InterruptedException e) {
+                //  Keep waiting.
+            }
+            catch(ExecutionException e) {
+                Throwable cause=e.getCause();
+                if(cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if(cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if(cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    //  Constraints that share state with other constraints while being encoded
+    //  cannot be encoded concurrently.
+    private static boolean parallelSafe(ASTNode a) {
+        if(a instanceof AMOPB) {
+            return false;
+        }
+        for(int i=0; i<a.numChildren(); i++) {
+            if(!parallelSafe(a.getChild(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,541 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+
+//  In-memory clause store with cheap CNF preprocessing, used by Sat with
+//  -sat-preprocess. Clauses are collected as they are generated, then
+//  simplified before the DIMACS file is written:
+//    removal of duplicate literals, tautologies and duplicate clauses,
+//    unit propagation, failed literal probing (with a budget), and
+//    removal of clauses subsumed by binary clauses.
+//  SAT variables are never renumbered. Every variable fixed by preprocessing
+//  is written as a unit clause, and variables that no longer appear in any
+//  clause are mentioned in a tautology, so the solver's assignment maps back
+//  to SR variables exactly as it would without preprocessing.
+
+public class SatPreprocessor
+{
+    //  Clause arena. Clause c occupies arena[cstart[c] .. cstart[c+1]-1].
+    private int[] arena=new int[1<<16];
+    private int arenaSize=0;
+    private int[] cstart=new int[1<<12];
+    private int numInClauses=0;
+
+    private boolean[] removed;
+    private int numVars;
+
+    //  Assignment, indexed by variable. 0 unassigned, 1 true, -1 false.
+    private byte[] val;
+    private int[] trail;
+    private int trailSize=0;
+    private int qhead=0;
+
+    //  Watch lists indexed by literal code, 2*var for positive and 2*var+1 for negative.
+    private int[][] watches;
+    private int[] numWatches;
+
+    private boolean unsat=false;
+
+    //  Work budget for failed literal probing, in watch list visits.
+    private long probeBudget;
+    private long work=0;
+
+    //  Statistics
+    private long statDuplicateLits=0;
+    private long statTautologies=0;
+    private long statDuplicateClauses=0;
+    private long statFixedVars=0;
+    private long statFailedLiterals=0;
+    private long statSubsumed=0;
+    private long statSatisfied=0;
+    private long statRemovedLits=0;
+    private long numOutClauses=0;
+    private double time=0.0;
+
+    public SatPreprocessor() {
+        cstart[0]=0;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //  Collecting clauses
+
+    public void addLiteral(long lit) {
+        assert lit!=0;
+        if(lit>Integer.MAX_VALUE || lit< -Integer.MAX_VALUE) {
+            CmdFlags.errorExit("Too many SAT variables for -sat-preprocess.");
+        }
+        if(arenaSize==arena.length) {
+            arena=Arrays.copyOf(arena, arena.length*2);
+        }
+        arena[arenaSize++]=(int)lit;
+    }
+
+    public void endClause() {
+        numInClauses++;
+        if(numInClauses+1>=cstart.length) {
+            cstart=Arrays.copyOf(cstart, cstart.length*2);
+        }
+        cstart[numInClauses]=arenaSize;
+    }
+
+    public long getNumClauses() {
+        return numOutClauses;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //  Preprocessing
+
+    public void process(long _numVars) {
+        long t0=System.currentTimeMillis();
+        assert _numVars<Integer.MAX_VALUE;
+        numVars=(int)_numVars;
+        removed=new boolean[numInClauses];
+        val=new byte[numVars+1];
+        trail=new int[numVars+1];
+        probeBudget=2L*arenaSize+1000000L;
+
+        normalise();
+        removeDuplicateClauses();
+        buildWatches();
+
+        for(int c=0; c<numInClauses && !unsat; c++) {
+            if(!removed[c] && clauseLen(c)==0) {
+                unsat=true;
+            }
+            else if(!removed[c] && clauseLen(c)==1) {
+                int lit=arena[cstart[c]];
+                if(value(lit)==-1) {
+                    unsat=true;
+                }
+                else if(value(lit)==0) {
+                    assign(lit);
+                }
+            }
+        }
+        if(!unsat && propagate()) {
+            unsat=true;
+        }
+        if(!unsat) {
+            probeFailedLiterals();
+        }
+        if(!unsat) {
+            subsumeByBinary();
+        }
+        statFixedVars=trailSize;
+        time=((double)(System.currentTimeMillis()-t0))/1000.0;
+    }
+
+    //  Sort the literals of each clause, remove duplicate literals and tautologies.
+    private void normalise() {
+        for(int c=0; c<numInClauses; c++) {
+            int s=cstart[c];
+            int e=cstart[c+1];
+            Arrays.sort(arena, s, e);
+            int w=s;
+            for(int i=s; i<e; i++) {
+                if(w>s && arena[w-1]==arena[i]) {
+                    statDuplicateLits++;
+                    continue;
+                }
+                arena[w++]=arena[i];
+            }
+            //  Pad with 0 where duplicates were removed; clauseLen stops at the padding.
+            for(int i=w; i<e; i++) {
+                arena[i]=0;
+            }
+            //  Tautology: both polarities of a variable. Negative literals come first.
+            for(int i=s; i<w && arena[i]<0; i++) {
+                if(Arrays.binarySearch(arena, s, w, -arena[i])>=0) {
+                    removed[c]=true;
+                    statTautologies++;
+                    break;
+                }
+            }
+        }
+    }
+
+    //  Length of a clause, excluding padding left by normalise.
+    private int clauseLen(int c) {
+        int s=cstart[c];
+        int e=cstart[c+1];
+        while(e>s && arena[e-1]==0) {
+            e--;
+        }
+        return e-s;
+    }
+
+    private void removeDuplicateClauses() {
+        int cap=Integer.highestOneBit(Math.max(16, numInClauses*2))*2;
+        int[] table=new int[cap];
+        long[] hashes=new long[cap];
+        Arrays.fill(table, -1);
+        for(int c=0; c<numInClauses; c++) {
+            if(removed[c]) continue;
+            int len=clauseLen(c);
+            long h=len;
+            for(int i=cstart[c]; i<cstart[c]+len; i++) {
+                h=(h+arena[i])*0x9E3779B97F4A7C15L;
+                h^=(h>>>29);
+            }
+            h^=(h>>>32);
+            int slot=(int)h&(cap-1);
+            while(true) {
+                int other=table[slot];
+                if(other==-1) {
+                    table[slot]=c;
+                    hashes[slot]=h;
+                    break;
+                }
+                if(hashes[slot]==h && sameClause(c, len, other)) {
+                    removed[c]=true;
+                    statDuplicateClauses++;
+                    break;
+                }
+                slot=(slot+1)&(cap-1);
+            }
+        }
+    }
+
+    private boolean sameClause(int c, int len, int other) {
+        if(clauseLen(other)!=len) return false;
+        int s1=cstart[c];
+        int s2=cstart[other];
+        for(int i=0; i<len; i++) {
+            if(arena[s1+i]!=arena[s2+i]) return false;
+        }
+        return true;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //  Unit propagation with two watched literals.
+    //  The watched literals of a clause are its first two literals.
+
+    private static int code(int lit) {
+        return (lit>0) ? 2*lit : -2*lit+1;
+    }
+
+    private int value(int lit) {
+        int v=val[lit>0 ? lit : -lit];
+        return (lit>0) ? v : -v;
+    }
+
+    private void assign(int lit) {
+        val[lit>0 ? lit : -lit]=(byte)(lit>0 ? 1 : -1);
+        trail[trailSize++]=lit;
+    }
+
+    private void buildWatches() {
+        numWatches=new int[2*numVars+2];
+        for(int c=0; c<numInClauses; c++) {
+            if(!removed[c] && clauseLen(c)>=2) {
+                numWatches[code(arena[cstart[c]])]++;
+                numWatches[code(arena[cstart[c]+1])]++;
+            }
+        }
+        watches=new int[2*numVars+2][];
+        for(int i=0; i<watches.length; i++) {
+            watches[i]=new int[numWatches[i]];
+            numWatches[i]=0;
+        }
+        for(int c=0; c<numInClauses; c++) {
+            if(!removed[c] && clauseLen(c)>=2) {
+                addWatch(code(arena[cstart[c]]), c);
+                addWatch(code(arena[cstart[c]+1]), c);
+            }
+        }
+    }
+
+    private void addWatch(int litcode, int c) {
+        int[] w=watches[litcode];
+        if(numWatches[litcode]==w.length) {
+            w=Arrays.copyOf(w, Math.max(4, w.length*2));
+            watches[litcode]=w;
+        }
+        w[numWatches[litcode]++]=c;
+    }
+
+    //  Returns true if there is a conflict.
+    private boolean propagate() {
+        while(qhead<trailSize) {
+            int p=trail[qhead++];
+            int falsecode=code(-p);
+            int[] w=watches[falsecode];
+            int n=numWatches[falsecode];
+            int keep=0;
+            int i=0;
+            for(; i<n; i++) {
+                work++;
+                int c=w[i];
+                int s=cstart[c];
+                int len=clauseLen(c);
+                //  Make sure the false literal is in position 1.
+                if(arena[s]==-p) {
+                    arena[s]=arena[s+1];
+                    arena[s+1]=-p;
+                }
+                if(value(arena[s])==1) {
+                    w[keep++]=c;
+                    continue;
+                }
+                //  Look for a new literal to watch.
+                boolean found=false;
+                for(int k=s+2; k<s+len; k++) {
+                    if(value(arena[k])!=-1) {
+                        int tmp=arena[k];
+                        arena[k]=arena[s+1];
+                        arena[s+1]=tmp;
+                        addWatch(code(tmp), c);
+                        found=true;
+                        break;
+                    }
+                }
+                if(found) {
+                    continue;
+                }
+                w[keep++]=c;
+                int first=arena[s];
+                if(value(first)==-1) {
+                    //  Conflict. Keep the remaining watches.
+                    for(i++; i<n; i++) {
+                        w[keep++]=w[i];
+                    }
+                    numWatches[falsecode]=keep;
+                    qhead=trailSize;
+                    return true;
+                }
+                if(value(first)==0) {
+                    assign(first);
+                }
+            }
+            numWatches[falsecode]=keep;
+        }
+        return false;
+    }
+
+    private void backtrack(int trailMark) {
+        while(trailSize>trailMark) {
+            int lit=trail[--trailSize];
+            val[lit>0 ? lit : -lit]=0;
+        }
+        qhead=trailSize;
+    }
+
+    //  Probe each unassigned variable that appears in a binary clause, both
+    //  polarities. If assigning a literal leads to a conflict, its negation is
+    //  a unit.
+    private void probeFailedLiterals() {
+        boolean[] inBinary=new boolean[numVars+1];
+        for(int c=0; c<numInClauses; c++) {
+            if(!removed[c] && clauseLen(c)==2) {
+                inBinary[Math.abs(arena[cstart[c]])]=true;
+                inBinary[Math.abs(arena[cstart[c]+1])]=true;
+            }
+        }
+        for(int v=1; v<=numVars && work<probeBudget; v++) {
+            if(!inBinary[v]) continue;
+            for(int pol=1; pol>=-1 && work<probeBudget; pol-=2) {
+                if(val[v]!=0) break;
+                int lit=pol*v;
+                int mark=trailSize;
+                assign(lit);
+                boolean conflict=propagate();
+                backtrack(mark);
+                if(conflict) {
+                    statFailedLiterals++;
+                    assign(-lit);
+                    if(propagate()) {
+                        unsat=true;
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    //  Remove clauses that contain both literals of some binary clause.
+    //  Literals false at the top level are ignored, so a clause reduced to
+    //  two unassigned literals acts as a binary clause.
+    private void subsumeByBinary() {
+        int[][] bins=new int[2*numVars+2][];
+        int[] numBins=new int[2*numVars+2];
+        int[] eff=new int[2];
+        for(int c=0; c<numInClauses; c++) {
+            if(!removed[c] && effective(c, eff)==2) {
+                numBins[code(eff[0])]++;
+                numBins[code(eff[1])]++;
+            }
+        }
+        for(int i=0; i<bins.length; i++) {
+            bins[i]=new int[numBins[i]];
+            numBins[i]=0;
+        }
+        for(int c=0; c<numInClauses; c++) {
+            if(!removed[c] && effective(c, eff)==2) {
+                int a=code(eff[0]);
+                int b=code(eff[1]);
+                bins[a][numBins[a]++]=eff[1];
+                bins[b][numBins[b]++]=eff[0];
+            }
+        }
+
+        boolean[] mark=new boolean[2*numVars+2];
+        for(int c=0; c<numInClauses; c++) {
+            if(removed[c]) continue;
+            int s=cstart[c];
+            int len=clauseLen(c);
+            int efflen=0;
+            boolean sat=false;
+            for(int i=s; i<s+len; i++) {
+                int v=value(arena[i]);
+                if(v==1) sat=true;
+                if(v==0) efflen++;
+            }
+            if(sat || efflen<=2) continue;
+
+            for(int i=s; i<s+len; i++) {
+                if(value(arena[i])==0) mark[code(arena[i])]=true;
+            }
+            boolean subsumed=false;
+            for(int i=s; i<s+len && !subsumed; i++) {
+                int l=arena[i];
+                if(value(l)!=0) continue;
+                int lc=code(l);
+                for(int j=0; j<numBins[lc]; j++) {
+                    if(mark[code(bins[lc][j])]) {
+                        subsumed=true;
+                        break;
+                    }
+                }
+            }
+            for(int i=s; i<s+len; i++) {
+                mark[code(arena[i])]=false;
+            }
+            if(subsumed) {
+                removed[c]=true;
+                statSubsumed++;
+            }
+        }
+    }
+
+    //  Number of unassigned literals in clause c, or -1 if it is satisfied.
+    //  The first two unassigned literals are stored in eff.
+    private int effective(int c, int[] eff) {
+        int s=cstart[c];
+        int len=clauseLen(c);
+        int n=0;
+        for(int i=s; i<s+len; i++) {
+            int v=value(arena[i]);
+            if(v==1) return -1;
+            if(v==0) {
+                if(n<2) eff[n]=arena[i];
+                n++;
+            }
+        }
+        return n;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //  Output
+
+    public void writeTo(Sat satModel) throws IOException {
+        numOutClauses=0;
+        if(unsat) {
+            //  Write a trivially unsatisfiable formula.
+            satModel.writeLiteral(1);
+            satModel.clauseEnd();
+            satModel.writeLiteral(-1);
+            satModel.clauseEnd();
+            numOutClauses=2;
+            return;
+        }
+
+        boolean[] inInput=new boolean[numVars+1];
+        boolean[] inOutput=new boolean[numVars+1];
+        for(int i=0; i<arenaSize; i++) {
+            if(arena[i]!=0) inInput[Math.abs(arena[i])]=true;
+        }
+
+        //  Fixed variables.
+        for(int i=0; i<trailSize; i++) {
+            satModel.writeLiteral(trail[i]);
+            satModel.clauseEnd();
+            inOutput[Math.abs(trail[i])]=true;
+            numOutClauses++;
+        }
+
+        for(int c=0; c<numInClauses; c++) {
+            if(removed[c]) continue;
+            int s=cstart[c];
+            int len=clauseLen(c);
+            boolean sat=false;
+            for(int i=s; i<s+len; i++) {
+                if(value(arena[i])==1) {
+                    sat=true;
+                    break;
+                }
+            }
+            if(sat) {
+                statSatisfied++;
+                continue;
+            }
+            for(int i=s; i<s+len; i++) {
+                if(value(arena[i])==0) {
+                    satModel.writeLiteral(arena[i]);
+                    inOutput[Math.abs(arena[i])]=true;
+                }
+                else {
+                    statRemovedLits++;
+                }
+            }
+            satModel.clauseEnd();
+            numOutClauses++;
+        }
+
+        //  Variables that no longer appear must still be mentioned, otherwise
+        //  some solvers leave them out of the solution.
+        for(int v=1; v<=numVars; v++) {
+            if(inInput[v] && !inOutput[v]) {
+                satModel.writeLiteral(v);
+                satModel.writeLiteral(-v);
+                satModel.clauseEnd();
+                numOutClauses++;
+            }
+        }
+    }
+
+    public void putStats(Stats stats) {
+        stats.putValue("SATPreprocessInputClauses", String.valueOf(numInClauses));
+        stats.putValue("SATPreprocessOutputClauses", String.valueOf(numOutClauses));
+        stats.putValue("SATPreprocessFixedVars", String.valueOf(statFixedVars));
+        stats.putValue("SATPreprocessFailedLiterals", String.valueOf(statFailedLiterals));
+        stats.putValue("SATPreprocessDuplicateClauses", String.valueOf(statDuplicateClauses));
+        stats.putValue("SATPreprocessSubsumedClauses", String.valueOf(statSubsumed));
+        stats.putValue("SATPreprocessSatisfiedClauses", String.valueOf(statSatisfied));
+        stats.putValue("SATPreprocessTautologies", String.valueOf(statTautologies));
+        stats.putValue("SATPreprocessRemovedLiterals", String.valueOf(statRemovedLits+statDuplicateLits));
+        stats.putValue("SATPreprocessTime", String.valueOf(time));
+        stats.putValue("SATPreprocessUnsat", unsat ? "1" : "0");
+    }
+}
@@ -0,0 +1,228 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+import gnu.trove.map.hash.*;
+
+//  Dense mapping from SR variables to the SAT literals of their direct and
+//  order encodings. Each SR variable is given an integer id when it is encoded,
+//  and its literals are stored in a contiguous slice of directLits/orderLits.
+//  For most domains the slice is indexed by value-lower, with holes in the
+//  domain filled in when the order literals are set. Very sparse domains
+//  are indexed by the rank of the value instead, found by binary search over
+//  the intervals of the domain.
+//  A literal of 0 means there is no literal for that value.
+
+public class SatVariableMap {
+    private TObjectIntHashMap<String> ids;
+    private int numVars=0;
+
+    //  Per-variable arrays, indexed by id.
+    private long[] lower=new long[256];
+    private long[] upper=new long[256];
+    private int[] base=new int[256];      //  Start of the slice for this variable
+    private boolean[] sparse=new boolean[256];
+    private int[] ivStart=new int[256];   //  Intervals of the domain in ivLower, ivUpper, ivRank
+    private int[] ivCount=new int[256];
+
+    //  Literal slices for all variables.
+    private long[] directLits=new long[1024];
+    private long[] orderLits=new long[1024];
+    private int numLits=0;
+
+    //  Intervals for all variables. ivRank is the rank of the lower bound of the interval.
+    private long[] ivLower=new long[256];
+    private long[] ivUpper=new long[256];
+    private long[] ivRank=new long[256];
+    private int numIntervals=0;
+
+    public SatVariableMap() {
+        ids=new TObjectIntHashMap<String>(1024, 0.5f, -1);
+    }
+
+    //  Returns -1 if the variable has not been added.
+    public int getId(String name) {
+        return ids.get(name);
+    }
+
+    public int numVariables() {
+        return numVars;
+    }
+
+    //  Allocate an id and a slice of literals for an SR variable.
+    public int addVariable(String name, ArrayList<Intpair> intervals) {
+        int id=ids.get(name);
+        if(id!=-1) {
+            return id;
+        }
+        id=numVars++;
+        ids.put(name, id);
+
+        if(id==lower.length) {
+            int newlen=lower.length*2;
+            lower=Arrays.copyOf(lower, newlen);
+            upper=Arrays.copyOf(upper, newlen);
+            base=Arrays.copyOf(base, newlen);
+            sparse=Arrays.copyOf(sparse, newlen);
+            ivStart=Arrays.copyOf(ivStart, newlen);
+            ivCount=Arrays.copyOf(ivCount, newlen);
+        }
+
+        long numvals=Intpair.numValues(intervals);
+        lower[id]=intervals.get(0).lower;
+        upper[id]=intervals.get(intervals.size()-1).upper;
+
+        long span=upper[id]-lower[id]+1;
+        sparse[id]=(span > 2*numvals+32);
+
+        //  Store the intervals.
+        ivStart[id]=numIntervals;
+        ivCount[id]=intervals.size();
+        ensureIntervals(numIntervals+intervals.size());
+        long rank=0;
+        for(int i=0; i<intervals.size(); i++) {
+            Intpair p=intervals.get(i);
+            ivLower[numIntervals]=p.lower;
+            ivUpper[numIntervals]=p.upper;
+            ivRank[numIntervals]=rank;
+            rank+=p.upper-p.lower+1;
+            numIntervals++;
+        }
+
+        long slicelen=sparse[id] ? numvals : span;
+        if(numLits+slicelen > Integer.MAX_VALUE-8) {
+            CmdFlags.errorExit("Too many values in domains of variables to encode to SAT.");
+        }
+        base[id]=numLits;
+        ensureLits(numLits+(int)slicelen);
+        numLits+=(int)slicelen;
+        return id;
+    }
+
+    public long getLower(int id) {
+        return lower[id];
+    }
+    public long getUpper(int id) {
+        return upper[id];
+    }
+
+    public void setDirect(int id, long value, long lit) {
+        int slot=slot(id, value);
+        assert slot>=0;
+        directLits[slot]=lit;
+    }
+
+    public void setOrder(int id, long value, long lit) {
+        int slot=slot(id, value);
+        assert slot>=0;
+        orderLits[slot]=lit;
+
+        if(!sparse[id]) {
+            //  If value is at the top of an interval, fill in the hole above it
+            //  so that [x<=v] for v in the hole is [x<=value].
+            int iv=intervalBelow(id, value);
+            if(iv<ivStart[id]+ivCount[id]-1 && ivUpper[iv]==value) {
+                long next=ivLower[iv+1];
+                for(long v=value+1; v<next; v++) {
+                    orderLits[base[id]+(int)(v-lower[id])]=lit;
+                }
+            }
+        }
+    }
+
+    //  Returns 0 if value is not in the domain.
+    public long getDirect(int id, long value) {
+        if(value<lower[id] || value>upper[id]) {
+            return 0;
+        }
+        if(!sparse[id]) {
+            return directLits[base[id]+(int)(value-lower[id])];
+        }
+        int slot=slot(id, value);
+        return slot<0 ? 0 : directLits[slot];
+    }
+
+    //  Requires lower <= value < upper. Returns 0 if there is no order literal.
+    public long getOrder(int id, long value) {
+        assert value>=lower[id] && value<upper[id];
+        if(!sparse[id]) {
+            return orderLits[base[id]+(int)(value-lower[id])];
+        }
+        //  Round down to the nearest value in the domain.
+        int iv=intervalBelow(id, value);
+        long v=(value>ivUpper[iv]) ? ivUpper[iv] : value;
+        return orderLits[base[id]+(int)(ivRank[iv]+v-ivLower[iv])];
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //  Internal
+
+    //  Slot for a value in the domain, or -1 if it is not in the domain.
+    private int slot(int id, long value) {
+        if(value<lower[id] || value>upper[id]) {
+            return -1;
+        }
+        if(!sparse[id]) {
+            return base[id]+(int)(value-lower[id]);
+        }
+        int iv=intervalBelow(id, value);
+        if(value>ivUpper[iv]) {
+            return -1;
+        }
+        return base[id]+(int)(ivRank[iv]+value-ivLower[iv]);
+    }
+
+    //  Index of the last interval with lower bound <= value. Requires value>=lower[id].
+    private int intervalBelow(int id, long value) {
+        int lo=ivStart[id];
+        int hi=ivStart[id]+ivCount[id]-1;
+        while(lo<hi) {
+            int mid=(lo+hi+1)>>>1;
+            if(ivLower[mid]<=value) {
+                lo=mid;
+            }
+            else {
+                hi=mid-1;
+            }
+        }
+        return lo;
+    }
+
+    private void ensureLits(int size) {
+        if(size>directLits.length) {
+            int newlen=Math.max(size, (int)Math.min(Integer.MAX_VALUE-8, ((long)directLits.length)*2));
+            directLits=Arrays.copyOf(directLits, newlen);
+            orderLits=Arrays.copyOf(orderLits, newlen);
+        }
+    }
+
+    private void ensureIntervals(int size) {
+        if(size>ivLower.length) {
+            int newlen=Math.max(size, ivLower.length*2);
+            ivLower=Arrays.copyOf(ivLower, newlen);
+            ivUpper=Arrays.copyOf(ivUpper, newlen);
+            ivRank=Arrays.copyOf(ivRank, newlen);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+
+//  Map from symbol names to values, stored in an array indexed by the interned
+//  symbol id (see Symbols). Lookups by id do no hashing at all, and lookups by
+//  name hash the (interned) string once. Iteration is in order of symbol id.
+//  Null values are not stored: putting null removes the entry. 
+
+public class SymbolMap<V> extends AbstractMap<String, V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private transient Object[] values=new Object[16];
+    private transient int size=0;
+    
+    public SymbolMap() {
+    }
+    
+    public SymbolMap(Map<String, V> other) {
+        putAll(other);
+    }
+    
+    @SuppressWarnings("unchecked")
+    public V get(int sym) {
+        return (sym>=0 && sym<values.length) ? (V) values[sym] : null;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public V put(int sym, V val) {
+        if(val==null) {
+            return remove(sym);
+        }
+        if(sym>=values.length) {
+            values=Arrays.copyOf(values, Math.max(sym+1, values.length*2));
+        }
+        V old=(V) values[sym];
+        values[sym]=val;
+        if(old==null) {
+            size++;
+        }
+        return old;
+    }
+    
+    @SuppressWarnings("unchecked")
+    public V remove(int sym) {
+        if(sym<0 || sym>=values.length || values[sym]==null) {
+            return null;
+        }
+        V old=(V) values[sym];
+        values[sym]=null;
+        size--;
+        return old;
+    }
+    
+    public boolean containsKey(int sym) {
+        return sym>=0 && sym<values.length && values[sym]!=null;
+    }
+    
+    @Override
+    public V get(Object key) {
+        return (key instanceof String) ? get(Symbols.lookup((String) key)) : null;
+    }
+    
+    @Override
+    public V put(String key, V val) {
+        return put(Symbols.id(key), val);
+    }
+    
+    @Override
+    public V remove(Object key) {
+        return (key instanceof String) ? remove(Symbols.lookup((String) key)) : null;
+    }
+    
+    @Override
+    public boolean containsKey(Object key) {
+        return (key instanceof String) && containsKey(Symbols.lookup((String) key));
+    }
+    
+    @Override
+    public int size() {
+        return size;
+    }
+    
+    @Override
+    public void clear() {
+        Arrays.fill(values, null);
+        size=0;
+    }
+    
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        return new AbstractSet<Map.Entry<String, V>>() {
+            public int size() {
+                return size;
+            }
+            public Iterator<Map.Entry<String, V>> iterator() {
+                return new EntryIterator();
+            }
+        };
+    }
+    
+    private class Entry implements Map.Entry<String, V> {
+        private final int sym;
+        Entry(int _sym) {
+            sym=_sym;
+        }
+        public String getKey() {
+            return Symbols.name(sym);
+        }
+        public V getValue() {
+            return get(sym);
+        }
+        public V setValue(V val) {
+            assert val!=null;
+            return put(sym, val);
+        }
+        @Override
+        public boolean equals(Object o) {
+            if(!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> e=(Map.Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+    }
+    
+    private class EntryIterator implements Iterator<Map.Entry<String, V>> {
+        private int next=-1;
+        private int last=-1;
+        
+        EntryIterator() {
+            advance();
+        }
+        private void advance() {
+            next++;
+            while(next<values.length && values[next]==null) {
+                next++;
+            }
+        }
+        public boolean hasNext() {
+            return next<values.length;
+        }
+        public Map.Entry<String, V> next() {
+            if(next>=values.length) {
+                throw new NoSuchElementException();
+            }
+            last=next;
+            advance();
+            return new Entry(last);
+        }
+        public void remove() {
+            if(last==-1) {
+                throw new IllegalStateException();
+            }
+            SymbolMap.this.remove(last);
+            last=-1;
+        }
+    }
+    
+    //  Symbol ids are only valid within one process, so serialise by name.
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        for(int i=0; i<values.length; i++) {
+            if(values[i]!=null) {
+                out.writeObject(Symbols.name(i));
+                out.writeObject(values[i]);
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        values=new Object[16];
+        size=0;
+        int n=in.readInt();
+        for(int i=0; i<n; i++) {
+            String key=(String) in.readObject();
+            put(key, (V) in.readObject());
+        }
+    }
+}
@@ -37,7 +37,7 @@ public class SymbolTable implements Serializable {
     public ArrayDeque<ASTNode> lettings_givens;    // Lettings, givens, wheres, finds in order.
     
     // Category has an entry for each symbol.
-    public HashMap<String, categoryentry> category;
+    public SymbolMap<categoryentry> category;
     
     public categoryentry category_first;
     public categoryentry category_last;
@@ -49,15 +49,19 @@ public class SymbolTable implements Serializable {
     // associated domain and/or constant matrix
     
     // Domain could be an identifier -- should be defined in a  letting.
-    private HashMap<String, ASTNode> domains;
+    private SymbolMap<ASTNode> domains;
     
-    public transient HashMap<String, String> represents_ct;    // String representation of the ct the aux var represents.
+    public transient SymbolMap<String> represents_ct;    // String representation of the ct the aux var represents.
     
     // Yet another data structure -- for matrices that have been replaced with
     // atomic variables. 
-    public HashMap<String, ASTNode> deleted_matrices;
+    public SymbolMap<ASTNode> deleted_matrices;
     
-    public HashMap<String, replaces_matrix_entry> replaces_matrix;    // as in replaces["M___5___4"]=<"M", [5,4]>
+    public SymbolMap<replaces_matrix_entry> replaces_matrix;    // as in replaces["M___5___4"]=<"M", [5,4]>
+    
+    //  Names of variables declared as elements of a Minion matrix by compact
+    //  Minion output, as in minion_names["M___5___4"]="M[4,3]". 
+    transient SymbolMap<String> minion_names;
     
     int auxvarcounter;
     
@@ -85,22 +89,22 @@ public class SymbolTable implements Serializable {
 
     public SymbolTable() {
         lettings_givens = new ArrayDeque<ASTNode>();
-        domains = new HashMap<String, ASTNode>();
+        domains = new SymbolMap<ASTNode>();
 
         // This is the ordering on the symbols for output.
-        category = new HashMap<String, categoryentry>();
+        category = new SymbolMap<categoryentry>();
         category_first = null;
         category_last = null;
 
-        represents_ct = new HashMap<String, String>();
+        represents_ct = new SymbolMap<String>();
         auxvarcounter = 0;
 
         // Extra data for gecode and minizinc output.
         boolvar_bool = new HashSet<String>();
         boolvar_int = new HashSet<String>();
 
-        deleted_matrices = new HashMap<String, ASTNode>();
-        replaces_matrix = new HashMap<String, replaces_matrix_entry>();
+        deleted_matrices = new SymbolMap<ASTNode>();
+        replaces_matrix = new SymbolMap<replaces_matrix_entry>();
 
         replacements = new HashMap<ASTNode, ASTNode>();
         replacements_domains = new HashMap<ASTNode, ASTNode>();
@@ -224,7 +228,7 @@ public class SymbolTable implements Serializable {
             st.domains.put(domst, tf.transform(domains.get(domst).copy()));
         }
         
-        st.represents_ct = new HashMap<String, String>(represents_ct);
+        st.represents_ct = new SymbolMap<String>(represents_ct);
         for (String delst : deleted_matrices.keySet()) {
             st.deleted_matrices.put(delst, tf.transform(deleted_matrices.get(delst).copy()));
         }
@@ -394,7 +398,7 @@ public class SymbolTable implements Serializable {
         if(id.isRelation() && !value.isRelation()) {
             long v=value.getValue();
             assert v>=0 && v<=1;
-            value=new BooleanConstant(v==1);
+            value=BooleanConstant.make(v==1);
         }
         
         //System.out.println("Assign "+id+", "+value+" with domains "+getDomain(id.toString()));
@@ -444,6 +448,11 @@ public class SymbolTable implements Serializable {
         return domains.get(varid);
     }
     
+    //  Lookups by interned symbol id, for Identifier. 
+    public ASTNode getDomain(int sym) {
+        return domains.get(sym);
+    }
+    
     public void setDomain(String varid, ASTNode d) {
         domains.put(varid, d);
     }
@@ -452,15 +461,24 @@ public class SymbolTable implements Serializable {
         return category.get(varid).cat==ASTNode.Auxiliary;
     }
     
-    public HashMap<String, ASTNode> getDomains() { return domains; }
+    public boolean isAuxiliary(int sym) {
+        return category.get(sym).cat==ASTNode.Auxiliary;
+    }
+    
+    public SymbolMap<ASTNode> getDomains() { return domains; }
     
     public categoryentry getCategoryFirst() { return category_first; }
     
     public int getCategory(String varid) {
-        if (category.get(varid) == null) {
+        return getCategory(Symbols.lookup(varid));
+    }
+    
+    public int getCategory(int sym) {
+        categoryentry c = category.get(sym);
+        if (c == null) {
             return ASTNode.Undeclared;
         }
-        int i = category.get(varid).cat;
+        int i = c.cat;
         if (i == ASTNode.Auxiliary) {
             return ASTNode.Decision;
         }
@@ -474,6 +492,10 @@ public class SymbolTable implements Serializable {
         return category.containsKey(varid);
     }
     
+    public boolean hasVariable(int sym) {
+        return category.containsKey(sym);
+    }
+    
     //  Find unused name for new auxiliary id.
     public String newAuxId() {
         String newname = "aux" + auxvarcounter;
@@ -860,6 +882,19 @@ public class SymbolTable implements Serializable {
     }
     
     protected void serialize() {
+        // Use the compact binary format where possible.
+        try {
+            SymbolTableIO.write(this, CmdFlags.auxfile);
+            return;
+        }
+        catch (SymbolTableIO.UnsupportedSymbolException e) {
+            CmdFlags.printlnIfVerbose("Using Java serialisation for symbol table: "+e.getMessage());
+        }
+        catch (IOException e) {
+            CmdFlags.println("WARNING: Failed to serialise: " + e);
+            return;
+        }
+        
         mangle_before_serialization();
         try {
             FileOutputStream sts = new FileOutputStream(CmdFlags.auxfile);
@@ -878,18 +913,36 @@ public class SymbolTable implements Serializable {
     }
     
     public void toMinion(BufferedWriter b) throws IOException {
+        toMinion(b, null);
+    }
+    
+    //  In compact mode (cts not null), atoms of a matrix are declared as one Minion
+    //  matrix where possible and the comments on each variable are left out. 
+    //  Constraints on domains go to cts, to be written in the one constraints section. 
+    public void toMinion(BufferedWriter b, StringBuilder cts) throws IOException {
         assert m.global_symbols == this;
+        boolean compact = cts != null;
         
         if(CmdFlags.getSaveSymbols()) {
             // Serialise the symbol table only if we are not running the back-end solver.
             serialize();
         }
         
+        if(compact) {
+            if(minion_names==null) {
+                minion_names=new SymbolMap<String>();
+            }
+            outputMinionMatrices(b, cts);
+        }
+        else {
+            minion_names=null;
+        }
+        
         categoryentry itr = category_first;
         while (itr != null) {
             // Not auxiliary
             if (itr.cat == ASTNode.Decision && !itr.already_written) {
-                output_variable(b, itr.name, (Domain) domains.get(itr.name));
+                output_variable(b, itr.name, (Domain) domains.get(itr.name), cts);
                 itr.already_written = true;
             }
             itr = itr.next;
@@ -899,12 +952,185 @@ public class SymbolTable implements Serializable {
         itr = category_first;
         while (itr != null) {
             if (itr.cat == ASTNode.Auxiliary && !itr.already_written) {
-                output_variable(b, itr.name, (Domain) domains.get(itr.name));
+                output_variable(b, itr.name, (Domain) domains.get(itr.name), cts);
                 itr.already_written = true;
             }
             itr = itr.next;
         }
     }
+    
+    //  Name of a variable in the Minion file.
+    public String minionName(int sym, String name) {
+        if(minion_names!=null) {
+            String mn=minion_names.get(sym);
+            if(mn!=null) {
+                return mn;
+            }
+        }
+        return name;
+    }
+    
+    private String minionName(String name) {
+        String mn = (minion_names==null) ? null : minion_names.get(name);
+        return mn==null ? name : mn;
+    }
+    
+    //  Declare the atoms of each matrix as one Minion matrix with the union of
+    //  their domains, when all atoms of the matrix remain and all have the same
+    //  kind of Minion variable. Atoms with smaller domains are restricted with
+    //  w-inintervalset, as output_variable does for domains with holes.
+    private void outputMinionMatrices(BufferedWriter b, StringBuilder cts) throws IOException {
+        LinkedHashMap<String, ArrayList<categoryentry>> groups=new LinkedHashMap<String, ArrayList<categoryentry>>();
+        for(categoryentry itr=category_first; itr!=null; itr=itr.next) {
+            if((itr.cat == ASTNode.Decision || itr.cat == ASTNode.Auxiliary) && !itr.already_written) {
+                replaces_matrix_entry r=replaces_matrix.get(itr.name);
+                if(r!=null) {
+                    ArrayList<categoryentry> g=groups.get(r.name);
+                    if(g==null) {
+                        g=new ArrayList<categoryentry>();
+                        groups.put(r.name, g);
+                    }
+                    g.add(itr);
+                }
+            }
+        }
+        
+        for(Map.Entry<String, ArrayList<categoryentry>> e : groups.entrySet()) {
+            outputMinionMatrix(b, cts, e.getKey(), e.getValue());
+        }
+    }
+    
+    private void outputMinionMatrix(BufferedWriter b, StringBuilder cts, String matname, ArrayList<categoryentry> atoms) throws IOException {
+        ASTNode matdom=deleted_matrices.get(matname);
+        if(atoms.size()<2 || !(matdom instanceof MatrixDomain)) {
+            return;
+        }
+        
+        //  Index domains must be single intervals that the atoms fill exactly. 
+        ArrayList<ASTNode> idxdoms=matdom.getChildren(3);
+        long[] lower=new long[idxdoms.size()];
+        long[] size=new long[idxdoms.size()];
+        long total=1;
+        for(int i=0; i<idxdoms.size(); i++) {
+            ArrayList<Intpair> intervals=idxdoms.get(i).getIntervalSet();
+            if(intervals.size()!=1) {
+                return;
+            }
+            lower[i]=intervals.get(0).lower;
+            size[i]=intervals.get(0).upper-intervals.get(0).lower+1L;
+            total=total*size[i];
+            if(total>atoms.size()) {
+                return;
+            }
+        }
+        if(total!=atoms.size()) {
+            return;
+        }
+        
+        boolean[] seen=new boolean[atoms.size()];
+        String[] names=new String[atoms.size()];
+        for(int a=0; a<atoms.size(); a++) {
+            ArrayList<Long> idx=replaces_matrix.get(atoms.get(a).name).idx;
+            if(idx.size()!=size.length) {
+                return;
+            }
+            int pos=0;
+            StringBuilder mn=new StringBuilder(matname);
+            mn.append("[");
+            for(int i=0; i<size.length; i++) {
+                long off=idx.get(i)-lower[i];
+                if(off<0 || off>=size[i]) {
+                    return;
+                }
+                pos=(int)(pos*size[i]+off);
+                mn.append(off);
+                mn.append(i<size.length-1 ? "," : "]");
+            }
+            if(seen[pos]) {
+                return;
+            }
+            seen[pos]=true;
+            names[a]=mn.toString();
+        }
+        
+        //  All atoms must be the same kind of Minion variable as the union domain.
+        boolean bool=true;
+        long lo=Long.MAX_VALUE;
+        long hi=Long.MIN_VALUE;
+        for(categoryentry c : atoms) {
+            ASTNode dom=domains.get(c.name);
+            if(!(dom instanceof SimpleDomain)) {
+                return;
+            }
+            ArrayList<Intpair> intervals=dom.getIntervalSet();
+            if(intervals.size()==0) {
+                return;
+            }
+            bool=bool && dom.isBooleanSet();
+            lo=Math.min(lo, intervals.get(0).lower);
+            hi=Math.max(hi, intervals.get(intervals.size()-1).upper);
+        }
+        String kind=minionKind(bool, lo, hi);
+        for(categoryentry c : atoms) {
+            ASTNode dom=domains.get(c.name);
+            ArrayList<Intpair> intervals=dom.getIntervalSet();
+            if(!kind.equals(minionKind(dom.isBooleanSet(), intervals.get(0).lower, intervals.get(intervals.size()-1).upper))) {
+                return;
+            }
+        }
+        
+        b.append(kind);
+        b.append(" ");
+        b.append(matname);
+        b.append("[");
+        for(int i=0; i<size.length; i++) {
+            b.append(String.valueOf(size[i]));
+            if(i<size.length-1) {
+                b.append(",");
+            }
+        }
+        b.append("]");
+        if(bool) {
+            lo=0;
+            hi=1;
+        }
+        else {
+            b.append(" {");
+            b.append(String.valueOf(lo));
+            b.append("..");
+            b.append(String.valueOf(hi));
+            b.append("}");
+        }
+        b.append("\n");
+        
+        for(int a=0; a<atoms.size(); a++) {
+            categoryentry c=atoms.get(a);
+            ArrayList<Intpair> intervals=domains.get(c.name).getIntervalSet();
+            if(intervals.size()!=1 || intervals.get(0).lower!=lo || intervals.get(0).upper!=hi) {
+                cts.append("w-inintervalset(");
+                cts.append(names[a]);
+                cts.append(", [");
+                for (int i =0; i < intervals.size(); i++) {
+                    cts.append(intervals.get(i).lower);
+                    cts.append(",");
+                    cts.append(intervals.get(i).upper);
+                    if (i < intervals.size() - 1) {
+                        cts.append(",");
+                    }
+                }
+                cts.append("])\n");
+            }
+            minion_names.put(c.name, names[a]);
+            c.already_written=true;
+        }
+    }
+    
+    private static String minionKind(boolean bool, long lo, long hi) {
+        if(bool) {
+            return "BOOL";
+        }
+        return (CmdFlags.getUseBoundVars() && hi-lo+1L > Constants.boundvar_threshold) ? "BOUND" : "DISCRETE";
+    }
 
     public void printPrintStmt(BufferedWriter b) throws IOException {
         b.append("PRINT[");
@@ -917,7 +1143,7 @@ public class SymbolTable implements Serializable {
                 b.append(sep);
                 if (getDomain(name) instanceof SimpleDomain) {
                     b.append("[");
-                    b.append(name);
+                    b.append(minionName(name));
                     b.append("]");
                 } else {
                     b.append(name);
@@ -933,7 +1159,7 @@ public class SymbolTable implements Serializable {
             if(ob instanceof CompoundMatrix) {
                 for(int i=1; i<ob.numChildren(); i++) {
                     b.append("[");
-                    b.append(ob.getChild(i).toString());
+                    b.append(minionName(ob.getChild(i).toString()));
                     b.append("]");
                     if(i<ob.numChildren()-1) {
                         b.append(",");
@@ -942,7 +1168,7 @@ public class SymbolTable implements Serializable {
             }
             else {
                 b.append("[");
-                b.append(ob.toString());
+                b.append(minionName(ob.toString()));
                 b.append("]");
             }
         }
@@ -974,7 +1200,7 @@ public class SymbolTable implements Serializable {
             
             if (itr.cat == ASTNode.Decision || itr.cat == ASTNode.Auxiliary) {
                 b.append(sep);
-                b.append(name);
+                b.append(minionName(name));
                 sep = ",";
             }
             itr = itr.next;
@@ -1041,27 +1267,41 @@ public class SymbolTable implements Serializable {
     }
     
     // Output variable declarations.
-    private void output_variable(BufferedWriter b, String name, Domain dom) throws IOException {
+    private void output_variable(BufferedWriter b, String name, Domain dom, StringBuilder cts) throws IOException {
         String ct = represents_ct.get(name);
         if (ct == null) {
             ct = "";
         }
+        //  Compact output leaves out the comment and the line break before the domain,
+        //  and writes constraints on the domain to cts rather than a section of their own. 
+        boolean compact = cts != null;
+        Appendable c = compact ? cts : b;
+        String end = compact ? "\n" : " #" + ct + "\n";
+        String sep = compact ? " " : end;
         if(dom.isBooleanSet()) {
-            b.append("BOOL " + name + " #" + ct + "\n");
+            b.append("BOOL " + name + end);
             if((!dom.containsValue(0)) && (!dom.containsValue(1))) {
-                b.append("**CONSTRAINTS**\n");
-                b.append("false()  # Empty Boolean domain, faked with false() constraint.\n");
-                b.append("**VARIABLES**\n");
+                if (!compact) {
+                    b.append("**CONSTRAINTS**\n");
+                }
+                c.append("false()  # Empty Boolean domain, faked with false() constraint.\n");
+                if (!compact) {
+                    b.append("**VARIABLES**\n");
+                }
             }
             else if((!dom.containsValue(0)) || (!dom.containsValue(1))) {
-                b.append("**CONSTRAINTS**\n");
+                if (!compact) {
+                    b.append("**CONSTRAINTS**\n");
+                }
                 Intpair bnds = dom.getBounds();
-                b.append("w-inintervalset(" + name + ", [");
-                b.append(String.valueOf(bnds.lower));
-                b.append(",");
-                b.append(String.valueOf(bnds.upper));
-                b.append("])\n");
-                b.append("**VARIABLES**\n");
+                c.append("w-inintervalset(" + name + ", [");
+                c.append(String.valueOf(bnds.lower));
+                c.append(",");
+                c.append(String.valueOf(bnds.upper));
+                c.append("])\n");
+                if (!compact) {
+                    b.append("**VARIABLES**\n");
+                }
             }
         }
         else if (dom instanceof SimpleDomain) {
@@ -1070,33 +1310,41 @@ public class SymbolTable implements Serializable {
                 long rangesize = setintervals.get(setintervals.size() - 1).upper - setintervals.get(0).lower + 1L;
 
                 if (CmdFlags.getUseBoundVars() && rangesize > Constants.boundvar_threshold) {
-                    b.append("BOUND " + name + " #" + ct + "\n");
+                    b.append("BOUND " + name + sep);
                 } else {
-                    b.append("DISCRETE " + name + " #" + ct + "\n");
+                    b.append("DISCRETE " + name + sep);
                 }
 
                 b.append("{" + setintervals.get(0).lower + ".." + setintervals.get(setintervals.size() - 1).upper + "}\n");
                 if (setintervals.size() > 1) {                    // It's not a complete range; need to knock out some vals.
-                    b.append("**CONSTRAINTS**\n");
-                    b.append("w-inintervalset(" + name + ", [");
+                    if (!compact) {
+                        b.append("**CONSTRAINTS**\n");
+                    }
+                    c.append("w-inintervalset(" + name + ", [");
                     for (int i =0; i < setintervals.size(); i++) {
-                        b.append(String.valueOf(setintervals.get(i).lower));
-                        b.append(",");
-                        b.append(String.valueOf(setintervals.get(i).upper));
+                        c.append(String.valueOf(setintervals.get(i).lower));
+                        c.append(",");
+                        c.append(String.valueOf(setintervals.get(i).upper));
                         if (i < setintervals.size() - 1) {
-                            b.append(",");
+                            c.append(",");
                         }
                     }
-                    b.append("])\n");
-                    b.append("**VARIABLES**\n");
+                    c.append("])\n");
+                    if (!compact) {
+                        b.append("**VARIABLES**\n");
+                    }
                 }
             } else {
                 // Empty domain
-                b.append("DISCRETE " + name + " #" + ct + "\n");
+                b.append("DISCRETE " + name + sep);
                 b.append("{0..0}  #  This is an empty domain. Faking that by using 0..0 and the false() constraint below.\n");
-                b.append("**CONSTRAINTS**\n");
-                b.append("false()\n");
-                b.append("**VARIABLES**\n");
+                if (!compact) {
+                    b.append("**CONSTRAINTS**\n");
+                }
+                c.append("false()\n");
+                if (!compact) {
+                    b.append("**VARIABLES**\n");
+                }
             }
         } else {
             assert false;
@@ -0,0 +1,388 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+
+//  Compact binary format for the symbol table in the .aux file. Holds only
+//  what is needed to turn solver output into an Essence Prime solution
+//  (ReadSolution and domain store modes):
+//    the symbols in output order with their categories, domains of decision
+//    variables as intervals, replaces_matrix entries, domains of deleted
+//    matrices, and the replacements of deleted variables as postfix expressions.
+//
+//  Layout (big-endian):
+//    magic (8 bytes), version (int)
+//    string table: count, then (length, UTF-8 bytes) for each string
+//    symbols: count, then (name, category, domain)
+//    replaces_matrix: count, then (var name, matrix name, number of indices, indices)
+//    deleted_matrices: count, then (name, domain)
+//    replacements: count, then (key expression, value expression, domain, category)
+//  Names are indices into the string table. A domain is a kind byte followed
+//  by a list of intervals, or for a matrix domain the base domain and index domains.
+//
+//  Older .aux files written with Java serialisation are still read. Symbol
+//  tables that contain something this format cannot represent are written
+//  with Java serialisation instead.
+
+public class SymbolTableIO
+{
+    private static final byte[] MAGIC={'S', 'R', 'A', 'U', 'X', 'B', 'I', 'N'};
+    private static final int VERSION=1;
+
+    //  Domain kinds
+    private static final byte DOM_NONE=0;
+    private static final byte DOM_INT=1;
+    private static final byte DOM_BOOL=2;
+    private static final byte DOM_MATRIX=3;
+
+    //  Postfix expression ops
+    private static final byte OP_ID=0;
+    private static final byte OP_INT=1;
+    private static final byte OP_BOOL=2;
+    private static final byte OP_NEGATE=3;
+    private static final byte OP_SHIFT=4;
+    private static final byte OP_MULTIPLY=5;
+
+    //  Thrown by the writer when the symbol table cannot be represented.
+    public static class UnsupportedSymbolException extends Exception {
+        private static final long serialVersionUID = 1L;
+        public UnsupportedSymbolException(String s) {
+            super(s);
+        }
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //  Writer
+
+    public static void write(SymbolTable st, String filename) throws IOException, UnsupportedSymbolException {
+        //  Encode everything into a buffer first, so nothing is written if the
+        //  symbol table cannot be represented.
+        ArrayList<String> strings=new ArrayList<String>();
+        HashMap<String, Integer> stringIds=new HashMap<String, Integer>();
+        ByteArrayOutputStream bodybytes=new ByteArrayOutputStream();
+        DataOutputStream body=new DataOutputStream(bodybytes);
+
+        //  Symbols in output order.
+        int numSymbols=0;
+        for(categoryentry c=st.getCategoryFirst(); c!=null; c=c.next) {
+            numSymbols++;
+        }
+        body.writeInt(numSymbols);
+        for(categoryentry c=st.getCategoryFirst(); c!=null; c=c.next) {
+            body.writeInt(stringId(c.name, strings, stringIds));
+            body.writeInt(c.cat);
+            if(c.cat==ASTNode.Decision || c.cat==ASTNode.Auxiliary) {
+                writeDomain(body, st.getDomain(c.name));
+            }
+            else {
+                body.writeByte(DOM_NONE);
+            }
+        }
+
+        body.writeInt(st.replaces_matrix.size());
+        for(Map.Entry<String, replaces_matrix_entry> e : st.replaces_matrix.entrySet()) {
+            body.writeInt(stringId(e.getKey(), strings, stringIds));
+            body.writeInt(stringId(e.getValue().name, strings, stringIds));
+            ArrayList<Long> idx=e.getValue().idx;
+            body.writeInt(idx.size());
+            for(int i=0; i<idx.size(); i++) {
+                body.writeLong(idx.get(i));
+            }
+        }
+
+        body.writeInt(st.deleted_matrices.size());
+        for(Map.Entry<String, ASTNode> e : st.deleted_matrices.entrySet()) {
+            body.writeInt(stringId(e.getKey(), strings, stringIds));
+            writeDomain(body, e.getValue());
+        }
+
+        body.writeInt(st.replacements.size());
+        for(Map.Entry<ASTNode, ASTNode> e : st.replacements.entrySet()) {
+            ASTNode key=e.getKey();
+            writeExpression(body, key, strings, stringIds);
+            writeExpression(body, e.getValue(), strings, stringIds);
+            ASTNode dom=st.replacements_domains.get(key);
+            if(dom==null) {
+                body.writeByte(DOM_NONE);
+            }
+            else {
+                writeDomain(body, dom);
+            }
+            Integer cat=st.replacements_category.get(key);
+            body.writeInt(cat==null ? ASTNode.Undeclared : cat);
+        }
+        body.flush();
+
+        FileOutputStream fos=new FileOutputStream(filename);
+        DataOutputStream out=new DataOutputStream(new BufferedOutputStream(fos));
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.size());
+        for(int i=0; i<strings.size(); i++) {
+            byte[] b=strings.get(i).getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+        bodybytes.writeTo(out);
+        out.close();
+    }
+
+    private static int stringId(String s, ArrayList<String> strings, HashMap<String, Integer> stringIds) {
+        Integer id=stringIds.get(s);
+        if(id==null) {
+            id=strings.size();
+            strings.add(s);
+            stringIds.put(s, id);
+        }
+        return id;
+    }
+
+    private static void writeDomain(DataOutputStream out, ASTNode dom) throws IOException, UnsupportedSymbolException {
+        if(dom instanceof MatrixDomain) {
+            out.writeByte(DOM_MATRIX);
+            writeDomain(out, dom.getChild(0));
+            ArrayList<ASTNode> idx=dom.getChildren(3);
+            out.writeInt(idx.size());
+            for(int i=0; i<idx.size(); i++) {
+                writeDomain(out, idx.get(i));
+            }
+            return;
+        }
+        ArrayList<Intpair> intervals=(dom!=null && dom.isFiniteSet()) ? dom.getIntervalSet() : null;
+        if(intervals==null) {
+            throw new UnsupportedSymbolException("Domain is not a finite set: "+dom);
+        }
+        out.writeByte(dom.isBooleanSet() ? DOM_BOOL : DOM_INT);
+        out.writeInt(intervals.size());
+        for(int i=0; i<intervals.size(); i++) {
+            out.writeLong(intervals.get(i).lower);
+            out.writeLong(intervals.get(i).upper);
+        }
+    }
+
+    //  Writes the number of ops followed by the ops in postfix order.
+    private static void writeExpression(DataOutputStream out, ASTNode a, ArrayList<String> strings, HashMap<String, Integer> stringIds) throws IOException, UnsupportedSymbolException {
+        ByteArrayOutputStream b=new ByteArrayOutputStream();
+        DataOutputStream ops=new DataOutputStream(b);
+        int numOps=writePostfix(ops, a, strings, stringIds);
+        ops.flush();
+        out.writeInt(numOps);
+        b.writeTo(out);
+    }
+
+    private static int writePostfix(DataOutputStream out, ASTNode a, ArrayList<String> strings, HashMap<String, Integer> stringIds) throws IOException, UnsupportedSymbolException {
+        if(a instanceof Identifier) {
+            out.writeByte(OP_ID);
+            out.writeInt(stringId(a.toString(), strings, stringIds));
+            return 1;
+        }
+        if(a instanceof BooleanConstant) {
+            out.writeByte(OP_BOOL);
+            out.writeByte((int)a.getValue());
+            return 1;
+        }
+        if(a instanceof NumberConstant) {
+            out.writeByte(OP_INT);
+            out.writeLong(a.getValue());
+            return 1;
+        }
+        byte op;
+        if(a instanceof Negate) {
+            op=OP_NEGATE;
+        }
+        else if(a instanceof ShiftMapper) {
+            op=OP_SHIFT;
+        }
+        else if(a instanceof MultiplyMapper) {
+            op=OP_MULTIPLY;
+        }
+        else {
+            throw new UnsupportedSymbolException("Cannot write replacement expression: "+a);
+        }
+        int n=0;
+        for(int i=0; i<a.numChildren(); i++) {
+            n+=writePostfix(out, a.getChild(i), strings, stringIds);
+        }
+        out.writeByte(op);
+        return n+1;
+    }
+
+    ////////////////////////////////////////////////////////////////////////////
+    //  Reader
+
+    //  Read an .aux file in either format. Returns null if it cannot be read.
+    public static SymbolTable read(String filename) {
+        try {
+            FileChannel ch=new FileInputStream(filename).getChannel();
+            try {
+                MappedByteBuffer buf=ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+                if(hasMagic(buf)) {
+                    return readBinary(buf);
+                }
+            }
+            finally {
+                ch.close();
+            }
+
+            //  Java serialisation.
+            FileInputStream sts=new FileInputStream(filename);
+            ObjectInputStream in = new ObjectInputStream(sts);
+            SymbolTable st=(SymbolTable)in.readObject();
+            st.unmangle_after_serialization();
+            in.close();
+            sts.close();
+            return st;
+        }
+        catch (Exception e) {
+            CmdFlags.println(""+e);
+            return null;
+        }
+    }
+
+    private static boolean hasMagic(ByteBuffer buf) {
+        if(buf.remaining()<MAGIC.length+4) {
+            return false;
+        }
+        for(int i=0; i<MAGIC.length; i++) {
+            if(buf.get(i)!=MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static SymbolTable readBinary(ByteBuffer buf) throws IOException {
+        buf.position(MAGIC.length);
+        int version=buf.getInt();
+        if(version!=VERSION) {
+            throw new IOException("Unsupported .aux file version "+version);
+        }
+
+        String[] strings=new String[buf.getInt()];
+        for(int i=0; i<strings.length; i++) {
+            byte[] b=new byte[buf.getInt()];
+            buf.get(b);
+            strings[i]=new String(b, StandardCharsets.UTF_8);
+        }
+
+        SymbolTable st=new SymbolTable();
+
+        int numSymbols=buf.getInt();
+        for(int i=0; i<numSymbols; i++) {
+            String name=strings[buf.getInt()];
+            int cat=buf.getInt();
+            st.newVariable(name, readDomain(buf), cat);
+        }
+
+        int numReplaces=buf.getInt();
+        for(int i=0; i<numReplaces; i++) {
+            String name=strings[buf.getInt()];
+            String matname=strings[buf.getInt()];
+            int n=buf.getInt();
+            ArrayList<Long> idx=new ArrayList<Long>(n);
+            for(int j=0; j<n; j++) {
+                idx.add(buf.getLong());
+            }
+            st.replaces_matrix.put(name, new replaces_matrix_entry(matname, idx));
+        }
+
+        int numDeleted=buf.getInt();
+        for(int i=0; i<numDeleted; i++) {
+            String name=strings[buf.getInt()];
+            st.deleted_matrices.put(name, readDomain(buf));
+        }
+
+        int numReplacements=buf.getInt();
+        for(int i=0; i<numReplacements; i++) {
+            ASTNode key=readExpression(buf, strings);
+            ASTNode value=readExpression(buf, strings);
+            ASTNode dom=readDomain(buf);
+            int cat=buf.getInt();
+            st.replacements.put(key, value);
+            if(dom!=null) {
+                st.replacements_domains.put(key, dom);
+            }
+            if(cat!=ASTNode.Undeclared) {
+                st.replacements_category.put(key, cat);
+            }
+        }
+        return st;
+    }
+
+    private static ASTNode readDomain(ByteBuffer buf) {
+        byte kind=buf.get();
+        if(kind==DOM_NONE) {
+            return null;
+        }
+        if(kind==DOM_MATRIX) {
+            ASTNode base=readDomain(buf);
+            int n=buf.getInt();
+            ArrayList<ASTNode> idx=new ArrayList<ASTNode>(n);
+            for(int i=0; i<n; i++) {
+                idx.add(readDomain(buf));
+            }
+            return new MatrixDomain(base, idx);
+        }
+        int n=buf.getInt();
+        ArrayList<Intpair> intervals=new ArrayList<Intpair>(n);
+        for(int i=0; i<n; i++) {
+            long lower=buf.getLong();
+            long upper=buf.getLong();
+            intervals.add(new Intpair(lower, upper));
+        }
+        return Intpair.makeDomain(intervals, kind==DOM_BOOL);
+    }
+
+    private static ASTNode readExpression(ByteBuffer buf, String[] strings) {
+        int numOps=buf.getInt();
+        ArrayDeque<ASTNode> stack=new ArrayDeque<ASTNode>();
+        for(int i=0; i<numOps; i++) {
+            byte op=buf.get();
+            switch(op) {
+                case OP_ID:
+                    stack.push(new Identifier(null, strings[buf.getInt()]));
+                    break;
+                case OP_INT:
+                    stack.push(NumberConstant.make(buf.getLong()));
+                    break;
+                case OP_BOOL:
+                    stack.push(BooleanConstant.make(buf.get()!=0));
+                    break;
+                case OP_NEGATE:
+                    stack.push(new Negate(stack.pop()));
+                    break;
+                default: {
+                    ASTNode b=stack.pop();
+                    ASTNode a=stack.pop();
+                    stack.push(op==OP_SHIFT ? new ShiftMapper(a, b) : new MultiplyMapper(a, b));
+                }
+            }
+        }
+        assert stack.size()==1;
+        return stack.pop();
+    }
+}
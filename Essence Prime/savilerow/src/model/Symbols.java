@@ -0,0 +1,72 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+//  Interned symbol names. Each distinct name is given a dense integer id the
+//  first time it is seen, shared by all models in the process, so that
+//  identifiers can be compared and used as array indices without hashing
+//  strings. 
+
+public final class Symbols {
+    private static final ConcurrentHashMap<String, Integer> ids=new ConcurrentHashMap<String, Integer>();
+    private static volatile String[] names=new String[1024];
+    private static int count=0;
+    
+    private Symbols() {
+    }
+    
+    //  Id of a name, interning it if it is new.
+    public static int id(String name) {
+        Integer i=ids.get(name);
+        if(i!=null) {
+            return i;
+        }
+        return add(name);
+    }
+    
+    //  Id of a name, or -1 if it has never been interned. 
+    public static int lookup(String name) {
+        Integer i=ids.get(name);
+        return (i==null) ? -1 : i;
+    }
+    
+    public static String name(int sym) {
+        return names[sym];
+    }
+    
+    private static synchronized int add(String name) {
+        Integer i=ids.get(name);
+        if(i!=null) {
+            return i;
+        }
+        if(count==names.length) {
+            names=Arrays.copyOf(names, count*2);
+        }
+        String s=name.intern();
+        names[count]=s;   //  Written before the id is published.
+        ids.put(s, count);
+        return count++;
+    }
+}
@@ -0,0 +1,104 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  allDiff: removes assigned values from the other variables, and checks
+//  Hall intervals on the bounds when there are not too many variables. 
+
+public class PropAllDifferent extends Propagator {
+    private static final int maxHallVars=50;
+    
+    public PropAllDifferent(int[] x) {
+        vars=x;
+        priority=1;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        int n=vars.length;
+        for(int i=0; i<n; i++) {
+            if(e.isAssigned(vars[i])) {
+                long val=e.min(vars[i]);
+                for(int j=0; j<n; j++) {
+                    if(j!=i && !e.remove(vars[j], val)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        
+        if(n>maxHallVars) {
+            //  Pigeonhole check only. 
+            long lo=Long.MAX_VALUE;
+            long hi=Long.MIN_VALUE;
+            for(int v : vars) {
+                lo=Math.min(lo, e.min(v));
+                hi=Math.max(hi, e.max(v));
+            }
+            return hi-lo+1>=n;
+        }
+        
+        //  Each interval [l,u] made of a lower and an upper bound.
+        for(int i=0; i<n; i++) {
+            long l=e.min(vars[i]);
+            for(int j=0; j<n; j++) {
+                long u=e.max(vars[j]);
+                if(u<l) {
+                    continue;
+                }
+                int count=0;
+                for(int v : vars) {
+                    if(e.min(v)>=l && e.max(v)<=u) {
+                        count++;
+                    }
+                }
+                if(count>u-l+1) {
+                    return false;
+                }
+                if(count==u-l+1) {
+                    //  Hall interval: no other variable can take a value in [l,u].
+                    for(int v : vars) {
+                        if(e.min(v)>=l && e.max(v)<=u) {
+                            continue;
+                        }
+                        if(e.min(v)>=l && e.min(v)<=u && !e.setMin(v, u+1)) {
+                            return false;
+                        }
+                        if(e.max(v)>=l && e.max(v)<=u && !e.setMax(v, l-1)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+    
+    public Propagator negation() {
+        if(vars.length==2) {
+            return new PropEqual(vars[0], vars[1], 0);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,70 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  Conjunction of constraints, used when a conjunction is reified or negated. 
+
+public class PropAnd extends Propagator {
+    private ArrayList<Propagator> ps;
+    
+    public PropAnd(ArrayList<Propagator> _ps) {
+        ps=_ps;
+        vars=unionVars(ps);
+        priority=1;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        for(Propagator p : ps) {
+            if(!p.propagate(e)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    public int entailed(PropagationEngine e) {
+        boolean allTrue=true;
+        for(Propagator p : ps) {
+            int ent=p.entailed(e);
+            if(ent==FALSE) {
+                return FALSE;
+            }
+            allTrue=allTrue && ent==TRUE;
+        }
+        return allTrue ? TRUE : UNKNOWN;
+    }
+    
+    public Propagator negation() {
+        ArrayList<Propagator> neg=new ArrayList<Propagator>();
+        for(Propagator p : ps) {
+            Propagator n=p.negation();
+            if(n==null) {
+                return null;
+            }
+            neg.add(n);
+        }
+        return new PropOr(neg);
+    }
+}
@@ -0,0 +1,102 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  z = M[idx] where M is a one-dimensional matrix indexed from 1. 
+
+public class PropElement extends Propagator {
+    private int[] mat;
+    private int idx, z;
+    
+    public PropElement(int[] _mat, int _idx, int _z) {
+        mat=_mat;
+        idx=_idx;
+        z=_z;
+        vars=new int[mat.length+2];
+        System.arraycopy(mat, 0, vars, 0, mat.length);
+        vars[mat.length]=idx;
+        vars[mat.length+1]=z;
+        priority=1;
+    }
+    
+    //  Whether two domains may share a value. 
+    private static boolean intersects(PropagationEngine e, int a, int b) {
+        if(e.max(a)<e.min(b) || e.max(b)<e.min(a)) {
+            return false;
+        }
+        if(e.size(a)>e.size(b)) {
+            int tmp=a;
+            a=b;
+            b=tmp;
+        }
+        for(long val=e.min(a); val<=e.max(a); val=e.next(a, val)) {
+            if(e.contains(b, val)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        if(!e.setMin(idx, 1) || !e.setMax(idx, mat.length)) {
+            return false;
+        }
+        
+        for(long i=e.min(idx); i<=e.max(idx); i=e.next(idx, i)) {
+            if(!intersects(e, mat[(int)i-1], z) && !e.remove(idx, i)) {
+                return false;
+            }
+        }
+        
+        if(e.isAssigned(idx)) {
+            int m=mat[(int)e.min(idx)-1];
+            PropEqual eq=new PropEqual(m, z, 0);
+            return eq.propagate(e);
+        }
+        
+        //  Bounds of z, then its other values. 
+        long lo=Long.MAX_VALUE;
+        long hi=Long.MIN_VALUE;
+        for(long i=e.min(idx); i<=e.max(idx); i=e.next(idx, i)) {
+            lo=Math.min(lo, e.min(mat[(int)i-1]));
+            hi=Math.max(hi, e.max(mat[(int)i-1]));
+        }
+        if(!e.setMin(z, lo) || !e.setMax(z, hi)) {
+            return false;
+        }
+        if(!e.isBoundsOnly(z)) {
+            for(long val=e.min(z); val<=e.max(z); val=e.next(z, val)) {
+                boolean supported=false;
+                for(long i=e.min(idx); i<=e.max(idx) && !supported; i=e.next(idx, i)) {
+                    supported=e.contains(mat[(int)i-1], val);
+                }
+                if(!supported && !e.remove(z, val)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,79 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  x = y + k, with domain consistency.
+
+public class PropEqual extends Propagator {
+    private long k;
+    
+    public PropEqual(int x, int y, long _k) {
+        vars=new int[]{x, y};
+        k=_k;
+        priority=0;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        int x=vars[0];
+        int y=vars[1];
+        if(!e.setMin(x, e.min(y)+k) || !e.setMax(x, e.max(y)+k)
+            || !e.setMin(y, e.min(x)-k) || !e.setMax(y, e.max(x)-k)) {
+            return false;
+        }
+        //  Remove values without support. Each removal is at most once per value
+        //  because the propagator is woken again by its own changes. 
+        if(!e.isBoundsOnly(x)) {
+            for(long val=e.min(x); val<=e.max(x); val=e.next(x, val)) {
+                if(!e.contains(y, val-k) && !e.remove(x, val)) {
+                    return false;
+                }
+            }
+        }
+        if(!e.isBoundsOnly(y)) {
+            for(long val=e.min(y); val<=e.max(y); val=e.next(y, val)) {
+                if(!e.contains(x, val+k) && !e.remove(y, val)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    public int entailed(PropagationEngine e) {
+        int x=vars[0];
+        int y=vars[1];
+        if(e.max(x)<e.min(y)+k || e.min(x)>e.max(y)+k) {
+            return FALSE;
+        }
+        if(e.isAssigned(x) && e.isAssigned(y)) {
+            return e.min(x)==e.min(y)+k ? TRUE : FALSE;
+        }
+        return UNKNOWN;
+    }
+    
+    public Propagator negation() {
+        return new PropNotEqual(vars[0], vars[1], k);
+    }
+}
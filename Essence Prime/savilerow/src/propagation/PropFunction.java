@@ -0,0 +1,191 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  z = f(x) or z = f(x,y) for the functions in ASTNode.func, such as product,
+//  division and modulo. Domain consistency by enumerating the combinations of
+//  values of the arguments, when there are not too many.
+
+public class PropFunction extends Propagator {
+    private static final long maxCombinations=10000;
+    
+    private ASTNode f;
+    private boolean unary;
+    
+    //  y is -1 for a unary function. 
+    public PropFunction(ASTNode _f, int x, int y, int z) {
+        f=_f;
+        unary=(y==-1);
+        vars=unary ? new int[]{x, z} : new int[]{x, y, z};
+        priority=2;
+    }
+    
+    //  Whether f is defined for these arguments. Where it is not, any value of z
+    //  is allowed, so this never removes more than the solver's own propagator. 
+    private boolean defined(long a, long b) {
+        if(f instanceof Divide || f instanceof Mod) {
+            return b!=0;
+        }
+        if(f instanceof Power) {
+            return b>0 || (b==0 && a!=0);
+        }
+        return true;
+    }
+    
+    private long apply(long a, long b) {
+        if(unary) {
+            //  Absolute value is the only unary function.
+            return a<0 ? -a : a;
+        }
+        if(f instanceof Times) {
+            //  Avoid BigInteger in Times.func unless the product overflows.
+            try {
+                return Math.multiplyExact(a, b);
+            }
+            catch(ArithmeticException ex) {
+            }
+        }
+        return f.func(a, b);
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        int x=vars[0];
+        int y=unary ? -1 : vars[1];
+        int z=vars[vars.length-1];
+        
+        if(f instanceof Times && !timesBounds(e, x, y, z)) {
+            return false;
+        }
+        
+        long combinations=e.size(x);
+        if(!unary) {
+            combinations=(e.size(y)>maxCombinations) ? maxCombinations+1 : combinations*e.size(y);
+        }
+        if(combinations>maxCombinations) {
+            return true;
+        }
+        
+        long[] xs=values(e, x);
+        long[] ys=unary ? new long[]{0} : values(e, y);
+        long[] zs=(e.isBoundsOnly(z) || e.size(z)>maxCombinations) ? null : values(e, z);
+        boolean[] sx=new boolean[xs.length];
+        boolean[] sy=new boolean[ys.length];
+        boolean[] sz=(zs==null) ? null : new boolean[zs.length];
+        long zlo=Long.MAX_VALUE;
+        long zhi=Long.MIN_VALUE;
+        boolean anyZ=false;   //  An undefined combination supports every value of z. 
+        
+        for(int i=0; i<xs.length; i++) {
+            for(int j=0; j<ys.length; j++) {
+                if(!defined(xs[i], ys[j])) {
+                    sx[i]=true;
+                    sy[j]=true;
+                    anyZ=true;
+                    continue;
+                }
+                long c=apply(xs[i], ys[j]);
+                if(zs!=null) {
+                    int k=Arrays.binarySearch(zs, c);
+                    if(k>=0) {
+                        sx[i]=true;
+                        sy[j]=true;
+                        sz[k]=true;
+                    }
+                }
+                else if(e.contains(z, c)) {
+                    sx[i]=true;
+                    sy[j]=true;
+                    zlo=Math.min(zlo, c);
+                    zhi=Math.max(zhi, c);
+                }
+            }
+        }
+        
+        if(!restrict(e, x, xs, sx) || (!unary && !restrict(e, y, ys, sy))) {
+            return false;
+        }
+        if(!anyZ) {
+            if(zs!=null) {
+                return restrict(e, z, zs, sz);
+            }
+            return zlo<=zhi && e.setMin(z, zlo) && e.setMax(z, zhi);
+        }
+        return true;
+    }
+    
+    //  Bounds reasoning for products, where the domains are too large to enumerate.
+    //  Bounds of x and y are only narrowed when x, y and z are non-negative.
+    private static boolean timesBounds(PropagationEngine e, int x, int y, int z) {
+        long zmin=Long.MAX_VALUE;
+        long zmax=Long.MIN_VALUE;
+        try {
+            for(long a : new long[]{e.min(x), e.max(x)}) {
+                for(long b : new long[]{e.min(y), e.max(y)}) {
+                    long c=Math.multiplyExact(a, b);
+                    zmin=Math.min(zmin, c);
+                    zmax=Math.max(zmax, c);
+                }
+            }
+        }
+        catch(ArithmeticException ex) {
+            return true;
+        }
+        if(!e.setMin(z, zmin) || !e.setMax(z, zmax)) {
+            return false;
+        }
+        if(e.min(x)>=0 && e.min(y)>=0 && e.min(z)>=0) {
+            for(int i=0; i<2; i++) {
+                int v=(i==0) ? x : y;
+                int w=(i==0) ? y : x;
+                if(e.max(w)>0 && !e.setMin(v, -Math.floorDiv(-e.min(z), e.max(w)))) {
+                    return false;
+                }
+                if(e.min(w)>0 && !e.setMax(v, Math.floorDiv(e.max(z), e.min(w)))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private static long[] values(PropagationEngine e, int v) {
+        long[] a=new long[(int)e.size(v)];
+        int i=0;
+        for(long val=e.min(v); val<=e.max(v); val=e.next(v, val)) {
+            a[i++]=val;
+        }
+        return a;
+    }
+    
+    //  Remove the values of v that are not supported. 
+    private static boolean restrict(PropagationEngine e, int v, long[] vals, boolean[] supported) {
+        for(int i=0; i<vals.length; i++) {
+            if(!supported[i] && !e.remove(v, vals[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,75 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  p <-> q for two constraints. Where one side has no negation, only the
+//  other direction is enforced when it is false. 
+
+public class PropIff extends Propagator {
+    private Propagator p, q, notp, notq;
+    
+    public PropIff(Propagator _p, Propagator _q) {
+        p=_p;
+        q=_q;
+        notp=p.negation();
+        notq=q.negation();
+        ArrayList<Propagator> l=new ArrayList<Propagator>();
+        l.add(p);
+        l.add(q);
+        vars=unionVars(l);
+        priority=1;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        int ep=p.entailed(e);
+        if(ep==TRUE) {
+            return q.propagate(e);
+        }
+        if(ep==FALSE) {
+            return notq==null || notq.propagate(e);
+        }
+        int eq=q.entailed(e);
+        if(eq==TRUE) {
+            return p.propagate(e);
+        }
+        if(eq==FALSE) {
+            return notp==null || notp.propagate(e);
+        }
+        return true;
+    }
+    
+    public int entailed(PropagationEngine e) {
+        int ep=p.entailed(e);
+        int eq=q.entailed(e);
+        if(ep==UNKNOWN || eq==UNKNOWN) {
+            return UNKNOWN;
+        }
+        return ep==eq ? TRUE : FALSE;
+    }
+    
+    public Propagator negation() {
+        return notq==null ? null : new PropIff(p, notq);
+    }
+}
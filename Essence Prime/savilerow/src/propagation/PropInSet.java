@@ -0,0 +1,127 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  x in S, or x not in S when negated. S is a sorted list of disjoint intervals. 
+//  Also used for boolean literals, as x in {1} or x in {0}.
+
+public class PropInSet extends Propagator {
+    private ArrayList<Intpair> set;
+    private boolean negated;
+    
+    public PropInSet(int x, ArrayList<Intpair> _set, boolean _negated) {
+        vars=new int[]{x};
+        set=_set;
+        negated=_negated;
+        priority=0;
+    }
+    
+    //  Index of the first interval with upper bound >= val.
+    private int findInterval(long val) {
+        int lo=0;
+        int hi=set.size();
+        while(lo<hi) {
+            int mid=(lo+hi)>>>1;
+            if(set.get(mid).upper<val) {
+                lo=mid+1;
+            }
+            else {
+                hi=mid;
+            }
+        }
+        return lo;
+    }
+    
+    private boolean inSet(long val) {
+        int i=findInterval(val);
+        return i<set.size() && set.get(i).lower<=val;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        int x=vars[0];
+        if(!negated) {
+            int i=findInterval(e.min(x));
+            if(i==set.size()) {
+                return false;
+            }
+            if(!e.setMin(x, set.get(i).lower)) {
+                return false;
+            }
+            int j=findInterval(e.max(x));
+            if(j==set.size() || set.get(j).lower>e.max(x)) {
+                j--;
+            }
+            if(j<0 || !e.setMax(x, set.get(j).upper)) {
+                return false;
+            }
+            if(!e.isBoundsOnly(x)) {
+                for(long val=e.min(x); val<=e.max(x); val=e.next(x, val)) {
+                    if(!inSet(val) && !e.remove(x, val)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        else {
+            for(int i=findInterval(e.min(x)); i<set.size() && set.get(i).lower<=e.max(x); i++) {
+                Intpair p=set.get(i);
+                if(p.lower<=e.min(x) && !e.setMin(x, p.upper+1)) {
+                    return false;
+                }
+                if(p.upper>=e.max(x) && !e.setMax(x, p.lower-1)) {
+                    return false;
+                }
+                if(!e.isBoundsOnly(x)) {
+                    for(long val=Math.max(p.lower, e.min(x)); val<=Math.min(p.upper, e.max(x)); val=e.next(x, val)) {
+                        if(!e.remove(x, val)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+    
+    public int entailed(PropagationEngine e) {
+        int x=vars[0];
+        int i=findInterval(e.min(x));
+        int res=UNKNOWN;
+        if(i<set.size() && set.get(i).lower<=e.min(x) && set.get(i).upper>=e.max(x)) {
+            res=TRUE;   //  Domain is within one interval of the set.
+        }
+        else if(i==set.size() || set.get(i).lower>e.max(x)) {
+            res=FALSE;  //  Domain is within a gap of the set. 
+        }
+        if(negated && res!=UNKNOWN) {
+            res=1-res;
+        }
+        return res;
+    }
+    
+    public Propagator negation() {
+        return new PropInSet(vars[0], set, !negated);
+    }
+}
@@ -0,0 +1,107 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  Linear inequality sum_i a_i x_i <= c, with bounds reasoning.
+
+public class PropLinear extends Propagator {
+    private long[] a;
+    private long c;
+    
+    public PropLinear(long[] _a, int[] _x, long _c) {
+        a=_a;
+        vars=_x;
+        c=_c;
+        priority=0;
+    }
+    
+    //  Smallest and largest values of the sum, or null on overflow.
+    private long[] sumBounds(PropagationEngine e) {
+        try {
+            long min=0;
+            long max=0;
+            for(int i=0; i<vars.length; i++) {
+                long l=Math.multiplyExact(a[i], e.min(vars[i]));
+                long u=Math.multiplyExact(a[i], e.max(vars[i]));
+                min=Math.addExact(min, Math.min(l, u));
+                max=Math.addExact(max, Math.max(l, u));
+            }
+            return new long[]{min, max};
+        }
+        catch(ArithmeticException ex) {
+            return null;
+        }
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        long[] b=sumBounds(e);
+        if(b==null) {
+            return true;
+        }
+        if(b[0]>c) {
+            return false;
+        }
+        long slack=c-b[0];
+        for(int i=0; i<vars.length; i++) {
+            int v=vars[i];
+            if(a[i]>0) {
+                //  a x - a min(x) <= slack
+                long room=Math.floorDiv(slack, a[i]);
+                if(e.max(v)-e.min(v)>room && !e.setMax(v, e.min(v)+room)) {
+                    return false;
+                }
+            }
+            else if(a[i]<0) {
+                long room=Math.floorDiv(slack, -a[i]);
+                if(e.max(v)-e.min(v)>room && !e.setMin(v, e.max(v)-room)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    public int entailed(PropagationEngine e) {
+        long[] b=sumBounds(e);
+        if(b==null) {
+            return UNKNOWN;
+        }
+        if(b[1]<=c) {
+            return TRUE;
+        }
+        if(b[0]>c) {
+            return FALSE;
+        }
+        return UNKNOWN;
+    }
+    
+    public Propagator negation() {
+        long[] na=new long[a.length];
+        for(int i=0; i<a.length; i++) {
+            na[i]=-a[i];
+        }
+        return new PropLinear(na, vars, -c-1);
+    }
+}
@@ -0,0 +1,103 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  z = min(x_1..x_n) or z = max(x_1..x_n), with bounds reasoning. 
+
+public class PropMinMax extends Propagator {
+    private boolean isMax;
+    private int[] x;
+    private int z;
+    
+    public PropMinMax(boolean _isMax, int[] _x, int _z) {
+        isMax=_isMax;
+        x=_x;
+        z=_z;
+        vars=Arrays.copyOf(x, x.length+1);
+        vars[x.length]=z;
+        priority=1;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        if(isMax) {
+            long lo=Long.MIN_VALUE;
+            long hi=Long.MIN_VALUE;
+            for(int v : x) {
+                lo=Math.max(lo, e.min(v));
+                hi=Math.max(hi, e.max(v));
+            }
+            if(!e.setMin(z, lo) || !e.setMax(z, hi)) {
+                return false;
+            }
+            //  Every x is at most z, and some x reaches the lower bound of z.
+            int support=-1;
+            int count=0;
+            for(int v : x) {
+                if(!e.setMax(v, e.max(z))) {
+                    return false;
+                }
+                if(e.max(v)>=e.min(z)) {
+                    support=v;
+                    count++;
+                }
+            }
+            if(count==0) {
+                return false;
+            }
+            if(count==1 && !e.setMin(support, e.min(z))) {
+                return false;
+            }
+        }
+        else {
+            long lo=Long.MAX_VALUE;
+            long hi=Long.MAX_VALUE;
+            for(int v : x) {
+                lo=Math.min(lo, e.min(v));
+                hi=Math.min(hi, e.max(v));
+            }
+            if(!e.setMin(z, lo) || !e.setMax(z, hi)) {
+                return false;
+            }
+            int support=-1;
+            int count=0;
+            for(int v : x) {
+                if(!e.setMin(v, e.min(z))) {
+                    return false;
+                }
+                if(e.min(v)<=e.max(z)) {
+                    support=v;
+                    count++;
+                }
+            }
+            if(count==0) {
+                return false;
+            }
+            if(count==1 && !e.setMax(support, e.max(z))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,65 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  x != y + k
+
+public class PropNotEqual extends Propagator {
+    private long k;
+    
+    public PropNotEqual(int x, int y, long _k) {
+        vars=new int[]{x, y};
+        k=_k;
+        priority=0;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        int x=vars[0];
+        int y=vars[1];
+        if(e.isAssigned(y) && !e.remove(x, e.min(y)+k)) {
+            return false;
+        }
+        if(e.isAssigned(x) && !e.remove(y, e.min(x)-k)) {
+            return false;
+        }
+        return true;
+    }
+    
+    public int entailed(PropagationEngine e) {
+        int x=vars[0];
+        int y=vars[1];
+        if(e.max(x)<e.min(y)+k || e.min(x)>e.max(y)+k) {
+            return TRUE;
+        }
+        if(e.isAssigned(x) && e.isAssigned(y)) {
+            return e.min(x)==e.min(y)+k ? FALSE : TRUE;
+        }
+        return UNKNOWN;
+    }
+    
+    public Propagator negation() {
+        return new PropEqual(vars[0], vars[1], k);
+    }
+}
@@ -0,0 +1,83 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  Disjunction of constraints. Propagates the last one that is not entailed false. 
+
+public class PropOr extends Propagator {
+    private ArrayList<Propagator> ps;
+    
+    public PropOr(ArrayList<Propagator> _ps) {
+        ps=_ps;
+        vars=unionVars(ps);
+        priority=1;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        Propagator last=null;
+        int count=0;
+        for(Propagator p : ps) {
+            int ent=p.entailed(e);
+            if(ent==TRUE) {
+                return true;
+            }
+            if(ent==UNKNOWN) {
+                count++;
+                last=p;
+            }
+        }
+        if(count==0) {
+            return false;
+        }
+        if(count==1) {
+            return last.propagate(e);
+        }
+        return true;
+    }
+    
+    public int entailed(PropagationEngine e) {
+        boolean allFalse=true;
+        for(Propagator p : ps) {
+            int ent=p.entailed(e);
+            if(ent==TRUE) {
+                return TRUE;
+            }
+            allFalse=allFalse && ent==FALSE;
+        }
+        return allFalse ? FALSE : UNKNOWN;
+    }
+    
+    public Propagator negation() {
+        ArrayList<Propagator> neg=new ArrayList<Propagator>();
+        for(Propagator p : ps) {
+            Propagator n=p.negation();
+            if(n==null) {
+                return null;
+            }
+            neg.add(n);
+        }
+        return new PropAnd(neg);
+    }
+}
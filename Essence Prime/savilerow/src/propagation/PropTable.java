@@ -0,0 +1,80 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  Positive table constraint, with domain consistency by scanning the tuples. 
+
+public class PropTable extends Propagator {
+    private long[][] tuples;
+    
+    public PropTable(int[] x, long[][] _tuples) {
+        vars=x;
+        tuples=_tuples;
+        priority=2;
+    }
+    
+    public boolean propagate(PropagationEngine e) {
+        int n=vars.length;
+        ArrayList<HashSet<Long>> supported=new ArrayList<HashSet<Long>>(n);
+        for(int i=0; i<n; i++) {
+            supported.add(new HashSet<Long>());
+        }
+        
+        boolean any=false;
+        for(long[] t : tuples) {
+            boolean valid=true;
+            for(int i=0; i<n && valid; i++) {
+                valid=e.contains(vars[i], t[i]);
+            }
+            if(valid) {
+                any=true;
+                for(int i=0; i<n; i++) {
+                    supported.get(i).add(t[i]);
+                }
+            }
+        }
+        if(!any) {
+            return false;
+        }
+        
+        for(int i=0; i<n; i++) {
+            int v=vars[i];
+            HashSet<Long> s=supported.get(i);
+            if(e.isBoundsOnly(v)) {
+                if(!e.setMin(v, Collections.min(s)) || !e.setMax(v, Collections.max(s))) {
+                    return false;
+                }
+            }
+            else if(s.size()<e.size(v)) {
+                for(long val=e.min(v); val<=e.max(v); val=e.next(v, val)) {
+                    if(!s.contains(val) && !e.remove(v, val)) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+}
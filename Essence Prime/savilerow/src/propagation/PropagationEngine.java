@@ -0,0 +1,569 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  Built-in propagation engine used for domain filtering (-reduce-domains) and 
+//  mutex detection (-amo-detect) in place of running Minion. 
+//  Each variable has trailed bounds, and a bitset of values when the initial
+//  domain is not too large. Propagators are queued by priority and run to a
+//  fixpoint; the SAC tests of the -preprocess option are done by probing
+//  under a new trail level.
+
+public class PropagationEngine {
+    private static final long maxBitsetSize=1L<<20;
+    private static final int limitPasses=10;      //  Passes over the variables for the _limit probing levels,
+    private static final int limitShaves=100;     //  and values removed from each bound of a variable in each pass.
+    private static final long maxProbeValues=1000; //  Larger domains only have their bounds probed by SAC.
+    
+    private Model m;
+    
+    //  Variables. Constants in constraints are represented as extra variables
+    //  with a single value; these come after the model variables. 
+    private int numVars=0;
+    private int numModelVars;
+    private ArrayList<String> names=new ArrayList<String>();
+    private HashMap<String, Integer> varIndex=new HashMap<String, Integer>();
+    private HashMap<Long, Integer> constIndex=new HashMap<Long, Integer>();
+    private long[] lb=new long[16];
+    private long[] ub=new long[16];
+    private long[] base=new long[16];     //  Value represented by bit 0. 
+    private long[][] bits=new long[16][];  //  null for variables with bounds only. 
+    private ArrayList<ArrayList<Propagator>> watchers=new ArrayList<ArrayList<Propagator>>();
+    
+    //  Trail. what is -1 for a lower bound, -2 for an upper bound, otherwise a word of the bitset.
+    private int[] tVar=new int[1024];
+    private int[] tWhat=new int[1024];
+    private long[] tOld=new long[1024];
+    private int tSize=0;
+    private int[] levels=new int[16];
+    private int numLevels=0;
+    
+    //  Scheduler
+    private ArrayList<Propagator> props=new ArrayList<Propagator>();
+    private ArrayList<ArrayDeque<Propagator>> queues=new ArrayList<ArrayDeque<Propagator>>();
+    
+    public PropagationEngine(Model _m) {
+        m=_m;
+        for(int i=0; i<3; i++) {
+            queues.add(new ArrayDeque<Propagator>());
+        }
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    //  Domain filtering. Returns find statements with the filtered domains of
+    //  all decision and auxiliary variables, as MinionSolver.reduceDomains does. 
+    
+    public ArrayList<ASTNode> reduceDomains() {
+        long starttime=System.currentTimeMillis();
+        
+        categoryentry itr=m.global_symbols.getCategoryFirst();
+        while(itr != null) {
+            if(itr.cat == ASTNode.Decision || itr.cat == ASTNode.Auxiliary) {
+                addVariable(itr.name, m.global_symbols.getDomain(itr.name).getIntervalSet());
+            }
+            itr=itr.next;
+        }
+        numModelVars=numVars;
+        
+        PropagatorFactory pf=new PropagatorFactory(this);
+        pf.postConstraints(m.constraints.getChild(0));
+        
+        boolean ok=propagate() && probe();
+        
+        CmdFlags.printlnIfVerbose("Propagation engine: "+props.size()+" propagators, "+pf.getNumUnsupported()+" constraints not propagated, "
+            +(System.currentTimeMillis()-starttime)+" ms");
+        
+        ArrayList<ASTNode> findstatements=new ArrayList<ASTNode>();
+        for(int v=0; v<numModelVars; v++) {
+            ASTNode dom;
+            if(ok) {
+                dom=Intpair.makeDomain(getIntervals(v), false);
+            }
+            else {
+                dom=new IntegerDomain(new EmptyRange());
+            }
+            findstatements.add(new Find(new Identifier(m, names.get(v)), dom));
+        }
+        
+        if(ok && CmdFlags.amo_detect && !TimeBudget.exceeded(TimeBudget.FILTER)) {
+            detectMutexes();
+        }
+        
+        return findstatements;
+    }
+    
+    //  Probing as set by -preprocess, with SACBounds_limit by default. 
+    private boolean probe() {
+        String level=CmdFlags.getPreprocess()!=null ? CmdFlags.getPreprocess() : "SACBounds_limit";
+        if(level.equals("None") || level.equals("GAC")) {
+            return true;
+        }
+        boolean allValues=!level.contains("Bounds");
+        int maxPasses=level.endsWith("_limit") ? limitPasses : Integer.MAX_VALUE;
+        int maxShaves=level.endsWith("_limit") ? limitShaves : Integer.MAX_VALUE;
+        
+        boolean changed=true;
+        for(int pass=0; changed && pass<maxPasses; pass++) {
+            changed=false;
+            for(int v=0; v<numModelVars; v++) {
+                if(TimeBudget.exceeded(TimeBudget.FILTER)) {
+                    return true;   //  Domains are sound at any point.
+                }
+                if(lb[v]==ub[v]) {
+                    continue;
+                }
+                if(allValues && bits[v]!=null && size(v)<=maxProbeValues) {
+                    for(long x=lb[v]; x<=ub[v]; x=next(v, x)) {
+                        if(!tryAssign(v, x)) {
+                            if(!remove(v, x) || !propagate()) {
+                                return false;
+                            }
+                            changed=true;
+                        }
+                    }
+                }
+                else {
+                    for(int k=0; k<maxShaves && !tryAssign(v, lb[v]); k++) {
+                        if(!setMin(v, lb[v]+1) || !propagate()) {
+                            return false;
+                        }
+                        changed=true;
+                    }
+                    for(int k=0; k<maxShaves && !tryAssign(v, ub[v]); k++) {
+                        if(!setMax(v, ub[v]-1) || !propagate()) {
+                            return false;
+                        }
+                        changed=true;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+    
+    //  Test whether v=x survives propagation, leaving the domains unchanged.
+    private boolean tryAssign(int v, long x) {
+        pushLevel();
+        boolean ok=assign(v, x) && propagate();
+        popLevel();
+        return ok;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    //  Mutexes between boolean literals, passed to AMODetect. 
+    
+    private void detectMutexes() {
+        long amo_count=0;
+        
+        if(CmdFlags.amo_detect_strong) {
+            //  Test the candidate pairs from sums.
+            int first=AMODetect.mutexDetect.size();
+            AMODetect.collectMutexCandidates(m);
+            for(int j=first; j<AMODetect.mutexDetect.size(); j++) {
+                Pair<Pair<ASTNode,ASTNode>, Pair<Boolean, Boolean>> p=AMODetect.mutexDetect.get(j);
+                Integer v1=varIndex.get(p.getFirst().getFirst().toString());
+                Integer v2=varIndex.get(p.getFirst().getSecond().toString());
+                if(v1!=null && v2!=null) {
+                    pushLevel();
+                    boolean ok=assign(v1, p.getSecond().getFirst()?1:0) && assign(v2, p.getSecond().getSecond()?1:0) && propagate();
+                    popLevel();
+                    if(!ok) {
+                        AMODetect.addEdge(j);
+                        amo_count++;
+                    }
+                }
+            }
+        }
+        else {
+            //  Set each literal in turn and collect the boolean variables it fixes. 
+            boolean[] isbool=new boolean[numModelVars];
+            int[] amoidx=new int[numModelVars];
+            for(int v=0; v<numModelVars; v++) {
+                if(m.global_symbols.getDomain(names.get(v)).isBooleanSet()) {
+                    isbool[v]=true;
+                    amoidx[v]=AMODetect.add_variable_amo(names.get(v));
+                }
+            }
+            
+            for(int v=0; v<numModelVars; v++) {
+                if(isbool[v] && lb[v]!=ub[v]) {
+                    for(int val=1; val>=0; val--) {
+                        int lit=(val==1) ? amoidx[v] : -amoidx[v];
+                        pushLevel();
+                        int start=tSize;
+                        if(assign(v, val) && propagate()) {
+                            for(int t=start; t<tSize; t++) {
+                                int w=tVar[t];
+                                //  Each boolean is trailed once, when it is assigned. 
+                                if(w!=v && w<numModelVars && isbool[w]) {
+                                    AMODetect.addEdge(lit, (lb[w]==0) ? amoidx[w] : -amoidx[w]);
+                                    amo_count++;
+                                }
+                            }
+                        }
+                        popLevel();
+                    }
+                }
+            }
+        }
+        
+        if(CmdFlags.amo_detect) {
+            System.out.println("Found "+amo_count+" mutexes");
+        }
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    //  Variables
+    
+    private int addVariable(String name, ArrayList<Intpair> intervals) {
+        int v=numVars++;
+        if(v==lb.length) {
+            int n=2*lb.length;
+            lb=Arrays.copyOf(lb, n);
+            ub=Arrays.copyOf(ub, n);
+            base=Arrays.copyOf(base, n);
+            bits=Arrays.copyOf(bits, n);
+        }
+        names.add(name);
+        watchers.add(new ArrayList<Propagator>());
+        if(name!=null) {
+            varIndex.put(name, v);
+        }
+        
+        if(intervals.size()==0) {
+            //  Empty domain; the model has no solutions. 
+            lb[v]=1;
+            ub[v]=0;
+            return v;
+        }
+        lb[v]=intervals.get(0).lower;
+        ub[v]=intervals.get(intervals.size()-1).upper;
+        base[v]=lb[v];
+        if(lb[v]<ub[v] && ub[v]-lb[v]<maxBitsetSize) {
+            long[] b=new long[(int)((ub[v]-lb[v])/64)+1];
+            for(Intpair p : intervals) {
+                for(long x=p.lower; x<=p.upper; x++) {
+                    long i=x-lb[v];
+                    b[(int)(i>>>6)] |= 1L<<(i & 63);
+                }
+            }
+            bits[v]=b;
+        }
+        else if(lb[v]<ub[v]) {
+            CmdFlags.printlnIfVerbose("Propagation engine: using bounds only for variable "+name);
+        }
+        return v;
+    }
+    
+    //  Index of a variable, or -1 if there is no such variable.
+    public int getVariable(String name) {
+        Integer v=varIndex.get(name);
+        return v==null ? -1 : v;
+    }
+    
+    //  Variable with a single value, for constants in constraints. 
+    public int getConstant(long val) {
+        Integer v=constIndex.get(val);
+        if(v==null) {
+            ArrayList<Intpair> d=new ArrayList<Intpair>();
+            d.add(new Intpair(val, val));
+            v=addVariable(null, d);
+            constIndex.put(val, v);
+        }
+        return v;
+    }
+    
+    public long min(int v) {
+        return lb[v];
+    }
+    
+    public long max(int v) {
+        return ub[v];
+    }
+    
+    //  True if values can only be removed at the bounds.
+    public boolean isBoundsOnly(int v) {
+        return bits[v]==null;
+    }
+    
+    public boolean isAssigned(int v) {
+        return lb[v]==ub[v];
+    }
+    
+    public boolean contains(int v, long x) {
+        if(x<lb[v] || x>ub[v]) {
+            return false;
+        }
+        if(bits[v]==null) {
+            return true;
+        }
+        long i=x-base[v];
+        return (bits[v][(int)(i>>>6)] & (1L<<(i & 63))) != 0;
+    }
+    
+    //  Smallest value in the domain greater than x, or Long.MAX_VALUE.
+    public long next(int v, long x) {
+        if(x>=ub[v]) {
+            return Long.MAX_VALUE;
+        }
+        if(x<lb[v]) {
+            return lb[v];
+        }
+        if(bits[v]==null) {
+            return x+1;
+        }
+        return nextInBits(v, x+1);
+    }
+    
+    //  Number of values in the domain.
+    public long size(int v) {
+        if(lb[v]>ub[v]) {
+            return 0;
+        }
+        if(bits[v]==null) {
+            return ub[v]-lb[v]+1;
+        }
+        long[] b=bits[v];
+        long lo=lb[v]-base[v];
+        long hi=ub[v]-base[v];
+        int wlo=(int)(lo>>>6);
+        int whi=(int)(hi>>>6);
+        long count=0;
+        for(int w=wlo; w<=whi; w++) {
+            long word=b[w];
+            if(w==wlo) {
+                word &= -1L<<(lo & 63);
+            }
+            if(w==whi && (hi & 63)!=63) {
+                word &= (1L<<((hi & 63)+1))-1;
+            }
+            count+=Long.bitCount(word);
+        }
+        return count;
+    }
+    
+    //  The domain as a list of intervals.
+    public ArrayList<Intpair> getIntervals(int v) {
+        ArrayList<Intpair> l=new ArrayList<Intpair>();
+        long x=lb[v];
+        while(x<=ub[v]) {
+            long y=x;
+            while(y<ub[v] && contains(v, y+1)) {
+                y++;
+            }
+            l.add(new Intpair(x, y));
+            if(y>=ub[v]) {
+                break;
+            }
+            x=next(v, y);
+        }
+        return l;
+    }
+    
+    //  First value >= x that is in the bitset, assuming one exists up to ub.
+    private long nextInBits(int v, long x) {
+        long[] b=bits[v];
+        long i=x-base[v];
+        int w=(int)(i>>>6);
+        long word=b[w] & (-1L<<(i & 63));
+        while(word==0) {
+            word=b[++w];
+        }
+        return base[v]+((long)w<<6)+Long.numberOfTrailingZeros(word);
+    }
+    
+    //  Last value <= x that is in the bitset, assuming one exists down to lb.
+    private long prevInBits(int v, long x) {
+        long[] b=bits[v];
+        long i=x-base[v];
+        int w=(int)(i>>>6);
+        long word=b[w] & (-1L>>>(63-(i & 63)));
+        while(word==0) {
+            word=b[--w];
+        }
+        return base[v]+((long)w<<6)+63-Long.numberOfLeadingZeros(word);
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    //  Domain changes. Each returns false if the domain becomes empty. 
+    
+    public boolean setMin(int v, long x) {
+        if(x<=lb[v]) {
+            return true;
+        }
+        if(x>ub[v]) {
+            return false;
+        }
+        if(bits[v]!=null) {
+            x=nextInBits(v, x);
+        }
+        trail(v, -1, lb[v]);
+        lb[v]=x;
+        changed(v);
+        return true;
+    }
+    
+    public boolean setMax(int v, long x) {
+        if(x>=ub[v]) {
+            return true;
+        }
+        if(x<lb[v]) {
+            return false;
+        }
+        if(bits[v]!=null) {
+            x=prevInBits(v, x);
+        }
+        trail(v, -2, ub[v]);
+        ub[v]=x;
+        changed(v);
+        return true;
+    }
+    
+    public boolean assign(int v, long x) {
+        if(!contains(v, x)) {
+            return false;
+        }
+        return setMin(v, x) && setMax(v, x);
+    }
+    
+    public boolean remove(int v, long x) {
+        if(!contains(v, x)) {
+            return true;
+        }
+        if(x==lb[v]) {
+            return setMin(v, x+1);
+        }
+        if(x==ub[v]) {
+            return setMax(v, x-1);
+        }
+        if(bits[v]!=null) {
+            long i=x-base[v];
+            int w=(int)(i>>>6);
+            trail(v, w, bits[v][w]);
+            bits[v][w] &= ~(1L<<(i & 63));
+            changed(v);
+        }
+        return true;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    //  Trail
+    
+    private void trail(int v, int what, long old) {
+        if(numLevels==0) {
+            return;   //  Changes at the root are never undone.
+        }
+        if(tSize==tVar.length) {
+            int n=2*tSize;
+            tVar=Arrays.copyOf(tVar, n);
+            tWhat=Arrays.copyOf(tWhat, n);
+            tOld=Arrays.copyOf(tOld, n);
+        }
+        tVar[tSize]=v;
+        tWhat[tSize]=what;
+        tOld[tSize]=old;
+        tSize++;
+    }
+    
+    private void pushLevel() {
+        if(numLevels==levels.length) {
+            levels=Arrays.copyOf(levels, 2*numLevels);
+        }
+        levels[numLevels++]=tSize;
+    }
+    
+    private void popLevel() {
+        int start=levels[--numLevels];
+        while(tSize>start) {
+            tSize--;
+            int v=tVar[tSize];
+            int what=tWhat[tSize];
+            if(what==-1) {
+                lb[v]=tOld[tSize];
+            }
+            else if(what==-2) {
+                ub[v]=tOld[tSize];
+            }
+            else {
+                bits[v][what]=tOld[tSize];
+            }
+        }
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    //  Scheduler
+    
+    public void addPropagator(Propagator p) {
+        props.add(p);
+        for(int v : p.vars) {
+            watchers.get(v).add(p);
+        }
+        enqueue(p);
+    }
+    
+    private void enqueue(Propagator p) {
+        if(!p.queued) {
+            p.queued=true;
+            queues.get(p.priority).add(p);
+        }
+    }
+    
+    private void changed(int v) {
+        ArrayList<Propagator> w=watchers.get(v);
+        for(int i=0; i<w.size(); i++) {
+            enqueue(w.get(i));
+        }
+    }
+    
+    //  Run propagators until the queues are empty. Returns false on failure.
+    public boolean propagate() {
+        int q=0;
+        while(q<queues.size()) {
+            Propagator p=queues.get(q).poll();
+            if(p==null) {
+                q++;
+                continue;
+            }
+            p.queued=false;
+            if(!p.propagate(this)) {
+                for(ArrayDeque<Propagator> qu : queues) {
+                    for(Propagator p2 : qu) {
+                        p2.queued=false;
+                    }
+                    qu.clear();
+                }
+                return false;
+            }
+            q=0;  //  Cheaper propagators may have been woken.
+        }
+        return true;
+    }
+}
@@ -0,0 +1,76 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  A propagator in the built-in propagation engine. Propagators are also used
+//  inside other propagators (for reification and disjunction), so as well as
+//  enforcing the constraint they can test entailment and supply a negation.
+
+public abstract class Propagator {
+    public static final int FALSE=0;
+    public static final int TRUE=1;
+    public static final int UNKNOWN=-1;
+    
+    int[] vars;       //  Variables that wake this propagator.
+    int priority;     //  Queue that it goes in; 0 runs first.
+    boolean queued;
+    
+    //  Enforce the constraint. Returns false if a domain is emptied.
+    public abstract boolean propagate(PropagationEngine e);
+    
+    //  Whether the constraint holds for all (TRUE) or no (FALSE) assignments
+    //  within the current domains. UNKNOWN is always safe to return.
+    //  By default the constraint is only checked once all its variables are assigned,
+    //  when propagate cannot change any domain. 
+    public int entailed(PropagationEngine e) {
+        for(int v : vars) {
+            if(!e.isAssigned(v)) {
+                return UNKNOWN;
+            }
+        }
+        return propagate(e) ? TRUE : FALSE;
+    }
+    
+    //  A propagator for the negation of the constraint, or null if there is none.
+    public Propagator negation() {
+        return null;
+    }
+    
+    //  Union of the variables of a list of propagators.
+    static int[] unionVars(ArrayList<Propagator> ps) {
+        TreeSet<Integer> s=new TreeSet<Integer>();
+        for(Propagator p : ps) {
+            for(int v : p.vars) {
+                s.add(v);
+            }
+        }
+        int[] a=new int[s.size()];
+        int i=0;
+        for(Integer v : s) {
+            a[i++]=v;
+        }
+        return a;
+    }
+}
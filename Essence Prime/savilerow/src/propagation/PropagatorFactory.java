@@ -0,0 +1,382 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+
+//  Makes propagators from the flattened constraints of a model. Constraints
+//  that are not recognised are not propagated, which only makes the domain
+//  filtering weaker. 
+
+public class PropagatorFactory {
+    private PropagationEngine e;
+    private int numUnsupported=0;
+    
+    public PropagatorFactory(PropagationEngine _e) {
+        e=_e;
+    }
+    
+    public int getNumUnsupported() {
+        return numUnsupported;
+    }
+    
+    public void postConstraints(ASTNode c) {
+        if(c instanceof And) {
+            for(int i=0; i<c.numChildren(); i++) {
+                postConstraints(c.getChild(i));
+            }
+            return;
+        }
+        Propagator p=make(c);
+        if(p==null) {
+            CmdFlags.printlnIfVerbose("Propagation engine: not propagating "+c);
+            numUnsupported++;
+        }
+        else {
+            e.addPropagator(p);
+        }
+    }
+    
+    //  Propagator for a boolean expression, or null if it is not supported.
+    private Propagator make(ASTNode c) {
+        if(c instanceof Identifier || c.isConstant()) {
+            int v=var(c);
+            return v==-1 ? null : new PropInSet(v, single(1), false);
+        }
+        else if(c instanceof Negate) {
+            Propagator p=make(c.getChild(0));
+            return p==null ? null : p.negation();
+        }
+        else if(c instanceof And || c instanceof Or) {
+            ArrayList<Propagator> ps=makeAll(c.getChildren());
+            if(ps==null) {
+                return null;
+            }
+            return (c instanceof And) ? new PropAnd(ps) : new PropOr(ps);
+        }
+        else if(c instanceof Implies) {
+            Propagator p=make(c.getChild(0));
+            Propagator q=make(c.getChild(1));
+            if(p==null || q==null || p.negation()==null) {
+                return null;
+            }
+            ArrayList<Propagator> ps=new ArrayList<Propagator>();
+            ps.add(p.negation());
+            ps.add(q);
+            return new PropOr(ps);
+        }
+        else if(c instanceof Iff) {
+            Propagator p=make(c.getChild(0));
+            Propagator q=make(c.getChild(1));
+            return (p==null || q==null) ? null : new PropIff(p, q);
+        }
+        else if(c instanceof LessEqual || c instanceof Less) {
+            Lin d=diff(c.getChild(0), c.getChild(1));
+            return d==null ? null : leq(d, (c instanceof Less) ? 1 : 0);
+        }
+        else if(c instanceof Equals || c instanceof NotEqual) {
+            return equality(diff(c.getChild(0), c.getChild(1)), c instanceof NotEqual);
+        }
+        else if(c instanceof InSet) {
+            int v=var(c.getChild(0));
+            return v==-1 ? null : new PropInSet(v, c.getChild(1).getIntervalSet(), false);
+        }
+        else if(c instanceof AllDifferent) {
+            int[] x=vars(c.getChild(0));
+            return x==null ? null : new PropAllDifferent(x);
+        }
+        else if(c instanceof Table) {
+            return table(c);
+        }
+        else if(c instanceof ElementOne) {
+            return function(c, e.getConstant(1));
+        }
+        else if(c instanceof ToVariable) {
+            ASTNode f=c.getChild(0);
+            if(f.isRelation() && !(f instanceof ElementOne)) {
+                Propagator p=make(f);
+                Propagator q=make(c.getChild(1));
+                return (p==null || q==null) ? null : new PropIff(p, q);
+            }
+            int z=var(c.getChild(1));
+            Lin d=diff(f, c.getChild(1));
+            if(d!=null) {
+                return equality(d, false);
+            }
+            return z==-1 ? null : function(f, z);
+        }
+        return null;
+    }
+    
+    private ArrayList<Propagator> makeAll(ArrayList<ASTNode> cs) {
+        ArrayList<Propagator> ps=new ArrayList<Propagator>();
+        for(ASTNode c : cs) {
+            Propagator p=make(c);
+            if(p==null) {
+                return null;
+            }
+            ps.add(p);
+        }
+        return ps;
+    }
+    
+    //  z = f(...) for functions that are not linear.
+    private Propagator function(ASTNode f, int z) {
+        if(f instanceof ElementOne) {
+            ASTNode mat=f.getChild(0);
+            if(mat instanceof Identifier) {
+                mat=((Identifier)mat).getCM();
+            }
+            int[] x=(mat==null) ? null : vars(mat);
+            int idx=var(f.getChild(1));
+            return (x==null || idx==-1) ? null : new PropElement(x, idx, z);
+        }
+        else if(f instanceof Min || f instanceof Max) {
+            int[] x=new int[f.numChildren()];
+            for(int i=0; i<x.length; i++) {
+                x[i]=var(f.getChild(i));
+                if(x[i]==-1) {
+                    return null;
+                }
+            }
+            return new PropMinMax(f instanceof Max, x, z);
+        }
+        else if(f instanceof Absolute) {
+            int x=var(f.getChild(0));
+            return x==-1 ? null : new PropFunction(f, x, -1, z);
+        }
+        else if((f instanceof Times || f instanceof Divide || f instanceof SafeDivide || f instanceof Mod
+            || f instanceof SafeMod || f instanceof Power || f instanceof SafePower) && f.numChildren()==2) {
+            int x=var(f.getChild(0));
+            int y=var(f.getChild(1));
+            return (x==-1 || y==-1) ? null : new PropFunction(f, x, y, z);
+        }
+        return null;
+    }
+    
+    private Propagator table(ASTNode c) {
+        int[] x=vars(c.getChild(0));
+        ASTNode tab=c.getChildConst(1);
+        if(x==null || tab==null) {
+            return null;
+        }
+        long[][] tuples=new long[tab.numChildren()-1][];
+        for(int i=1; i<tab.numChildren(); i++) {
+            ASTNode tuple=tab.getChild(i);
+            if(tuple.getTupleLength()!=x.length) {
+                return null;
+            }
+            long[] t=new long[x.length];
+            for(int j=0; j<x.length; j++) {
+                t[j]=tuple.getValueIdx(j+1);
+            }
+            tuples[i-1]=t;
+        }
+        return new PropTable(x, tuples);
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    //  Linear expressions: sum of coefficient*variable plus a constant.
+    
+    private static class Lin {
+        LinkedHashMap<Integer, Long> terms=new LinkedHashMap<Integer, Long>();
+        long c=0;
+        
+        void add(Lin o, long mult) {
+            for(Map.Entry<Integer, Long> t : o.terms.entrySet()) {
+                Long old=terms.get(t.getKey());
+                long coef=Math.addExact(old==null ? 0 : old, Math.multiplyExact(mult, t.getValue()));
+                if(coef==0) {
+                    terms.remove(t.getKey());
+                }
+                else {
+                    terms.put(t.getKey(), coef);
+                }
+            }
+            c=Math.addExact(c, Math.multiplyExact(mult, o.c));
+        }
+    }
+    
+    //  a-b as a linear expression, or null if either side is not linear.
+    private Lin diff(ASTNode a, ASTNode b) {
+        try {
+            Lin la=lin(a);
+            Lin lb=lin(b);
+            if(la==null || lb==null) {
+                return null;
+            }
+            la.add(lb, -1);
+            return la;
+        }
+        catch(ArithmeticException ex) {
+            return null;
+        }
+    }
+    
+    private Lin lin(ASTNode a) {
+        Lin l=new Lin();
+        if(a.isConstant()) {
+            l.c=a.getValue();
+        }
+        else if(a instanceof Identifier) {
+            int v=var(a);
+            if(v==-1) {
+                return null;
+            }
+            l.terms.put(v, 1L);
+        }
+        else if(a instanceof Negate) {
+            //  1-x for a boolean x.
+            Lin x=lin(a.getChild(0));
+            if(x==null) {
+                return null;
+            }
+            l.c=1;
+            l.add(x, -1);
+        }
+        else if(a instanceof UnaryMinus) {
+            Lin x=lin(a.getChild(0));
+            if(x==null) {
+                return null;
+            }
+            l.add(x, -1);
+        }
+        else if(a instanceof WeightedSum) {
+            for(int i=0; i<a.numChildren(); i++) {
+                Lin x=lin(a.getChild(i));
+                if(x==null) {
+                    return null;
+                }
+                l.add(x, ((WeightedSum)a).getWeight(i));
+            }
+        }
+        else {
+            return null;
+        }
+        return l;
+    }
+    
+    //  d+k <= 0
+    private Propagator leq(Lin d, long k) {
+        long[] a=new long[d.terms.size()];
+        int[] x=new int[d.terms.size()];
+        int i=0;
+        for(Map.Entry<Integer, Long> t : d.terms.entrySet()) {
+            x[i]=t.getKey();
+            a[i]=t.getValue();
+            i++;
+        }
+        try {
+            return new PropLinear(a, x, Math.negateExact(Math.addExact(d.c, k)));
+        }
+        catch(ArithmeticException ex) {
+            return null;
+        }
+    }
+    
+    //  d = 0, or d != 0 when negated.
+    private Propagator equality(Lin d, boolean negated) {
+        if(d==null) {
+            return null;
+        }
+        ArrayList<Integer> x=new ArrayList<Integer>(d.terms.keySet());
+        if(x.size()==0) {
+            //  Constant; compare 0 to itself to get a propagator that is true or false.
+            int zero=e.getConstant(0);
+            Propagator p=new PropEqual(zero, zero, d.c);
+            return negated ? p.negation() : p;
+        }
+        if(x.size()==1 && (d.terms.get(x.get(0))==1 || d.terms.get(x.get(0))==-1)) {
+            //  x = -c or x = c
+            long val=(d.terms.get(x.get(0))==1) ? -d.c : d.c;
+            return new PropInSet(x.get(0), single(val), negated);
+        }
+        if(x.size()==2 && d.terms.get(x.get(0))==-d.terms.get(x.get(1))
+            && (d.terms.get(x.get(0))==1 || d.terms.get(x.get(0))==-1)) {
+            //  x0 - x1 + c = 0 after changing sign if necessary
+            long c=(d.terms.get(x.get(0))==1) ? d.c : -d.c;
+            Propagator p=new PropEqual(x.get(0), x.get(1), -c);
+            return negated ? p.negation() : p;
+        }
+        ArrayList<Propagator> ps=new ArrayList<Propagator>();
+        Lin neg=new Lin();
+        try {
+            neg.add(d, -1);
+        }
+        catch(ArithmeticException ex) {
+            return null;
+        }
+        Propagator p1=leq(d, negated ? 1 : 0);
+        Propagator p2=leq(neg, negated ? 1 : 0);
+        if(p1==null || p2==null) {
+            return null;
+        }
+        ps.add(p1);
+        ps.add(p2);
+        return negated ? new PropOr(ps) : new PropAnd(ps);
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //
+    //  Variables
+    
+    //  Engine variable for an identifier or constant, or -1.
+    private int var(ASTNode a) {
+        if(a.isConstant()) {
+            return e.getConstant(a.getValue());
+        }
+        if(a instanceof Identifier) {
+            return e.getVariable(((Identifier)a).getName());
+        }
+        return -1;
+    }
+    
+    //  Engine variables for the elements of a one-dimensional matrix, or null.
+    private int[] vars(ASTNode mat) {
+        if(mat.isTuple()) {
+            int[] x=new int[mat.getTupleLength()];
+            for(int i=0; i<x.length; i++) {
+                x[i]=e.getConstant(mat.getValueIdx(i+1));
+            }
+            return x;
+        }
+        if(!(mat instanceof CompoundMatrix)) {
+            return null;
+        }
+        int[] x=new int[mat.numChildren()-1];
+        for(int i=1; i<mat.numChildren(); i++) {
+            x[i-1]=var(mat.getChild(i));
+            if(x[i-1]==-1) {
+                return null;
+            }
+        }
+        return x;
+    }
+    
+    private static ArrayList<Intpair> single(long val) {
+        ArrayList<Intpair> s=new ArrayList<Intpair>();
+        s.add(new Intpair(val, val));
+        return s;
+    }
+}
@@ -131,7 +131,7 @@ public class AllMinisatSATSolver extends SATSolver
         }
     }
 
-    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar) throws IOException,  InterruptedException{
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit) throws IOException,  InterruptedException{
         return null;
     }
 }
\ No newline at end of file
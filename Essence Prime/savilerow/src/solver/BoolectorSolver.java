@@ -49,6 +49,15 @@ public class BoolectorSolver extends SMTSolver {
         }
     }
 
+    // Incremental mode, reading SMT-LIB 2 from stdin. -m is dropped because
+    // the model would be printed after every check-sat.
+    protected ArrayList<String> getPersistentCommand(String satSolverName) {
+        ArrayList<String> command=getCommand(satSolverName, "-i");
+        command.remove("-m");
+        command.add("--smt2");
+        return command;
+    }
+
     // Always returns null as boolector doesn't support get-statistic
     protected String getHeader(String statistic) {
 
@@ -0,0 +1,778 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+//  A conflict-driven clause learning SAT solver in plain Java, used through
+//  InteractiveBuiltinSATSolver. It is incremental: clauses may be added between
+//  calls to solve, learnt clauses are kept, and each call may pass a set of
+//  assumption literals that hold for that call only.
+//
+//  Literals are stored as 2*var for the positive literal and 2*var+1 for the
+//  negative one. All clauses live in a single int array (the arena); a clause
+//  reference is the offset of its header. Watch lists, the trail, and the
+//  variable heap are all int arrays.
+
+public class CDCLSolver
+{
+    //  Clause header: size, flags (learnt, deleted, LBD), activity as float bits.
+    private static final int HEADER=3;
+    private static final int LEARNT=1;
+    private static final int DELETED=2;
+    private static final int NOREASON=-1;
+    
+    private static final byte TRUE=1;
+    private static final byte FALSE=-1;
+    private static final byte UNDEF=0;
+    
+    private int[] arena=new int[1<<16];
+    private int arenaSize=0;
+    private int wasted=0;
+    
+    private int[] clauses=new int[1024];
+    private int numClauses=0;
+    private int[] learnts=new int[1024];
+    private int numLearnts=0;
+    
+    private int numVars=0;
+    
+    //  Indexed by literal.
+    private byte[] vals=new byte[2];
+    private int[][] watches=new int[2][];
+    private int[] watchCount=new int[2];
+    
+    //  Indexed by variable.
+    private int[] level=new int[1];
+    private int[] reason=new int[1];
+    private boolean[] polarity=new boolean[1];
+    private boolean[] seen=new boolean[1];
+    private double[] activity=new double[1];
+    
+    private int[] trail=new int[1];
+    private int trailSize=0;
+    private int qhead=0;
+    private int[] trailLim=new int[16];
+    private int numLevels=0;
+    
+    //  Binary max-heap of unassigned variables ordered by activity.
+    private int[] heap=new int[1];
+    private int[] heapIndex=new int[1];
+    private int heapSize=0;
+    
+    private double varInc=1.0;
+    private static final double varDecay=0.95;
+    private float claInc=1.0f;
+    private static final float claDecay=0.999f;
+    
+    private double maxLearnts=0.0;
+    private static final double learntsGrowth=1.1;
+    
+    //  False once the clauses are unsatisfiable without any assumptions.
+    private boolean ok=true;
+    
+    private Random rnd=null;
+    
+    private boolean[] model=new boolean[1];
+    
+    private long decisions=0;
+    private long conflicts=0;
+    private long propagations=0;
+    
+    //  Scratch space for conflict analysis.
+    private int[] learntBuf=new int[16];
+    private int[] minBuf=new int[16];
+    private int[] levelStamp=new int[1];
+    private int stamp=0;
+    
+    public CDCLSolver() {
+        heapIndex[0]=-1;
+    }
+    
+    public void setSeed(long seed) {
+        rnd=new Random(seed);
+        //  Break ties between variables that already exist.
+        for(int v=1; v<=numVars; v++) {
+            activity[v]=rnd.nextDouble()*0.00001;
+            if(heapIndex[v]>=0) {
+                heapUp(heapIndex[v]);
+            }
+        }
+    }
+    
+    public long getDecisions() {
+        return decisions;
+    }
+    
+    public long getConflicts() {
+        return conflicts;
+    }
+    
+    public long getPropagations() {
+        return propagations;
+    }
+    
+    public long getNumLearnts() {
+        return numLearnts;
+    }
+    
+    //  Value of variable v in the last model found.
+    public boolean modelValue(int v) {
+        return v<model.length && model[v];
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Adding clauses
+    
+    //  Clause in DIMACS form (signed variable numbers, no terminating 0).
+    public void addClause(long[] clause) {
+        if(!ok) {
+            return;
+        }
+        cancelUntil(0);
+        
+        int[] lits=new int[clause.length];
+        for(int i=0; i<clause.length; i++) {
+            long l=clause[i];
+            int v=(int) Math.abs(l);
+            ensureVars(v);
+            lits[i]=(l>0) ? 2*v : 2*v+1;
+        }
+        Arrays.sort(lits);
+        
+        //  Remove duplicates and false literals; drop tautologies and satisfied clauses.
+        int j=0;
+        for(int i=0; i<lits.length; i++) {
+            int l=lits[i];
+            if(vals[l]==TRUE || (j>0 && lits[j-1]==(l^1))) {
+                return;
+            }
+            if(vals[l]==FALSE || (j>0 && lits[j-1]==l)) {
+                continue;
+            }
+            lits[j++]=l;
+        }
+        
+        if(j==0) {
+            ok=false;
+        }
+        else if(j==1) {
+            enqueue(lits[0], NOREASON);
+            if(propagate()!=NOREASON) {
+                ok=false;
+            }
+        }
+        else {
+            int cr=allocClause(lits, j, false);
+            if(numClauses==clauses.length) {
+                clauses=Arrays.copyOf(clauses, 2*numClauses);
+            }
+            clauses[numClauses++]=cr;
+            attach(cr);
+        }
+    }
+    
+    private void ensureVars(int v) {
+        if(v<=numVars) {
+            return;
+        }
+        if(v>=level.length) {
+            int cap=Math.max(v+1, 2*level.length);
+            level=Arrays.copyOf(level, cap);
+            reason=Arrays.copyOf(reason, cap);
+            polarity=Arrays.copyOf(polarity, cap);
+            seen=Arrays.copyOf(seen, cap);
+            activity=Arrays.copyOf(activity, cap);
+            heap=Arrays.copyOf(heap, cap);
+            heapIndex=Arrays.copyOf(heapIndex, cap);
+            levelStamp=Arrays.copyOf(levelStamp, cap);
+            trail=Arrays.copyOf(trail, cap);
+            vals=Arrays.copyOf(vals, 2*cap);
+            watches=Arrays.copyOf(watches, 2*cap);
+            watchCount=Arrays.copyOf(watchCount, 2*cap);
+        }
+        for(int i=numVars+1; i<=v; i++) {
+            reason[i]=NOREASON;
+            watches[2*i]=new int[4];
+            watches[2*i+1]=new int[4];
+            if(rnd!=null) {
+                activity[i]=rnd.nextDouble()*0.00001;
+            }
+            heapIndex[i]=-1;
+            heapInsert(i);
+        }
+        numVars=v;
+    }
+    
+    private int allocClause(int[] lits, int size, boolean learnt) {
+        if(arenaSize+HEADER+size>arena.length) {
+            //  Grow by half to limit the peak memory of the copy on large formulas.
+            arena=Arrays.copyOf(arena, Math.max(arena.length+(arena.length>>1), arenaSize+HEADER+size));
+        }
+        int cr=arenaSize;
+        arena[cr]=size;
+        arena[cr+1]=learnt ? LEARNT : 0;
+        arena[cr+2]=Float.floatToRawIntBits(0.0f);
+        System.arraycopy(lits, 0, arena, cr+HEADER, size);
+        arenaSize+=HEADER+size;
+        return cr;
+    }
+    
+    private void attach(int cr) {
+        addWatch(arena[cr+HEADER], cr);
+        addWatch(arena[cr+HEADER+1], cr);
+    }
+    
+    private void addWatch(int lit, int cr) {
+        int[] ws=watches[lit];
+        int n=watchCount[lit];
+        if(n==ws.length) {
+            ws=Arrays.copyOf(ws, 2*n);
+            watches[lit]=ws;
+        }
+        ws[n]=cr;
+        watchCount[lit]=n+1;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Assignment and propagation
+    
+    private void enqueue(int lit, int from) {
+        int v=lit>>1;
+        vals[lit]=TRUE;
+        vals[lit^1]=FALSE;
+        level[v]=numLevels;
+        reason[v]=from;
+        trail[trailSize++]=lit;
+    }
+    
+    //  Unit propagation using two watched literals. The watched literals are
+    //  the first two in each clause. Returns a conflicting clause or NOREASON.
+    private int propagate() {
+        int confl=NOREASON;
+        while(qhead<trailSize) {
+            int falseLit=trail[qhead++]^1;
+            int[] ws=watches[falseLit];
+            int n=watchCount[falseLit];
+            int i=0;
+            int j=0;
+            propagations++;
+            
+            while(i<n) {
+                int cr=ws[i++];
+                if((arena[cr+1]&DELETED)!=0) {
+                    continue;   //  Drop the watch.
+                }
+                int c=cr+HEADER;
+                if(arena[c]==falseLit) {
+                    arena[c]=arena[c+1];
+                    arena[c+1]=falseLit;
+                }
+                int first=arena[c];
+                if(vals[first]==TRUE) {
+                    ws[j++]=cr;
+                    continue;
+                }
+                
+                //  Look for a new literal to watch.
+                int size=arena[cr];
+                boolean moved=false;
+                for(int k=2; k<size; k++) {
+                    int l=arena[c+k];
+                    if(vals[l]!=FALSE) {
+                        arena[c+1]=l;
+                        arena[c+k]=falseLit;
+                        addWatch(l, cr);
+                        moved=true;
+                        break;
+                    }
+                }
+                if(moved) {
+                    continue;
+                }
+                
+                ws[j++]=cr;
+                if(vals[first]==FALSE) {
+                    confl=cr;
+                    qhead=trailSize;
+                    while(i<n) {
+                        ws[j++]=ws[i++];
+                    }
+                }
+                else {
+                    enqueue(first, cr);
+                }
+            }
+            watchCount[falseLit]=j;
+            if(confl!=NOREASON) {
+                break;
+            }
+        }
+        return confl;
+    }
+    
+    private void newDecisionLevel() {
+        if(numLevels==trailLim.length) {
+            trailLim=Arrays.copyOf(trailLim, 2*numLevels);
+        }
+        trailLim[numLevels++]=trailSize;
+    }
+    
+    private void cancelUntil(int lev) {
+        if(numLevels>lev) {
+            int lim=trailLim[lev];
+            for(int i=trailSize-1; i>=lim; i--) {
+                int lit=trail[i];
+                int v=lit>>1;
+                vals[lit]=UNDEF;
+                vals[lit^1]=UNDEF;
+                reason[v]=NOREASON;
+                polarity[v]=(lit&1)==0;
+                if(heapIndex[v]<0) {
+                    heapInsert(v);
+                }
+            }
+            trailSize=lim;
+            qhead=lim;
+            numLevels=lev;
+        }
+    }
+    
+    private int pickBranchLit() {
+        while(heapSize>0) {
+            int v=heapRemoveMax();
+            if(vals[2*v]==UNDEF) {
+                return polarity[v] ? 2*v : 2*v+1;
+            }
+        }
+        return -1;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Conflict analysis
+    
+    //  First-UIP learning. The learnt clause is left in learntBuf with the
+    //  asserting literal first and a literal of the backjump level second.
+    //  Returns the size of the clause.
+    private int analyze(int confl) {
+        int pathC=0;
+        int p=-1;
+        int size=1;
+        int index=trailSize-1;
+        
+        do {
+            if((arena[confl+1]&LEARNT)!=0) {
+                bumpClause(confl);
+            }
+            int csize=arena[confl];
+            int c=confl+HEADER;
+            for(int k=(p==-1) ? 0 : 1; k<csize; k++) {
+                int q=arena[c+k];
+                int v=q>>1;
+                if(!seen[v] && level[v]>0) {
+                    bumpVar(v);
+                    seen[v]=true;
+                    if(level[v]>=numLevels) {
+                        pathC++;
+                    }
+                    else {
+                        if(size==learntBuf.length) {
+                            learntBuf=Arrays.copyOf(learntBuf, 2*size);
+                        }
+                        learntBuf[size++]=q;
+                    }
+                }
+            }
+            while(!seen[trail[index]>>1]) {
+                index--;
+            }
+            p=trail[index--];
+            confl=reason[p>>1];
+            seen[p>>1]=false;
+            pathC--;
+        } while(pathC>0);
+        learntBuf[0]=p^1;
+        
+        //  Remove literals implied by the rest of the clause (local minimisation).
+        //  Kept literals are collected in minBuf so that every seen flag can be
+        //  cleared afterwards.
+        if(minBuf.length<learntBuf.length) {
+            minBuf=new int[learntBuf.length];
+        }
+        int j=1;
+        for(int i=1; i<size; i++) {
+            int r=reason[learntBuf[i]>>1];
+            boolean keep=(r==NOREASON);
+            if(!keep) {
+                int rsize=arena[r];
+                for(int k=1; k<rsize; k++) {
+                    int u=arena[r+HEADER+k]>>1;
+                    if(!seen[u] && level[u]>0) {
+                        keep=true;
+                        break;
+                    }
+                }
+            }
+            if(keep) {
+                minBuf[j++]=learntBuf[i];
+            }
+        }
+        for(int i=1; i<size; i++) {
+            seen[learntBuf[i]>>1]=false;
+        }
+        System.arraycopy(minBuf, 1, learntBuf, 1, j-1);
+        size=j;
+        
+        //  Put a literal of the highest remaining level second.
+        if(size>1) {
+            int maxI=1;
+            for(int i=2; i<size; i++) {
+                if(level[learntBuf[i]>>1]>level[learntBuf[maxI]>>1]) {
+                    maxI=i;
+                }
+            }
+            int t=learntBuf[1];
+            learntBuf[1]=learntBuf[maxI];
+            learntBuf[maxI]=t;
+        }
+        return size;
+    }
+    
+    //  Number of distinct decision levels in the learnt clause.
+    private int computeLBD(int size) {
+        stamp++;
+        int lbd=0;
+        for(int i=0; i<size; i++) {
+            int lev=level[learntBuf[i]>>1];
+            if(lev>=levelStamp.length) {
+                levelStamp=Arrays.copyOf(levelStamp, 2*lev+1);
+            }
+            if(levelStamp[lev]!=stamp) {
+                levelStamp[lev]=stamp;
+                lbd++;
+            }
+        }
+        return lbd;
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Search
+    
+    //  Solve under the given assumptions (DIMACS literals). nbVars is the number
+    //  of variables the model must cover. Returns true if satisfiable.
+    public boolean solve(long[] assumps, int nbVars) {
+        ensureVars(nbVars);
+        if(!ok) {
+            return false;
+        }
+        cancelUntil(0);
+        
+        int[] assumptionLits=new int[assumps==null ? 0 : assumps.length];
+        for(int i=0; i<assumptionLits.length; i++) {
+            long l=assumps[i];
+            int v=(int) Math.abs(l);
+            ensureVars(v);
+            assumptionLits[i]=(l>0) ? 2*v : 2*v+1;
+        }
+        
+        if(propagate()!=NOREASON) {
+            ok=false;
+            return false;
+        }
+        
+        if(maxLearnts==0.0) {
+            maxLearnts=Math.max(numClauses/3.0, 5000.0);
+        }
+        
+        int status=0;
+        int restarts=0;
+        while(status==0) {
+            status=search((long) (luby(2.0, restarts)*100), assumptionLits);
+            restarts++;
+        }
+        cancelUntil(0);
+        return status>0;
+    }
+    
+    //  Returns 1 for sat, -1 for unsat (under the assumptions), 0 for restart.
+    private int search(long nofConflicts, int[] assumptionLits) {
+        long conflictC=0;
+        
+        while(true) {
+            int confl=propagate();
+            if(confl!=NOREASON) {
+                conflicts++;
+                conflictC++;
+                if(numLevels==0) {
+                    ok=false;
+                    return -1;
+                }
+                int size=analyze(confl);
+                int btLevel=(size>1) ? level[learntBuf[1]>>1] : 0;
+                cancelUntil(btLevel);
+                if(size==1) {
+                    enqueue(learntBuf[0], NOREASON);
+                }
+                else {
+                    int lbd=computeLBD(size);
+                    int cr=allocClause(learntBuf, size, true);
+                    arena[cr+1]|=(lbd<<2);
+                    if(numLearnts==learnts.length) {
+                        learnts=Arrays.copyOf(learnts, 2*numLearnts);
+                    }
+                    learnts[numLearnts++]=cr;
+                    attach(cr);
+                    bumpClause(cr);
+                    enqueue(learntBuf[0], cr);
+                }
+                varInc/=varDecay;
+                claInc/=claDecay;
+            }
+            else {
+                if(conflictC>=nofConflicts) {
+                    cancelUntil(0);
+                    if(wasted>arenaSize/2) {
+                        garbageCollect();
+                    }
+                    return 0;
+                }
+                
+                if(numLearnts-trailSize>=maxLearnts) {
+                    reduceDB();
+                }
+                
+                int next=-1;
+                while(numLevels<assumptionLits.length) {
+                    int p=assumptionLits[numLevels];
+                    if(vals[p]==TRUE) {
+                        newDecisionLevel();   //  Dummy level, already satisfied.
+                    }
+                    else if(vals[p]==FALSE) {
+                        return -1;
+                    }
+                    else {
+                        next=p;
+                        break;
+                    }
+                }
+                
+                if(next==-1) {
+                    decisions++;
+                    next=pickBranchLit();
+                    if(next==-1) {
+                        if(model.length<=numVars) {
+                            model=new boolean[numVars+1];
+                        }
+                        for(int v=1; v<=numVars; v++) {
+                            model[v]=(vals[2*v]==TRUE);
+                        }
+                        return 1;
+                    }
+                }
+                newDecisionLevel();
+                enqueue(next, NOREASON);
+            }
+        }
+    }
+    
+    //  Finite subsequence of the Luby sequence, scaled by y.
+    private static double luby(double y, int x) {
+        int size=1;
+        int seq=0;
+        while(size<x+1) {
+            seq++;
+            size=2*size+1;
+        }
+        while(size-1!=x) {
+            size=(size-1)>>1;
+            seq--;
+            x=x%size;
+        }
+        return Math.pow(y, seq);
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Learnt clause database
+    
+    private boolean locked(int cr) {
+        int first=arena[cr+HEADER];
+        return vals[first]==TRUE && reason[first>>1]==cr;
+    }
+    
+    //  Delete about half of the learnt clauses, preferring those with high LBD
+    //  and low activity. Clauses with LBD at most 2 are always kept.
+    private void reduceDB() {
+        Integer[] order=new Integer[numLearnts];
+        for(int i=0; i<numLearnts; i++) {
+            order[i]=learnts[i];
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                int lbdA=arena[a+1]>>>2;
+                int lbdB=arena[b+1]>>>2;
+                if(lbdA!=lbdB) {
+                    return (lbdA>lbdB) ? -1 : 1;
+                }
+                return Float.compare(Float.intBitsToFloat(arena[a+2]), Float.intBitsToFloat(arena[b+2]));
+            }
+        });
+        
+        int toRemove=numLearnts/2;
+        int j=0;
+        for(int i=0; i<order.length; i++) {
+            int cr=order[i];
+            if(i<toRemove && (arena[cr+1]>>>2)>2 && !locked(cr)) {
+                arena[cr+1]|=DELETED;
+                wasted+=HEADER+arena[cr];
+            }
+            else {
+                learnts[j++]=cr;
+            }
+        }
+        numLearnts=j;
+        maxLearnts*=learntsGrowth;
+    }
+    
+    //  Compact the arena. Only called at decision level 0, where reasons are
+    //  not needed by conflict analysis so they can simply be cleared.
+    private void garbageCollect() {
+        int[] newArena=new int[Math.max(1<<16, 2*(arenaSize-wasted))];
+        int size=0;
+        for(int pass=0; pass<2; pass++) {
+            int[] refs=(pass==0) ? clauses : learnts;
+            int n=(pass==0) ? numClauses : numLearnts;
+            for(int i=0; i<n; i++) {
+                int cr=refs[i];
+                int len=HEADER+arena[cr];
+                System.arraycopy(arena, cr, newArena, size, len);
+                refs[i]=size;
+                size+=len;
+            }
+        }
+        arena=newArena;
+        arenaSize=size;
+        wasted=0;
+        
+        for(int l=2; l<=2*numVars+1; l++) {
+            watchCount[l]=0;
+        }
+        for(int i=0; i<numClauses; i++) {
+            attach(clauses[i]);
+        }
+        for(int i=0; i<numLearnts; i++) {
+            attach(learnts[i]);
+        }
+        for(int i=0; i<trailSize; i++) {
+            reason[trail[i]>>1]=NOREASON;
+        }
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Activities
+    
+    private void bumpVar(int v) {
+        activity[v]+=varInc;
+        if(activity[v]>1e100) {
+            for(int i=1; i<=numVars; i++) {
+                activity[i]*=1e-100;
+            }
+            varInc*=1e-100;
+        }
+        if(heapIndex[v]>=0) {
+            heapUp(heapIndex[v]);
+        }
+    }
+    
+    private void bumpClause(int cr) {
+        float a=Float.intBitsToFloat(arena[cr+2])+claInc;
+        arena[cr+2]=Float.floatToRawIntBits(a);
+        if(a>1e20f) {
+            for(int i=0; i<numLearnts; i++) {
+                int c=learnts[i];
+                arena[c+2]=Float.floatToRawIntBits(Float.intBitsToFloat(arena[c+2])*1e-20f);
+            }
+            claInc*=1e-20f;
+        }
+    }
+    
+    ////////////////////////////////////////////////////////////////////////////
+    //  Variable heap
+    
+    private void heapInsert(int v) {
+        heap[heapSize]=v;
+        heapIndex[v]=heapSize;
+        heapSize++;
+        heapUp(heapSize-1);
+    }
+    
+    private int heapRemoveMax() {
+        int v=heap[0];
+        heapSize--;
+        heapIndex[v]=-1;
+        if(heapSize>0) {
+            heap[0]=heap[heapSize];
+            heapIndex[heap[0]]=0;
+            heapDown(0);
+        }
+        return v;
+    }
+    
+    private void heapUp(int i) {
+        int v=heap[i];
+        double a=activity[v];
+        while(i>0) {
+            int parent=(i-1)>>1;
+            int u=heap[parent];
+            if(activity[u]>=a) {
+                break;
+            }
+            heap[i]=u;
+            heapIndex[u]=i;
+            i=parent;
+        }
+        heap[i]=v;
+        heapIndex[v]=i;
+    }
+    
+    private void heapDown(int i) {
+        int v=heap[i];
+        double a=activity[v];
+        while(true) {
+            int child=2*i+1;
+            if(child>=heapSize) {
+                break;
+            }
+            if(child+1<heapSize && activity[heap[child+1]]>activity[heap[child]]) {
+                child++;
+            }
+            int u=heap[child];
+            if(activity[u]<=a) {
+                break;
+            }
+            heap[i]=u;
+            heapIndex[u]=i;
+            i=child;
+        }
+        heap[i]=v;
+        heapIndex[v]=i;
+    }
+}
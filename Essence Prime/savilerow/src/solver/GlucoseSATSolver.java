@@ -34,7 +34,7 @@ public class GlucoseSATSolver extends SATSolver
         super(_m);
     }
 
-    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar) throws IOException,  InterruptedException
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit) throws IOException,  InterruptedException
     {
         CmdFlags.runningSolver=true;  // Prevents SR's timeout from kicking in. 
         
@@ -53,11 +53,17 @@ public class GlucoseSATSolver extends SATSolver
             
             double solvertime=System.currentTimeMillis();
             
-            int exitValue=RunCommand.runCommand(true, command, stderr_lines, rpo);
+            SolverJob job=new SolverJob(command, stderr_lines);
+            job.setStdoutReader(rpo);
+            job.setTimeLimit(timeLimit);
+            int exitValue=RunCommand.runCommand(true, job);
             
             solvertime=(((double) System.currentTimeMillis() - solvertime) / 1000);
             
             Stats stats=new GlucoseStats(stdout_lines);
+            if(job.timedOut()) {
+                stats.putValue("SolverTimeOut", "1");
+            }
             
             if(exitValue==10) {
                 // Satisfiable -- for Glucose
@@ -85,7 +91,7 @@ public class GlucoseSATSolver extends SATSolver
                 // Unsat.
                 return new Pair<ArrayList<String>, Stats>(null, stats);
             }
-            else if(stderr_lines.size()!=0 || (exitValue!=10 && exitValue!=20)) {
+            else if(!job.timedOut() && (stderr_lines.size()!=0 || (exitValue!=10 && exitValue!=20))) {
                 CmdFlags.println("SAT solver exited with error code:"+exitValue+" and message:");
                 CmdFlags.println(stderr_lines);
             }
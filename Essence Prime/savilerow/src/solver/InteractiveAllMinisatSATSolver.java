@@ -42,13 +42,15 @@ public class InteractiveAllMinisatSATSolver extends InteractiveSATSolver
     }
 
     @Override
-    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar){
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit){
         // give assumptions in the beginning
         finaliseAssumptions();
         addAssumptionsToSolver(nativeSolverPointer, Arrays.stream(assumptions).mapToInt(i -> (int)i).toArray());
+        Profiler.Entry pe=Profiler.start("solver", "minisat_all (interactive)", null, false);
         double solverTime = System.currentTimeMillis();
         runSolver(nativeSolverPointer, this);
         solverTime = (System.currentTimeMillis() - solverTime) / 1000;
+        Profiler.end(pe);
         double[] statsArray = getSolverStats(nativeSolverPointer);
         statsArray[1] = solverTime;
         InteractiveStats stats = new InteractiveAllMinisatStats(statsArray);
@@ -60,13 +62,13 @@ public class InteractiveAllMinisatSATSolver extends InteractiveSATSolver
     @Override
     public void findOneSolution(String satSolverName, String fileName, Model m){
         setNbSolutions(nativeSolverPointer, 1);
-        runSatSolver(satSolverName, fileName, m, null);
+        runSatSolver(satSolverName, fileName, m, null, 0);
         cleanAssumptionQueue();
     }
 
     @Override
     public void findMultipleSolutions(String satSolverName, String fileName, Model m) {
-        runSatSolver(satSolverName, fileName, m, null);
+        runSatSolver(satSolverName, fileName, m, null, 0);
         cleanAssumptionQueue();
     }
 
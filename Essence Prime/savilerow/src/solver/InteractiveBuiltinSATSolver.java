@@ -0,0 +1,89 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+
+//  Incremental SAT solving with the pure-Java CDCLSolver, so that optimisation
+//  and the assumption queue work without any native library.
+
+public class InteractiveBuiltinSATSolver extends InteractiveSATSolver
+{
+    //  Set by initISATSolver, which runs in the superclass constructor, so no initialiser here.
+    private CDCLSolver solver;
+    
+    private ArrayList<String> lastSolution;
+    
+    public InteractiveBuiltinSATSolver(Model _m) {
+        super(_m);
+    }
+    
+    @Override
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit) {
+        finaliseAssumptions();
+        int nbVars=(int) (m.satModel.variableNumber-1);
+        Profiler.Entry pe=Profiler.start("solver", "builtin (interactive)", null, false);
+        double solverTime=System.currentTimeMillis();
+        boolean sat=solver.solve(assumptions, nbVars);
+        solverTime=(System.currentTimeMillis()-solverTime)/1000;
+        Profiler.end(pe);
+        
+        if(sat) {
+            int[] solution=new int[nbVars];
+            for(int v=1; v<=nbVars; v++) {
+                solution[v-1]=solver.modelValue(v) ? v : -v;
+            }
+            handleFreshSolution(solution);
+        }
+        
+        InteractiveStats stats=new InteractiveBuiltinStats(sat, solverTime, solver.getDecisions(), solver.getConflicts());
+        stats.setNbLearnts(getNbLearntClausesFromISATSolver());
+        //  In optimisation the assumptions are for this run only.
+        if(m.objective!=null) {
+            cleanAssumptionQueue();
+        }
+        return new Pair<ArrayList<String>, Stats>(sat ? lastSolution : null, stats);
+    }
+    
+    protected void initISATSolver() {
+        solver=new CDCLSolver();
+    }
+    
+    public void setRndSeedToISATSolver(long seed) {
+        solver.setSeed(seed);
+    }
+    
+    public void addClauseToISATSolver(long[] clause) {
+        solver.addClause(clause);
+    }
+    
+    public long getNbLearntClausesFromISATSolver() {
+        return solver.getNumLearnts();
+    }
+    
+    protected void handleFreshSolution(int[] solution) {
+        lastSolution=new ArrayList<String>(solution.length);
+        for(int i=0; i<solution.length; i++) {
+            lastSolution.add(String.valueOf(solution[i]));
+        }
+    }
+}
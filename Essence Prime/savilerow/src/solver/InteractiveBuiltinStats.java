@@ -0,0 +1,36 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+
+public class InteractiveBuiltinStats extends InteractiveStats
+{
+    //  Decisions and conflicts are totals over all runs of the solver so far.
+    public InteractiveBuiltinStats(boolean sat, double time, long decisions, long conflicts) {
+        putValue("SolverSatisfiable", sat ? "1" : "0");
+        putValue("SolverTotalTime", String.valueOf(time));
+        putValue("SolverNodes", String.valueOf(decisions));
+        putValue("SolverConflicts", String.valueOf(conflicts));
+    }
+}
@@ -41,13 +41,15 @@ public class InteractiveGlucoseSATSolver extends InteractiveSATSolver
     }
 
     @Override
-    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar){
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit){
         // give assumptions in the beginning
         finaliseAssumptions();
         addAssumptionsToSolver(nativeSolverPointer, Arrays.stream(assumptions).mapToInt(i -> (int)i).toArray());
+        Profiler.Entry pe=Profiler.start("solver", "glucose (interactive)", null, false);
         double solverTime = System.currentTimeMillis();
         long ret = runSolver(nativeSolverPointer, this, m.satModel.variableNumber-1);
         solverTime = (System.currentTimeMillis() - solverTime) / 1000;
+        Profiler.end(pe);
         double[] statsArray = new double[2];
         statsArray[0] = solverTime;
         statsArray[1] = getSolverStats(nativeSolverPointer);
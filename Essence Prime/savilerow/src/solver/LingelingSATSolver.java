@@ -39,7 +39,7 @@ public class LingelingSATSolver extends SATSolver
     public LingelingSATSolver(Model _m) {
         super(_m);
     }
-    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar) throws IOException,  InterruptedException
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit) throws IOException,  InterruptedException
     {
         CmdFlags.runningSolver=true;  // Prevents SR's timeout from kicking in. 
         
@@ -74,10 +74,13 @@ public class LingelingSATSolver extends SATSolver
             
             double solvertime=System.currentTimeMillis();
             
-            int exitValue=RunCommand.runCommand(false, command, stderr_lines, rpo);
+            SolverJob job=new SolverJob(command, stderr_lines);
+            job.setStdoutReader(rpo);
+            job.setTimeLimit(timeLimit);
+            int exitValue=RunCommand.runCommand(false, job);
             // lingeling returns 10 for SAT and 20 for UNSAT
             // this does not indicate an error
-            if( stderr_lines.size()!=0 || (exitValue!=0 && exitValue!=10 && exitValue!=20)) {
+            if(!job.timedOut() && (stderr_lines.size()!=0 || (exitValue!=0 && exitValue!=10 && exitValue!=20))) {
                 CmdFlags.println("lingeling exited with error code:"+exitValue+" and error message:");
                 CmdFlags.println(stderr_lines);
             }
@@ -85,6 +88,9 @@ public class LingelingSATSolver extends SATSolver
             solvertime=(((double) System.currentTimeMillis() - solvertime) / 1000);
             
             Stats stats=new LingelingStats(stdout_lines);
+            if(job.timedOut()) {
+                stats.putValue("SolverTimeOut", "1");
+            }
             
             // Find s line in output.
             boolean completed=false;
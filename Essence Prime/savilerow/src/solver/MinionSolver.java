@@ -35,10 +35,6 @@ public class MinionSolver extends Solver
         
         double srtime=(((double) System.currentTimeMillis() - CmdFlags.startTime) / 1000);
         
-        runMinion(minname, filename, m, false, -1);
-        
-        MinionStats stats=null;
-        
         boolean onlyTheLastSolution;
         if (m.objective != null) {
             // This is an optimisation model.
@@ -58,28 +54,48 @@ public class MinionSolver extends Solver
             // By default SR solves for one solution only.
             onlyTheLastSolution = true;
         }
-
+        
+        // Parse solutions while Minion is running. Only the last one is kept.
+        final SymbolTable st=m.global_symbols;
+        final boolean multipleSols=!onlyTheLastSolution;
+        //  For optimisation, write each improving solution to the solution file as soon as it is found. 
+        final boolean writeIncumbents=(m.objective!=null) && !CmdFlags.getSolutionsToNull() && !CmdFlags.getSolutionsToStdout()
+            && !CmdFlags.getSolutionsToStdoutOneLine() && !CmdFlags.dominanceRelation;
+        final Solution[] lastSol=new Solution[1];
+        
+        SolutionFileReader reader=new SolutionFileReader(CmdFlags.getMinionSolsTempFile(), new SolutionFileReader.LineHandler() {
+            public boolean line(String s) {
+                ArrayList<String> solversol=new ArrayList<String>(); solversol.add(s);
+                Solution sol=solverSolToAST(solversol, st);
+                lastSol[0]=sol;
+                if(multipleSols) {
+                    createSolutionFile(sol, true);
+                    return solutionCounter!=CmdFlags.getFindNumSolutions();
+                }
+                if(writeIncumbents && sol!=null) {
+                    writeIncumbentSolution(sol);
+                }
+                return true;
+            }
+        });
+        reader.start();
+        
+        try {
+            runMinion(minname, filename, m, false, -1, 0);
+        }
+        finally {
+            reader.finish();
+        }
+        
+        Solution sol=lastSol[0];
+        MinionStats stats=addStatisticsToSolution(sol, srtime);
+        
         if (onlyTheLastSolution) {
             // Find one solution only. Takes the last solution because for optimisation that will be the optimal one.
-            BufferedReader minsolfile=new BufferedReader(new FileReader(CmdFlags.getMinionSolsTempFile()));
-            Solution sol = parseLastSolverSolution(m.global_symbols, minsolfile);
-            
-            stats=addStatisticsToSolution(sol, srtime);
-            
             if(sol!=null || m.incumbentSolution!=null) {
                 createSolutionFile( ((sol!=null)?sol:m.incumbentSolution), false);
             }
         }
-        else {
-            // Multiple solutions. 
-            BufferedReader minsolfile=new BufferedReader(new FileReader(CmdFlags.getMinionSolsTempFile()));
-            parseAllSolverSolutions(m.global_symbols, minsolfile);
-            
-            // Do something silly here just to get 'stats' object.
-            minsolfile=new BufferedReader(new FileReader(CmdFlags.getMinionSolsTempFile()));
-            Solution sol = parseLastSolverSolution(m.global_symbols, minsolfile);
-            stats=addStatisticsToSolution(sol, srtime);
-        }
         
         // Create .info and .infor files. 
         if(stats!=null) {
@@ -96,7 +112,12 @@ public class MinionSolver extends Solver
         //    AMO
         long amo_count=0;
         
-        ArrayList<String> lines=runMinion(minname, filename, m, true, -1);
+        ArrayList<String> lines=runMinion(minname, filename, m, true, -1, TimeBudget.remaining(TimeBudget.FILTER));
+        if(lines==null) {
+            //  Out of time for domain filtering; keep the original domains.
+            TimeBudget.markCut(TimeBudget.FILTER);
+            return new ArrayList<ASTNode>();
+        }
         
         ArrayList<ASTNode> findstatements=new ArrayList<ASTNode>();
         
@@ -272,7 +293,7 @@ public class MinionSolver extends Solver
         
         CmdFlags.println("Created output file for table generation " + CmdFlags.minionfile);
         
-        runMinion(CmdFlags.getMinion(), CmdFlags.minionfile, mcopy, false, scope.size());
+        runMinion(CmdFlags.getMinion(), CmdFlags.minionfile, mcopy, false, scope.size(), 0);
         
         // Open the Minion solution file. 
         
@@ -336,7 +357,7 @@ public class MinionSolver extends Solver
         CmdFlags.solverflags.add("-nodelimit");
         CmdFlags.solverflags.add(String.valueOf(m.global_symbols.category.size()*10));
         
-        runMinion(CmdFlags.getMinion(), CmdFlags.minionfile, m, false, -1);
+        runMinion(CmdFlags.getMinion(), CmdFlags.minionfile, m, false, -1, 0);
         
         // Restore original solver flags. 
         CmdFlags.solverflags=bak_solverflags;
@@ -360,7 +381,8 @@ public class MinionSolver extends Solver
     //   Private methods. 
     
     // squashDomains runs minion with -outputCompressedDomains 
-    private ArrayList<String> runMinion(String minname, String filename, Model m, boolean squashDomains, int searchlim) throws IOException,  InterruptedException
+    // Minion is killed after timeLimit milliseconds (0 for no limit), and then null is returned. 
+    private ArrayList<String> runMinion(String minname, String filename, Model m, boolean squashDomains, int searchlim, long timeLimit) throws IOException,  InterruptedException
     {
         if(!squashDomains) CmdFlags.runningSolver=true;  // Prevents SR's timeout from kicking in. 
         
@@ -455,15 +477,23 @@ public class MinionSolver extends Solver
             ArrayList<String> stdout_lines=new ArrayList<String>();
             ArrayList<String> stderr_lines=new ArrayList<String>();
             
-            // Make a thread to read Minion's output
-            ReadProcessOutput stdout_reader=new ReadProcessOutput(stdout_lines);
+            // Solutions go to the -solsout file, so stdout is only read when it contains
+            // the filtered domains or objective values are recorded from it. Otherwise
+            // it is discarded without passing through Savile Row. 
+            ReadProcessOutput stdout_reader=null;
+            if(squashDomains || CmdFlags.recordObjectiveValues()) {
+                stdout_reader=new ReadProcessOutput(squashDomains ? stdout_lines : null);
+            }
             
-            int exitValue=RunCommand.runCommand(true, minionCommand, stderr_lines, stdout_reader);
+            SolverJob job=new SolverJob(minionCommand, stderr_lines);
+            job.setStdoutReader(stdout_reader);
+            job.setTimeLimit(timeLimit);
+            int exitValue=RunCommand.runCommand(true, job);
 
             if(stderr_lines.size()!=0 || exitValue!=0) {
                 // CmdFlags.rmTempFiles();
             }
-            return stdout_lines;
+            return job.timedOut() ? null : stdout_lines;
         }
         catch(IOException e1) {
             System.err.println("IOException");
@@ -39,7 +39,7 @@ public class MinisatSATSolver extends SATSolver
     public MinisatSATSolver(Model _m) {
         super(_m);
     }
-    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar) throws IOException,  InterruptedException
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit) throws IOException,  InterruptedException
     {
         CmdFlags.runningSolver=true;  // Prevents SR's timeout from kicking in. 
         
@@ -59,11 +59,17 @@ public class MinisatSATSolver extends SATSolver
             
             double solvertime=System.currentTimeMillis();
             
-            int exitValue=RunCommand.runCommand(true, command, stderr_lines, rpo);
+            SolverJob job=new SolverJob(command, stderr_lines);
+            job.setStdoutReader(rpo);
+            job.setTimeLimit(timeLimit);
+            int exitValue=RunCommand.runCommand(true, job);
             
             solvertime=(((double) System.currentTimeMillis() - solvertime) / 1000);
             
             Stats stats=new MinisatStats(stdout_lines);
+            if(job.timedOut()) {
+                stats.putValue("SolverTimeOut", "1");
+            }
             
             if(exitValue==10) {
                 // Satisfiable -- for MiniSat
@@ -88,7 +94,7 @@ public class MinisatSATSolver extends SATSolver
                 // Unsat.
                 return new Pair<ArrayList<String>, Stats>(null, stats);
             }
-            else if(stderr_lines.size()!=0 || (exitValue!=10 && exitValue!=20)) {
+            else if(!job.timedOut() && (stderr_lines.size()!=0 || (exitValue!=10 && exitValue!=20))) {
                 CmdFlags.println("SAT solver exited with error code:"+exitValue+" and message:");
                 CmdFlags.println(stderr_lines);    
             }
@@ -39,7 +39,7 @@ public class OpenWBOSATSolver extends SATSolver
     public OpenWBOSATSolver(Model _m) {
         super(_m);
     }
-    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar) throws IOException,  InterruptedException
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit) throws IOException,  InterruptedException
     {
         CmdFlags.runningSolver=true;  // Prevents SR's timeout from kicking in. 
         
@@ -61,9 +61,12 @@ public class OpenWBOSATSolver extends SATSolver
             
             double solvertime=System.currentTimeMillis();
             
-            int exitValue=RunCommand.runCommand(false, command, stderr_lines, rpo);
+            SolverJob job=new SolverJob(command, stderr_lines);
+            job.setStdoutReader(rpo);
+            job.setTimeLimit(timeLimit);
+            int exitValue=RunCommand.runCommand(false, job);
             
-            if(exitValue!=20 && exitValue!=30) {
+            if(exitValue!=20 && exitValue!=30 && !job.timedOut()) {
                 //  30 means optimum found, 20 means unsat.
                 CmdFlags.println("OpenWBO exited with error code:"+exitValue+" and error message:");
                 CmdFlags.println(stderr_lines);
@@ -75,6 +78,9 @@ public class OpenWBOSATSolver extends SATSolver
             solvertime=(((double) System.currentTimeMillis() - solvertime) / 1000);
             
             Stats stats=new OpenWBOStats(stdout_lines);
+            if(job.timedOut()) {
+                stats.putValue("SolverTimeOut", "1");
+            }
             stats.putValue("SolverTotalTime", String.valueOf(solvertime));
             
             if(satisfiable) {
@@ -40,6 +40,11 @@ public class OpenWBOStats extends Stats
             
             String[] tmp=stdout_lines.get(i).trim().split(" +");
             
+            // Cost of the best solution so far. 
+            if(tmp[0].equals("o") && tmp.length>1) {
+                putValue("MaxSATCost", tmp[1]);
+            }
+            
             // Is the problem satisfiable, unsatisfiable or timed out?
             if(tmp[0].equals("s") && tmp[1].equals("OPTIMUM")) {
                 putValue("SolverTimeOut", "0");
@@ -33,7 +33,8 @@ public class ReadProcessOutput extends Thread {
     }
     
     BufferedReader br;
-    ArrayList<String>   out;
+    ArrayList<String>   out;   //  If null, lines are read and discarded.
+    volatile boolean stopped=false;   //  Set when the process is killed. 
     
     public void giveInputStream(BufferedReader _br) {
         br=_br;
@@ -54,20 +55,23 @@ public class ReadProcessOutput extends Thread {
                         CmdFlags.recordIntermediateObjectiveValue(value);
                     }
                     
-                    out.add(line);
+                    if(out!=null) out.add(line);
                     line=br.readLine();
                 }
             }
             else {
                 // A simpler loop
                 while(line != null) {
-                    out.add(line);
+                    if(out!=null) out.add(line);
                     line=br.readLine();
                 }
             }
         }
         catch(IOException e1) {
-            CmdFlags.errorExit("IO Exception when reading stdout/stderr from sub-process.");
+            //  The streams are closed when a process is killed, e.g. on reaching its time limit. 
+            if(!stopped) {
+                CmdFlags.errorExit("IO Exception when reading stdout/stderr from sub-process.");
+            }
         }
     }
 }
@@ -27,32 +27,26 @@ import java.io.*;
 
 public class RunCommand
 {
-    // Returns exit code. 
+    // Returns exit code. If output_processor is null, stdout is discarded.
     public static int runCommand(boolean zeroExitCode, ArrayList<String> command, ArrayList<String> stderr_lines, ReadProcessOutput output_processor) throws IOException,  InterruptedException
     {
+        SolverJob job=new SolverJob(command, stderr_lines);
+        job.setStdoutReader(output_processor);
+        return runCommand(zeroExitCode, job);
+    }
+    
+    // Run a job set up by the caller, for example with its own time limit, and
+    // return the exit code. Whether the job was killed at its time limit is
+    // given by job.timedOut(). 
+    public static int runCommand(boolean zeroExitCode, SolverJob job) throws IOException,  InterruptedException
+    {
+        ArrayList<String> command=job.getCommand();
+        ArrayList<String> stderr_lines=job.getStderrLines();
         try {
 
-            CmdFlags.printlnIfVerbose("Running command: " + command);
-
-            Process process=Runtime.getRuntime().exec(command.toArray(new String[command.size()]));
-            
-            InputStream inputStream = process.getInputStream();
-            InputStream errorStream = process.getErrorStream();
-            BufferedReader input =new BufferedReader(new InputStreamReader(inputStream));
-            BufferedReader error =new BufferedReader(new InputStreamReader(errorStream));
-            
-            ReadProcessOutput rpo2=new ReadProcessOutput(stderr_lines);
-            
-            output_processor.giveInputStream(input);
-            rpo2.giveInputStream(error);
-            
-            output_processor.start();
-            rpo2.start();
-            
-            output_processor.join();
-            rpo2.join();
-            
-            int exitValue=process.waitFor();
+            Profiler.Entry pe=Profiler.start("solver", new File(command.get(0)).getName(), null, false);
+            int exitValue=job.run();
+            Profiler.end(pe);
             
             // Some solvers (for example chuffed) print warning messages with WARNING as prefix.
             // We don't want to report sub-process failure if these are the only messages in stderr.
@@ -67,7 +61,7 @@ public class RunCommand
                 stderr_lines_except_warnings.add(line);
             }
             
-            if(zeroExitCode && (stderr_lines_except_warnings.size()!=0 || (exitValue!=0 && exitValue!=10 && exitValue!=20))) {
+            if(zeroExitCode && !job.timedOut() && (stderr_lines_except_warnings.size()!=0 || (exitValue!=0 && exitValue!=10 && exitValue!=20))) {
                 // Exit values 10 and 20 typical for SAT solvers to indicate sat or unsat. 
                 CmdFlags.println("Sub-process exited with error code:"+exitValue+" and error message:");
                 CmdFlags.println(stderr_lines);
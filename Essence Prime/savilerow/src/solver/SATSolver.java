@@ -60,8 +60,15 @@ public abstract class SATSolver extends Solver
         CmdFlags.rmTempFiles();
     }
     
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar) throws IOException,  InterruptedException {
+        return runSatSolver(satSolverName, filename, m, statssofar, 0);
+    }
+    
     // Instantiated for different SAT solver classes. 
-    public abstract Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar) throws IOException,  InterruptedException;
+    // A solver run as a process is killed after timeLimit milliseconds (0 for no limit),
+    // and the returned stats then have SolverTimeOut set to 1. Interactive solvers
+    // ignore the limit. 
+    public abstract Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit) throws IOException,  InterruptedException;
     
     ////////////////////////////////////////////////////////////////////////////
     //
@@ -102,33 +109,9 @@ public abstract class SATSolver extends Solver
                 m.incumbentSolution=sol;
                 createSolutionFile(sol, true);
                 
-                // Iterate through the solution as assignments to SR variables
-                // and use the negation of the direct encoding of each assignment.
                 ArrayList<ASTNode> blockingVars=new ArrayList<ASTNode>();  // Variables for blocking clause
                 ArrayList<Long> blockingVals=new ArrayList<Long>();        // Values for blocking clause. 
-                HashMap<String, Long> collect_all_values=readAllAssignments(currentSolution, m.global_symbols);   // Collect the value of every variable,
-
-                // for each variable in the branching on list
-                for (int i = 1; i < m.branchingon.numChildren(); i++) {
-                    ASTNode child = m.branchingon.getChild(i);
-                    
-                    if(child instanceof Negate) {
-                        child=child.getChild(0);   //  Strip off the negation.
-                    }
-                    
-                    if (child instanceof Identifier) {
-                        String key = child.toString();
-                        Long value = collect_all_values.get(key);
-                        if (value != null) {
-                            ASTNode var = new Identifier(m, key);
-                            blockingVars.add(var);
-                            blockingVals.add(value);
-                        }
-                    }
-                    else if(!child.isConstant()) {
-                        CmdFlags.errorExit("When using SAT and finding multiple solutions, only variables or negated variables are allowed in the branching on list: "+child.toString());
-                    }
-                }
+                collectBlockingAssignment(currentSolution, m, blockingVars, blockingVals);
                 addBlockingClause(blockingVars, blockingVals);
             }
             totalstats.putValue("SavileRowTotalTime", String.valueOf(srtime));
@@ -139,9 +122,44 @@ public abstract class SATSolver extends Solver
         }
     }
     
+    //  Collect the assignments to the branching variables in a SAT solution,
+    //  for a clause that blocks the solution. 
+    void collectBlockingAssignment(ArrayList<String> currentSolution, Model m, ArrayList<ASTNode> blockingVars, ArrayList<Long> blockingVals) {
+        // Iterate through the solution as assignments to SR variables
+        // and use the negation of the direct encoding of each assignment.
+        HashMap<String, Long> collect_all_values=readAllAssignments(currentSolution, m.global_symbols);   // Collect the value of every variable,
+
+        // for each variable in the branching on list
+        for (int i = 1; i < m.branchingon.numChildren(); i++) {
+            ASTNode child = m.branchingon.getChild(i);
+            
+            if(child instanceof Negate) {
+                child=child.getChild(0);   //  Strip off the negation.
+            }
+            
+            if (child instanceof Identifier) {
+                String key = child.toString();
+                Long value = collect_all_values.get(key);
+                if (value != null) {
+                    ASTNode var = new Identifier(m, key);
+                    blockingVars.add(var);
+                    blockingVals.add(value);
+                }
+            }
+            else if(!child.isConstant()) {
+                CmdFlags.errorExit("When using SAT and finding multiple solutions, only variables or negated variables are allowed in the branching on list: "+child.toString());
+            }
+        }
+    }
+    
     //  Add a clause to block a solution.
     //  Separated to allow override in SMTSolver.
     public void addBlockingClause(ArrayList<ASTNode> vars, ArrayList<Long> vals) throws IOException {
+        m.satModel.addClauseAfterFinalise(blockingClause(vars, vals));
+    }
+    
+    //  The literals of a clause that excludes the given assignment.
+    ArrayList<Long> blockingClause(ArrayList<ASTNode> vars, ArrayList<Long> vals) {
         ArrayList<Long> clauseToAdd=new ArrayList<Long>();
         for(int i=0; i<vars.size(); i++) {
             ASTNode var=vars.get(i);
@@ -157,12 +175,15 @@ public abstract class SATSolver extends Solver
                 clauseToAdd.add(lit);
             }
         }
-        m.satModel.addClauseAfterFinalise(clauseToAdd);
+        return clauseToAdd;
     }
     
     // Method to find an objective (minimising/maximising problem)
     public void findObjective(String satSolverName, String fileName, Model m) {
-        if(CmdFlags.getMaxsattrans()) {
+        if(m.sns instanceof SNSLNS) {
+            new SatLNS(this, m).run(satSolverName, fileName);
+        }
+        else if(CmdFlags.getMaxsattrans()) {
             findOneSolution(satSolverName, fileName, m);
         }
         else if(CmdFlags.getOptStrategy().equals("linear")) {
@@ -580,6 +601,9 @@ public abstract class SATSolver extends Solver
         // Add the number of SAT variables and SAT clauses.
         stats.putValue("SATVars", String.valueOf(m.satModel.getNumVars()));
         stats.putValue("SATClauses", String.valueOf(m.satModel.getNumClauses()));
+        if(m.satModel.getPreprocessor()!=null) {
+            m.satModel.getPreprocessor().putStats(stats);
+        }
         
         // Create .info and .infor files. 
         if(stats!=null) {
@@ -28,6 +28,9 @@ import java.util.List;
 import java.util.Map;
 
 public abstract class SMTSolver extends SATSolver {
+    //  Solver process kept running between calls when optimising.
+    private SMTSolverProcess persistent;
+    
     public SMTSolver(Model m) {
         super(m);
     }
@@ -44,6 +47,10 @@ public abstract class SMTSolver extends SATSolver {
                 findOneSolution(satSolverName, fileName, m);
             }
             else {
+                ArrayList<String> command=getPersistentCommand(satSolverName);
+                if(command!=null && !CmdFlags.smt_restart_solver && !CmdFlags.interactiveSolver) {
+                    persistent=new SMTSolverProcess(command, ((SMT)m.satModel).getCheckSatLocation());
+                }
                 findObjective(satSolverName,fileName, m);
             }
         }
@@ -55,11 +62,15 @@ public abstract class SMTSolver extends SATSolver {
         else {
             findOneSolution(satSolverName, fileName, m);
         }
+        if(persistent!=null) {
+            persistent.close();
+            persistent=null;
+        }
         CmdFlags.rmTempFiles();
     }
 
     @Override
-    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar) throws IOException, InterruptedException {
+    public Pair<ArrayList<String>, Stats> runSatSolver(String satSolverName, String filename, Model m, Stats statssofar, long timeLimit) throws IOException, InterruptedException {
         CmdFlags.runningSolver=true;  // Prevents SR's timeout from kicking in.
         
         ArrayList<String> command = getCommand(satSolverName, filename);
@@ -71,11 +82,30 @@ public abstract class SMTSolver extends SATSolver {
 
         long solvertime=System.nanoTime();
 
-        int exitValue=RunCommand.runCommand(false, command, stderr_lines, rpo);
+        int exitValue;
+        boolean timedOut;
+        if(persistent!=null) {
+            exitValue=persistent.solve((SMT)m.satModel, stdout_lines, stderr_lines, timeLimit);
+            timedOut=persistent.timedOut();
+        }
+        else {
+            SolverJob job=new SolverJob(command, stderr_lines);
+            job.setStdoutReader(rpo);
+            job.setTimeLimit(timeLimit);
+            exitValue=RunCommand.runCommand(false, job);
+            timedOut=job.timedOut();
+        }
 
         solvertime= System.nanoTime() - solvertime;
 
         Stats stats = new Stats();
+        
+        if(timedOut) {
+            //  The output is incomplete, so there is no solution to read.
+            stats.putValue("SolverTimeOut", "1");
+            stats.putValue("SolverTotalTime", String.valueOf(((double)solvertime)/1000000000));
+            return new Pair<ArrayList<String>, Stats>(null, stats);
+        }
 
         detectErrors(exitValue, stdout_lines, stderr_lines, stats);
 
@@ -121,6 +151,12 @@ public abstract class SMTSolver extends SATSolver {
         return command;
     }
 
+    // Command to run the solver reading SMT-LIB commands from stdin, for the persistent
+    // solver process used in optimisation. Null if the solver does not support it. 
+    protected ArrayList<String> getPersistentCommand(String satSolverName) {
+        return null;
+    }
+    
     // Handles the errors that the different solvers may give
     protected abstract void detectErrors(int exitValue, ArrayList<String> stdout_lines, ArrayList<String> stderr_lines, Stats stats);
 
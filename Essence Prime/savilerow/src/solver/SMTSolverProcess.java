@@ -0,0 +1,283 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+import java.util.concurrent.*;
+
+//  A long-lived SMT solver process used for optimisation. The .smt2 file is
+//  still written as usual; the part before (check-sat) is streamed into the
+//  solver. Each piece added after the first call goes in its own push scope,
+//  so when the file is truncated (removing a bound) the scopes are popped
+//  and the solver keeps everything it learnt from the base formula.
+//  The process is started through a SolverJob, so it is killed if Savile Row
+//  exits, and it is killed if a call runs past its time limit. 
+
+public class SMTSolverProcess {
+    private static final String marker="savilerow-done";
+    private static final String eof=new String("EOF");   //  Compared by reference.
+
+    private final ArrayList<String> command;
+
+    private SolverJob job;
+    private Process process;
+    private OutputStream toSolver;
+    private LinkedBlockingQueue<String> fromSolver;
+    private final ArrayList<String> errLines=new ArrayList<String>();
+
+    private long base;   //  End of the part of the file sent outside any push scope.
+    private long sent;   //  Bytes of the file that the solver has.
+    private ArrayList<Long> scopes;   //  File position at each push.
+    
+    private long deadline;      //  System.nanoTime() at the time limit of this call, 0 for none.
+    private boolean timedOut;   //  Whether the last call was stopped at its time limit.
+
+    //  _base is the position of (check-sat) before anything is added after finalise.
+    public SMTSolverProcess(ArrayList<String> _command, long _base) {
+        command=_command;
+        base=_base;
+    }
+
+    //  Send the file up to (check-sat) then solve and get the values of the variables.
+    //  Fills stdout_lines as if the solver had been run on the file. Returns
+    //  0, or the exit value if the solver process ended. If the call takes more
+    //  than timeLimit milliseconds (0 for no limit) the process is killed, to be
+    //  started again by the next call, and timedOut() is true.
+    public int solve(SMT smt, ArrayList<String> stdout_lines, ArrayList<String> stderr_lines, long timeLimit) throws IOException, InterruptedException {
+        Profiler.Entry pe=Profiler.start("solver", new File(command.get(0)).getName()+" (incremental)", null, false);
+        deadline=(timeLimit>0) ? System.nanoTime()+timeLimit*1000000L : 0;
+        timedOut=false;
+        try {
+            return solveInner(smt, stdout_lines, stderr_lines);
+        }
+        finally {
+            Profiler.end(pe);
+        }
+    }
+    
+    private int solveInner(SMT smt, ArrayList<String> stdout_lines, ArrayList<String> stderr_lines) throws IOException, InterruptedException {
+        sync(smt.takeUnchangedPrefix(), smt.getCheckSatLocation());
+
+        write("(check-sat)\n(echo \""+marker+"\")\n");
+        boolean alive=readResponse(stdout_lines);
+
+        boolean sat=false;
+        for(String l : stdout_lines) {
+            sat=sat || l.trim().equals("sat");
+        }
+
+        if(alive) {
+            StringBuilder b=new StringBuilder();
+            if(sat) {
+                for(String var : smt.variables) {
+                    b.append("(get-value (").append(var).append("))\n");
+                }
+            }
+            if (!CmdFlags.usingBoolector()) {
+                b.append("(get-info :all-statistics)\n");
+            }
+            b.append("(echo \"").append(marker).append("\")\n");
+            write(b.toString());
+            alive=readResponse(stdout_lines);
+        }
+
+        synchronized(errLines) {
+            stderr_lines.addAll(errLines);
+            errLines.clear();
+        }
+
+        if(timedOut) {
+            close();
+            return 0;
+        }
+        if(!alive) {
+            int exitValue=process.waitFor();
+            close();
+            return exitValue;
+        }
+        return 0;
+    }
+    
+    public boolean timedOut() {
+        return timedOut;
+    }
+
+    public void close() {
+        if(process!=null) {
+            try {
+                write("(exit)\n");
+                toSolver.close();
+            }
+            catch(IOException e) {
+            }
+            job.close();
+            job=null;
+            process=null;
+        }
+    }
+
+    //  Bring the solver up to date with the first end bytes of the file,
+    //  given that bytes before unchanged are the same as when last sent.
+    private void sync(long unchanged, long end) throws IOException {
+        if(process!=null) {
+            while(sent>unchanged && scopes.size()>0) {
+                sent=scopes.remove(scopes.size()-1);
+                write("(pop 1)\n");
+            }
+            if(sent>unchanged) {
+                //  The base formula has changed.
+                close();
+            }
+        }
+
+        if(process==null) {
+            base=Math.min(base, Math.min(unchanged, end));
+            start();
+            write("(set-option :produce-models true)\n");
+            send(base);
+        }
+
+        if(end>sent) {
+            scopes.add(sent);
+            write("(push 1)\n");
+            send(end);
+        }
+    }
+
+    //  Send the file from sent up to position end.
+    private void send(long end) throws IOException {
+        RandomAccessFile f=new RandomAccessFile(CmdFlags.smtfile, "r");
+        try {
+            f.seek(sent);
+            byte[] buf=new byte[1<<16];
+            long remaining=end-sent;
+            while(remaining>0) {
+                int n=f.read(buf, 0, (int)Math.min(buf.length, remaining));
+                if(n<0) {
+                    throw new IOException("SMT file is shorter than expected.");
+                }
+                write(buf, n);
+                remaining-=n;
+            }
+        }
+        finally {
+            f.close();
+        }
+        flush();
+        sent=end;
+    }
+
+    private void start() throws IOException {
+        job=new SolverJob(command, errLines);
+        process=job.startInteractive();
+        toSolver=new BufferedOutputStream(process.getOutputStream(), 1<<16);
+        fromSolver=new LinkedBlockingQueue<String>();
+        sent=0;
+        scopes=new ArrayList<Long>();
+
+        //  Both streams are read all the time so the solver never blocks on a full pipe.
+        final BufferedReader out=new BufferedReader(new InputStreamReader(process.getInputStream()));
+        final BufferedReader err=new BufferedReader(new InputStreamReader(process.getErrorStream()));
+        final LinkedBlockingQueue<String> q=fromSolver;
+        Thread outThread=new Thread() {
+            public void run() {
+                try {
+                    String line;
+                    while((line=out.readLine())!=null) {
+                        q.add(line);
+                    }
+                }
+                catch(IOException e) {
+                }
+                q.add(eof);
+            }
+        };
+        Thread errThread=new Thread() {
+            public void run() {
+                try {
+                    String line;
+                    while((line=err.readLine())!=null) {
+                        synchronized(errLines) {
+                            errLines.add(line);
+                        }
+                    }
+                }
+                catch(IOException e) {
+                }
+            }
+        };
+        outThread.setDaemon(true);
+        errThread.setDaemon(true);
+        outThread.start();
+        errThread.start();
+    }
+
+    private void write(String s) {
+        byte[] b=s.getBytes();
+        write(b, b.length);
+        flush();
+    }
+
+    private void write(byte[] b, int len) {
+        try {
+            toSolver.write(b, 0, len);
+        }
+        catch(IOException e) {
+            //  The solver has exited; this shows up as end of output in readResponse.
+        }
+    }
+
+    private void flush() {
+        try {
+            toSolver.flush();
+        }
+        catch(IOException e) {
+        }
+    }
+
+    //  Read lines up to the marker. Returns false if the solver exited first,
+    //  or if the time limit passed (setting timedOut).
+    private boolean readResponse(ArrayList<String> lines) throws InterruptedException {
+        while(true) {
+            String l;
+            if(deadline==0) {
+                l=fromSolver.take();
+            }
+            else {
+                l=fromSolver.poll(deadline-System.nanoTime(), TimeUnit.NANOSECONDS);
+                if(l==null) {
+                    timedOut=true;
+                    return false;
+                }
+            }
+            if(l==eof) {
+                return false;
+            }
+            String t=l.trim();
+            if(t.equals(marker) || t.equals("\""+marker+"\"")) {
+                return true;
+            }
+            lines.add(l);
+        }
+    }
+}
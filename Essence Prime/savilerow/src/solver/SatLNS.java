@@ -0,0 +1,246 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+
+import java.util.*;
+import java.io.*;
+
+//  Large neighbourhood search using a SAT or MaxSAT solver and the SNS
+//  neighbourhoods declared in the model. The model is encoded once. After the
+//  first solution, each iteration chooses a neighbourhood, fixes all primary
+//  variables outside it to their values in the incumbent solution using unit
+//  clauses, and runs the solver with a short time limit. The unit clauses are
+//  removed afterwards with BTMark/BTRestore. With plain SAT the objective is
+//  bounded so that only improving solutions are found; with MaxSAT the solver
+//  optimises within the neighbourhood.
+//  Neighbourhoods are chosen at random with probability proportional to a
+//  score that is a moving average of how often they improved the incumbent.
+//  A neighbourhood that is searched to completion without improvement is not
+//  chosen again until the incumbent changes. The search stops when every
+//  neighbourhood is exhausted or the iteration limit is reached. 
+
+public class SatLNS
+{
+    private static final double rewardRate=0.3;   //  Weight of the latest result in the score of a neighbourhood.
+    private static final double minScore=0.05;    //  Every neighbourhood has some chance of being chosen.
+    
+    private final SATSolver solver;
+    private final Model m;
+    private final SNSLNS hoods;
+    private final boolean maxsat;
+    
+    private ArrayList<String> primaries;
+    private ArrayList<HashSet<String>> hoodVars;
+    private double[] score;
+    private boolean[] exhausted;
+    private int[] improvements;
+    
+    private ArrayList<String> incumbent;
+    private HashMap<String, Long> incumbentValues;
+    private long incumbentObjective;
+    
+    public SatLNS(SATSolver _solver, Model _m) {
+        solver=_solver;
+        m=_m;
+        hoods=(SNSLNS) m.sns;
+        maxsat=CmdFlags.getMaxsattrans();
+    }
+    
+    public void run(String satSolverName, String fileName) {
+        double srtime=(((double) System.currentTimeMillis() - CmdFlags.startTime) / 1000);
+        Stats totalstats=null;
+        int iterations=0;
+        
+        try {
+            //  Find the first solution with no time limit apart from the solver's own.
+            Pair<ArrayList<String>, Stats> p=solver.runSatSolver(satSolverName, fileName, m, null);
+            totalstats=p.getSecond();
+            if(p.getFirst()!=null) {
+                newIncumbent(p.getFirst(), p.getSecond());
+                
+                primaries=hoods.getPrimaryVariables();
+                int n=hoods.numNeighbourhoods();
+                hoodVars=new ArrayList<HashSet<String>>(n);
+                for(int i=0; i<n; i++) {
+                    hoodVars.add(new HashSet<String>(hoods.getNeighbourhoodVariables(i)));
+                }
+                score=new double[n];
+                Arrays.fill(score, 1.0);
+                exhausted=new boolean[n];
+                improvements=new int[n];
+                
+                long timeLimit=(long)(CmdFlags.sat_lns_time*1000);
+                while(iterations<CmdFlags.sat_lns_iterations) {
+                    int h=chooseNeighbourhood();
+                    if(h==-1) {
+                        CmdFlags.println("LNS: all neighbourhoods searched without improvement.");
+                        break;
+                    }
+                    iterations++;
+                    
+                    double itertime=System.currentTimeMillis();
+                    m.satModel.BTMark();
+                    m.satModel.addUnitClausesAfterFinalise(fixOutside(hoodVars.get(h)));
+                    p=solver.runSatSolver(satSolverName, fileName, m, maxsat ? null : totalstats, timeLimit);
+                    m.satModel.BTRestore();
+                    itertime=(((double) System.currentTimeMillis() - itertime) / 1000);
+                    
+                    Stats stats=p.getSecond();
+                    boolean timedOut=stats.getValue("SolverTimeOut").equals("1");
+                    stats.putValue("SolverTimeOut", "0");   //  Only this iteration ran out of time. 
+                    if(stats.getValue("SolverTotalTime").equals("NA")) {
+                        stats.putValue("SolverTotalTime", String.valueOf(itertime));
+                    }
+                    totalstats=totalstats.add(stats);
+                    
+                    boolean improved=false;
+                    if(p.getFirst()!=null) {
+                        long oldObjective=incumbentObjective;
+                        if(!maxsat || maxsatCost(stats)<oldObjective) {
+                            newIncumbent(p.getFirst(), stats);
+                            improved=true;
+                        }
+                    }
+                    
+                    if(improved) {
+                        improvements[h]++;
+                        Arrays.fill(exhausted, false);
+                    }
+                    else if(!timedOut) {
+                        //  No better solution in this neighbourhood. 
+                        exhausted[h]=true;
+                    }
+                    score[h]=(1-rewardRate)*score[h]+rewardRate*(improved ? 1.0 : 0.0);
+                    
+                    CmdFlags.printlnIfVerbose("LNS iteration "+iterations+" neighbourhood "+hoods.getNeighbourhoodName(h)
+                        +(improved ? " improved" : (timedOut ? " timed out" : " no improvement"))+" in "+itertime+"s");
+                }
+                
+                Solution sol=solver.solverSolToAST(incumbent, m.global_symbols);
+                m.incumbentSolution=sol;
+                if(!CmdFlags.output_all_sols) {
+                    solver.createSolutionFile(sol, false);
+                }
+            }
+            else if(m.incumbentSolution!=null) {
+                solver.createSolutionFile(m.incumbentSolution, CmdFlags.output_all_sols);
+            }
+            else {
+                System.out.println("No solution found.");
+            }
+            
+            totalstats.putValue("SavileRowTotalTime", String.valueOf(srtime));
+            totalstats.putValue("LNSIterations", String.valueOf(iterations));
+            if(maxsat && incumbent!=null) {
+                totalstats.putValue("MaxSATCost", String.valueOf(incumbentObjective));
+            }
+            solver.writeToFileSolutionStats(totalstats);
+            CmdFlags.rmTempFiles();
+        }
+        catch(Exception e) {
+            e.printStackTrace();
+        }
+    }
+    
+    //  Roulette wheel selection on the scores of neighbourhoods that are not exhausted.
+    private int chooseNeighbourhood() {
+        double total=0;
+        for(int i=0; i<score.length; i++) {
+            if(!exhausted[i]) {
+                total+=Math.max(score[i], minScore);
+            }
+        }
+        if(total==0) {
+            return -1;
+        }
+        double r=CmdFlags.getRandomGen().nextDouble()*total;
+        int last=-1;
+        for(int i=0; i<score.length; i++) {
+            if(!exhausted[i]) {
+                last=i;
+                r-=Math.max(score[i], minScore);
+                if(r<0) {
+                    return i;
+                }
+            }
+        }
+        return last;
+    }
+    
+    //  Unit clauses assigning each primary variable outside the neighbourhood to its incumbent value.
+    private ArrayList<Long> fixOutside(HashSet<String> hood) {
+        Sat sat=m.satModel;
+        ArrayList<Long> units=new ArrayList<Long>();
+        for(int i=0; i<primaries.size(); i++) {
+            String name=primaries.get(i);
+            Long val=incumbentValues.get(name);
+            int id=sat.getVariableId(name);
+            if(hood.contains(name) || val==null || id==-1) {
+                continue;
+            }
+            long lit=sat.getDirectVariable(id, val);
+            if(lit!=-sat.getTrue()) {
+                units.add(lit);
+            }
+            else {
+                //  No direct encoding; use the order encoding.
+                units.add(sat.getOrderVariable(id, val));
+                units.add(-sat.getOrderVariable(id, val-1));
+            }
+        }
+        return units;
+    }
+    
+    //  Cost reported by the MaxSAT solver, or the maximum value if it did not report one. 
+    private static long maxsatCost(Stats stats) {
+        String c=stats.getValue("MaxSATCost");
+        return c.equals("NA") ? Long.MAX_VALUE : Long.parseLong(c);
+    }
+    
+    private void newIncumbent(ArrayList<String> solversol, Stats stats) throws IOException {
+        incumbent=solversol;
+        incumbentValues=solver.readAllAssignments(solversol, m.global_symbols);
+        
+        if(maxsat) {
+            incumbentObjective=maxsatCost(stats);
+            System.out.println("While optimising, found MaxSAT cost: "+incumbentObjective);
+        }
+        else {
+            Identifier objectiveNode=(Identifier) m.objective.getChild(0);
+            incumbentObjective=incumbentValues.get(objectiveNode.getName());
+            System.out.println("While optimising, found value: "+incumbentObjective);
+            CmdFlags.recordIntermediateObjectiveValue(incumbentObjective);
+            //  Only improving solutions from now on.
+            solver.findObjectiveLinearAddBound(objectiveNode, incumbentObjective);
+        }
+        
+        Solution sol=solver.solverSolToAST(solversol, m.global_symbols);
+        if(CmdFlags.output_all_sols) {
+            solver.createSolutionFile(sol, true);
+        }
+        else if(!CmdFlags.getSolutionsToNull() && !CmdFlags.getSolutionsToStdout() && !CmdFlags.getSolutionsToStdoutOneLine()) {
+            //  Keep the best solution so far in the solution file in case SR is stopped. 
+            solver.writeIncumbentSolution(sol);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+
+    This file is part of Savile Row.
+
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+//  Follows a solution file while the solver is writing it (like tail -f),
+//  and passes each complete line to a handler as soon as it appears.
+//  Only the current partial line is held in memory.
+//  Any existing file is deleted when the reader is made, so it must be made
+//  before the solver starts; the file is then only ever written by the solver. 
+
+public class SolutionFileReader extends Thread {
+    public interface LineHandler {
+        //  Return false to stop reading.
+        boolean line(String s);
+    }
+
+    private static final long pollMillis=50;
+
+    private final String filename;
+    private final LineHandler handler;
+    private volatile boolean solverFinished=false;
+    private boolean stopped=false;
+
+    public SolutionFileReader(String _filename, LineHandler _handler) throws IOException {
+        filename=_filename;
+        handler=_handler;
+        setDaemon(true);
+        
+        //  Remove solutions left by an earlier solver run. 
+        File old=new File(filename);
+        if(old.exists() && !old.delete()) {
+            new FileOutputStream(old).close();
+        }
+    }
+
+    //  Called when the solver has exited. Reads the rest of the file and waits for the thread to finish.
+    public void finish() throws InterruptedException {
+        solverFinished=true;
+        this.interrupt();
+        this.join();
+    }
+
+    public void run() {
+        ByteArrayOutputStream partial=new ByteArrayOutputStream();
+        byte[] buf=new byte[1<<16];
+        long pos=0;
+        try {
+            RandomAccessFile f=null;
+            while(!stopped) {
+                boolean finished=solverFinished;   //  Read before the file so the final read sees everything.
+                if(f==null && new File(filename).exists()) {
+                    f=new RandomAccessFile(filename, "r");
+                }
+                int n=0;
+                if(f!=null) {
+                    f.seek(pos);
+                    n=f.read(buf);
+                }
+                if(n>0) {
+                    pos+=n;
+                    int start=0;
+                    for(int i=0; i<n && !stopped; i++) {
+                        if(buf[i]=='\n') {
+                            partial.write(buf, start, i-start);
+                            stopped=!handler.line(decode(partial));
+                            partial.reset();
+                            start=i+1;
+                        }
+                    }
+                    if(!stopped) {
+                        partial.write(buf, start, n-start);
+                    }
+                }
+                else if(finished) {
+                    break;
+                }
+                else {
+                    try {
+                        Thread.sleep(pollMillis);
+                    }
+                    catch(InterruptedException e) {
+                        //  Solver finished; go round again to read the rest of the file.
+                    }
+                }
+            }
+            if(!stopped && partial.size()>0) {
+                handler.line(decode(partial));
+            }
+            if(f!=null) {
+                f.close();
+            }
+        }
+        catch(IOException e) {
+            CmdFlags.println("Could not read solver solution file. "+e);
+        }
+    }
+    
+    private static String decode(ByteArrayOutputStream b) {
+        return new String(b.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
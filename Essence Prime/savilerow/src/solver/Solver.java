@@ -23,6 +23,7 @@ package savilerow;
 
 import java.util.*;
 import java.io.*;
+import java.nio.file.*;
 
 
 
@@ -42,18 +43,7 @@ public abstract class Solver
     // Definitely should be in Solver. 
     public void parseSolutionMode() {
         // First try to recover the symbol table. 
-        SymbolTable st;
-        try {
-            FileInputStream sts=new FileInputStream(CmdFlags.auxfile);
-            ObjectInputStream in = new ObjectInputStream(sts);
-            st=(SymbolTable)in.readObject();
-            st.unmangle_after_serialization();
-            in.close();
-            sts.close();
-        } catch (Exception e) {
-            CmdFlags.println(""+e);
-            st=null;
-        }
+        SymbolTable st=SymbolTableIO.read(CmdFlags.auxfile);
         
         if(st==null) {
             CmdFlags.errorExit("Failed to read serialisation file "+CmdFlags.auxfile);
@@ -87,18 +77,7 @@ public abstract class Solver
     // Read a domainstore file.
     public void parseDomainStore() {
         // First try to recover the symbol table. 
-        SymbolTable st;
-        try {
-            FileInputStream sts=new FileInputStream(CmdFlags.auxfile);
-            ObjectInputStream in = new ObjectInputStream(sts);
-            st=(SymbolTable)in.readObject();
-            st.unmangle_after_serialization();
-            in.close();
-            sts.close();
-        } catch (Exception e) {
-            CmdFlags.println(""+e);
-            st=null;
-        }
+        SymbolTable st=SymbolTableIO.read(CmdFlags.auxfile);
         
         if(st==null) {
             CmdFlags.errorExit("Failed to read serialisation file "+CmdFlags.auxfile);
@@ -281,7 +260,7 @@ public abstract class Solver
                     
                     if(domain.isBooleanSet()) {
                         collect_matrices.get(st.replaces_matrix.get(name).name)
-                            .put(st.replaces_matrix.get(name).idx, new BooleanConstant( i!=0 ));
+                            .put(st.replaces_matrix.get(name).idx, BooleanConstant.make( i!=0 ));
                     }
                     else {
                         collect_matrices.get(st.replaces_matrix.get(name).name)
@@ -291,7 +270,7 @@ public abstract class Solver
                 else {
                     // read a single value.
                     if(domain.isBooleanSet()) {
-                        solution.add(new Letting(new Identifier(st.m, name), new BooleanConstant( i!=0 )));
+                        solution.add(new Letting(new Identifier(st.m, name), BooleanConstant.make( i!=0 )));
                     } 
                     else {
                         solution.add(new Letting(new Identifier(st.m, name), NumberConstant.make(i)));
@@ -329,7 +308,7 @@ public abstract class Solver
                     
                     if(domain.isBooleanSet()) {
                         collect_matrices.get(st.replaces_matrix.get(name).name)
-                            .put(st.replaces_matrix.get(name).idx, new BooleanConstant( i!=0 ));
+                            .put(st.replaces_matrix.get(name).idx, BooleanConstant.make( i!=0 ));
                     }
                     else {
                         collect_matrices.get(st.replaces_matrix.get(name).name)
@@ -339,7 +318,7 @@ public abstract class Solver
                 else {
                     // read a single value.
                     if(domain.isBooleanSet()) {
-                        solution.add(new Letting(new Identifier(st.m, name), new BooleanConstant( i!=0 )));
+                        solution.add(new Letting(new Identifier(st.m, name), BooleanConstant.make( i!=0 )));
                     } 
                     else {
                         solution.add(new Letting(new Identifier(st.m, name), NumberConstant.make(i)));
@@ -526,6 +505,22 @@ public abstract class Solver
         }
     }
     
+    //  Write an intermediate solution of an optimisation problem to the solution
+    //  file while the solver is still running. The file is replaced atomically
+    //  so it always contains a complete solution. 
+    void writeIncumbentSolution(ASTNode sol) {
+        try {
+            File tmp=new File(CmdFlags.solutionfile+".tmp");
+            BufferedWriter out= new BufferedWriter(new FileWriter(tmp));
+            out.write(sol.toString());
+            out.close();
+            Files.move(tmp.toPath(), Paths.get(CmdFlags.solutionfile), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            CmdFlags.println("Could not open file for solution output.");
+        }
+    }
+    
     void checkSolution(HashMap<String, Long> solverSolution) {
         // Retrieve the model that was stored before encoding / solver-specific transformations. 
         
@@ -0,0 +1,251 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+import java.util.concurrent.*;
+
+//  One run of a solver (or other external program). The process is started
+//  with ProcessBuilder; stdout is either read by a ReadProcessOutput thread or
+//  redirected straight to a file (or discarded) without passing through Java.
+//  stderr is always collected because it is used to detect failures.
+//  A job may be run synchronously with run(), or asynchronously through
+//  SolverPool. cancel() kills the process from any thread. A solver driven
+//  through its stdin and stdout is started with startInteractive() instead,
+//  and stays live until close().
+
+public class SolverJob
+{
+    //  Jobs with a live process, killed if Savile Row exits.
+    private static final Set<SolverJob> live=Collections.newSetFromMap(new ConcurrentHashMap<SolverJob, Boolean>());
+    private static volatile boolean shuttingDown=false;
+    
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            public void run() {
+                shuttingDown=true;
+                cancelAll();
+            }
+        });
+    }
+    
+    private final ArrayList<String> command;
+    private final ArrayList<String> stderr_lines;
+    
+    private ReadProcessOutput stdoutReader=null;
+    private File stdoutFile=null;
+    
+    private long timeLimit=0;     //  Milliseconds, 0 for no limit.
+    private long memoryLimit=0;   //  Megabytes, 0 for no limit.
+    
+    private Process process=null;
+    private ReadProcessOutput stderrReader=null;
+    private volatile boolean cancelled=false;
+    private volatile boolean timedOut=false;
+    
+    public SolverJob(ArrayList<String> _command, ArrayList<String> _stderr_lines) {
+        command=_command;
+        stderr_lines=_stderr_lines;
+    }
+    
+    //  Read stdout with the given thread. If neither this nor setStdoutFile is
+    //  called, stdout is discarded.
+    public void setStdoutReader(ReadProcessOutput r) {
+        stdoutReader=r;
+    }
+    
+    public void setStdoutFile(File f) {
+        stdoutFile=f;
+    }
+    
+    public void setTimeLimit(long millis) {
+        timeLimit=millis;
+    }
+    
+    //  Limit on the virtual memory of the process. Applied with ulimit, so it has
+    //  no effect where /bin/sh is not available.
+    public void setMemoryLimit(long megabytes) {
+        memoryLimit=megabytes;
+    }
+    
+    public boolean timedOut() {
+        return timedOut;
+    }
+    
+    public ArrayList<String> getCommand() {
+        return command;
+    }
+    
+    public ArrayList<String> getStderrLines() {
+        return stderr_lines;
+    }
+    
+    public boolean cancelled() {
+        return cancelled;
+    }
+    
+    //  Run the job in this thread and return the exit code of the process, or
+    //  -1 if the job was cancelled before it started.
+    public int run() throws IOException, InterruptedException {
+        ProcessBuilder pb=new ProcessBuilder(fullCommand());
+        if(stdoutReader==null) {
+            pb.redirectOutput(stdoutFile!=null ? stdoutFile : nullFile());
+        }
+        
+        CmdFlags.printlnIfVerbose("Running command: " + command);
+        
+        synchronized(this) {
+            if(cancelled) {
+                return -1;
+            }
+            //  Register before starting the process, and check for shutdown after
+            //  registering, so either the shutdown hook sees this job or the job
+            //  does not start. cancel() waits for this lock, so it kills the
+            //  process once it has started. 
+            live.add(this);
+            if(shuttingDown) {
+                live.remove(this);
+                return -1;
+            }
+            try {
+                process=pb.start();
+            }
+            catch(IOException e) {
+                live.remove(this);
+                throw e;
+            }
+            stderrReader=new ReadProcessOutput(stderr_lines);
+        }
+        
+        try {
+            stderrReader.giveInputStream(new BufferedReader(new InputStreamReader(process.getErrorStream())));
+            stderrReader.start();
+            if(stdoutReader!=null) {
+                stdoutReader.giveInputStream(new BufferedReader(new InputStreamReader(process.getInputStream())));
+                stdoutReader.start();
+            }
+            
+            if(timeLimit>0 && !process.waitFor(timeLimit, TimeUnit.MILLISECONDS)) {
+                timedOut=true;
+                kill();
+            }
+            
+            int exitValue=process.waitFor();
+            if(stdoutReader!=null) {
+                stdoutReader.join();
+            }
+            stderrReader.join();
+            return exitValue;
+        }
+        catch(InterruptedException e) {
+            kill();
+            throw e;
+        }
+        finally {
+            live.remove(this);
+        }
+    }
+    
+    //  Start the process and return it, for a solver that the caller drives through
+    //  its stdin and stdout. The caller reads both output streams. The job stays
+    //  live, so it is killed if Savile Row exits, until close() is called. 
+    public Process startInteractive() throws IOException {
+        ProcessBuilder pb=new ProcessBuilder(fullCommand());
+        
+        CmdFlags.printlnIfVerbose("Running command: " + command);
+        
+        synchronized(this) {
+            live.add(this);
+            if(cancelled || shuttingDown) {
+                live.remove(this);
+                throw new IOException("Solver process not started because it was cancelled.");
+            }
+            try {
+                process=pb.start();
+            }
+            catch(IOException e) {
+                live.remove(this);
+                throw e;
+            }
+        }
+        return process;
+    }
+    
+    //  Kill the process of an interactive job if it is still running, and
+    //  deregister the job.
+    public void close() {
+        kill();
+        live.remove(this);
+    }
+    
+    //  Stop the job. A job that has not started yet will not start.
+    public void cancel() {
+        cancelled=true;
+        kill();
+    }
+    
+    public static void cancelAll() {
+        for(SolverJob j : live.toArray(new SolverJob[0])) {
+            j.cancel();
+        }
+    }
+    
+    private synchronized void kill() {
+        if(process!=null && process.isAlive()) {
+            //  Reading threads see the streams close; they should not report an error.
+            if(stderrReader!=null) {
+                stderrReader.stopped=true;
+            }
+            if(stdoutReader!=null) {
+                stdoutReader.stopped=true;
+            }
+            process.destroy();
+            try {
+                if(!process.waitFor(1, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+            catch(InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private List<String> fullCommand() {
+        if(memoryLimit>0 && new File("/bin/sh").exists()) {
+            ArrayList<String> c=new ArrayList<String>();
+            c.add("/bin/sh");
+            c.add("-c");
+            c.add("ulimit -v \"$0\" && exec \"$@\"");
+            c.add(String.valueOf(memoryLimit*1024));
+            c.addAll(command);
+            return c;
+        }
+        return command;
+    }
+    
+    private static File nullFile() {
+        return new File(System.getProperty("os.name").startsWith("Windows") ? "NUL" : "/dev/null");
+    }
+}
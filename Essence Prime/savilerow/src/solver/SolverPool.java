@@ -0,0 +1,92 @@
+package savilerow;
+/*
+
+    Savile Row http://savilerow.cs.st-andrews.ac.uk/
+    Copyright (C) 2014-2021 Peter Nightingale
+    
+    This file is part of Savile Row.
+    
+    Savile Row is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+    
+    Savile Row is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+    
+    You should have received a copy of the GNU General Public License
+    along with Savile Row.  If not, see <http://www.gnu.org/licenses/>.
+
+*/
+
+import java.util.*;
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+//  Runs solver jobs asynchronously, with at most a fixed number of processes
+//  running at once. Further jobs wait in a queue. Each job's future completes
+//  with the exit code of its process; SolverJob.cancel() stops a job whether
+//  it is queued or running. Tasks that drive several solver processes in
+//  turn may also be submitted; each holds one slot of the pool while it runs.
+
+public class SolverPool
+{
+    private static SolverPool shared=null;
+    
+    //  The pool shared by one run of Savile Row, sized by the number of processors.
+    public static synchronized SolverPool getShared() {
+        if(shared==null) {
+            shared=new SolverPool(Runtime.getRuntime().availableProcessors());
+        }
+        return shared;
+    }
+    
+    private final ExecutorService executor;
+    
+    public SolverPool(int maxJobs) {
+        executor=Executors.newFixedThreadPool(maxJobs, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t=new Thread(r, "solver-job");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+    }
+    
+    public CompletableFuture<Integer> submit(final SolverJob job) {
+        return CompletableFuture.supplyAsync(new Supplier<Integer>() {
+            public Integer get() {
+                try {
+                    return job.run();
+                }
+                catch(IOException e) {
+                    throw new CompletionException(e);
+                }
+                catch(InterruptedException e) {
+                    throw new CompletionException(e);
+                }
+            }
+        }, executor);
+    }
+    
+    public <T> CompletableFuture<T> submit(final Callable<T> task) {
+        return CompletableFuture.supplyAsync(new Supplier<T>() {
+            public T get() {
+                try {
+                    return task.call();
+                }
+                catch(Exception e) {
+                    throw new CompletionException(e);
+                }
+            }
+        }, executor);
+    }
+    
+    //  Stop the threads of a pool that is no longer needed. 
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -62,6 +62,8 @@ public class Stats
         if(CmdFlags.tabtime>-1.0) {
             putValue("TabulationTime", String.valueOf(CmdFlags.tabtime));
         }
+        
+        TimeBudget.addStats(this);
     }
     
     public String getValue(String header) {
@@ -206,6 +208,8 @@ public class Stats
             out.close();
             
             CmdFlags.println("Created information file " + CmdFlags.infofile);
+            
+            Profiler.writeReport();
         }
         catch (IOException e) {
             CmdFlags.println("Could not open file for info output.");
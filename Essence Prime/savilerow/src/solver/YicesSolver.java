@@ -60,6 +60,11 @@ public class YicesSolver extends SMTSolver {
         }
     }
 
+    // Incremental mode is needed for push and pop
+    protected ArrayList<String> getPersistentCommand(String satSolverName) {
+        return getCommand(satSolverName, "--incremental");
+    }
+
     // Returns the SavileRow standard for the statistic name or null if we do not use it
     protected String getHeader(String statistic) {
         switch (statistic) {
@@ -43,6 +43,11 @@ public class Z3Solver extends SMTSolver {
         }
     }
 
+    // z3 reads commands from stdin with -in
+    protected ArrayList<String> getPersistentCommand(String satSolverName) {
+        return getCommand(satSolverName, "-in");
+    }
+
     // Returns the SavileRow standard for the statistic name or null if we do not use it
     protected String getHeader(String statistic) {
         switch (statistic) {
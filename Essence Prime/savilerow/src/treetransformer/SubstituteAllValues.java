@@ -43,7 +43,7 @@ public class SubstituteAllValues extends TreeTransformerBottomUpNoWrapper
 	        String idname=curnode.toString();
 	        if(subs.containsKey(idname)) {
 	            if(curnode.isRelation()) {
-	                return new NodeReplacement(new BooleanConstant(subs.get(idname)==1?true:false));
+	                return new NodeReplacement(BooleanConstant.make(subs.get(idname)==1?true:false));
 	            }
 	            else {
 	                return new NodeReplacement(NumberConstant.make(subs.get(idname)));
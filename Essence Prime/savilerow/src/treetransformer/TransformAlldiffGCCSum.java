@@ -47,7 +47,7 @@ public class TransformAlldiffGCCSum extends TreeTransformerBottomUpNoWrapper
             
             ASTNode newcon;
             if(p==null) {
-                return new NodeReplacement(new BooleanConstant(false));
+                return new NodeReplacement(BooleanConstant.make(false));
             }
             
             TransformNormalise tn=new TransformNormalise(m);
@@ -111,7 +111,7 @@ public class TransformAlldiffGCCSum extends TreeTransformerBottomUpNoWrapper
             //System.out.println("lowerbound: "+lowerbound+" upperbound: "+upperbound+" lblist:"+lb+ " ublist:"+ub);
             ASTNode newcon;
             if(lowerbound>upperbound) {
-                return new NodeReplacement(new BooleanConstant(false));
+                return new NodeReplacement(BooleanConstant.make(false));
             }
             if(lowerbound==upperbound) {
                 newcon=new Equals(NumberConstant.make(lowerbound), new WeightedSum(ch));
@@ -145,7 +145,7 @@ public class TransformAlldiffGCCSum extends TreeTransformerBottomUpNoWrapper
                 
                 ASTNode newcon;
                 if(p==null) {
-                    return new NodeReplacement(new BooleanConstant(false));
+                    return new NodeReplacement(BooleanConstant.make(false));
                 }
                 if(p.lower==p.upper) {
                     newcon=new Equals(NumberConstant.make(p.lower), new WeightedSum(target));
@@ -255,7 +255,7 @@ public class TransformAlldiffGCCSum extends TreeTransformerBottomUpNoWrapper
                 System.out.println("lowerbound: "+lowerbound+" upperbound: "+upperbound+" lblist:"+lb+ " ublist:"+ub);
                 ASTNode newcon;
                 if(lowerbound>upperbound) {
-                    return new NodeReplacement(new BooleanConstant(false));
+                    return new NodeReplacement(BooleanConstant.make(false));
                 }
                 if(lowerbound==upperbound) {
                     newcon=new Equals(NumberConstant.make(lowerbound), new WeightedSum(target));
@@ -285,7 +285,7 @@ public class TransformAlldiffGCCSum extends TreeTransformerBottomUpNoWrapper
                 removeImpliedConstraints2(and.getChild(i));  // recurse
             }
             if(impliedCons.contains(and.getChild(i))) {
-                and.setChild(i, new BooleanConstant(true));
+                and.setChild(i, BooleanConstant.make(true));
             }
         }
     }
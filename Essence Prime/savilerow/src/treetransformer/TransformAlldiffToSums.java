@@ -54,7 +54,7 @@ public class TransformAlldiffToSums extends TreeTransformerBottomUpNoWrapper
             
             long numValues=Intpair.numValues(all_values);
             if(numValues < cm.numChildren()-1) {
-                return new NodeReplacement(new BooleanConstant(false));
+                return new NodeReplacement(BooleanConstant.make(false));
             }
             
             ArrayList<ASTNode> decomp=new ArrayList<ASTNode>();
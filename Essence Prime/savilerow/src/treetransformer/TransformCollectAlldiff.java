@@ -196,7 +196,7 @@ public class TransformCollectAlldiff extends TreeTransformerBottomUpNoWrapper
                                         if(conslist.get(l) instanceof AllDifferent && ! (conslist.get(l).isDetached())) {
                                             // If it's a binary not-equal, excise it. 
                                             int childno=conslist.get(l).getChildNo();
-                                            conslist.get(l).getParent().setChild(childno, new BooleanConstant(true));
+                                            conslist.get(l).getParent().setChild(childno, BooleanConstant.make(true));
                                         }
                                     }
                                 }
@@ -50,7 +50,7 @@ public class TransformDecomposeLex2 extends TreeTransformerBottomUp
         
         // At position i, we need to have the boolean variable representing x1 != y1 ... x(i-1) != y(i-1).
         // Starts false. 
-        ASTNode curbool=new BooleanConstant(false);
+        ASTNode curbool=BooleanConstant.make(false);
         
         for (int i=1; i < matrix1.numChildren(); i++) {
             
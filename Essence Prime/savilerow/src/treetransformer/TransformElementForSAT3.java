@@ -44,7 +44,7 @@ public class TransformElementForSAT3 extends TreeTransformerBottomUpNoWrapper
         // boolean and contained in a logic expression or Top
         
         if( (curnode instanceof SafeElementOne || curnode instanceof ElementOne) && !(curnode.getParent() instanceof ToVariable) ) {
-            return decompElement(curnode.getChild(1), new BooleanConstant(true), curnode.getChild(0));
+            return decompElement(curnode.getChild(1), BooleanConstant.make(true), curnode.getChild(0));
         }
         
         return null;
@@ -54,7 +54,7 @@ public class TransformEqual extends TreeTransformerBottomUp
                     ArrayList<Intpair> c=Intpair.intersection(a, b);
                     
                     if(c.size()==0) {  // two expressions can't be equal.
-                        return new NodeReplacement(new BooleanConstant(false));
+                        return new NodeReplacement(BooleanConstant.make(false));
                     }
                     if(c.size()==1 && c.get(0).lower==c.get(0).upper) { // Both expressions equal a constant.
                         return new NodeReplacement(new And(new Equals(c1, NumberConstant.make(c.get(0).upper)), 
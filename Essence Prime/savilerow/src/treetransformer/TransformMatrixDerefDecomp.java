@@ -40,7 +40,7 @@ public class TransformMatrixDerefDecomp extends TreeTransformerBottomUpNoWrapper
         // Case where matrix deref is not inside a ToVariable. It must be of type
         // boolean and contained in a logic expression or Top
         if( (curnode instanceof SafeMatrixDeref || curnode instanceof MatrixDeref) && !(curnode.getParent() instanceof ToVariable) ) {
-            return decomp(curnode.getChildren(1), new BooleanConstant(true), curnode.getChildConst(0));
+            return decomp(curnode.getChildren(1), BooleanConstant.make(true), curnode.getChildConst(0));
         }
         
         return null;
@@ -186,7 +186,7 @@ public class TransformMatrixToAtoms extends TreeTransformerBottomUpNoWrapper
             
             if(all_const) {
                 ASTNode eval=MatrixSlice.evaluateSlice(matrixliteral, curnode.getChildren(1));
-                return new NodeReplacement(new BooleanConstant(eval!=null));
+                return new NodeReplacement(BooleanConstant.make(eval!=null));
             }
             
             return new NodeReplacement(new IsMatrixSliceDefined(m, matrixliteral, curnode.getChildren(1)));
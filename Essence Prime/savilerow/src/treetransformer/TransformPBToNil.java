@@ -98,7 +98,7 @@ public class TransformPBToNil extends TreeTransformerBottomUp
             // Up to here, identical to the TransformSumToAMOPB pass. 
             
             // Just remove the constraint that will become an MDD. 
-            return new NodeReplacement(new BooleanConstant(true));
+            return new NodeReplacement(BooleanConstant.make(true));
         }
         
 	    return null;
@@ -278,7 +278,7 @@ public class TransformQuantifiedExpression extends TreeTransformerTopdown
                 
                 //  Make a new comprehension to provide domains when simplifying the condition.  This is 
                 //  somewhat of a hack. 
-                ASTNode contextCM=new ComprehensionMatrix(new BooleanConstant(false), quants_ch, new BooleanConstant(false));
+                ASTNode contextCM=new ComprehensionMatrix(BooleanConstant.make(false), quants_ch, BooleanConstant.make(false));
                 icond.setParent(contextCM);
                 
                 return unrollComprehension(contextCM, iexp, iquant, icond, quantidx, m);  // Stay at same index. 
@@ -301,7 +301,7 @@ public class TransformQuantifiedExpression extends TreeTransformerTopdown
                 for(long val=vals.get(i).lower; val<=vals.get(i).upper; val++) {
                     ASTNode value;
                     if(quants.getChild(quantidx).getChild(1).isBooleanSet()) {
-                        value=new BooleanConstant( (val==0)?false:true );
+                        value=BooleanConstant.make( (val==0)?false:true );
                     }
                     else {
                         value=NumberConstant.make(val);
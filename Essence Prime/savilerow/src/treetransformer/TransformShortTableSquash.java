@@ -58,29 +58,29 @@ public class TransformShortTableSquash extends TransformTableToShortTable
     }
     
     public static ASTNode compressShortTab(ASTNode tuples, ArrayList<ArrayList<Intpair>> doms) {
+        TupleStore short_tuples = new TupleStore(doms.size());
+        long[] tup = new long[doms.size()];
         
-        //System.out.println(vars + "::" + doms);
-
-        HashSet<ArrayList<Long>> long_tuples = new HashSet<ArrayList<Long>>();
-
         for(int i = 1; i < tuples.numChildren(); i++) {
-          ArrayList<Long> tup;
-          tup = new ArrayList<Long>(Collections.nCopies(doms.size(), TupleCompress.free_value));
-
+          Arrays.fill(tup, TupleCompress.free_value);
+          
           ASTNode child = tuples.getChild(i);
-          for(int j = 1; j < child.getChildren().size(); ++j) {
-            long var = child.getChild(j).getChild(1).getValue();
-            long val = child.getChild(j).getChild(2).getValue();
-            tup.set((int)var-1, val);
+          for(int j = 1; j < child.numChildren(); ++j) {
+            long var = child.getChild(j).getValueIdx(1);
+            long val = child.getChild(j).getValueIdx(2);
+            tup[(int)var-1] = val;
           }
-          long_tuples.add(tup);
+          short_tuples.add(tup);
         }
-        //System.out.println(long_tuples);
-        HashSet<ArrayList<Long>> shorttups;
-        shorttups = TupleCompress.full_squeeze_short_tuples(long_tuples, doms, false);
- 
-        if(shorttups.size() < long_tuples.size()) {
-            return convertHashSet(shorttups);
+        short_tuples.pack();
+        return compressShortTab(short_tuples, doms);
+    }
+    
+    public static ASTNode compressShortTab(TupleStore short_tuples, ArrayList<ArrayList<Intpair>> doms) {
+        TupleStore shorttups = TupleCompress.full_squeeze_short_tuples(short_tuples, doms);
+        
+        if(shorttups.size() < short_tuples.size()) {
+            return shorttups.toShortTable();
         }
         else {
             return null;
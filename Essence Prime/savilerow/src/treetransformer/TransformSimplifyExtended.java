@@ -71,13 +71,13 @@ public class TransformSimplifyExtended extends TreeTransformerBottomUpNoWrapper
 	                //  Makes a big assumption: that the equality would already have simplified to false 
 	                //  if the value is not in domain. 
 	                m.global_symbols.assignVariable(c0, c1);
-                    return new NodeReplacement(new BooleanConstant(true));
+                    return new NodeReplacement(BooleanConstant.make(true));
                 }
                 if(c1 instanceof Identifier && c0.isConstant() && doAssignVar && !m.global_symbols.preserveVariable(c1)) {
                     //  Makes a big assumption: that the equality would already have simplified to false 
 	                //  if the value is not in domain.
                     m.global_symbols.assignVariable(c1, c0);
-                    return new NodeReplacement(new BooleanConstant(true));
+                    return new NodeReplacement(BooleanConstant.make(true));
                 }
 	            if(c0 instanceof Identifier && c1 instanceof Identifier
 	                && !(c0.equals(c1))
@@ -85,7 +85,7 @@ public class TransformSimplifyExtended extends TreeTransformerBottomUpNoWrapper
 	                // Second condition makes sure the two identifiers are not the same. This can occur 
 	                // when there is a loop of equalities.
 	                m.global_symbols.unifyVariables(c0, c1);
-	                return new NodeReplacement(new BooleanConstant(true));
+	                return new NodeReplacement(BooleanConstant.make(true));
 	            }
 	            
 	            // Special case for SAT where one variable is a linear mapping of another.
@@ -108,12 +108,12 @@ public class TransformSimplifyExtended extends TreeTransformerBottomUpNoWrapper
                         if(c0 instanceof Identifier && c1 instanceof Negate && c1.getChild(0) instanceof Identifier
                             && (!m.global_symbols.preserveVariable(c0) || !m.global_symbols.preserveVariable(c1.getChild(0)))) {
                             m.global_symbols.unifyVariablesNegated(c0, c1);
-                            return new NodeReplacement(new BooleanConstant(true));
+                            return new NodeReplacement(BooleanConstant.make(true));
                         }
                         if(c1 instanceof Identifier && c0 instanceof Negate && c0.getChild(0) instanceof Identifier
                             && (!m.global_symbols.preserveVariable(c0.getChild(0)) || !m.global_symbols.preserveVariable(c1))) {
                             m.global_symbols.unifyVariablesNegated(c1, c0);
-                            return new NodeReplacement(new BooleanConstant(true));
+                            return new NodeReplacement(BooleanConstant.make(true));
                         }
                     }
                 }
@@ -121,12 +121,12 @@ public class TransformSimplifyExtended extends TreeTransformerBottomUpNoWrapper
             
             // Bare or negated boolean variable in the top-level And.
             if(curnode instanceof Identifier && doAssignVar && !m.global_symbols.preserveVariable(curnode)) {
-                m.global_symbols.assignVariable(curnode, new BooleanConstant(true));
-                return new NodeReplacement(new BooleanConstant(true));
+                m.global_symbols.assignVariable(curnode, BooleanConstant.make(true));
+                return new NodeReplacement(BooleanConstant.make(true));
             }
             if(curnode instanceof Negate && curnode.getChild(0) instanceof Identifier && doAssignVar && !m.global_symbols.preserveVariable(curnode.getChild(0))) {
-                m.global_symbols.assignVariable(curnode.getChild(0), new BooleanConstant(false));
-                return new NodeReplacement(new BooleanConstant(true));
+                m.global_symbols.assignVariable(curnode.getChild(0), BooleanConstant.make(false));
+                return new NodeReplacement(BooleanConstant.make(true));
             }
             
             //  Put unary constraints into the domain. 
@@ -137,7 +137,7 @@ public class TransformSimplifyExtended extends TreeTransformerBottomUpNoWrapper
                 ASTNode newdom=new Intersect(m.global_symbols.getDomain(n), curnode.getChild(1));
                 TransformSimplify ts=new TransformSimplify();
                 m.global_symbols.setDomain(n, ts.transform(newdom));
-                return new NodeReplacement(new BooleanConstant(true));
+                return new NodeReplacement(BooleanConstant.make(true));
             }
             
             //  Constants in AllDiff.   These appear in definedness cts which may be(come) top-level constraints.
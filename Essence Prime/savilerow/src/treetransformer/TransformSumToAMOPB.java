@@ -223,7 +223,7 @@ public class TransformSumToAMOPB extends TreeTransformerBottomUp
             }
         }
         
-        AMOPB amo=new AMOPB(CompoundMatrix.make(amoproducts), NumberConstant.make(cmp), NumberConstant.make(encoding), new BooleanConstant(equality), allBool);
+        AMOPB amo=new AMOPB(CompoundMatrix.make(amoproducts), NumberConstant.make(cmp), NumberConstant.make(encoding), BooleanConstant.make(equality), allBool);
         
         ASTNode cts=amo.collectAMOGroups(m);
         
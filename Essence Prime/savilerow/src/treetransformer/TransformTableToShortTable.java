@@ -49,30 +49,6 @@ public class TransformTableToShortTable extends TreeTransformerBottomUpNoWrapper
         return vardoms;
     }
 
-    // Return null if there is an empty short support
-    // (so the constraint is just true)
-    public static ASTNode convertHashSet(HashSet<ArrayList<Long>> shorttups) 
-    {
-        // turn short tuples into correct structure
-        ArrayList<ASTNode> shorttuplist = new ArrayList<ASTNode>();
-        for(ArrayList<Long> tup : shorttups) {
-          ArrayList<ASTNode> stup = new ArrayList<ASTNode>();
-          for(int i = 0; i < tup.size(); ++i) {
-            if(tup.get(i) != TupleCompress.free_value) {
-              ArrayList<ASTNode> pair = new ArrayList<ASTNode>(2);
-              pair.add(NumberConstant.make(i+1));
-              pair.add(NumberConstant.make(tup.get(i)));
-              stup.add(new CompoundMatrix(pair));
-            }
-          }
-          if(stup.isEmpty()) {
-            return CompoundMatrix.make(CompoundMatrix.make(new ArrayList<ASTNode>()));
-          }
-          shorttuplist.add(new CompoundMatrix(stup));
-        }
-        return CompoundMatrix.make(shorttuplist);
-    }
-    
     protected NodeReplacement processNode(ASTNode curnode)
 	{
 	    if(curnode instanceof Table) {
@@ -87,29 +63,23 @@ public class TransformTableToShortTable extends TreeTransformerBottomUpNoWrapper
             
             ArrayList<ArrayList<Intpair>> doms = getDomainLists(vars, m);
             
-            HashSet<ArrayList<Long>> long_tuples = new HashSet<ArrayList<Long>>();
+            TupleStore long_tuples = new TupleStore(vars.size());
+            long[] t = new long[vars.size()];
             
             for(int i = 1; i < tuples.numChildren(); i++) {
-              ArrayList<Long> tup = new ArrayList<Long>();
               for(int j = 1; j <= vars.size(); ++j) {
-                tup.add(tuples.getChild(i).getChild(j).getValue());
+                t[j-1] = tuples.getChild(i).getValueIdx(j);
               }
-              long_tuples.add(tup);
+              long_tuples.add(t);
             }
+            long_tuples.pack();
             
-            HashSet<ArrayList<Long>> shorttups;
-            shorttups = TupleCompress.full_squeeze_tuples(long_tuples, doms, false);
+            TupleStore shorttups = TupleCompress.full_squeeze_tuples(long_tuples, doms);
             if(CmdFlags.verbose_make_short) {
               System.out.println("Squashed a long table. " + long_tuples.size() + " -> " + shorttups.size());
             }
             
-            ASTNode tup = convertHashSet(shorttups);
-            if(tup == null) {
-              if(CmdFlags.verbose_make_short) {
-                System.out.println("Table is just 'true'!");
-              }
-              return new NodeReplacement(new BooleanConstant(true));
-            }
+            ASTNode tup = shorttups.toShortTable();
             return new NodeReplacement(new TableShort(m, new CompoundMatrix(vars), tup));
         }
         return null;
@@ -54,7 +54,7 @@ public abstract class TreeTransformerBottomUp extends TreeTransformer
     
     @Override
     public ASTNode getContextCts() {
-        if(relContextConstraint.equals(new BooleanConstant(true))) {
+        if(relContextConstraint.equals(BooleanConstant.make(true))) {
             return null;
         }
         else {
@@ -81,7 +81,7 @@ public abstract class TreeTransformerBottomUp extends TreeTransformer
 	    
 	    // Set up data structures
 	    newConstraints=new ArrayList<ASTNode>();
-	    relContextConstraint=new BooleanConstant(true);  /// Default value for this
+	    relContextConstraint=BooleanConstant.make(true);  /// Default value for this
 	    
 	    recursiveSearch(box);
 	    